@@ -0,0 +1,59 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache-invalidation")
+@Getter
+@Setter
+public class CacheInvalidationConfig {
+
+    /**
+     * Off for single-node deployments; nothing is written or listened to then.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Postgres NOTIFY channel shared by every node.
+     */
+    private String channel = "cache_invalidation";
+
+    /**
+     * Identifies this node in notifications so it skips its own; random per start.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Notifications arriving within this window of the first are merged into one call per
+     * entity type.
+     */
+    private Duration coalesceWindow = Duration.ofMillis(100);
+
+    /**
+     * Longest wait for a notification before the listener checks whether it should stop.
+     */
+    private Duration pollTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Pause before reconnecting after the listening connection failed.
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+
+    /**
+     * How long invalidation rows are kept for resync. A node disconnected for longer
+     * clears its caches entirely instead.
+     */
+    private Duration retention = Duration.ofHours(1);
+
+    /**
+     * Rows written this long before the connection was lost are replayed too, to cover
+     * transactions that took a lower version but committed after a higher one was seen.
+     */
+    private Duration resyncOverlap = Duration.ofMinutes(1);
+}
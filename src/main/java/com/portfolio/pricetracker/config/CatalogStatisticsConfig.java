@@ -0,0 +1,49 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+@ConfigurationProperties(prefix = "catalog-statistics")
+@Getter
+@Setter
+public class CatalogStatisticsConfig {
+
+    /**
+     * Number of listing ranges scanned at once. Each scan holds a database connection, so
+     * keep it below spring.datasource.hikari.maximum-pool-size.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Listings per range; ranges are the unit of work spread over the threads, and of the
+     * bulk write of results.
+     */
+    private int rangeListings = 2_000;
+
+    /**
+     * Price history rows fetched per round trip by each range scan.
+     */
+    private int fetchSize = 10_000;
+
+    /**
+     * A listing not seen by a scrape for this long is reported as stale.
+     */
+    private Duration staleAfter = Duration.ofDays(3);
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool catalogStatisticsPool() {
+        return new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("catalog-stats-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,32 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "events")
+@Getter
+@Setter
+public class EventBusConfig {
+
+    /**
+     * Events kept in the ring buffer, rounded up to a power of two. Publishing waits for
+     * consumers rather than overwrite events they have not read, up to publish-timeout.
+     */
+    private int ringSize = 65_536;
+
+    /**
+     * Most events handed to a consumer in one call.
+     */
+    private int maxBatchSize = 256;
+
+    /**
+     * How long publishing waits for a consumer a full ring behind before leaving it behind;
+     * that consumer then loses the events it has not read and is told to recover.
+     */
+    private Duration publishTimeout = Duration.ofMillis(100);
+}
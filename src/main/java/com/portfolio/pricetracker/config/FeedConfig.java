@@ -0,0 +1,46 @@
+package com.portfolio.pricetracker.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "feed")
+@Getter
+@Setter
+public class FeedConfig {
+
+    /**
+     * Open SSE connections accepted per node.
+     */
+    private int maxSubscribers = 10_000;
+
+    /**
+     * Threads writing events to clients; a client slower than its updates holds one
+     * while the others keep being served.
+     */
+    private int sendThreads = 8;
+
+    /**
+     * Connection lifetime; clients reconnect after it (EventSource does so automatically).
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * Comment line sent to every client so dead connections are noticed between changes.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService feedExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, sendThreads),
+                new ThreadFactoryBuilder().setNameFormat("feed-%d").setDaemon(true).build());
+    }
+}
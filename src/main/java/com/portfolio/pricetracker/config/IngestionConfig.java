@@ -0,0 +1,41 @@
+package com.portfolio.pricetracker.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "ingestion")
+@Getter
+@Setter
+public class IngestionConfig {
+
+    /**
+     * Number of worker threads used to ingest a single scrape result set.
+     * 1 processes items sequentially on the calling thread.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Maximum number of listing fingerprints kept in memory to short-circuit unchanged items.
+     */
+    private long fingerprintCacheSize = 100_000;
+
+    /**
+     * Changed listings per LISTING cache invalidation: each ingestion partition tells other
+     * nodes about its committed changes in one write per this many listings.
+     */
+    private int invalidationBatchSize = 500;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService ingestionExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, parallelism),
+                new ThreadFactoryBuilder().setNameFormat("ingest-%d").setDaemon(true).build());
+    }
+}
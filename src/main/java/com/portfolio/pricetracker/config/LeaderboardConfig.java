@@ -0,0 +1,33 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "leaderboard")
+@Getter
+@Setter
+public class LeaderboardConfig {
+
+    /**
+     * Windows the price drop / increase rankings are kept in memory for; other windows
+     * are ranked by the database.
+     */
+    private List<Duration> windows = List.of(Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30));
+
+    /**
+     * Largest limit served from memory.
+     */
+    private int size = 100;
+
+    /**
+     * How often every listing is re-scored as the windows slide; baselines can be this
+     * much out of date in between.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+}
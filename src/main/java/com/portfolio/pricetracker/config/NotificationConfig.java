@@ -0,0 +1,67 @@
+package com.portfolio.pricetracker.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "notifications")
+@Getter
+@Setter
+public class NotificationConfig {
+
+    /**
+     * Delivery channel: "log" (default) or "http".
+     */
+    private String channel = "log";
+
+    /**
+     * Outbox rows claimed per dispatch round.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Digests delivered concurrently.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Delivery attempts before a notification is marked FAILED.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the first retry; doubles on every further attempt.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+
+    /**
+     * How long a claimed row stays invisible to other dispatchers while it is being sent.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(2);
+
+    private Http http = new Http();
+
+    @Getter
+    @Setter
+    public static class Http {
+        /**
+         * Endpoint receiving one POST per digest when channel is "http".
+         */
+        private String url;
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService notificationExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, concurrency),
+                new ThreadFactoryBuilder().setNameFormat("notify-%d").setDaemon(true).build());
+    }
+}
@@ -0,0 +1,27 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "percentiles")
+@Getter
+@Setter
+public class PercentilesConfig {
+
+    /**
+     * Relative error of the category price percentiles (0.01 = within 1% of the exact
+     * value). Snapshots keep the accuracy they were taken with.
+     */
+    private double relativeAccuracy = 0.01;
+
+    /**
+     * How often the category sketches are rebuilt from product_listings, which repairs
+     * anything events did not report (dropped events, listings deleted in SQL).
+     */
+    private Duration rebuildInterval = Duration.ofHours(6);
+}
@@ -0,0 +1,77 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "price-history")
+@Getter
+@Setter
+public class PriceHistoryConfig {
+
+    /**
+     * Monthly price_history partitions kept created ahead of the current month.
+     */
+    private int partitionsAhead = 3;
+
+    /**
+     * Months of history kept attached to price_history; older partitions are detached.
+     * 0 keeps everything.
+     */
+    private int retentionMonths = 0;
+
+    /**
+     * Drop detached partitions instead of leaving them as standalone tables.
+     */
+    private boolean dropExpiredPartitions = false;
+
+    /**
+     * How far back the hourly rollup catch-up looks for history without rollup buckets.
+     */
+    private int rollupCatchUpHours = 48;
+
+    /**
+     * Longest range served from raw history intervals instead of rollups.
+     */
+    private int rawMaxRangeHours = 48;
+
+    /**
+     * Most hourly buckets a series may span before daily rollups are used.
+     */
+    private int maxHourlyBuckets = 720;
+
+    /**
+     * Largest number of points per listing a downsampled chart series may ask for.
+     */
+    private int maxChartPoints = 2000;
+
+    /**
+     * Rows the JDBC driver fetches per round trip while streaming a price history export.
+     */
+    private int exportFetchSize = 5000;
+
+    /**
+     * Largest number of listings a page of an as-of price snapshot may ask for.
+     */
+    private int maxSnapshotPageSize = 5000;
+
+    /**
+     * Intervals that ended more than this many days ago (whole months only) are moved to
+     * cold segment files by PriceHistoryTieringService. 0 (the default) keeps everything in
+     * PostgreSQL; anything else needs cold-storage-dir.
+     */
+    private int hotDays = 0;
+
+    /**
+     * Absolute path of the directory holding the cold segment files, one per month. Every
+     * node must mount the same shared directory: tiered history is no longer in PostgreSQL.
+     */
+    private String coldStorageDir;
+
+    /**
+     * Rows the JDBC driver fetches per round trip while a month is moved to its segment.
+     */
+    private int tieringFetchSize = 10000;
+}
@@ -0,0 +1,21 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "price-index")
+@Getter
+@Setter
+public class PriceIndexConfig {
+
+    /**
+     * How often the price relatives consumed since the last run are added to
+     * category_price_index; the open day's provisional value lags by at most this.
+     */
+    private Duration persistInterval = Duration.ofMinutes(1);
+}
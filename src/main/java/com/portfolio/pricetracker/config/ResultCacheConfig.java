@@ -0,0 +1,28 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "result-cache")
+@Getter
+@Setter
+public class ResultCacheConfig {
+
+    /**
+     * Entries kept per cache (comparisons, product summaries, price movements); least
+     * recently used ones are evicted beyond it.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Age after which an entry is reloaded even without an invalidation. Bounds what no
+     * event reports: lastScrapedAt of unchanged listings and the sliding of price-movement
+     * windows.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
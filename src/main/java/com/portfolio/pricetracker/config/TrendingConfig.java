@@ -0,0 +1,46 @@
+package com.portfolio.pricetracker.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "trending")
+@Getter
+@Setter
+public class TrendingConfig {
+
+    /**
+     * Time after which a view or price event counts half as much.
+     */
+    private Duration halfLife = Duration.ofHours(24);
+
+    /**
+     * Score added by one product page or history view.
+     */
+    private double viewWeight = 1.0;
+
+    /**
+     * Score added by one ingested listing creation, price or stock change.
+     */
+    private double changeWeight = 1.0;
+
+    /**
+     * Products kept ranked in memory; the largest limit the endpoint serves.
+     */
+    private int size = 100;
+
+    /**
+     * How often local increments are merged into trending_scores and the scores of all
+     * nodes are read back.
+     */
+    private Duration persistInterval = Duration.ofMinutes(1);
+
+    /**
+     * Decayed scores below this are forgotten.
+     */
+    private double minScore = 0.01;
+}
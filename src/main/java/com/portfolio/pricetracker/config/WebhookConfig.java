@@ -0,0 +1,69 @@
+package com.portfolio.pricetracker.config;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@ConfigurationProperties(prefix = "webhooks")
+@Getter
+@Setter
+public class WebhookConfig {
+
+    /**
+     * How long events are gathered per subscriber before being sent as one batch.
+     */
+    private Duration batchWindow = Duration.ofSeconds(2);
+
+    /**
+     * Events per POST; a longer backlog is split over several requests.
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * Events buffered per subscriber; beyond it the oldest are dropped.
+     */
+    private int maxQueuedEvents = 10_000;
+
+    /**
+     * Requests in flight per subscriber, retries included.
+     */
+    private int concurrencyPerSubscriber = 2;
+
+    /**
+     * Threads driving the shared HTTP client.
+     */
+    private int poolSize = 8;
+
+    /**
+     * Delivery attempts per batch before it is dropped.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the first retry; doubles on every further attempt.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Allows plain http and targets on loopback, private and link-local addresses. Only
+     * for local development and tests: subscribers could otherwise make the server call
+     * internal services.
+     */
+    private boolean allowPrivateTargets = false;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService webhookExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, poolSize),
+                new ThreadFactoryBuilder().setNameFormat("webhook-%d").setDaemon(true).build());
+    }
+}
@@ -1,12 +1,25 @@
 package com.portfolio.pricetracker.controller;
 
+import com.portfolio.pricetracker.dto.CategoryPercentilesDTO;
+import com.portfolio.pricetracker.dto.CategoryPriceIndexDTO;
+import com.portfolio.pricetracker.dto.ListingStatisticsDTO;
 import com.portfolio.pricetracker.dto.PriceComparisonDTO;
 import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.PriceSnapshotDTO;
+import com.portfolio.pricetracker.dto.ResultCacheStatsDTO;
+import com.portfolio.pricetracker.dto.SourcePriceGapDTO;
 import com.portfolio.pricetracker.dto.TrendingProductDTO;
+import com.portfolio.pricetracker.service.AnalyticsResultCache;
 import com.portfolio.pricetracker.service.AnalyticsService;
+import com.portfolio.pricetracker.service.CatalogStatistics;
+import com.portfolio.pricetracker.service.CategoryPriceIndex;
+import com.portfolio.pricetracker.service.CategoryPricePercentiles;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -15,6 +28,10 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AnalyticsResultCache resultCache;
+    private final CategoryPricePercentiles categoryPercentiles;
+    private final CatalogStatistics catalogStatistics;
+    private final CategoryPriceIndex categoryPriceIndex;
 
     @GetMapping("/price-drops")
     public List<PriceDropDTO> getPriceDrops(
@@ -40,4 +57,72 @@ public class AnalyticsController {
     public PriceComparisonDTO compare(@RequestParam Long productId) {
         return analyticsService.compareProduct(productId);
     }
+
+    // Every listing's price as of a time, e.g. /api/analytics/snapshot?at=2026-01-01T00:00:00&category=GPU;
+    // pass nextAfter back as after for the next page
+    @GetMapping("/snapshot")
+    public PriceSnapshotDTO snapshot(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long sourceId,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        return analyticsService.getPriceSnapshot(at, productId, sourceId, category, after, limit);
+    }
+
+    // e.g. /api/analytics/percentiles?category=Monitors&q=0.1,0.5,0.9
+    @GetMapping("/percentiles")
+    public CategoryPercentilesDTO percentiles(
+            @RequestParam String category,
+            @RequestParam(defaultValue = "0.1,0.5,0.9") List<Double> q) {
+        return categoryPercentiles.current(category, q);
+    }
+
+    // One entry per daily snapshot; defaults to the last 30 days
+    @GetMapping("/percentiles/history")
+    public List<CategoryPercentilesDTO> percentileHistory(
+            @RequestParam String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0.1,0.5,0.9") List<Double> q) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return categoryPercentiles.history(category, start, end, q);
+    }
+
+    // Chained daily index of the category's prices (first day = 100); defaults to the last 90 days
+    @GetMapping("/price-index")
+    public CategoryPriceIndexDTO priceIndex(
+            @RequestParam String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(90);
+        return categoryPriceIndex.series(category, start, end);
+    }
+
+    // As of the last nightly catalog statistics run
+    @GetMapping("/volatility")
+    public List<ListingStatisticsDTO> mostVolatile(
+            @RequestParam(defaultValue = "20") int limit) {
+        return catalogStatistics.mostVolatile(limit);
+    }
+
+    @GetMapping("/stale-listings")
+    public List<ListingStatisticsDTO> staleListings(
+            @RequestParam(defaultValue = "100") int limit) {
+        return catalogStatistics.staleListings(limit);
+    }
+
+    @GetMapping("/source-gaps")
+    public List<SourcePriceGapDTO> sourceGaps() {
+        return catalogStatistics.sourcePriceGaps();
+    }
+
+    // Hit ratio, load times and evictions of the result caches since startup
+    @GetMapping("/cache")
+    public List<ResultCacheStatsDTO> cacheStats() {
+        return resultCache.stats();
+    }
 }
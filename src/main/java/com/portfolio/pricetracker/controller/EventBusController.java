@@ -0,0 +1,23 @@
+package com.portfolio.pricetracker.controller;
+
+import com.portfolio.pricetracker.dto.EventConsumerStatsDTO;
+import com.portfolio.pricetracker.service.event.PriceEventBus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+public class EventBusController {
+
+    private final PriceEventBus priceEventBus;
+
+    @GetMapping("/consumers")
+    public List<EventConsumerStatsDTO> consumers() {
+        return priceEventBus.stats();
+    }
+}
@@ -0,0 +1,56 @@
+package com.portfolio.pricetracker.controller;
+
+import com.portfolio.pricetracker.service.PriceHistoryExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final PriceHistoryExporter exporter;
+
+    // e.g. /api/export/price-history?format=csv&productId=1&from=2025-01-01T00:00:00&gzip=true
+    // Written on the request thread, so no async timeout cuts long exports short
+    @GetMapping("/price-history")
+    public void exportPriceHistory(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        // Rejected before any header is set, while the error can still be sent as JSON
+        PriceHistoryExporter.Format exportFormat = PriceHistoryExporter.Format.of(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        response.setContentType(exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"price-history." + exportFormat.extension() + "\"");
+        if (gzip) response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        OutputStream body = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(body, 64 * 1024)) {
+                exporter.export(productId, from, to, exportFormat, compressed);
+            }
+        } else {
+            exporter.export(productId, from, to, exportFormat, body);
+        }
+    }
+}
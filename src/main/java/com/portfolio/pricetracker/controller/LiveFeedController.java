@@ -0,0 +1,30 @@
+package com.portfolio.pricetracker.controller;
+
+import com.portfolio.pricetracker.service.LivePriceFeed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/feed")
+@RequiredArgsConstructor
+public class LiveFeedController {
+
+    private final LivePriceFeed livePriceFeed;
+
+    // e.g. /api/feed/prices?productIds=1,2&categories=GPU
+    @GetMapping(value = "/prices", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter prices(
+            @RequestParam(required = false) List<Long> productIds,
+            @RequestParam(required = false) List<String> categories) {
+        return livePriceFeed.subscribe(
+                productIds == null ? List.of() : productIds,
+                categories == null ? List.of() : categories);
+    }
+}
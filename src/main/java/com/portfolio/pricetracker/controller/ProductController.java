@@ -1,14 +1,19 @@
 package com.portfolio.pricetracker.controller;
 
+import com.portfolio.pricetracker.dto.PriceSeriesDTO;
 import com.portfolio.pricetracker.dto.ProductDTO;
+import com.portfolio.pricetracker.service.AnalyticsService;
 import com.portfolio.pricetracker.service.ProductService;
+import com.portfolio.pricetracker.service.TrendingScores;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,6 +22,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final AnalyticsService analyticsService;
+    private final TrendingScores trendingScores;
 
     @GetMapping
     public List<ProductDTO> getAll(
@@ -29,7 +36,26 @@ public class ProductController {
 
     @GetMapping("/{id}")
     public ProductDTO getById(@PathVariable Long id) {
-        return productService.findById(id);
+        ProductDTO product = productService.findById(id);
+        trendingScores.recordView(id);
+        return product;
+    }
+
+    // Defaults to the last 30 days; resolution (RAW / HOUR / DAY) follows the range.
+    // With points, at most that many candles per listing, chosen by LTTB downsampling
+    @GetMapping("/{id}/history")
+    public PriceSeriesDTO getHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer points) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        productService.findById(id); // 404 for unknown or deleted products
+        trendingScores.recordView(id);
+        return points == null
+                ? analyticsService.getPriceSeries(id, start, end)
+                : analyticsService.getDownsampledSeries(id, start, end, points);
     }
 
     @PostMapping
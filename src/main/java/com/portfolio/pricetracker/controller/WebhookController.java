@@ -0,0 +1,36 @@
+package com.portfolio.pricetracker.controller;
+
+import com.portfolio.pricetracker.dto.CreateWebhookRequest;
+import com.portfolio.pricetracker.dto.WebhookSubscriptionDTO;
+import com.portfolio.pricetracker.service.WebhookService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+public class WebhookController {
+
+    private final WebhookService webhookService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public WebhookSubscriptionDTO subscribe(@Valid @RequestBody CreateWebhookRequest request) {
+        return webhookService.subscribe(request);
+    }
+
+    @GetMapping
+    public List<WebhookSubscriptionDTO> getAll() {
+        return webhookService.findAll();
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void unsubscribe(@PathVariable Long id) {
+        webhookService.unsubscribe(id);
+    }
+}
@@ -0,0 +1,39 @@
+package com.portfolio.pricetracker.dto;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Body of the HTTP notification channel: every alert of one user delivered in a round.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertDigestDTO {
+
+    private String userEmail;
+    private List<AlertItemDTO> alerts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AlertItemDTO {
+        private Long notificationId;
+        private Long alertId;
+        private Long productId;
+        private String productName;
+        private AlertRuleType ruleType;
+        private BigDecimal targetPrice;
+        private BigDecimal currentPrice;
+        private LocalDateTime triggeredAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Percentiles of the current prices of a category's listings, keyed "p10", "p50", "p99.5"
+ * and so on, each within relativeAccuracy of the exact value. date is null for the live
+ * distribution and the snapshot day otherwise.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryPercentilesDTO {
+    private String category;
+    private LocalDate date;
+    private long listingCount;
+    private double relativeAccuracy;
+    private Map<String, BigDecimal> percentiles;
+}
@@ -0,0 +1,42 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily values of a category's chained price index, oldest first; the category's first
+ * day is worth {@code base}, so 112.5 means prices are 12.5% above where they started.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryPriceIndexDTO {
+
+    private String category;
+    private double base;
+    private List<IndexPointDTO> points;
+
+    /**
+     * changePercent is against the previous day. matchedListings is the number of
+     * listings the day's relatives are averaged over and priceChanges how many changes it
+     * saw. The current day is provisional: its value moves with each change until midnight.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexPointDTO {
+        private LocalDate date;
+        private double value;
+        private double changePercent;
+        private int matchedListings;
+        private int priceChanges;
+        private boolean provisional;
+    }
+}
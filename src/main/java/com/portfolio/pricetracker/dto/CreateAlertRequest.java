@@ -1,16 +1,24 @@
 package com.portfolio.pricetracker.dto;
 
+import com.portfolio.pricetracker.entity.AlertRuleType;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
+@Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreateAlertRequest {
     private String userEmail;
     private Long productId;
+    // Defaults to TARGET_PRICE
+    private AlertRuleType ruleType;
+    // Required for TARGET_PRICE
     private BigDecimal targetPrice;
+    // Required for PERCENT_DROP, e.g. 15 for "15% below today's lowest price"
+    private BigDecimal dropPercent;
 }
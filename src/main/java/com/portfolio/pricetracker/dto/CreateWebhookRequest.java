@@ -0,0 +1,21 @@
+package com.portfolio.pricetracker.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateWebhookRequest {
+
+    @NotBlank(message = "Webhook url is required")
+    private String url;
+
+    // At most one of productId / category; neither subscribes to every product
+    private Long productId;
+    private String category;
+}
@@ -0,0 +1,23 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of one PriceEventBus consumer. lag: events published but not yet handed to it;
+ * dropped: events overwritten in the ring before it got to them.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class EventConsumerStatsDTO {
+    private String consumer;
+    private long lag;
+    private boolean behind;
+    private long processed;
+    private long dropped;
+    private long failed;
+    private long batches;
+    private double eventsPerSecond;
+}
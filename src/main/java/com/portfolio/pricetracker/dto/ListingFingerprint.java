@@ -0,0 +1,28 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Last ingested state of a listing, keyed by URL in ListingFingerprintCache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingFingerprint {
+
+    private String url;
+    private Long listingId;
+    private BigDecimal price;
+    private Boolean inStock;
+
+    public boolean matches(ScrapedProductDTO scraped) {
+        return price != null && scraped.getPrice() != null
+                && price.compareTo(scraped.getPrice()) == 0
+                && Objects.equals(inStock, scraped.getInStock());
+    }
+}
@@ -0,0 +1,41 @@
+package com.portfolio.pricetracker.dto;
+
+import com.portfolio.pricetracker.entity.ListingPriceStats;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Listing of a product with its product and source names and its ListingPriceStats, read
+ * in one joined query as an interface projection; AnalyticsService builds the price
+ * comparison from it. The statistics are null for a listing that has no price yet.
+ */
+public interface ListingPriceView {
+
+    String getProductName();
+
+    Long getListingId();
+
+    String getSourceName();
+
+    BigDecimal getCurrentPrice();
+
+    Boolean getInStock();
+
+    String getUrl();
+
+    LocalDateTime getLastScrapedAt();
+
+    Double getObservedSeconds();
+
+    Double getMeanPrice();
+
+    Double getM2();
+
+    BigDecimal getAllTimeLow();
+
+    List<ListingPriceStats.RecentLow> getRecentLows();
+
+    Double getDealScore();
+}
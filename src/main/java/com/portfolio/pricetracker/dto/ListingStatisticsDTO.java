@@ -0,0 +1,36 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Statistics of one listing over its price history, as of the last catalog statistics
+ * run (computedAt). meanPrice is weighted by how long each price lasted; volatility is the
+ * daily realized volatility of its log price changes. Price statistics are null when the
+ * listing has no history left in PostgreSQL.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingStatisticsDTO {
+    private Long listingId;
+    private Long productId;
+    private String productName;
+    private String sourceName;
+    private String url;
+    private int intervalCount;
+    private long sampleCount;
+    private Double meanPrice;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double volatility;
+    private LocalDateTime firstSeenAt;
+    private LocalDateTime lastSeenAt;
+    private boolean stale;
+    private LocalDateTime computedAt;
+}
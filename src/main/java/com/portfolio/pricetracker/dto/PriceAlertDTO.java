@@ -1,5 +1,6 @@
 package com.portfolio.pricetracker.dto;
 
+import com.portfolio.pricetracker.entity.AlertRuleType;
 import com.portfolio.pricetracker.entity.AlertStatus;
 import lombok.Builder;
 import lombok.Data;
@@ -14,7 +15,10 @@ public class PriceAlertDTO {
     private String userEmail;
     private Long productId;
     private String productName;
+    private AlertRuleType ruleType;
     private BigDecimal targetPrice;
+    private BigDecimal dropPercent;
+    private BigDecimal referencePrice;
     private AlertStatus status;
     private LocalDateTime triggeredAt;
     private LocalDateTime createdAt;
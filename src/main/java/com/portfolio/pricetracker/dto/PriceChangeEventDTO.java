@@ -0,0 +1,30 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A listing's price or stock as committed by ingestion, with the values it replaced
+ * (null for a new listing).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceChangeEventDTO {
+    private Long productId;
+    private String productName;
+    private String category;
+    private Long listingId;
+    private String url;
+    private BigDecimal previousPrice;
+    private BigDecimal price;
+    private Boolean previousInStock;
+    private Boolean inStock;
+    private LocalDateTime changedAt;
+}
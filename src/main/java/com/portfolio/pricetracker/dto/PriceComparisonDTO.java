@@ -30,5 +30,12 @@ public class PriceComparisonDTO {
         private Boolean inStock;
         private String url;
         private LocalDateTime lastScrapedAt;
+        private BigDecimal allTimeLow;
+        private BigDecimal low30Days;
+        private BigDecimal low90Days;
+        private Double meanPrice;
+        private Double priceStdDev;
+        // 0 to 100, higher is cheaper than the listing's usual prices
+        private Double dealScore;
     }
 }
@@ -0,0 +1,29 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One price history interval with the metadata of its listing, as written by
+ * PriceHistoryExporter. Built per row from the export cursor and dropped once written.
+ */
+@Data
+@AllArgsConstructor
+public class PriceHistoryExportRow {
+
+    private long id;
+    private long listingId;
+    private long productId;
+    private String productName;
+    private String sourceName;
+    private String url;
+    private BigDecimal price;
+    private Boolean inStock;
+    private LocalDateTime scrapedAt;
+    private LocalDateTime validTo;
+    private LocalDateTime lastConfirmedAt;
+    private int sampleCount;
+}
@@ -0,0 +1,28 @@
+package com.portfolio.pricetracker.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Row of the price-movement ranking query, read as an interface projection so no entity
+ * is loaded; AnalyticsService copies it into a PriceDropDTO.
+ */
+public interface PriceMovementView {
+
+    Long getProductId();
+
+    String getProductName();
+
+    Long getListingId();
+
+    String getSourceName();
+
+    String getUrl();
+
+    BigDecimal getPreviousPrice();
+
+    BigDecimal getCurrentPrice();
+
+    BigDecimal getPriceChange();
+
+    Double getChangePercentage();
+}
@@ -0,0 +1,39 @@
+package com.portfolio.pricetracker.dto;
+
+import com.portfolio.pricetracker.entity.RollupResolution;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSeriesDTO {
+
+    private Long productId;
+    private RollupResolution resolution;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<CandleDTO> candles;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CandleDTO {
+        private Long listingId;
+        // Bucket start, or interval start for RAW
+        private LocalDateTime time;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private int sampleCount;
+    }
+}
@@ -0,0 +1,49 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of the prices every listing had at {@code at}, ordered by listing id. Listings
+ * without any price at or before {@code at} are left out. nextAfter is passed back as
+ * {@code after} to read the next page, and is null on the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSnapshotDTO {
+
+    private LocalDateTime at;
+    private List<ListingSnapshotDTO> listings;
+    private Long nextAfter;
+
+    /**
+     * The price interval in effect at the snapshot time: priceSince is when the listing
+     * changed to this price, validTo when it changed again (null if it has not), and
+     * lastConfirmedAt the last scrape that saw it, so a snapshot time after lastConfirmedAt
+     * with no validTo means the listing was no longer being scraped.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ListingSnapshotDTO {
+        private Long listingId;
+        private Long productId;
+        private String productName;
+        private String sourceName;
+        private String url;
+        private BigDecimal price;
+        private Boolean inStock;
+        private LocalDateTime priceSince;
+        private LocalDateTime validTo;
+        private LocalDateTime lastConfirmedAt;
+    }
+}
@@ -23,4 +23,7 @@ public class ProductDTO {
     private String imageUrl;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    // Best deal score among the product's listings (0 to 100), read only
+    private Double dealScore;
 }
@@ -0,0 +1,27 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Counters of one AnalyticsResultCache cache since startup. misses counts requests that
+ * waited for a load, including those that joined a load already in flight; loads counts
+ * actual database round-trips.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ResultCacheStatsDTO {
+    private String cache;
+    private long size;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long loads;
+    private long loadFailures;
+    private double averageLoadMillis;
+    private double maxLoadMillis;
+    private long evictions;
+    private long invalidations;
+}
@@ -0,0 +1,27 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How much dearer a source's listings are than the cheapest listing of the same product,
+ * by time-weighted mean price over products listed by at least two sources. cheapestListings
+ * counts the compared listings that were the cheapest of their product.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SourcePriceGapDTO {
+    private Long sourceId;
+    private String sourceName;
+    private int comparedListings;
+    private int cheapestListings;
+    private double meanGapPercent;
+    private double maxGapPercent;
+    private LocalDateTime computedAt;
+}
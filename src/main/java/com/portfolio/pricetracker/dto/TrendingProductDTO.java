@@ -15,6 +15,6 @@ public class TrendingProductDTO {
 
     private Long productId;
     private String productName;
-    private long scrapeCount;
+    private double score;                 // time-decayed views and ingested changes
     private BigDecimal lowestCurrentPrice;
 }
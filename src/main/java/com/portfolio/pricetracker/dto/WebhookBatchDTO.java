@@ -0,0 +1,20 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of one webhook POST: the events gathered for a subscription during a batch window.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookBatchDTO {
+    private Long subscriptionId;
+    private List<PriceChangeEventDTO> events;
+}
@@ -0,0 +1,16 @@
+package com.portfolio.pricetracker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class WebhookSubscriptionDTO {
+    private Long id;
+    private String url;
+    private Long productId;
+    private String category;
+    private LocalDateTime createdAt;
+}
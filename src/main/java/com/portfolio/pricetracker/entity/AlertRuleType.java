@@ -0,0 +1,29 @@
+package com.portfolio.pricetracker.entity;
+
+/**
+ * What a PriceAlert watches for. Threshold rules compile to a target price and fire when
+ * any listing of the product is at or below it; event rules fire on a change of a
+ * listing's state.
+ */
+public enum AlertRuleType {
+    /** Any listing at or below targetPrice */
+    TARGET_PRICE(true),
+    /** Lowest price at creation (referencePrice) down by dropPercent; compiled to targetPrice */
+    PERCENT_DROP(true),
+    /** A listing goes from out of stock to in stock */
+    BACK_IN_STOCK(false),
+    /** A listing becomes the cheapest in-stock store of a product sold by at least two */
+    CHEAPEST_STORE(false),
+    /** A listing's price goes below the lowest price ever recorded for the product */
+    ALL_TIME_LOW(false);
+
+    private final boolean threshold;
+
+    AlertRuleType(boolean threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isThreshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,196 @@
+package com.portfolio.pricetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Running price statistics of one listing, updated in O(1) amortized each time its price
+ * changes, so judging the current price never scans its history.
+ *
+ * Every price level (a price the listing changed to) weighs as long as it was in effect:
+ * when a level ends, its price enters the mean and variance with its duration as weight
+ * (West's weighted form of Welford's update), so a one-hour spike does not count as much
+ * as a price held for a month. The current level (the last recentLows entry, in effect
+ * since levelSince) is not counted until it ends. recentLows is a monotonic deque of the
+ * levels of the last 90 days that were cheaper than every later level; the low over any
+ * window up to 90 days is the first deque entry still in effect inside the window.
+ * dealScore is stored because it only depends on values that change here.
+ */
+@Entity
+@Table(name = "listing_price_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ListingPriceStats implements Persistable<Long> {
+
+    public static final Duration LOW_WINDOW = Duration.ofDays(90);
+
+    /**
+     * Level of {@code price} that ended at epoch second {@code until} (UTC wall clock, as
+     * timestamps are stored), or is still in effect when null.
+     */
+    public record RecentLow(BigDecimal price, Long until) {
+    }
+
+    @Id
+    private Long listingId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    // Price levels, the current one included
+    @Column(nullable = false)
+    private long priceCount;
+
+    // Total duration of the ended levels: the weight behind meanPrice and m2
+    @Column(nullable = false)
+    private double observedSeconds;
+
+    @Column(nullable = false)
+    private double meanPrice;
+
+    // Duration-weighted sum of squared deviations from the mean
+    @Column(nullable = false)
+    private double m2;
+
+    @Column(nullable = false)
+    private LocalDateTime levelSince;
+
+    @Column(nullable = false)
+    private BigDecimal allTimeLow;
+
+    @Column(nullable = false)
+    private LocalDateTime allTimeLowAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    @Builder.Default
+    private List<RecentLow> recentLows = new ArrayList<>();
+
+    @Column(nullable = false)
+    private double dealScore;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // The id is assigned, so save() must be told to insert instead of merging (one SELECT fewer)
+    @Transient
+    private boolean inserting;
+
+    public static ListingPriceStats first(Long listingId, Long productId, BigDecimal price, LocalDateTime at) {
+        return ListingPriceStats.builder()
+                .listingId(listingId)
+                .productId(productId)
+                .priceCount(1)
+                .observedSeconds(0)
+                .meanPrice(price.doubleValue())
+                .m2(0)
+                .levelSince(at)
+                .allTimeLow(price)
+                .allTimeLowAt(at)
+                .recentLows(List.of(new RecentLow(price, null)))
+                .dealScore(dealScore(price, 0, price.doubleValue(), 0))
+                .updatedAt(at)
+                .inserting(true)
+                .build();
+    }
+
+    @Override
+    public Long getId() {
+        return listingId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return inserting;
+    }
+
+    @PostPersist
+    void persisted() {
+        inserting = false;
+    }
+
+    /**
+     * The listing changed to {@code price} at {@code at}.
+     */
+    public void recordPrice(BigDecimal price, LocalDateTime at) {
+        double seconds = Duration.between(levelSince, at).toNanos() / 1e9;
+        if (seconds > 0 && !recentLows.isEmpty()) {
+            double ended = recentLows.get(recentLows.size() - 1).price().doubleValue();
+            observedSeconds += seconds;
+            double delta = ended - meanPrice;
+            meanPrice += delta * seconds / observedSeconds;
+            m2 += seconds * delta * (ended - meanPrice);
+        }
+        priceCount++;
+        levelSince = at;
+
+        if (price.compareTo(allTimeLow) < 0) {
+            allTimeLow = price;
+            allTimeLowAt = at;
+        }
+
+        // A new list, so the JSON column is seen as changed
+        long now = at.toEpochSecond(ZoneOffset.UTC);
+        List<RecentLow> lows = new ArrayList<>(recentLows);
+        if (!lows.isEmpty()) {
+            RecentLow current = lows.remove(lows.size() - 1);
+            lows.add(new RecentLow(current.price(), now));
+        }
+        // Levels no cheaper than the new one can never be a window's low again
+        while (!lows.isEmpty() && lows.get(lows.size() - 1).price().compareTo(price) >= 0) {
+            lows.remove(lows.size() - 1);
+        }
+        lows.add(new RecentLow(price, null));
+        long horizon = now - LOW_WINDOW.toSeconds();
+        int expired = 0;
+        while (expired < lows.size() && lows.get(expired).until() != null && lows.get(expired).until() < horizon) {
+            expired++;
+        }
+        recentLows = new ArrayList<>(lows.subList(expired, lows.size()));
+
+        dealScore = dealScore(price, observedSeconds, meanPrice, m2);
+        updatedAt = at;
+    }
+
+    /**
+     * Lowest price in effect at any time since {@code since}, at most LOW_WINDOW ago.
+     */
+    public static BigDecimal lowSince(List<RecentLow> recentLows, LocalDateTime since) {
+        if (recentLows == null) return null;
+        long from = since.toEpochSecond(ZoneOffset.UTC);
+        for (RecentLow low : recentLows) {
+            if (low.until() == null || low.until() >= from) return low.price();
+        }
+        return null;
+    }
+
+    public static double standardDeviation(double observedSeconds, double m2) {
+        return observedSeconds <= 0 ? 0 : Math.sqrt(m2 / observedSeconds);
+    }
+
+    /**
+     * 0 to 100: how cheap {@code price} is against the prices the listing usually had, as the
+     * normal CDF of (mean - price) / standard deviation (logistic approximation, within 0.01).
+     * 50 is an average price, about 84 one standard deviation below it, about 98 two below.
+     * 50 until the listing has held two different prices. V23 computes the same score in SQL.
+     */
+    public static double dealScore(BigDecimal price, double observedSeconds, double meanPrice, double m2) {
+        if (m2 <= 0) return 50;
+        double z = (meanPrice - price.doubleValue()) / standardDeviation(observedSeconds, m2);
+        z = Math.max(-20, Math.min(20, z));
+        return Math.round(1000 / (1 + Math.exp(-1.702 * z))) / 10.0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.portfolio.pricetracker.entity;
+
+public enum NotificationStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
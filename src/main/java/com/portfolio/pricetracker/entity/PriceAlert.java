@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_alerts")
+@Table(name = "price_alerts", indexes = {
+        @Index(name = "idx_price_alerts_product_status", columnList = "product_id,status")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,9 +29,18 @@ public class PriceAlert {
     @Column(nullable = false)
     private String userEmail;
 
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
+    @Builder.Default
+    private AlertRuleType ruleType = AlertRuleType.TARGET_PRICE;
+
+    // Set for threshold rules; for PERCENT_DROP it is derived from referencePrice and dropPercent
     private BigDecimal targetPrice;
 
+    private BigDecimal dropPercent;
+
+    private BigDecimal referencePrice;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
@@ -5,7 +5,13 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
+/**
+ * Interval of time during which a listing kept the same price and stock state.
+ * A row is only added when the state changes; repeated scrapes of the same state
+ * extend lastConfirmedAt instead. scrapedAt is the interval start (valid from).
+ */
 @Entity
 @Table(name = "price_history", indexes = {
         @Index(name = "idx_listing_scraped", columnList = "listing_id,scraped_at")
@@ -36,4 +42,18 @@ public class PriceHistory {
 
     @Column(nullable = false)
     private LocalDateTime scrapedAt;
+
+    // Start of the next interval; null while this is the listing's current state
+    private LocalDateTime validTo;
+
+    @Column(nullable = false)
+    private LocalDateTime lastConfirmedAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer sampleCount = 1;
+
+    public boolean hasSameState(BigDecimal otherPrice, Boolean otherInStock) {
+        return price.compareTo(otherPrice) == 0 && Objects.equals(inStock, otherInStock);
+    }
 }
@@ -0,0 +1,56 @@
+package com.portfolio.pricetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Open/high/low/close of the prices observed for a listing in one hour or day bucket.
+ * Rows are written with native upserts (PriceRollupRepository); the entity is read-only
+ * in practice.
+ */
+@Entity
+@Table(name = "price_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "listing_id", nullable = false)
+    private ProductListing listing;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupResolution resolution;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private BigDecimal openPrice;
+
+    @Column(nullable = false)
+    private BigDecimal highPrice;
+
+    @Column(nullable = false)
+    private BigDecimal lowPrice;
+
+    @Column(nullable = false)
+    private BigDecimal closePrice;
+
+    @Column(nullable = false)
+    private Integer sampleCount;
+}
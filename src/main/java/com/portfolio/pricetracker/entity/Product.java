@@ -3,11 +3,13 @@ package com.portfolio.pricetracker.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
 @Table(name = "products")
@@ -25,6 +27,10 @@ public class Product {
     @Column(nullable = false)
     private String name;
 
+    // Unification key, derived from name on every write (see normalizeName)
+    @Column(nullable = false)
+    private String normalizedName;
+
     private String category;
 
     private String imageUrl;
@@ -44,4 +50,22 @@ public class Product {
     private LocalDateTime updatedAt;
 
     private LocalDateTime deletedAt;
+
+    // Best ListingPriceStats.dealScore among the listings, read inline with the product; null without stats
+    @Formula("(SELECT MAX(st.deal_score) FROM listing_price_stats st WHERE st.product_id = id)")
+    private Double bestDealScore;
+
+    @PrePersist
+    @PreUpdate
+    void updateNormalizedName() {
+        normalizedName = normalizeName(name);
+    }
+
+    /**
+     * Canonical key used to match the same product across sites: trimmed,
+     * whitespace collapsed and lower-cased. Mirrors the backfill in V9.
+     */
+    public static String normalizeName(String name) {
+        return name == null ? null : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 }
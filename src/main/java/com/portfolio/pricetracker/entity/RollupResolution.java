@@ -0,0 +1,30 @@
+package com.portfolio.pricetracker.entity;
+
+import java.time.Duration;
+
+/**
+ * Granularity of a price series. RAW is the price_history intervals themselves;
+ * HOUR and DAY are the price_rollups buckets.
+ */
+public enum RollupResolution {
+    RAW(null, Duration.ZERO),
+    HOUR("hour", Duration.ofHours(1)),
+    DAY("day", Duration.ofDays(1));
+
+    // date_trunc field for the bucket start
+    private final String truncUnit;
+    private final Duration bucketSize;
+
+    RollupResolution(String truncUnit, Duration bucketSize) {
+        this.truncUnit = truncUnit;
+        this.bucketSize = bucketSize;
+    }
+
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    public Duration getBucketSize() {
+        return bucketSize;
+    }
+}
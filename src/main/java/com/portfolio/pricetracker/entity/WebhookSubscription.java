@@ -0,0 +1,35 @@
+package com.portfolio.pricetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Endpoint receiving batches of price-change events. Scope: productId, category, or
+ * every product when both are null.
+ */
+@Entity
+@Table(name = "webhook_subscriptions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookSubscription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String url;
+
+    private Long productId;
+
+    private String category;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.portfolio.pricetracker.entity.NotificationStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface AlertNotificationRepository extends JpaRepository<AlertNotification, Long> {
+
+    // Due rows, locked with SKIP LOCKED (lock timeout -2) so concurrent dispatchers claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM AlertNotification n WHERE n.status = :status AND n.nextAttemptAt <= :now ORDER BY n.id")
+    List<AlertNotification> findDueForUpdate(@Param("status") NotificationStatus status,
+                                             @Param("now") LocalDateTime now,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AlertNotification n SET n.status = com.portfolio.pricetracker.entity.NotificationStatus.SENT, " +
+           "n.sentAt = :sentAt, n.lastError = NULL WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    long countByStatus(NotificationStatus status);
+}
@@ -0,0 +1,309 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Month segments of price history that PriceHistoryTieringService moved out of PostgreSQL.
+ * Every segment is memory-mapped when the application starts or when it is (re)written;
+ * reads only decode the segments whose time range can match.
+ *
+ * The directory (price-history.cold-storage-dir) must be on storage every node mounts:
+ * history moved here is gone from price_history for all of them. A node remaps a month when
+ * another node tells it the month was rewritten (reload), or rescans everything (reloadAll).
+ */
+@Component
+@Slf4j
+public class ColdPriceHistoryStore {
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String PREFIX = "price_history_";
+    private static final String SUFFIX = ".seg";
+
+    // Deletes and returns one month's closed intervals in segment order; the deleted rows are
+    // exactly the ones written, whatever ingestion closes meanwhile
+    private static final String MOVE_MONTH = """
+            WITH moved AS (
+                DELETE FROM price_history
+                WHERE scraped_at >= ? AND scraped_at < ? AND valid_to IS NOT NULL
+                RETURNING id, listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count
+            )
+            SELECT * FROM moved ORDER BY listing_id, product_id, date_trunc('second', scraped_at), id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final int fetchSize;
+    private final NavigableMap<YearMonth, PriceHistorySegment> segments = new ConcurrentSkipListMap<>();
+
+    public ColdPriceHistoryStore(JdbcTemplate jdbcTemplate, PriceHistoryConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        String coldStorageDir = config.getColdStorageDir();
+        this.directory = coldStorageDir == null || coldStorageDir.isBlank() ? null : Paths.get(coldStorageDir);
+        this.fetchSize = config.getTieringFetchSize();
+        if (directory != null && !directory.isAbsolute()) {
+            throw new IllegalStateException("price-history.cold-storage-dir must be an absolute path on storage "
+                    + "shared by every node: " + coldStorageDir);
+        }
+        if (config.getHotDays() > 0 && directory == null) {
+            throw new IllegalStateException("price-history.hot-days needs price-history.cold-storage-dir, "
+                    + "an absolute path on storage shared by every node");
+        }
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        reloadAll();
+        if (!segments.isEmpty()) {
+            log.info("Mapped {} cold price history segment(s) from {}", segments.size(), directory);
+        }
+    }
+
+    /**
+     * Maps every segment in the directory again and forgets months whose file is gone.
+     */
+    public synchronized void reloadAll() throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            segments.clear();
+            return;
+        }
+        Map<YearMonth, PriceHistorySegment> found = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                PriceHistorySegment segment = PriceHistorySegment.open(file);
+                found.put(segment.month(), segment);
+            }
+        }
+        segments.putAll(found);
+        segments.keySet().retainAll(found.keySet());
+    }
+
+    /**
+     * Maps {@code month}'s segment again after another node rewrote it.
+     */
+    public synchronized void reload(YearMonth month) throws IOException {
+        if (directory == null) return;
+        Path file = segmentFile(month);
+        if (Files.exists(file)) {
+            segments.put(month, PriceHistorySegment.open(file));
+        } else {
+            segments.remove(month);
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Cold intervals of a listing overlapping [from, to]; null bounds are open.
+     */
+    List<PriceHistorySegment.Row> findByListing(long listingId, LocalDateTime from, LocalDateTime to) {
+        return find(segment -> segment.rowsForListing(listingId), from, to);
+    }
+
+    /**
+     * Cold intervals of every listing of a product overlapping [from, to]; null bounds are open.
+     */
+    List<PriceHistorySegment.Row> findByProduct(long productId, LocalDateTime from, LocalDateTime to) {
+        return find(segment -> segment.rowsForProduct(productId), from, to);
+    }
+
+    /**
+     * Latest cold interval of a listing that started at or before {@code at}. Segments hold
+     * the intervals started in their month, so they are searched from at's month backwards
+     * and the first one with a match has the answer.
+     */
+    Optional<PriceHistorySegment.Row> findLatestAtOrBefore(long listingId, LocalDateTime at) {
+        for (PriceHistorySegment segment : segments.headMap(YearMonth.from(at), true).descendingMap().values()) {
+            PriceHistorySegment.Row latest = null;
+            for (PriceHistorySegment.Row row : segment.rowsForListing(listingId)) {
+                if (!row.scrapedAt().isAfter(at) && (latest == null || row.scrapedAt().isAfter(latest.scrapedAt()))) {
+                    latest = row;
+                }
+            }
+            if (latest != null) return Optional.of(latest);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Cold intervals overlapping [from, to] of one product, or of every product when
+     * {@code productId} is null; null bounds are open. Rows are decoded and handed over one
+     * at a time, month by month, so nothing is collected.
+     */
+    void forEach(Long productId, LocalDateTime from, LocalDateTime to, Consumer<PriceHistorySegment.Row> action) {
+        for (PriceHistorySegment segment : segments.values()) {
+            if (!segment.mayOverlap(from, to)) continue;
+            segment.forEachRow(productId, row -> {
+                if (row.overlaps(from, to)) action.accept(row);
+            });
+        }
+    }
+
+    private List<PriceHistorySegment.Row> find(Function<PriceHistorySegment, List<PriceHistorySegment.Row>> rows,
+                                               LocalDateTime from, LocalDateTime to) {
+        List<PriceHistorySegment.Row> result = new ArrayList<>();
+        for (PriceHistorySegment segment : segments.values()) {
+            if (!segment.mayOverlap(from, to)) continue;
+            for (PriceHistorySegment.Row row : rows.apply(segment)) {
+                if (row.overlaps(from, to)) result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Months before {@code before} that still have closed intervals in PostgreSQL.
+     */
+    public List<YearMonth> findMonthsWithClosedIntervals(LocalDateTime before) {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT CAST(date_trunc('month', scraped_at) AS timestamp) FROM price_history " +
+                        "WHERE scraped_at < ? AND valid_to IS NOT NULL ORDER BY 1",
+                        Timestamp.class, Timestamp.valueOf(before)).stream()
+                .map(month -> YearMonth.from(month.toLocalDateTime()))
+                .toList();
+    }
+
+    /**
+     * Moves the closed intervals scraped in {@code month} into its segment: they are deleted
+     * from price_history and streamed, fetchSize rows at a time, into the rewritten segment.
+     * Must run inside a transaction, so that a failed commit leaves the rows hot (they are
+     * then returned once by reads and replaced by id on the next move). Returns the number of
+     * rows moved.
+     */
+    public int moveMonth(YearMonth month) {
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        return append(month, rows -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    MOVE_MONTH, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, from);
+            statement.setTimestamp(2, to);
+            return statement;
+        }, (RowCallbackHandler) rs -> rows.accept(new PriceHistorySegment.Row(
+                rs.getLong("id"),
+                rs.getLong("listing_id"),
+                rs.getLong("product_id"),
+                rs.getBigDecimal("price"),
+                (Boolean) rs.getObject("in_stock"),
+                // Segments keep seconds, and rows must arrive in the order they are stored in
+                rs.getTimestamp("scraped_at").toLocalDateTime().truncatedTo(ChronoUnit.SECONDS),
+                rs.getTimestamp("valid_to").toLocalDateTime().truncatedTo(ChronoUnit.SECONDS),
+                rs.getTimestamp("last_confirmed_at").toLocalDateTime().truncatedTo(ChronoUnit.SECONDS),
+                rs.getInt("sample_count")))));
+    }
+
+    /**
+     * Adds {@code rows} (all scraped in {@code month}, in any order) to that month's segment.
+     * Returns the number of rows added.
+     */
+    int append(YearMonth month, List<PriceHistorySegment.Row> rows) {
+        List<PriceHistorySegment.Row> sorted = new ArrayList<>(rows);
+        sorted.sort(PriceHistorySegment.ROW_ORDER);
+        return append(month, sink -> sorted.forEach(sink));
+    }
+
+    /**
+     * Merges the rows {@code source} hands over (all scraped in {@code month}, in
+     * PriceHistorySegment.ROW_ORDER) with that month's segment file into a new one. A row
+     * already in the segment is replaced, so re-tiering rows whose hot copy survived a failed
+     * commit does not duplicate them. Returns the number of rows added.
+     */
+    synchronized int append(YearMonth month, Consumer<Consumer<PriceHistorySegment.Row>> source) {
+        Path file = segmentFile(month);
+        try {
+            Files.createDirectories(directory);
+            // The file, not the mapped segment: another node may have rewritten it since
+            Iterator<PriceHistorySegment.Row> existing = Files.exists(file)
+                    ? PriceHistorySegment.open(file).rows()
+                    : Collections.emptyIterator();
+            int added;
+            try (PriceHistorySegment.Writer writer = PriceHistorySegment.writer(file, month)) {
+                Merge merge = new Merge(writer, existing);
+                source.accept(merge);
+                merge.finish();
+                writer.commit();
+                added = merge.added;
+            }
+            segments.put(month, PriceHistorySegment.open(file));
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cold segment for " + month, e);
+        }
+    }
+
+    private Path segmentFile(YearMonth month) {
+        return directory.resolve(PREFIX + month.format(MONTH_FORMAT) + SUFFIX);
+    }
+
+    // Interleaves new rows with the segment's existing ones, both in ROW_ORDER
+    private static final class Merge implements Consumer<PriceHistorySegment.Row> {
+
+        private final PriceHistorySegment.Writer writer;
+        private final Iterator<PriceHistorySegment.Row> existing;
+        private PriceHistorySegment.Row next;
+        private int added;
+
+        Merge(PriceHistorySegment.Writer writer, Iterator<PriceHistorySegment.Row> existing) {
+            this.writer = writer;
+            this.existing = existing;
+            advance();
+        }
+
+        @Override
+        public void accept(PriceHistorySegment.Row row) {
+            try {
+                while (next != null && PriceHistorySegment.ROW_ORDER.compare(next, row) < 0) {
+                    writer.add(next);
+                    advance();
+                }
+                if (next != null && PriceHistorySegment.ROW_ORDER.compare(next, row) == 0) advance();
+                writer.add(row);
+                added++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws IOException {
+            while (next != null) {
+                writer.add(next);
+                advance();
+            }
+        }
+
+        private void advance() {
+            next = existing.hasNext() ? existing.next() : null;
+        }
+    }
+}
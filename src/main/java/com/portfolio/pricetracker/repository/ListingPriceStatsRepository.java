@@ -0,0 +1,9 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.ListingPriceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ListingPriceStatsRepository extends JpaRepository<ListingPriceStats, Long> {
+}
@@ -2,13 +2,28 @@ package com.portfolio.pricetracker.repository;
 
 import com.portfolio.pricetracker.entity.AlertStatus;
 import com.portfolio.pricetracker.entity.PriceAlert;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
 
+    // Product fetched in the same statement: every alert DTO carries the product name
+    @EntityGraph(attributePaths = "product")
     List<PriceAlert> findByUserEmailAndStatus(String userEmail, AlertStatus status);
 
     List<PriceAlert> findByProduct_IdAndStatus(Long productId, AlertStatus status);
+
+    // (alertId, productId, ruleType, targetPrice) rows for AlertBook; must be consumed inside a transaction
+    @Query("SELECT a.id, a.product.id, a.ruleType, a.targetPrice FROM PriceAlert a WHERE a.status = :status")
+    Stream<Object[]> streamBookEntries(@Param("status") AlertStatus status);
+
+    @Query("SELECT a.id, a.product.id, a.ruleType, a.targetPrice FROM PriceAlert a " +
+           "WHERE a.status = :status AND a.product.id IN :productIds")
+    List<Object[]> findBookEntries(@Param("status") AlertStatus status, @Param("productIds") Collection<Long> productIds);
 }
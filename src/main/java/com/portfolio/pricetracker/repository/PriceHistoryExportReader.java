@@ -0,0 +1,144 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import com.portfolio.pricetracker.dto.PriceHistoryExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads price history for exports one row at a time, hot and cold tier, joined with the
+ * product name, source name and URL of each listing.
+ *
+ * Hot rows come from a single forward-only, read-only query; inside the transaction the
+ * PostgreSQL driver reads it through a cursor, price-history.export-fetch-size rows per
+ * round trip, and each row is handed over straight from the ResultSet without loading
+ * entities. Cold rows are decoded segment by segment afterwards and joined with the
+ * listing metadata, read once per export (one entry per listing, whatever the number of
+ * rows). Memory therefore does not grow with the size of the export.
+ *
+ * Rows are not sorted. An interval moved to the cold tier while an export runs may be
+ * read from both tiers: consumers that must not see it twice deduplicate on id.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceHistoryExportReader {
+
+    private static final String HOT_ROWS = """
+            SELECT ph.id, ph.listing_id, ph.product_id, p.name, s.name, l.url, ph.price, ph.in_stock,
+                   ph.scraped_at, ph.valid_to, ph.last_confirmed_at, ph.sample_count
+            FROM price_history ph
+            JOIN product_listings l ON l.id = ph.listing_id
+            JOIN products p ON p.id = ph.product_id
+            JOIN website_sources s ON s.id = l.source_id
+            WHERE TRUE""";
+
+    private static final String LISTINGS = """
+            SELECT l.id, p.name, s.name, l.url
+            FROM product_listings l
+            JOIN products p ON p.id = l.product_id
+            JOIN website_sources s ON s.id = l.source_id""";
+
+    private record ListingMetadata(String productName, String sourceName, String url) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ColdPriceHistoryStore coldStore;
+    private final PriceHistoryConfig config;
+
+    /**
+     * Hands every interval overlapping [from, to] of one product, or of all products when
+     * {@code productId} is null, to {@code action}; null bounds are open. Exceptions thrown
+     * by {@code action} abort the export and propagate unchanged.
+     *
+     * @return the number of rows handed over
+     */
+    @Transactional(readOnly = true)
+    public long forEachRow(Long productId, LocalDateTime from, LocalDateTime to, Consumer<PriceHistoryExportRow> action) {
+        StringBuilder sql = new StringBuilder(HOT_ROWS);
+        List<Object> params = new ArrayList<>();
+        if (productId != null) {
+            sql.append(" AND ph.product_id = ?");
+            params.add(productId);
+        }
+        // Same overlap rule as PriceHistoryRepository.findOverlapping
+        if (from != null) {
+            sql.append(" AND ph.last_confirmed_at >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ph.scraped_at <= ?");
+            params.add(Timestamp.valueOf(to));
+        }
+
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(config.getExportFetchSize());
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            action.accept(toRow(resultSet));
+            rows[0]++;
+        });
+
+        if (!coldStore.isEmpty()) {
+            Map<Long, ListingMetadata> listings = listingMetadata(productId);
+            coldStore.forEach(productId, from, to, row -> {
+                ListingMetadata listing = listings.get(row.listingId());
+                action.accept(new PriceHistoryExportRow(row.id(), row.listingId(), row.productId(),
+                        listing == null ? null : listing.productName(),
+                        listing == null ? null : listing.sourceName(),
+                        listing == null ? null : listing.url(),
+                        row.price(), row.inStock(), row.scrapedAt(), row.validTo(), row.lastConfirmedAt(),
+                        row.sampleCount()));
+                rows[0]++;
+            });
+        }
+        return rows[0];
+    }
+
+    private Map<Long, ListingMetadata> listingMetadata(Long productId) {
+        Map<Long, ListingMetadata> listings = new HashMap<>();
+        RowCallbackHandler collect = resultSet -> listings.put(resultSet.getLong(1),
+                new ListingMetadata(resultSet.getString(2), resultSet.getString(3), resultSet.getString(4)));
+        if (productId == null) {
+            jdbcTemplate.query(LISTINGS, collect);
+        } else {
+            jdbcTemplate.query(LISTINGS + " WHERE l.product_id = ?", collect, productId);
+        }
+        return listings;
+    }
+
+    private static PriceHistoryExportRow toRow(ResultSet resultSet) throws SQLException {
+        return new PriceHistoryExportRow(
+                resultSet.getLong(1),
+                resultSet.getLong(2),
+                resultSet.getLong(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getString(6),
+                resultSet.getBigDecimal(7),
+                resultSet.getObject(8, Boolean.class),
+                resultSet.getObject(9, LocalDateTime.class),
+                resultSet.getObject(10, LocalDateTime.class),
+                resultSet.getObject(11, LocalDateTime.class),
+                resultSet.getInt(12));
+    }
+}
@@ -2,32 +2,48 @@ package com.portfolio.pricetracker.repository;
 
 import com.portfolio.pricetracker.entity.PriceHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Rows are validity intervals (see PriceHistory): queries that used to filter on a single
+ * scrape timestamp now match intervals by their start (scrapedAt) and lastConfirmedAt.
+ * Range reads that may reach tiered history live in PriceHistoryRepositoryCustom.
+ */
 @Repository
-public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long> {
-
-    List<PriceHistory> findByListingIdOrderByScrapedAtDesc(Long listingId);
-
-    List<PriceHistory> findByProductIdOrderByScrapedAtDesc(Long productId);
-
-    List<PriceHistory> findByListingIdAndScrapedAtBetweenOrderByScrapedAtAsc(
-            Long listingId, LocalDateTime from, LocalDateTime to);
-
-    // Oldest price entry for a listing since a given date (for price-drop analytics)
-    Optional<PriceHistory> findFirstByListingIdAndScrapedAtAfterOrderByScrapedAtAsc(
-            Long listingId, LocalDateTime since);
-
-    // Count scrapes per product for trending analytics
-    @Query("SELECT ph.product.id, ph.product.name, COUNT(ph) FROM PriceHistory ph " +
-           "WHERE ph.product.deletedAt IS NULL " +
-           "GROUP BY ph.product.id, ph.product.name " +
-           "ORDER BY COUNT(ph) DESC")
-    List<Object[]> findTrendingProducts(org.springframework.data.domain.Pageable pageable);
+public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long>, PriceHistoryRepositoryCustom {
+
+    /**
+     * (listingId, productId, productName, sourceName, url, price, scrapedAt) of every
+     * interval still in effect after :since, for PriceMoversBoard.
+     */
+    String MOVEMENT_POINTS = "SELECT l.id, p.id, p.name, s.name, l.url, ph.price, ph.scrapedAt FROM PriceHistory ph " +
+                             "JOIN ph.listing l JOIN l.product p JOIN l.source s " +
+                             "WHERE (ph.validTo IS NULL OR ph.validTo > :since) ";
+
+    // The interval ingestion extends (same state) or closes (state changed)
+    Optional<PriceHistory> findFirstByListingIdAndValidToIsNull(Long listingId);
+
+    // Unchanged scrape: extend the current interval without adding a row
+    @Modifying
+    @Query("UPDATE PriceHistory ph SET ph.lastConfirmedAt = :confirmedAt, ph.sampleCount = ph.sampleCount + 1 " +
+           "WHERE ph.listing.id IN :listingIds AND ph.validTo IS NULL")
+    int confirmOpenIntervals(@Param("listingIds") Collection<Long> listingIds,
+                             @Param("confirmedAt") LocalDateTime confirmedAt);
+
+    // Must be consumed inside a transaction
+    @Query(MOVEMENT_POINTS + "ORDER BY l.id, ph.scrapedAt")
+    Stream<Object[]> streamMovementPoints(@Param("since") LocalDateTime since);
+
+    @Query(MOVEMENT_POINTS + "AND l.id IN :listingIds ORDER BY l.id, ph.scrapedAt")
+    List<Object[]> findMovementPoints(@Param("since") LocalDateTime since,
+                                      @Param("listingIds") Collection<Long> listingIds);
 }
@@ -0,0 +1,24 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.PriceHistory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads that span hot (PostgreSQL) and cold (tiered segment) history. Cold rows come back
+ * as detached, read-only PriceHistory instances; a row present in both tiers is returned
+ * once, from PostgreSQL.
+ */
+public interface PriceHistoryRepositoryCustom {
+
+    List<PriceHistory> findByListingIdOrderByScrapedAtDesc(Long listingId);
+
+    List<PriceHistory> findByProductIdOrderByScrapedAtDesc(Long productId);
+
+    // Intervals overlapping [from, to], i.e. every state observed in that range
+    List<PriceHistory> findOverlapping(Long listingId, LocalDateTime from, LocalDateTime to);
+
+    // Same, for every listing of a product (raw-resolution price series)
+    List<PriceHistory> findOverlappingForProduct(Long productId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,108 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.PriceHistory;
+import com.portfolio.pricetracker.entity.Product;
+import com.portfolio.pricetracker.entity.ProductListing;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Runs each read against PostgreSQL and, unless nothing has been tiered, against the cold
+ * segments that can overlap the requested range, then merges both in the query's order.
+ */
+@RequiredArgsConstructor
+class PriceHistoryRepositoryImpl implements PriceHistoryRepositoryCustom {
+
+    private static final Comparator<PriceHistory> BY_START = Comparator.comparing(PriceHistory::getScrapedAt);
+
+    private final ColdPriceHistoryStore coldStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PriceHistory> findByListingIdOrderByScrapedAtDesc(Long listingId) {
+        List<PriceHistory> hot = entityManager.createQuery(
+                        "SELECT ph FROM PriceHistory ph WHERE ph.listing.id = :listingId ORDER BY ph.scrapedAt DESC",
+                        PriceHistory.class)
+                .setParameter("listingId", listingId)
+                .getResultList();
+        if (coldStore.isEmpty()) return hot;
+        return merge(hot, coldStore.findByListing(listingId, null, null), BY_START.reversed());
+    }
+
+    @Override
+    public List<PriceHistory> findByProductIdOrderByScrapedAtDesc(Long productId) {
+        List<PriceHistory> hot = entityManager.createQuery(
+                        "SELECT ph FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.scrapedAt DESC",
+                        PriceHistory.class)
+                .setParameter("productId", productId)
+                .getResultList();
+        if (coldStore.isEmpty()) return hot;
+        return merge(hot, coldStore.findByProduct(productId, null, null), BY_START.reversed());
+    }
+
+    @Override
+    public List<PriceHistory> findOverlapping(Long listingId, LocalDateTime from, LocalDateTime to) {
+        List<PriceHistory> hot = entityManager.createQuery(
+                        "SELECT ph FROM PriceHistory ph WHERE ph.listing.id = :listingId " +
+                        "AND ph.scrapedAt <= :to AND ph.lastConfirmedAt >= :from " +
+                        "ORDER BY ph.scrapedAt ASC", PriceHistory.class)
+                .setParameter("listingId", listingId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        if (coldStore.isEmpty()) return hot;
+        return merge(hot, coldStore.findByListing(listingId, from, to), BY_START);
+    }
+
+    @Override
+    public List<PriceHistory> findOverlappingForProduct(Long productId, LocalDateTime from, LocalDateTime to) {
+        List<PriceHistory> hot = entityManager.createQuery(
+                        "SELECT ph FROM PriceHistory ph WHERE ph.product.id = :productId " +
+                        "AND ph.scrapedAt <= :to AND ph.lastConfirmedAt >= :from " +
+                        "ORDER BY ph.listing.id, ph.scrapedAt ASC", PriceHistory.class)
+                .setParameter("productId", productId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        if (coldStore.isEmpty()) return hot;
+        return merge(hot, coldStore.findByProduct(productId, from, to),
+                Comparator.comparing((PriceHistory ph) -> ph.getListing().getId()).thenComparing(BY_START));
+    }
+
+    private List<PriceHistory> merge(List<PriceHistory> hot, List<PriceHistorySegment.Row> cold,
+                                     Comparator<PriceHistory> order) {
+        if (cold.isEmpty()) return hot;
+        Set<Long> hotIds = hot.stream().map(PriceHistory::getId).collect(Collectors.toSet());
+        List<PriceHistory> merged = new ArrayList<>(hot);
+        cold.stream()
+                .filter(row -> !hotIds.contains(row.id()))
+                .map(this::toEntity)
+                .forEach(merged::add);
+        merged.sort(order);
+        return merged;
+    }
+
+    private PriceHistory toEntity(PriceHistorySegment.Row row) {
+        return PriceHistory.builder()
+                .id(row.id())
+                .listing(entityManager.getReference(ProductListing.class, row.listingId()))
+                .product(entityManager.getReference(Product.class, row.productId()))
+                .price(row.price())
+                .inStock(row.inStock())
+                .scrapedAt(row.scrapedAt())
+                .validTo(row.validTo())
+                .lastConfirmedAt(row.lastConfirmedAt())
+                .sampleCount(row.sampleCount())
+                .build();
+    }
+}
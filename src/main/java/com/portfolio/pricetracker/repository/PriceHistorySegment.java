@@ -0,0 +1,398 @@
+package com.portfolio.pricetracker.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * One month of tiered price history intervals in a read-only, memory-mapped columnar file.
+ *
+ * Rows are sorted by (listing, product, scrapedAt). A directory of runs maps each
+ * (listing, product) to its row range, so a listing lookup is a binary search plus a
+ * contiguous read of every column. Columns are fixed width to stay randomly addressable:
+ *
+ * <pre>
+ * header    magic, version, base (month start, epoch s), max lastConfirmedAt (epoch s), rows, runs
+ * runs      listingId long, productId long, firstRow int, rowCount int
+ * id        long
+ * scraped   int  seconds since base
+ * validTo   int  seconds after scraped (-1 = open)
+ * confirmed int  seconds after scraped
+ * price     long cents
+ * samples   int
+ * inStock   byte 0 / 1 (2 = null)
+ * </pre>
+ *
+ * Timestamps are stored with second precision.
+ */
+final class PriceHistorySegment {
+
+    private static final int MAGIC = 0x50485347; // "PHSG"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 8 + 4 + 4;
+    private static final int RUN_BYTES = 8 + 8 + 4 + 4;
+    private static final int ROW_BYTES = 8 + 4 + 4 + 4 + 8 + 4 + 1;
+
+    static final Comparator<Row> ROW_ORDER = Comparator.comparingLong(Row::listingId)
+            .thenComparingLong(Row::productId)
+            .thenComparing(Row::scrapedAt)
+            .thenComparingLong(Row::id);
+
+    record Row(long id, long listingId, long productId, BigDecimal price, Boolean inStock,
+               LocalDateTime scrapedAt, LocalDateTime validTo, LocalDateTime lastConfirmedAt, int sampleCount) {
+
+        // Same overlap rule as PriceHistoryRepository.findOverlapping; null bounds are open
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return (to == null || !scrapedAt.isAfter(to)) && (from == null || !lastConfirmedAt.isBefore(from));
+        }
+    }
+
+    private final YearMonth month;
+    private final ByteBuffer buffer;
+    private final long base;
+    private final LocalDateTime maxLastConfirmedAt;
+    private final int rowCount;
+    private final int runCount;
+    private final int idColumn;
+    private final int scrapedColumn;
+    private final int validToColumn;
+    private final int confirmedColumn;
+    private final int priceColumn;
+    private final int samplesColumn;
+    private final int stockColumn;
+
+    private PriceHistorySegment(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IllegalStateException("Not a price history segment (version " + VERSION + ")");
+        }
+        this.buffer = buffer;
+        this.base = buffer.getLong(6);
+        this.month = YearMonth.from(toDateTime(base));
+        this.maxLastConfirmedAt = toDateTime(buffer.getLong(14));
+        this.rowCount = buffer.getInt(22);
+        this.runCount = buffer.getInt(26);
+        this.idColumn = HEADER_BYTES + runCount * RUN_BYTES;
+        this.scrapedColumn = idColumn + rowCount * 8;
+        this.validToColumn = scrapedColumn + rowCount * 4;
+        this.confirmedColumn = validToColumn + rowCount * 4;
+        this.priceColumn = confirmedColumn + rowCount * 4;
+        this.samplesColumn = priceColumn + rowCount * 8;
+        this.stockColumn = samplesColumn + rowCount * 4;
+    }
+
+    static PriceHistorySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed, and after the file is replaced
+            return new PriceHistorySegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Starts writing {@code month}'s segment to {@code file}. Rows are added in ROW_ORDER and
+     * each column is spilled to its own temporary file as it grows, so memory stays flat
+     * whatever the month's size; commit() assembles them into a temporary segment that is
+     * synced and atomically moved into place. Closing the writer removes the temporary files.
+     */
+    static Writer writer(Path file, YearMonth month) throws IOException {
+        return new Writer(file, month);
+    }
+
+    static final class Writer implements Closeable {
+
+        private final Path file;
+        private final long base;
+        private final List<Spill> spills = new ArrayList<>();
+        private final Spill runs;
+        private final Spill ids;
+        private final Spill scraped;
+        private final Spill validTo;
+        private final Spill confirmed;
+        private final Spill prices;
+        private final Spill samples;
+        private final Spill stock;
+        private long maxConfirmed;
+        private int rowCount;
+        private int runCount;
+        private int runStart;
+        private Row previous;
+
+        private Writer(Path file, YearMonth month) throws IOException {
+            this.file = file;
+            this.base = toEpochSecond(month.atDay(1).atStartOfDay());
+            this.maxConfirmed = base;
+            Path directory = file.toAbsolutePath().getParent();
+            this.runs = spill(directory);
+            this.ids = spill(directory);
+            this.scraped = spill(directory);
+            this.validTo = spill(directory);
+            this.confirmed = spill(directory);
+            this.prices = spill(directory);
+            this.samples = spill(directory);
+            this.stock = spill(directory);
+        }
+
+        private Spill spill(Path directory) throws IOException {
+            Spill spill = new Spill(directory);
+            spills.add(spill);
+            return spill;
+        }
+
+        int rowCount() {
+            return rowCount;
+        }
+
+        void add(Row r) throws IOException {
+            if (previous != null && ROW_ORDER.compare(previous, r) >= 0) {
+                throw new IllegalArgumentException("Segment rows must be added in ROW_ORDER, once each: " + r.id());
+            }
+            if (previous == null || previous.listingId() != r.listingId() || previous.productId() != r.productId()) {
+                endRun();
+                runStart = rowCount;
+            }
+            long scrapedAt = toEpochSecond(r.scrapedAt());
+            ids.putLong(r.id());
+            scraped.putInt(Math.toIntExact(scrapedAt - base));
+            validTo.putInt(r.validTo() == null ? -1 : secondsBetween(scrapedAt, r.validTo()));
+            confirmed.putInt(secondsBetween(scrapedAt, r.lastConfirmedAt()));
+            prices.putLong(r.price().movePointRight(2).longValueExact());
+            samples.putInt(r.sampleCount());
+            stock.put(r.inStock() == null ? (byte) 2 : r.inStock() ? (byte) 1 : (byte) 0);
+            maxConfirmed = Math.max(maxConfirmed, toEpochSecond(r.lastConfirmedAt()));
+            rowCount++;
+            previous = r;
+        }
+
+        private void endRun() throws IOException {
+            if (previous == null) return;
+            runs.putLong(previous.listingId()).putLong(previous.productId()).putInt(runStart).putInt(rowCount - runStart);
+            runCount++;
+        }
+
+        void commit() throws IOException {
+            endRun();
+            previous = null;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putShort(VERSION).putLong(base).putLong(maxConfirmed).putInt(rowCount).putInt(runCount)
+                    .flip();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) channel.write(header);
+                for (Spill spill : spills) spill.transferTo(channel);
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Spill spill : spills) spill.close();
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+        }
+    }
+
+    // One column of a segment being written, buffered into a temporary file
+    private static final class Spill implements Closeable {
+
+        private static final int BUFFER_BYTES = 64 * 1024;
+
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+
+        Spill(Path directory) throws IOException {
+            this.path = Files.createTempFile(directory, "segment-", ".col");
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        Spill putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            return this;
+        }
+
+        Spill putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            return this;
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void transferTo(FileChannel target) throws IOException {
+            flush();
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    LocalDateTime maxLastConfirmedAt() {
+        return maxLastConfirmedAt;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Whether any interval in this segment can overlap [from, to]; null bounds are open.
+     */
+    boolean mayOverlap(LocalDateTime from, LocalDateTime to) {
+        return (to == null || !month.atDay(1).atStartOfDay().isAfter(to))
+                && (from == null || !maxLastConfirmedAt.isBefore(from));
+    }
+
+    List<Row> rowsForListing(long listingId) {
+        List<Row> rows = new ArrayList<>();
+        for (int run = firstRunOf(listingId); run < runCount && runListing(run) == listingId; run++) {
+            readRun(run, rows::add);
+        }
+        return rows;
+    }
+
+    List<Row> rowsForProduct(long productId) {
+        List<Row> rows = new ArrayList<>();
+        forEachRow(productId, rows::add);
+        return rows;
+    }
+
+    /**
+     * Every row in ROW_ORDER, decoded one at a time.
+     */
+    Iterator<Row> rows() {
+        return new Iterator<>() {
+            private int run = -1;
+            private int runEnd;
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < rowCount;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                while (row >= runEnd) {
+                    run++;
+                    runEnd = runFirstRow(run) + runRowCount(run);
+                }
+                return readRow(runListing(run), runProduct(run), row++);
+            }
+        };
+    }
+
+    /**
+     * Rows of one product, or all rows when {@code productId} is null, decoded one at a time.
+     */
+    void forEachRow(Long productId, Consumer<Row> action) {
+        for (int run = 0; run < runCount; run++) {
+            if (productId == null || runProduct(run) == productId) readRun(run, action);
+        }
+    }
+
+    // Lower bound of listingId in the run directory
+    private int firstRunOf(long listingId) {
+        int low = 0;
+        int high = runCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (runListing(mid) < listingId) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private long runListing(int run) {
+        return buffer.getLong(HEADER_BYTES + run * RUN_BYTES);
+    }
+
+    private long runProduct(int run) {
+        return buffer.getLong(HEADER_BYTES + run * RUN_BYTES + 8);
+    }
+
+    private int runFirstRow(int run) {
+        return buffer.getInt(HEADER_BYTES + run * RUN_BYTES + 16);
+    }
+
+    private int runRowCount(int run) {
+        return buffer.getInt(HEADER_BYTES + run * RUN_BYTES + 20);
+    }
+
+    private void readRun(int run, Consumer<Row> into) {
+        long listingId = runListing(run);
+        long productId = runProduct(run);
+        int first = runFirstRow(run);
+        for (int i = first; i < first + runRowCount(run); i++) {
+            into.accept(readRow(listingId, productId, i));
+        }
+    }
+
+    private Row readRow(long listingId, long productId, int i) {
+        long scraped = base + buffer.getInt(scrapedColumn + i * 4);
+        int validTo = buffer.getInt(validToColumn + i * 4);
+        byte stock = buffer.get(stockColumn + i);
+        return new Row(
+                buffer.getLong(idColumn + i * 8),
+                listingId,
+                productId,
+                BigDecimal.valueOf(buffer.getLong(priceColumn + i * 8), 2),
+                stock == 2 ? null : stock == 1,
+                toDateTime(scraped),
+                validTo < 0 ? null : toDateTime(scraped + validTo),
+                toDateTime(scraped + buffer.getInt(confirmedColumn + i * 4)),
+                buffer.getInt(samplesColumn + i * 4));
+    }
+
+    private static int secondsBetween(long fromEpochSecond, LocalDateTime to) {
+        return Math.toIntExact(toEpochSecond(to) - fromEpochSecond);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
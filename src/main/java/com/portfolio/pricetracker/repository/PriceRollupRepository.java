@@ -0,0 +1,109 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.PriceRollup;
+import com.portfolio.pricetracker.entity.RollupResolution;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes go through native upserts that touch the HOUR and DAY bucket of an observation
+ * in one statement; the VALUES list mirrors RollupResolution.
+ */
+@Repository
+public interface PriceRollupRepository extends JpaRepository<PriceRollup, Long> {
+
+    // One scraped observation: open on first insert, widen high/low, move close
+    @Modifying
+    @Query(value = "INSERT INTO price_rollups (listing_id, product_id, resolution, bucket_start, " +
+                   "open_price, high_price, low_price, close_price, sample_count) " +
+                   "SELECT :listingId, :productId, r.resolution, date_trunc(r.unit, CAST(:observedAt AS timestamp)), " +
+                   ":price, :price, :price, :price, 1 " +
+                   "FROM (VALUES ('HOUR', 'hour'), ('DAY', 'day')) AS r(resolution, unit) " +
+                   "ON CONFLICT ON CONSTRAINT uq_price_rollups_bucket DO UPDATE SET " +
+                   "high_price = GREATEST(price_rollups.high_price, EXCLUDED.high_price), " +
+                   "low_price = LEAST(price_rollups.low_price, EXCLUDED.low_price), " +
+                   "close_price = EXCLUDED.close_price, " +
+                   "sample_count = price_rollups.sample_count + 1",
+           nativeQuery = true)
+    int recordObservation(@Param("listingId") Long listingId,
+                          @Param("productId") Long productId,
+                          @Param("price") BigDecimal price,
+                          @Param("observedAt") LocalDateTime observedAt);
+
+    // Unchanged scrapes: the observed price is the one of each listing's open interval
+    @Modifying
+    @Query(value = "INSERT INTO price_rollups (listing_id, product_id, resolution, bucket_start, " +
+                   "open_price, high_price, low_price, close_price, sample_count) " +
+                   "SELECT ph.listing_id, ph.product_id, r.resolution, date_trunc(r.unit, CAST(:observedAt AS timestamp)), " +
+                   "ph.price, ph.price, ph.price, ph.price, 1 " +
+                   "FROM price_history ph CROSS JOIN (VALUES ('HOUR', 'hour'), ('DAY', 'day')) AS r(resolution, unit) " +
+                   "WHERE ph.listing_id IN (:listingIds) AND ph.valid_to IS NULL " +
+                   "ON CONFLICT ON CONSTRAINT uq_price_rollups_bucket DO UPDATE SET " +
+                   "high_price = GREATEST(price_rollups.high_price, EXCLUDED.high_price), " +
+                   "low_price = LEAST(price_rollups.low_price, EXCLUDED.low_price), " +
+                   "close_price = EXCLUDED.close_price, " +
+                   "sample_count = price_rollups.sample_count + 1",
+           nativeQuery = true)
+    int recordOpenIntervalObservations(@Param("listingIds") Collection<Long> listingIds,
+                                       @Param("observedAt") LocalDateTime observedAt);
+
+    /**
+     * Inserts the buckets that history confirmed since {@code since} but that have no rollup.
+     * An interval only records its first (scraped_at) and last (last_confirmed_at) observation,
+     * so the samples in between are attributed to the last one. Existing buckets are never
+     * overwritten, which keeps the job idempotent and safe to run next to ingestion.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO price_rollups (listing_id, product_id, resolution, bucket_start, " +
+                   "open_price, high_price, low_price, close_price, sample_count) " +
+                   "SELECT o.listing_id, o.product_id, r.resolution, date_trunc(r.unit, o.observed_at) AS bucket, " +
+                   "(ARRAY_AGG(o.price ORDER BY o.observed_at))[1], MAX(o.price), MIN(o.price), " +
+                   "(ARRAY_AGG(o.price ORDER BY o.observed_at DESC))[1], SUM(o.samples) " +
+                   "FROM (" +
+                   "  SELECT listing_id, product_id, price, scraped_at AS observed_at, 1 AS samples " +
+                   "  FROM price_history WHERE last_confirmed_at >= :since " +
+                   "  UNION ALL " +
+                   "  SELECT listing_id, product_id, price, last_confirmed_at, sample_count - 1 " +
+                   "  FROM price_history WHERE last_confirmed_at >= :since AND sample_count > 1" +
+                   ") o CROSS JOIN (VALUES ('HOUR', 'hour'), ('DAY', 'day')) AS r(resolution, unit) " +
+                   "GROUP BY o.listing_id, o.product_id, r.resolution, bucket " +
+                   "ON CONFLICT ON CONSTRAINT uq_price_rollups_bucket DO NOTHING",
+           nativeQuery = true)
+    int insertMissingBuckets(@Param("since") LocalDateTime since);
+
+    @Query("SELECT r FROM PriceRollup r WHERE r.product.id = :productId AND r.resolution = :resolution " +
+           "AND r.bucketStart >= :from AND r.bucketStart <= :to " +
+           "ORDER BY r.listing.id, r.bucketStart")
+    List<PriceRollup> findSeries(@Param("productId") Long productId,
+                                 @Param("resolution") RollupResolution resolution,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+
+    // (listingId, bucketStart, open, high, low, close, sampleCount) rows of findSeries, read
+    // through a cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.listing.id, r.bucketStart, r.openPrice, r.highPrice, r.lowPrice, r.closePrice, r.sampleCount " +
+           "FROM PriceRollup r WHERE r.product.id = :productId AND r.resolution = :resolution " +
+           "AND r.bucketStart >= :from AND r.bucketStart <= :to " +
+           "ORDER BY r.listing.id, r.bucketStart")
+    Stream<Object[]> streamSeries(@Param("productId") Long productId,
+                                  @Param("resolution") RollupResolution resolution,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    // (productId, lowest price ever observed) rows, to seed AlertEngine's all-time lows
+    @Query("SELECT r.product.id, MIN(r.lowPrice) FROM PriceRollup r WHERE r.resolution = :resolution GROUP BY r.product.id")
+    List<Object[]> findLowestPrices(@Param("resolution") RollupResolution resolution);
+}
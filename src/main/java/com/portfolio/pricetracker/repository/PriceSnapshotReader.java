@@ -0,0 +1,112 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.dto.PriceSnapshotDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the price of every listing as of a point in time, a page of listings at a time.
+ *
+ * Listings are walked in id order from the page's keyset (after), and each one's interval
+ * in effect is found by a LATERAL lookup of its latest interval started at or before the
+ * snapshot time: one backward probe of the (listing_id, scraped_at) index per listing, in
+ * the partitions that can hold it. A page therefore costs the same whatever the size of
+ * price_history and however deep into the listings it is.
+ *
+ * When history has been tiered, the intervals of tiered months are not in PostgreSQL: the
+ * lookup keeps listings without a hot interval, and each listing of the page is also looked
+ * up in the cold segments (in memory), the later of both intervals winning.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceSnapshotReader {
+
+    private static final String PAGE = """
+            SELECT l.id, l.product_id, p.name, s.name, l.url,
+                   h.price, h.in_stock, h.scraped_at, h.valid_to, h.last_confirmed_at
+            FROM product_listings l
+            JOIN products p ON p.id = l.product_id
+            JOIN website_sources s ON s.id = l.source_id
+            %s JOIN LATERAL (
+                SELECT ph.price, ph.in_stock, ph.scraped_at, ph.valid_to, ph.last_confirmed_at
+                FROM price_history ph
+                WHERE ph.listing_id = l.id AND ph.scraped_at <= ?
+                ORDER BY ph.scraped_at DESC
+                LIMIT 1) h ON TRUE
+            WHERE l.id > ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ColdPriceHistoryStore coldStore;
+
+    /**
+     * Up to {@code limit} listings with an id above {@code after}, of one product, source
+     * and category when given, with the interval each had at {@code at}.
+     */
+    public PriceSnapshotDTO readPage(LocalDateTime at, Long productId, Long sourceId, String category,
+                                     long after, int limit) {
+        boolean withCold = !coldStore.isEmpty();
+        StringBuilder sql = new StringBuilder(PAGE.formatted(withCold ? "LEFT" : ""));
+        List<Object> params = new ArrayList<>(List.of(Timestamp.valueOf(at), after));
+        if (productId != null) {
+            sql.append(" AND l.product_id = ?");
+            params.add(productId);
+        }
+        if (sourceId != null) {
+            sql.append(" AND l.source_id = ?");
+            params.add(sourceId);
+        }
+        if (category != null) {
+            sql.append(" AND p.category = ?");
+            params.add(category);
+        }
+        sql.append(" ORDER BY l.id LIMIT ?");
+        params.add(limit);
+
+        List<PriceSnapshotDTO.ListingSnapshotDTO> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) ->
+                PriceSnapshotDTO.ListingSnapshotDTO.builder()
+                        .listingId(rs.getLong(1))
+                        .productId(rs.getLong(2))
+                        .productName(rs.getString(3))
+                        .sourceName(rs.getString(4))
+                        .url(rs.getString(5))
+                        .price(rs.getBigDecimal(6))
+                        .inStock(rs.getObject(7, Boolean.class))
+                        .priceSince(rs.getObject(8, LocalDateTime.class))
+                        .validTo(rs.getObject(9, LocalDateTime.class))
+                        .lastConfirmedAt(rs.getObject(10, LocalDateTime.class))
+                        .build(),
+                params.toArray());
+
+        // Keyset of the next page: the last listing read, whether or not it had a price
+        Long nextAfter = rows.size() == limit ? rows.get(rows.size() - 1).getListingId() : null;
+        List<PriceSnapshotDTO.ListingSnapshotDTO> listings = new ArrayList<>(rows.size());
+        for (PriceSnapshotDTO.ListingSnapshotDTO row : rows) {
+            if (withCold) applyCold(row, at);
+            if (row.getPriceSince() != null) listings.add(row);
+        }
+        return PriceSnapshotDTO.builder()
+                .at(at)
+                .listings(listings)
+                .nextAfter(nextAfter)
+                .build();
+    }
+
+    private void applyCold(PriceSnapshotDTO.ListingSnapshotDTO row, LocalDateTime at) {
+        Optional<PriceHistorySegment.Row> cold = coldStore.findLatestAtOrBefore(row.getListingId(), at);
+        if (cold.isEmpty()) return;
+        PriceHistorySegment.Row interval = cold.get();
+        if (row.getPriceSince() != null && !interval.scrapedAt().isAfter(row.getPriceSince())) return;
+        row.setPrice(interval.price());
+        row.setInStock(interval.inStock());
+        row.setPriceSince(interval.scrapedAt());
+        row.setValidTo(interval.validTo());
+        row.setLastConfirmedAt(interval.lastConfirmedAt());
+    }
+}
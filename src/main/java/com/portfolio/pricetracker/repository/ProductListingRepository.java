@@ -1,23 +1,127 @@
 package com.portfolio.pricetracker.repository;
 
+import com.portfolio.pricetracker.dto.ListingFingerprint;
+import com.portfolio.pricetracker.dto.ListingPriceView;
+import com.portfolio.pricetracker.dto.PriceMovementView;
 import com.portfolio.pricetracker.entity.ProductListing;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductListingRepository extends JpaRepository<ProductListing, Long> {
 
+    /**
+     * Each listing's current price against the first price of the window: the oldest
+     * history interval still confirmed after :since, picked with ROW_NUMBER() in one pass
+     * over price_history. The ranking queries below add direction, order and LIMIT, so
+     * only the top rows leave the database.
+     */
+    String PRICE_MOVEMENTS = """
+            SELECT l.product_id AS "productId", p.name AS "productName", l.id AS "listingId",
+                   s.name AS "sourceName", l.url AS "url", f.price AS "previousPrice",
+                   l.current_price AS "currentPrice", l.current_price - f.price AS "priceChange",
+                   CAST(ROUND((l.current_price - f.price) / f.price, 4) * 100 AS DOUBLE PRECISION) AS "changePercentage"
+            FROM (SELECT h.listing_id, h.price,
+                         ROW_NUMBER() OVER (PARTITION BY h.listing_id ORDER BY h.scraped_at) AS row_in_window
+                  FROM price_history h
+                  WHERE h.last_confirmed_at > :since) f
+            JOIN product_listings l ON l.id = f.listing_id
+            JOIN products p ON p.id = l.product_id
+            JOIN website_sources s ON s.id = l.source_id
+            WHERE f.row_in_window = 1 AND f.price <> 0 AND l.current_price IS NOT NULL
+            """;
+
+    // (listingId, productId, category, currentPrice) rows for CategoryPricePercentiles
+    String CATEGORY_PRICES = "SELECT l.id, p.id, p.category, l.currentPrice FROM ProductListing l JOIN l.product p " +
+                             "WHERE l.currentPrice IS NOT NULL AND p.category IS NOT NULL AND p.deletedAt IS NULL ";
+
     List<ProductListing> findByProductId(Long productId);
 
-    Optional<ProductListing> findByProductIdAndSourceId(Long productId, Long sourceId);
+    // Locked until the transaction ends, so ingestion of one listing is serialized across nodes and jobs
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ProductListing l WHERE l.product.id = :productId AND l.source.id = :sourceId")
+    Optional<ProductListing> findByProductIdAndSourceIdForUpdate(@Param("productId") Long productId,
+                                                                 @Param("sourceId") Long sourceId);
+
+    // Product and source names and price statistics joined in, so the comparison is one statement whatever the number of listings
+    @Query("SELECT p.name AS productName, pl.id AS listingId, s.name AS sourceName, pl.currentPrice AS currentPrice, " +
+           "pl.inStock AS inStock, pl.url AS url, pl.lastScrapedAt AS lastScrapedAt, " +
+           "st.observedSeconds AS observedSeconds, st.meanPrice AS meanPrice, st.m2 AS m2, st.allTimeLow AS allTimeLow, " +
+           "st.recentLows AS recentLows, st.dealScore AS dealScore " +
+           "FROM ProductListing pl JOIN pl.product p JOIN pl.source s " +
+           "LEFT JOIN ListingPriceStats st ON st.listingId = pl.id " +
+           "WHERE p.id = :productId ORDER BY pl.currentPrice ASC")
+    List<ListingPriceView> findPricesByProductId(@Param("productId") Long productId);
+
+    // Locked like findByProductIdAndSourceIdForUpdate
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ProductListing l WHERE l.url = :url")
+    Optional<ProductListing> findByUrlForUpdate(@Param("url") String url);
+
+    // Insert-or-get on the (product, source) unique constraint
+    @Modifying
+    @Query(value = "INSERT INTO product_listings (product_id, source_id, url, currency, created_at, updated_at) " +
+                   "VALUES (:productId, :sourceId, :url, 'EUR', NOW(), NOW()) " +
+                   "ON CONFLICT (product_id, source_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("productId") Long productId,
+                       @Param("sourceId") Long sourceId,
+                       @Param("url") String url);
+
+    // Bulk touch for unchanged items; a JPQL update does not bump @UpdateTimestamp
+    @Modifying
+    @Query("UPDATE ProductListing l SET l.lastScrapedAt = :scrapedAt WHERE l.id IN :ids")
+    int touchLastScrapedAt(@Param("ids") Collection<Long> ids, @Param("scrapedAt") LocalDateTime scrapedAt);
+
+    // Most recently scraped listings first, to warm the fingerprint cache
+    @Query("SELECT new com.portfolio.pricetracker.dto.ListingFingerprint(l.url, l.id, l.currentPrice, l.inStock) " +
+           "FROM ProductListing l WHERE l.currentPrice IS NOT NULL ORDER BY l.lastScrapedAt DESC NULLS LAST")
+    List<ListingFingerprint> findFingerprints(Pageable pageable);
+
+    // Must be consumed inside a transaction
+    @Query(CATEGORY_PRICES)
+    Stream<Object[]> streamCategoryPrices();
+
+    @Query(CATEGORY_PRICES + "AND l.id IN :ids")
+    List<Object[]> findCategoryPrices(@Param("ids") Collection<Long> ids);
+
+    @Query(CATEGORY_PRICES + "AND p.id IN :productIds")
+    List<Object[]> findCategoryPricesByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Lowest price a product can be bought at right now; a null stock flag counts as in stock
+    @Query("SELECT MIN(l.currentPrice) FROM ProductListing l " +
+           "WHERE l.product.id = :productId AND (l.inStock IS NULL OR l.inStock = true)")
+    Optional<BigDecimal> findLowestCurrentPrice(@Param("productId") Long productId);
+
+    // (listingId, productId, currentPrice, inStock) rows for AlertEngine; must be consumed inside a transaction
+    @Query("SELECT l.id, l.product.id, l.currentPrice, l.inStock FROM ProductListing l WHERE l.currentPrice IS NOT NULL")
+    Stream<Object[]> streamAlertState();
+
+    @Query(value = PRICE_MOVEMENTS + "AND l.current_price < f.price ORDER BY \"changePercentage\", l.id LIMIT :limit",
+           nativeQuery = true)
+    List<PriceMovementView> findTopPriceDrops(@Param("since") LocalDateTime since, @Param("limit") int limit);
+
+    @Query(value = PRICE_MOVEMENTS + "AND l.current_price > f.price ORDER BY \"changePercentage\" DESC, l.id LIMIT :limit",
+           nativeQuery = true)
+    List<PriceMovementView> findTopPriceIncreases(@Param("since") LocalDateTime since, @Param("limit") int limit);
 
-    @Query("SELECT pl FROM ProductListing pl WHERE pl.product.id = :productId ORDER BY pl.currentPrice ASC")
-    List<ProductListing> findByProductIdOrderByPriceAsc(@Param("productId") Long productId);
+    @Query("SELECT l.id, l.product.id, l.currentPrice, l.inStock FROM ProductListing l " +
+           "WHERE l.id IN :ids AND l.currentPrice IS NOT NULL")
+    List<Object[]> findAlertState(@Param("ids") Collection<Long> ids);
 
-    Optional<ProductListing> findByUrl(String url);
+    @Query("SELECT DISTINCT l.product.id FROM ProductListing l WHERE l.id IN :ids")
+    List<Long> findProductIds(@Param("ids") Collection<Long> ids);
 }
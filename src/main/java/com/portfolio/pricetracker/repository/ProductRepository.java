@@ -2,11 +2,13 @@ package com.portfolio.pricetracker.repository;
 
 import com.portfolio.pricetracker.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,5 +35,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT DISTINCT p FROM Product p JOIN p.listings l WHERE p.deletedAt IS NULL AND l.currentPrice BETWEEN :minPrice AND :maxPrice")
     List<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
 
-    Optional<Product> findByNameIgnoreCaseAndDeletedAtIsNull(String name);
+    Optional<Product> findByNormalizedNameAndDeletedAtIsNull(String normalizedName);
+
+    // (productId, name, lowest current price) of the given products that are not deleted
+    @Query("SELECT p.id, p.name, MIN(l.currentPrice) FROM Product p LEFT JOIN p.listings l " +
+           "WHERE p.deletedAt IS NULL AND p.id IN :ids GROUP BY p.id, p.name")
+    List<Object[]> findSummaries(@Param("ids") Collection<Long> ids);
+
+    // Insert-or-get: a concurrent insert of the same key (other thread or node) makes this a no-op
+    @Modifying
+    @Query(value = "INSERT INTO products (name, normalized_name, image_url, created_at, updated_at) " +
+                   "VALUES (:name, :normalizedName, :imageUrl, NOW(), NOW()) " +
+                   "ON CONFLICT (normalized_name) WHERE deleted_at IS NULL DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name,
+                       @Param("normalizedName") String normalizedName,
+                       @Param("imageUrl") String imageUrl);
 }
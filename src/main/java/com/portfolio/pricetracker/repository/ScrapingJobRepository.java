@@ -20,4 +20,8 @@ public interface ScrapingJobRepository extends JpaRepository<ScrapingJob, Long>
     // JOIN FETCH to avoid LazyInitializationException when accessing source outside a transaction
     @Query("SELECT j FROM ScrapingJob j LEFT JOIN FETCH j.source WHERE j.id = :id")
     Optional<ScrapingJob> findByIdWithSource(@Param("id") Long id);
+
+    // Same for the job list, in one statement instead of one source lookup per job
+    @Query("SELECT j FROM ScrapingJob j LEFT JOIN FETCH j.source")
+    List<ScrapingJob> findAllWithSource();
 }
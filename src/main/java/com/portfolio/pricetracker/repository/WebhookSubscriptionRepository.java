@@ -0,0 +1,7 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.entity.WebhookSubscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface WebhookSubscriptionRepository extends JpaRepository<WebhookSubscription, Long> {
+}
@@ -0,0 +1,251 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of ACTIVE price alerts, compiled per product into an evaluation plan:
+ * threshold rules (TARGET_PRICE, PERCENT_DROP) as one array sorted by target price, and
+ * the ids of each event rule type in their own array. Finding the threshold alerts a price
+ * triggers (target >= price) is a binary search plus a copy of the tail; AlertEngine only
+ * looks at an event array when it is non-empty, so scraped items of products without a
+ * matching alert cost no query at all.
+ *
+ * Each product's entry is an immutable snapshot replaced on change (copy-on-write):
+ * lookups happen for every scraped item, changes only when alerts are created, deleted
+ * or triggered. PriceAlertService keeps the book in sync after commit, recompiles the
+ * products whose alerts another node changed, and rebuilds it from the database at
+ * startup; the database stays the source of truth.
+ */
+@Component
+public class AlertBook {
+
+    private static final long[] NONE = new long[0];
+    private static final AlertRuleType[] RULE_TYPES = AlertRuleType.values();
+
+    // Replaced as a whole by replaceAll, so lookups never see a half-built book;
+    // changes are synchronized so none lands on a map that is being replaced
+    private volatile Map<Long, ProductAlerts> products = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the threshold alerts of {@code productId} whose target is at or above {@code price}.
+     */
+    public long[] findTriggered(Long productId, BigDecimal price) {
+        ProductAlerts alerts = products.get(productId);
+        return alerts == null ? NONE : alerts.atOrAbove(price);
+    }
+
+    /**
+     * The compiled plan of {@code productId}, or null when it has no active alert.
+     */
+    ProductAlerts rules(Long productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * {@code targetPrice} is only read for threshold rules.
+     */
+    public synchronized void add(Long alertId, Long productId, AlertRuleType ruleType, BigDecimal targetPrice) {
+        products.compute(productId, (id, alerts) ->
+                (alerts == null ? ProductAlerts.EMPTY : alerts).with(alertId, ruleType, targetPrice));
+    }
+
+    public synchronized void remove(Long alertId, Long productId) {
+        products.computeIfPresent(productId, (id, alerts) -> {
+            ProductAlerts remaining = alerts.without(alertId);
+            return remaining.size() == 0 ? null : remaining;
+        });
+    }
+
+    public int size() {
+        return products.values().stream().mapToInt(ProductAlerts::size).sum();
+    }
+
+    /**
+     * Replaces the whole book; {@code entries} yields (alertId, productId, ruleType, targetPrice).
+     */
+    public void replaceAll(Iterable<Object[]> entries) {
+        Map<Long, Builder> builders = new HashMap<>();
+        for (Object[] entry : entries) {
+            builders.computeIfAbsent((Long) entry[1], id -> new Builder())
+                    .add((Long) entry[0], (AlertRuleType) entry[2], (BigDecimal) entry[3]);
+        }
+        Map<Long, ProductAlerts> rebuilt = new ConcurrentHashMap<>(builders.size() * 2);
+        builders.forEach((productId, builder) -> rebuilt.put(productId, builder.build()));
+        synchronized (this) {
+            products = rebuilt;
+        }
+    }
+
+    /**
+     * Replaces the plans of {@code productIds} only; {@code entries} are their active alerts
+     * as in replaceAll, and a product without any is dropped.
+     */
+    public synchronized void replaceProducts(Collection<Long> productIds, Iterable<Object[]> entries) {
+        Map<Long, Builder> builders = new HashMap<>();
+        for (Object[] entry : entries) {
+            builders.computeIfAbsent((Long) entry[1], id -> new Builder())
+                    .add((Long) entry[0], (AlertRuleType) entry[2], (BigDecimal) entry[3]);
+        }
+        for (Long productId : productIds) {
+            Builder builder = builders.get(productId);
+            if (builder == null) {
+                products.remove(productId);
+            } else {
+                products.put(productId, builder.build());
+            }
+        }
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    /**
+     * Alerts of one product: threshold alerts sorted by (target, id), event alerts per rule
+     * type in creation order; never mutated after construction.
+     */
+    record ProductAlerts(long[] targets, long[] ids, long[][] events) {
+
+        static final ProductAlerts EMPTY = new ProductAlerts(NONE, NONE, emptyEvents());
+
+        int size() {
+            int size = ids.length;
+            for (long[] eventIds : events) size += eventIds.length;
+            return size;
+        }
+
+        long[] atOrAbove(BigDecimal price) {
+            // price <= target  <=>  ceil(price in cents) <= target in cents
+            long priceCents = price.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+            int first = lowerBound(priceCents);
+            return first == ids.length ? NONE : Arrays.copyOfRange(ids, first, ids.length);
+        }
+
+        long[] events(AlertRuleType ruleType) {
+            return events[ruleType.ordinal()];
+        }
+
+        // First index whose target is >= value
+        int lowerBound(long value) {
+            int low = 0;
+            int high = targets.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (targets[mid] < value) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        ProductAlerts with(long alertId, AlertRuleType ruleType, BigDecimal targetPrice) {
+            ProductAlerts base = without(alertId);
+            if (!ruleType.isThreshold()) {
+                long[][] copy = base.events.clone();
+                copy[ruleType.ordinal()] = insert(copy[ruleType.ordinal()], copy[ruleType.ordinal()].length, alertId);
+                return new ProductAlerts(base.targets, base.ids, copy);
+            }
+            long target = toCents(targetPrice);
+            int at = base.lowerBound(target);
+            while (at < base.targets.length && base.targets[at] == target && base.ids[at] < alertId) at++;
+            return new ProductAlerts(insert(base.targets, at, target), insert(base.ids, at, alertId), base.events);
+        }
+
+        ProductAlerts without(long alertId) {
+            int at = indexOf(ids, alertId);
+            if (at >= 0) return new ProductAlerts(delete(targets, at), delete(ids, at), events);
+            for (int type = 0; type < events.length; type++) {
+                at = indexOf(events[type], alertId);
+                if (at >= 0) {
+                    long[][] copy = events.clone();
+                    copy[type] = delete(events[type], at);
+                    return new ProductAlerts(targets, ids, copy);
+                }
+            }
+            return this;
+        }
+
+        private static long[][] emptyEvents() {
+            long[][] events = new long[RULE_TYPES.length][];
+            Arrays.fill(events, NONE);
+            return events;
+        }
+
+        private static int indexOf(long[] values, long value) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == value) return i;
+            }
+            return -1;
+        }
+
+        private static long[] insert(long[] values, int at, long value) {
+            long[] copy = new long[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, at);
+            copy[at] = value;
+            System.arraycopy(values, at, copy, at + 1, values.length - at);
+            return copy;
+        }
+
+        private static long[] delete(long[] values, int at) {
+            long[] copy = new long[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, at);
+            System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+            return copy;
+        }
+    }
+
+    private static final class Builder {
+        private long[] targets = new long[4];
+        private long[] ids = new long[4];
+        private int size;
+        private final long[][] events = new long[RULE_TYPES.length][];
+        private final int[] eventCounts = new int[RULE_TYPES.length];
+
+        void add(long alertId, AlertRuleType ruleType, BigDecimal targetPrice) {
+            if (!ruleType.isThreshold()) {
+                int type = ruleType.ordinal();
+                if (events[type] == null) {
+                    events[type] = new long[4];
+                } else if (eventCounts[type] == events[type].length) {
+                    events[type] = Arrays.copyOf(events[type], eventCounts[type] * 2);
+                }
+                events[type][eventCounts[type]++] = alertId;
+                return;
+            }
+            if (size == ids.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            targets[size] = toCents(targetPrice);
+            ids[size] = alertId;
+            size++;
+        }
+
+        ProductAlerts build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> targets[a] != targets[b]
+                    ? Long.compare(targets[a], targets[b])
+                    : Long.compare(ids[a], ids[b]));
+            long[] sortedTargets = new long[size];
+            long[] sortedIds = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedTargets[i] = targets[order[i]];
+                sortedIds[i] = ids[order[i]];
+            }
+            long[][] compiled = new long[RULE_TYPES.length][];
+            for (int type = 0; type < compiled.length; type++) {
+                compiled[type] = eventCounts[type] == 0 ? NONE : Arrays.copyOf(events[type], eventCounts[type]);
+            }
+            return new ProductAlerts(sortedTargets, sortedIds, compiled);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates every alert rule of a product against one ingested price point in a single
+ * pass. The product's compiled plan comes from AlertBook; event rules read the per-listing
+ * and per-product state kept here (last price and stock of each listing, lowest price ever
+ * seen per product), which observe() advances incrementally. Work per point is a map
+ * lookup per state plus, for CHEAPEST_STORE, a scan of the product's listings (one per
+ * store), however many rule types the product has.
+ *
+ * State is in memory only: PriceAlertService seeds it at startup from the listings' current
+ * prices and the daily rollup lows, and advances it after each ingestion commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class AlertEngine {
+
+    private static final long[] NONE = new long[0];
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final AlertBook alertBook;
+
+    private final Map<Long, ListingState> listings = new ConcurrentHashMap<>();
+    private final Map<Long, ProductState> products = new ConcurrentHashMap<>();
+
+    public record PricePoint(long listingId, long productId, BigDecimal price, Boolean inStock) {
+    }
+
+    /**
+     * Ids of the active alerts {@code point} fires, judged against the state before it;
+     * does not change the state.
+     */
+    public long[] evaluate(PricePoint point) {
+        AlertBook.ProductAlerts plan = alertBook.rules(point.productId());
+        if (plan == null) return NONE;
+
+        long[] fired = plan.atOrAbove(point.price());
+        long[] backInStock = plan.events(AlertRuleType.BACK_IN_STOCK);
+        if (backInStock.length > 0 && cameBackInStock(point)) {
+            fired = concat(fired, backInStock);
+        }
+        long[] allTimeLow = plan.events(AlertRuleType.ALL_TIME_LOW);
+        if (allTimeLow.length > 0 && isNewAllTimeLow(point)) {
+            fired = concat(fired, allTimeLow);
+        }
+        long[] cheapestStore = plan.events(AlertRuleType.CHEAPEST_STORE);
+        if (cheapestStore.length > 0 && becameCheapestStore(point)) {
+            fired = concat(fired, cheapestStore);
+        }
+        return fired;
+    }
+
+    /**
+     * Advances the state past {@code point}.
+     */
+    public void observe(PricePoint point) {
+        long cents = toCents(point.price());
+        listings.put(point.listingId(), new ListingState(cents, point.inStock()));
+        products.compute(point.productId(), (id, state) ->
+                (state == null ? ProductState.EMPTY : state).with(point.listingId(), cents));
+    }
+
+    public int trackedListings() {
+        return listings.size();
+    }
+
+    /**
+     * Replaces all state. {@code currentPrices} yields (listingId, productId, currentPrice,
+     * inStock), {@code lowestPrices} (productId, lowest price ever recorded).
+     */
+    public void replaceState(Iterable<Object[]> currentPrices, Iterable<Object[]> lowestPrices) {
+        Map<Long, ListingState> rebuiltListings = new HashMap<>();
+        Map<Long, ProductState> rebuiltProducts = new HashMap<>();
+        for (Object[] row : currentPrices) {
+            long listingId = (Long) row[0];
+            long cents = toCents((BigDecimal) row[2]);
+            rebuiltListings.put(listingId, new ListingState(cents, (Boolean) row[3]));
+            rebuiltProducts.compute((Long) row[1], (id, state) ->
+                    (state == null ? ProductState.EMPTY : state).with(listingId, cents));
+        }
+        for (Object[] row : lowestPrices) {
+            long cents = toCents((BigDecimal) row[1]);
+            rebuiltProducts.computeIfPresent((Long) row[0], (id, state) -> state.withLow(cents));
+        }
+
+        listings.clear();
+        listings.putAll(rebuiltListings);
+        products.clear();
+        products.putAll(rebuiltProducts);
+    }
+
+    private boolean cameBackInStock(PricePoint point) {
+        ListingState previous = listings.get(point.listingId());
+        return previous != null && Boolean.FALSE.equals(previous.inStock()) && Boolean.TRUE.equals(point.inStock());
+    }
+
+    // The first price ever seen for a product sets the low, it does not beat it
+    private boolean isNewAllTimeLow(PricePoint point) {
+        ProductState product = products.get(point.productId());
+        return product != null && product.allTimeLow() != UNKNOWN && toCents(point.price()) < product.allTimeLow();
+    }
+
+    /**
+     * Whether the listing is now strictly cheaper than every other in-stock listing of the
+     * product, and was not before. Out-of-stock listings (inStock false) never compete.
+     */
+    private boolean becameCheapestStore(PricePoint point) {
+        ProductState product = products.get(point.productId());
+        if (product == null || Boolean.FALSE.equals(point.inStock())) return false;
+
+        long cents = toCents(point.price());
+        ListingState previous = listings.get(point.listingId());
+        boolean wasCheapest = previous != null && !Boolean.FALSE.equals(previous.inStock());
+        int competitors = 0;
+        for (long listingId : product.listingIds()) {
+            if (listingId == point.listingId()) continue;
+            ListingState other = listings.get(listingId);
+            if (other == null || Boolean.FALSE.equals(other.inStock())) continue;
+            competitors++;
+            if (other.priceCents() <= cents) return false;
+            if (previous != null && other.priceCents() <= previous.priceCents()) wasCheapest = false;
+        }
+        return competitors > 0 && !wasCheapest;
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        if (first.length == 0) return second;
+        long[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    private record ListingState(long priceCents, Boolean inStock) {
+    }
+
+    /**
+     * Listings of one product (one per store, so a handful) and its lowest price ever;
+     * replaced on change.
+     */
+    private record ProductState(long[] listingIds, long allTimeLow) {
+
+        static final ProductState EMPTY = new ProductState(NONE, UNKNOWN);
+
+        ProductState with(long listingId, long priceCents) {
+            long low = Math.min(allTimeLow, priceCents);
+            for (long known : listingIds) {
+                if (known == listingId) return low == allTimeLow ? this : new ProductState(listingIds, low);
+            }
+            long[] ids = Arrays.copyOf(listingIds, listingIds.length + 1);
+            ids[listingIds.length] = listingId;
+            return new ProductState(ids, low);
+        }
+
+        ProductState withLow(long priceCents) {
+            return priceCents < allTimeLow ? new ProductState(listingIds, priceCents) : this;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.portfolio.pricetracker.service;
 
-import com.portfolio.pricetracker.entity.PriceAlert;
+import com.portfolio.pricetracker.entity.AlertNotification;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 public interface AlertNotifier {
-    void notify(PriceAlert alert, BigDecimal currentPrice);
+
+    /**
+     * Delivers one digest: the pending notifications of a single user, oldest first.
+     * Throws if delivery failed, in which case the whole digest is retried.
+     */
+    void notify(String userEmail, List<AlertNotification> notifications);
 }
@@ -0,0 +1,128 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.ResultCacheConfig;
+import com.portfolio.pricetracker.dto.PriceComparisonDTO;
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.ResultCacheStatsDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Results of the AnalyticsService reads that go to the database, kept until what they
+ * were computed from changes:
+ *
+ * - comparisons, per product: dropped when a listing of the product is created or
+ *   changes price or stock, or the product is renamed or deleted;
+ * - product summaries (name and lowest price) behind the trending endpoint, per product,
+ *   on the same changes; the ranking itself is always read from TrendingScores;
+ * - price movements ranked by the database (windows PriceMoversBoard does not keep):
+ *   all of them on any price change, since any listing can enter a ranking.
+ *
+ * Local changes are reported by ProductUnificationService as soon as each ingested item
+ * commits, and by ProductService after commit; changes committed by other nodes arrive as
+ * LISTING and PRODUCT invalidations, listings being mapped to their products with one
+ * query per batch.
+ * result-cache.ttl bounds what no event reports (lastScrapedAt of unchanged listings,
+ * the sliding of the windows).
+ */
+@Component
+@Slf4j
+public class AnalyticsResultCache implements CacheInvalidationListener {
+
+    private record MovementKey(boolean drops, int days, int limit) {
+    }
+
+    private final ProductListingRepository listingRepository;
+    private final ResultCache<Long, PriceComparisonDTO> comparisons;
+    private final ResultCache<Long, Object[]> productSummaries;
+    private final ResultCache<MovementKey, List<PriceDropDTO>> movements;
+
+    public AnalyticsResultCache(ResultCacheConfig config, ProductListingRepository listingRepository) {
+        this.listingRepository = listingRepository;
+        this.comparisons = new ResultCache<>("comparisons", config.getMaximumSize(), config.getTtl());
+        this.productSummaries = new ResultCache<>("product-summaries", config.getMaximumSize(), config.getTtl());
+        this.movements = new ResultCache<>("price-movements", config.getMaximumSize(), config.getTtl());
+    }
+
+    public PriceComparisonDTO comparison(Long productId, Supplier<PriceComparisonDTO> loader) {
+        return comparisons.get(productId, loader);
+    }
+
+    /**
+     * (id, name, lowest current price) rows of these products; missing ones are loaded with
+     * one call to {@code loader}, and products it does not return are left out.
+     */
+    public Map<Long, Object[]> productSummaries(Collection<Long> productIds,
+                                                Function<Set<Long>, Map<Long, Object[]>> loader) {
+        return productSummaries.getAll(productIds, loader);
+    }
+
+    public List<PriceDropDTO> priceMovements(boolean drops, int days, int limit, Supplier<List<PriceDropDTO>> loader) {
+        return movements.get(new MovementKey(drops, days, limit), () -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Must only be called once the change to these products has committed.
+     */
+    public void invalidateProducts(Collection<Long> productIds) {
+        Set<Long> ids = Set.copyOf(productIds);
+        comparisons.invalidate(ids);
+        productSummaries.invalidate(ids);
+        movements.invalidateIf((key, movers) -> movers.stream().anyMatch(mover -> ids.contains(mover.getProductId())));
+    }
+
+    /**
+     * Listings of these products were created or changed price or stock; must only be
+     * called once those changes have committed.
+     */
+    public void listingsChanged(Collection<Long> productIds, boolean pricesChanged) {
+        Set<Long> ids = Set.copyOf(productIds);
+        comparisons.invalidate(ids);
+        productSummaries.invalidate(ids);
+        // A new price may move any listing into a ranking
+        if (pricesChanged) movements.invalidateAll();
+    }
+
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        switch (entity) {
+            case PRODUCT -> invalidateProducts(ids);
+            case LISTING -> {
+                Set<Long> productIds;
+                try {
+                    productIds = Set.copyOf(listingRepository.findProductIds(ids));
+                } catch (RuntimeException e) {
+                    log.warn("Could not map {} listing(s) to products, dropping all results: {}", ids.size(), e.getMessage());
+                    invalidateAll();
+                    return;
+                }
+                // What changed is not known, so price movements go too
+                listingsChanged(productIds, true);
+            }
+            default -> {
+                // Not cached here
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        comparisons.invalidateAll();
+        productSummaries.invalidateAll();
+        movements.invalidateAll();
+    }
+
+    public List<ResultCacheStatsDTO> stats() {
+        return List.of(comparisons.stats(), productSummaries.stats(), movements.stats());
+    }
+}
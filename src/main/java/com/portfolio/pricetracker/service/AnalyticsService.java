@@ -1,26 +1,39 @@
 package com.portfolio.pricetracker.service;
 
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import com.portfolio.pricetracker.dto.ListingPriceView;
 import com.portfolio.pricetracker.dto.PriceComparisonDTO;
 import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.PriceMovementView;
+import com.portfolio.pricetracker.dto.PriceSeriesDTO;
+import com.portfolio.pricetracker.dto.PriceSnapshotDTO;
 import com.portfolio.pricetracker.dto.TrendingProductDTO;
+import com.portfolio.pricetracker.entity.ListingPriceStats;
 import com.portfolio.pricetracker.entity.PriceHistory;
-import com.portfolio.pricetracker.entity.ProductListing;
+import com.portfolio.pricetracker.entity.PriceRollup;
+import com.portfolio.pricetracker.entity.RollupResolution;
 import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import com.portfolio.pricetracker.repository.PriceSnapshotReader;
 import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.repository.ProductRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,74 +41,90 @@ public class AnalyticsService {
 
     private final ProductListingRepository listingRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceRollupRepository priceRollupRepository;
+    private final PriceHistoryConfig priceHistoryConfig;
+    private final PriceMoversBoard moversBoard;
+    private final ProductRepository productRepository;
+    private final TrendingScores trendingScores;
+    private final AnalyticsResultCache resultCache;
+    private final PriceSnapshotReader snapshotReader;
 
-    @Transactional(readOnly = true)
+    /**
+     * Listings whose price fell the most, in percent, since the first price seen in the
+     * last {@code days} days. Served from PriceMoversBoard for the windows it keeps;
+     * otherwise ranked by one query in the database (see
+     * ProductListingRepository.PRICE_MOVEMENTS), whose result is cached in
+     * AnalyticsResultCache until the next price change. Either way only hot history is
+     * read, so the window reaches back at most price-history.hot-days.
+     */
     public List<PriceDropDTO> getTopPriceDrops(int days, int limit) {
-        LocalDateTime since = LocalDateTime.now().minusDays(days);
-        return listingRepository.findAll().stream()
-                .filter(l -> l.getCurrentPrice() != null)
-                .map(l -> buildPriceChangeDTO(l, since))
-                .filter(Objects::nonNull)
-                .filter(dto -> dto.getPriceChange().compareTo(BigDecimal.ZERO) < 0)
-                .sorted(Comparator.comparingDouble(PriceDropDTO::getChangePercentage))
-                .limit(limit)
-                .collect(Collectors.toList());
+        return moversBoard.topDrops(Duration.ofDays(days), limit)
+                .orElseGet(() -> resultCache.priceMovements(true, days, limit,
+                        () -> listingRepository.findTopPriceDrops(LocalDateTime.now().minusDays(days), limit).stream()
+                                .map(this::toPriceDropDTO)
+                                .collect(Collectors.toList())));
     }
 
-    @Transactional(readOnly = true)
     public List<PriceDropDTO> getTopPriceIncreases(int days, int limit) {
-        LocalDateTime since = LocalDateTime.now().minusDays(days);
-        return listingRepository.findAll().stream()
-                .filter(l -> l.getCurrentPrice() != null)
-                .map(l -> buildPriceChangeDTO(l, since))
-                .filter(Objects::nonNull)
-                .filter(dto -> dto.getPriceChange().compareTo(BigDecimal.ZERO) > 0)
-                .sorted(Comparator.comparingDouble(PriceDropDTO::getChangePercentage).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return moversBoard.topIncreases(Duration.ofDays(days), limit)
+                .orElseGet(() -> resultCache.priceMovements(false, days, limit,
+                        () -> listingRepository.findTopPriceIncreases(LocalDateTime.now().minusDays(days), limit).stream()
+                                .map(this::toPriceDropDTO)
+                                .collect(Collectors.toList())));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Products with the most recent activity (views and ingested changes, time-decayed; see
+     * TrendingScores), read from memory; names and lowest prices come from
+     * AnalyticsResultCache, with one query for the products it misses. Products found
+     * deleted are forgotten and the ranking re-read.
+     */
     public List<TrendingProductDTO> getTrending(int limit) {
-        List<Object[]> rows = priceHistoryRepository.findTrendingProducts(PageRequest.of(0, limit));
-        return rows.stream()
-                .map(row -> {
-                    Long productId = (Long) row[0];
-                    String productName = (String) row[1];
-                    long count = (Long) row[2];
-                    BigDecimal lowestPrice = listingRepository
-                            .findByProductIdOrderByPriceAsc(productId).stream()
-                            .map(ProductListing::getCurrentPrice)
-                            .filter(Objects::nonNull)
-                            .min(Comparator.naturalOrder())
-                            .orElse(null);
-                    return TrendingProductDTO.builder()
-                            .productId(productId)
-                            .productName(productName)
-                            .scrapeCount(count)
-                            .lowestCurrentPrice(lowestPrice)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        List<TrendingScores.Score> scores = trendingScores.top(limit);
+        Map<Long, Object[]> summaries = findSummaries(scores);
+        if (summaries.size() < scores.size()) {
+            trendingScores.forget(scores.stream()
+                    .map(TrendingScores.Score::productId)
+                    .filter(Predicate.not(summaries::containsKey))
+                    .toList());
+            scores = trendingScores.top(limit);
+            summaries = findSummaries(scores);
+        }
+        return toTrendingDTOs(scores, summaries);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Listings of a product from cheapest to most expensive, cached per product in
+     * AnalyticsResultCache until one of them changes.
+     */
     public PriceComparisonDTO compareProduct(Long productId) {
-        List<ProductListing> listings = listingRepository.findByProductIdOrderByPriceAsc(productId);
+        return resultCache.comparison(productId, () -> loadComparison(productId));
+    }
+
+    private PriceComparisonDTO loadComparison(Long productId) {
+        List<ListingPriceView> listings = listingRepository.findPricesByProductId(productId);
         if (listings.isEmpty()) {
             throw new EntityNotFoundException("No listings found for product: " + productId);
         }
 
-        String productName = listings.get(0).getProduct().getName();
+        String productName = listings.get(0).getProductName();
 
+        LocalDateTime now = LocalDateTime.now();
         List<PriceComparisonDTO.ListingPriceDTO> listingDTOs = listings.stream()
                 .map(l -> PriceComparisonDTO.ListingPriceDTO.builder()
-                        .listingId(l.getId())
-                        .sourceName(l.getSource().getName())
+                        .listingId(l.getListingId())
+                        .sourceName(l.getSourceName())
                         .currentPrice(l.getCurrentPrice())
                         .inStock(l.getInStock())
                         .url(l.getUrl())
                         .lastScrapedAt(l.getLastScrapedAt())
+                        .allTimeLow(l.getAllTimeLow())
+                        .low30Days(ListingPriceStats.lowSince(l.getRecentLows(), now.minusDays(30)))
+                        .low90Days(ListingPriceStats.lowSince(l.getRecentLows(), now.minus(ListingPriceStats.LOW_WINDOW)))
+                        .meanPrice(l.getMeanPrice() == null ? null : round(l.getMeanPrice()))
+                        .priceStdDev(l.getObservedSeconds() == null ? null
+                                : round(ListingPriceStats.standardDeviation(l.getObservedSeconds(), l.getM2())))
+                        .dealScore(l.getDealScore())
                         .build())
                 .collect(Collectors.toList());
 
@@ -106,33 +135,194 @@ public class AnalyticsService {
                 .build();
     }
 
-    private PriceDropDTO buildPriceChangeDTO(ProductListing listing, LocalDateTime since) {
-        Optional<PriceHistory> oldest = priceHistoryRepository
-                .findFirstByListingIdAndScrapedAtAfterOrderByScrapedAtAsc(listing.getId(), since);
+    // To the cent, like the prices the statistics are computed from
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
 
-        if (oldest.isEmpty()) return null;
+    /**
+     * Price series of every listing of a product over [from, to], read at the coarsest
+     * resolution the range needs: raw intervals for short ranges, hourly rollups while the
+     * range spans at most price-history.max-hourly-buckets hours, daily rollups beyond.
+     */
+    @Transactional(readOnly = true)
+    public PriceSeriesDTO getPriceSeries(Long productId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        RollupResolution resolution = selectResolution(from, to);
 
-        BigDecimal previousPrice = oldest.get().getPrice();
-        BigDecimal currentPrice = listing.getCurrentPrice();
+        List<PriceSeriesDTO.CandleDTO> candles;
+        if (resolution == RollupResolution.RAW) {
+            candles = priceHistoryRepository.findOverlappingForProduct(productId, from, to).stream()
+                    .map(this::toCandle)
+                    .collect(Collectors.toList());
+        } else {
+            ChronoUnit unit = resolution == RollupResolution.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+            candles = priceRollupRepository.findSeries(productId, resolution, from.truncatedTo(unit), to).stream()
+                    .map(this::toCandle)
+                    .collect(Collectors.toList());
+        }
 
-        if (previousPrice.compareTo(BigDecimal.ZERO) == 0) return null;
+        return PriceSeriesDTO.builder()
+                .productId(productId)
+                .resolution(resolution)
+                .from(from)
+                .to(to)
+                .candles(candles)
+                .build();
+    }
 
-        BigDecimal priceChange = currentPrice.subtract(previousPrice);
-        double changePercentage = priceChange
-                .divide(previousPrice, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .doubleValue();
+    /**
+     * Price of every listing (of one product, source or category when given) as of
+     * {@code at}, in pages of {@code limit} listings following listing id {@code after};
+     * see PriceSnapshotReader. Tiered history included.
+     */
+    public PriceSnapshotDTO getPriceSnapshot(LocalDateTime at, Long productId, Long sourceId, String category,
+                                             long after, int limit) {
+        if (limit < 1 || limit > priceHistoryConfig.getMaxSnapshotPageSize()) {
+            throw new IllegalArgumentException("'limit' must be between 1 and " + priceHistoryConfig.getMaxSnapshotPageSize());
+        }
+        return snapshotReader.readPage(at, productId, sourceId, category, after, limit);
+    }
+
+    /**
+     * getPriceSeries reduced to at most {@code points} candles per listing by
+     * LttbDownsampler on the close price, so a chart costs the same whatever the range.
+     * Rollups are read through a cursor and downsampled one listing at a time; raw ranges
+     * (at most price-history.raw-max-range-hours) are read at once, cold tier included.
+     */
+    @Transactional(readOnly = true)
+    public PriceSeriesDTO getDownsampledSeries(Long productId, LocalDateTime from, LocalDateTime to, int points) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (points < 2 || points > priceHistoryConfig.getMaxChartPoints()) {
+            throw new IllegalArgumentException("'points' must be between 2 and " + priceHistoryConfig.getMaxChartPoints());
+        }
+        RollupResolution resolution = selectResolution(from, to);
+
+        List<PriceSeriesDTO.CandleDTO> candles;
+        if (resolution == RollupResolution.RAW) {
+            candles = downsamplePerListing(priceHistoryRepository.findOverlappingForProduct(productId, from, to).stream()
+                    .map(this::toCandle), points);
+        } else {
+            ChronoUnit unit = resolution == RollupResolution.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+            try (Stream<Object[]> rows = priceRollupRepository.streamSeries(productId, resolution, from.truncatedTo(unit), to)) {
+                candles = downsamplePerListing(rows.map(AnalyticsService::toCandle), points);
+            }
+        }
+
+        return PriceSeriesDTO.builder()
+                .productId(productId)
+                .resolution(resolution)
+                .from(from)
+                .to(to)
+                .candles(candles)
+                .build();
+    }
+
+    RollupResolution selectResolution(LocalDateTime from, LocalDateTime to) {
+        Duration range = Duration.between(from, to);
+        if (range.compareTo(Duration.ofHours(priceHistoryConfig.getRawMaxRangeHours())) <= 0) {
+            return RollupResolution.RAW;
+        }
+        if (range.toHours() <= priceHistoryConfig.getMaxHourlyBuckets()) {
+            return RollupResolution.HOUR;
+        }
+        return RollupResolution.DAY;
+    }
+
+    private PriceSeriesDTO.CandleDTO toCandle(PriceHistory interval) {
+        return PriceSeriesDTO.CandleDTO.builder()
+                .listingId(interval.getListing().getId())
+                .time(interval.getScrapedAt())
+                .open(interval.getPrice())
+                .high(interval.getPrice())
+                .low(interval.getPrice())
+                .close(interval.getPrice())
+                .sampleCount(interval.getSampleCount())
+                .build();
+    }
+
+    private PriceSeriesDTO.CandleDTO toCandle(PriceRollup rollup) {
+        return PriceSeriesDTO.CandleDTO.builder()
+                .listingId(rollup.getListing().getId())
+                .time(rollup.getBucketStart())
+                .open(rollup.getOpenPrice())
+                .high(rollup.getHighPrice())
+                .low(rollup.getLowPrice())
+                .close(rollup.getClosePrice())
+                .sampleCount(rollup.getSampleCount())
+                .build();
+    }
+
+    // (listingId, bucketStart, open, high, low, close, sampleCount), see PriceRollupRepository.streamSeries
+    private static PriceSeriesDTO.CandleDTO toCandle(Object[] row) {
+        return PriceSeriesDTO.CandleDTO.builder()
+                .listingId((Long) row[0])
+                .time((LocalDateTime) row[1])
+                .open((BigDecimal) row[2])
+                .high((BigDecimal) row[3])
+                .low((BigDecimal) row[4])
+                .close((BigDecimal) row[5])
+                .sampleCount((Integer) row[6])
+                .build();
+    }
+
+    // Candles ordered by listing, then time; only one listing's candles are held at a time
+    private static List<PriceSeriesDTO.CandleDTO> downsamplePerListing(Stream<PriceSeriesDTO.CandleDTO> candles, int points) {
+        List<PriceSeriesDTO.CandleDTO> sampled = new ArrayList<>();
+        List<PriceSeriesDTO.CandleDTO> listing = new ArrayList<>();
+        Iterator<PriceSeriesDTO.CandleDTO> iterator = candles.iterator();
+        while (iterator.hasNext()) {
+            PriceSeriesDTO.CandleDTO candle = iterator.next();
+            if (!listing.isEmpty() && !listing.get(0).getListingId().equals(candle.getListingId())) {
+                sampled.addAll(downsample(listing, points));
+                listing.clear();
+            }
+            listing.add(candle);
+        }
+        if (!listing.isEmpty()) sampled.addAll(downsample(listing, points));
+        return sampled;
+    }
+
+    private static List<PriceSeriesDTO.CandleDTO> downsample(List<PriceSeriesDTO.CandleDTO> candles, int points) {
+        return LttbDownsampler.downsample(candles, points,
+                candle -> candle.getTime().toEpochSecond(ZoneOffset.UTC),
+                candle -> candle.getClose().doubleValue());
+    }
+
+    private Map<Long, Object[]> findSummaries(List<TrendingScores.Score> scores) {
+        if (scores.isEmpty()) return Map.of();
+        return resultCache.productSummaries(scores.stream().map(TrendingScores.Score::productId).toList(),
+                productIds -> productRepository.findSummaries(productIds).stream()
+                        .collect(Collectors.toMap(row -> (Long) row[0], row -> row)));
+    }
+
+    private List<TrendingProductDTO> toTrendingDTOs(List<TrendingScores.Score> scores, Map<Long, Object[]> summaries) {
+        return scores.stream()
+                .filter(score -> summaries.containsKey(score.productId()))
+                .map(score -> TrendingProductDTO.builder()
+                        .productId(score.productId())
+                        .productName((String) summaries.get(score.productId())[1])
+                        .score(score.score())
+                        .lowestCurrentPrice((BigDecimal) summaries.get(score.productId())[2])
+                        .build())
+                .collect(Collectors.toList());
+    }
 
+    private PriceDropDTO toPriceDropDTO(PriceMovementView movement) {
         return PriceDropDTO.builder()
-                .productId(listing.getProduct().getId())
-                .productName(listing.getProduct().getName())
-                .listingId(listing.getId())
-                .sourceName(listing.getSource().getName())
-                .url(listing.getUrl())
-                .previousPrice(previousPrice)
-                .currentPrice(currentPrice)
-                .priceChange(priceChange)
-                .changePercentage(changePercentage)
+                .productId(movement.getProductId())
+                .productName(movement.getProductName())
+                .listingId(movement.getListingId())
+                .sourceName(movement.getSourceName())
+                .url(movement.getUrl())
+                .previousPrice(movement.getPreviousPrice())
+                .currentPrice(movement.getCurrentPrice())
+                .priceChange(movement.getPriceChange())
+                .changePercentage(movement.getChangePercentage())
                 .build();
     }
 }
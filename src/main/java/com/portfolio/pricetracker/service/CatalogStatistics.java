@@ -0,0 +1,491 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.CatalogStatisticsConfig;
+import com.portfolio.pricetracker.dto.ListingStatisticsDTO;
+import com.portfolio.pricetracker.dto.SourcePriceGapDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics that need a full pass over price history, computed by a nightly batch run
+ * and read from the tables it writes:
+ *
+ * - per listing (listing_statistics): interval and sample counts, time-weighted mean,
+ *   min and max price, daily realized volatility, first and last time seen, and whether it
+ *   is stale (not seen by a scrape for catalog-statistics.stale-after);
+ * - per source (source_price_gaps): how much dearer its listings are than the cheapest
+ *   listing of the same product.
+ *
+ * The listings are loaded once into arrays sorted by id and split into ranges of
+ * catalog-statistics.range-listings, which are scanned on a fork-join pool of
+ * catalog-statistics.parallelism threads. Each range reads its price history with one
+ * forward-only query ordered by listing, through a cursor, into primitive accumulators:
+ * no entity or per-row object is created, and memory grows with the number of listings,
+ * not of rows. Each range then writes its results with one batched upsert.
+ *
+ * One node of the cluster computes them at a time: a run holds a cluster lock, and the rows
+ * it did not write are those of listings deleted since the previous run.
+ *
+ * Only the history still in PostgreSQL is scanned; months moved to cold storage are not.
+ */
+@Service
+@Slf4j
+public class CatalogStatistics {
+
+    private static final String LISTINGS = """
+            SELECT l.id, l.product_id, l.source_id, EXTRACT(EPOCH FROM l.last_scraped_at)::BIGINT
+            FROM product_listings l
+            JOIN products p ON p.id = l.product_id
+            WHERE p.deleted_at IS NULL
+            ORDER BY l.id
+            LIMIT ?""";
+
+    // Prices as float8 and timestamps as epoch seconds, read without allocating
+    private static final String HISTORY = """
+            SELECT listing_id, price::FLOAT8, EXTRACT(EPOCH FROM scraped_at)::BIGINT,
+                   EXTRACT(EPOCH FROM COALESCE(valid_to, last_confirmed_at))::BIGINT,
+                   EXTRACT(EPOCH FROM last_confirmed_at)::BIGINT, sample_count
+            FROM price_history
+            WHERE listing_id BETWEEN ? AND ?
+            ORDER BY listing_id, scraped_at""";
+
+    private static final String UPSERT_LISTING = """
+            INSERT INTO listing_statistics (listing_id, product_id, source_id, interval_count, sample_count, mean_price,
+                                            min_price, max_price, volatility, first_seen_at, last_seen_at, stale, computed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (listing_id) DO UPDATE SET
+                product_id = EXCLUDED.product_id, source_id = EXCLUDED.source_id,
+                interval_count = EXCLUDED.interval_count, sample_count = EXCLUDED.sample_count,
+                mean_price = EXCLUDED.mean_price, min_price = EXCLUDED.min_price, max_price = EXCLUDED.max_price,
+                volatility = EXCLUDED.volatility, first_seen_at = EXCLUDED.first_seen_at,
+                last_seen_at = EXCLUDED.last_seen_at, stale = EXCLUDED.stale, computed_at = EXCLUDED.computed_at""";
+
+    private static final String LISTING_STATISTICS = """
+            SELECT st.listing_id, st.product_id, p.name, s.name, l.url, st.interval_count, st.sample_count,
+                   st.mean_price, st.min_price, st.max_price, st.volatility, st.first_seen_at, st.last_seen_at,
+                   st.stale, st.computed_at
+            FROM listing_statistics st
+            JOIN product_listings l ON l.id = st.listing_id
+            JOIN products p ON p.id = st.product_id
+            JOIN website_sources s ON s.id = st.source_id
+            """;
+
+    private static final long NEVER = Long.MIN_VALUE;
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    /**
+     * Listings of one run sorted by id, and their results, indexed alike. Range scans write
+     * disjoint index ranges; the fork-join pool makes their writes visible to the caller.
+     */
+    private static final class Run {
+
+        final int size;
+        final long[] listingIds;
+        final long[] productIds;
+        final long[] sourceIds;
+        final long[] lastScrapedAt;
+
+        final int[] intervals;
+        final long[] samples;
+        final double[] meanPrice;
+        final double[] minPrice;
+        final double[] maxPrice;
+        final double[] volatility;
+        final long[] firstSeen;
+        final long[] lastSeen;
+
+        final LongAdder rows = new LongAdder();
+
+        Run(int capacity) {
+            listingIds = new long[capacity];
+            productIds = new long[capacity];
+            sourceIds = new long[capacity];
+            lastScrapedAt = new long[capacity];
+            intervals = new int[capacity];
+            samples = new long[capacity];
+            meanPrice = new double[capacity];
+            minPrice = new double[capacity];
+            maxPrice = new double[capacity];
+            volatility = new double[capacity];
+            firstSeen = new long[capacity];
+            lastSeen = new long[capacity];
+            size = capacity;
+        }
+    }
+
+    private final CatalogStatisticsConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ClusterLock clusterLock;
+    private final ForkJoinPool pool;
+
+    public CatalogStatistics(CatalogStatisticsConfig config, JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate, ClusterLock clusterLock,
+                             @Qualifier("catalogStatisticsPool") ForkJoinPool pool) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterLock = clusterLock;
+        this.pool = pool;
+        // The PostgreSQL driver only reads through a cursor inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Recomputes every statistic. Runs after the nightly scrape and tiering; a run still in
+     * progress on this or another node makes another one return at once.
+     *
+     * @return the number of price history rows scanned, 0 when the run was skipped
+     */
+    @Scheduled(cron = "0 0 5 * * *")
+    public long run() {
+        long[] rows = {0};
+        if (!clusterLock.runExclusively("catalog-statistics", () -> rows[0] = compute())) {
+            log.info("Catalog statistics are already being computed, run skipped");
+        }
+        return rows[0];
+    }
+
+    private long compute() {
+        long started = System.nanoTime();
+        LocalDateTime computedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Run run = loadListings();
+        if (run.size > 0) {
+            pool.invoke(new RangeTask(run, 0, run.size, computedAt));
+        }
+        // Listings deleted since the last run; no other run can be writing meanwhile
+        jdbcTemplate.update("DELETE FROM listing_statistics WHERE computed_at < ?", Timestamp.valueOf(computedAt));
+        int sources = writeSourceGaps(run, computedAt);
+        long rows = run.rows.sum();
+        log.info("Computed statistics of {} listing(s) and {} source(s) from {} price history row(s) in {} ms",
+                run.size, sources, rows, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    public List<ListingStatisticsDTO> mostVolatile(int limit) {
+        return jdbcTemplate.query(LISTING_STATISTICS +
+                "WHERE st.volatility IS NOT NULL AND p.deleted_at IS NULL ORDER BY st.volatility DESC LIMIT ?",
+                LISTING_ROW, limit);
+    }
+
+    // Longest unseen first; listings never seen come first
+    public List<ListingStatisticsDTO> staleListings(int limit) {
+        return jdbcTemplate.query(LISTING_STATISTICS +
+                "WHERE st.stale AND p.deleted_at IS NULL ORDER BY st.last_seen_at NULLS FIRST LIMIT ?",
+                LISTING_ROW, limit);
+    }
+
+    public List<SourcePriceGapDTO> sourcePriceGaps() {
+        return jdbcTemplate.query("""
+                SELECT g.source_id, s.name, g.compared_listings, g.cheapest_listings, g.mean_gap_percent,
+                       g.max_gap_percent, g.computed_at
+                FROM source_price_gaps g JOIN website_sources s ON s.id = g.source_id
+                ORDER BY g.mean_gap_percent""",
+                (rs, rowNum) -> SourcePriceGapDTO.builder()
+                        .sourceId(rs.getLong(1))
+                        .sourceName(rs.getString(2))
+                        .comparedListings(rs.getInt(3))
+                        .cheapestListings(rs.getInt(4))
+                        .meanGapPercent(rs.getDouble(5))
+                        .maxGapPercent(rs.getDouble(6))
+                        .computedAt(rs.getObject(7, LocalDateTime.class))
+                        .build());
+    }
+
+    private Run loadListings() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_listings", Integer.class);
+        Run run = new Run(count == null ? 0 : count);
+        int[] loaded = {0};
+        // Listings created meanwhile beyond the count are left to the next run
+        jdbcTemplate.query(LISTINGS, (RowCallbackHandler) rs -> {
+            int i = loaded[0]++;
+            run.listingIds[i] = rs.getLong(1);
+            run.productIds[i] = rs.getLong(2);
+            run.sourceIds[i] = rs.getLong(3);
+            long lastScraped = rs.getLong(4);
+            run.lastScrapedAt[i] = rs.wasNull() ? NEVER : lastScraped;
+        }, run.size);
+        return loaded[0] == run.size ? run : trimmed(run, loaded[0]);
+    }
+
+    private static Run trimmed(Run run, int size) {
+        Run trimmed = new Run(size);
+        System.arraycopy(run.listingIds, 0, trimmed.listingIds, 0, size);
+        System.arraycopy(run.productIds, 0, trimmed.productIds, 0, size);
+        System.arraycopy(run.sourceIds, 0, trimmed.sourceIds, 0, size);
+        System.arraycopy(run.lastScrapedAt, 0, trimmed.lastScrapedAt, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Splits [from, to) in halves down to catalog-statistics.range-listings listings, so
+     * idle threads steal the ranges of busy ones when listings have very different amounts
+     * of history.
+     */
+    private final class RangeTask extends RecursiveAction {
+
+        private final Run run;
+        private final int from;
+        private final int to;
+        private final LocalDateTime computedAt;
+
+        RangeTask(Run run, int from, int to, LocalDateTime computedAt) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+            this.computedAt = computedAt;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > Math.max(1, config.getRangeListings())) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(run, from, middle, computedAt), new RangeTask(run, middle, to, computedAt));
+                return;
+            }
+            scan(run, from, to);
+            write(run, from, to, computedAt);
+        }
+    }
+
+    private void scan(Run run, int from, int to) {
+        RangeAccumulator accumulator = new RangeAccumulator(run, from, to);
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    HISTORY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(config.getFetchSize());
+            statement.setLong(1, run.listingIds[from]);
+            statement.setLong(2, run.listingIds[to - 1]);
+            return statement;
+        }, accumulator));
+        accumulator.finishListing();
+        run.rows.add(accumulator.rows);
+    }
+
+    /**
+     * Folds the intervals of each listing of one range, in listing and time order, into a
+     * few primitives, and stores them into the run when the next listing starts.
+     */
+    private static final class RangeAccumulator implements RowCallbackHandler {
+
+        private final Run run;
+        private final int end;
+        private int index;
+        private long listingId = NEVER;
+        // False for rows of listings created after the run loaded its listings
+        private boolean tracked;
+        private long rows;
+
+        private int intervals;
+        private long samples;
+        private double weightedSum;
+        private double weight;
+        private double plainSum;
+        private double min;
+        private double max;
+        private double previousPrice;
+        private double squaredLogReturns;
+        private long firstSeen;
+        private long lastSeen;
+
+        RangeAccumulator(Run run, int from, int to) {
+            this.run = run;
+            this.index = from;
+            this.end = to;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            rows++;
+            long id = rs.getLong(1);
+            if (id != listingId) {
+                finishListing();
+                startListing(id);
+            }
+            if (!tracked) return;
+
+            double price = rs.getDouble(2);
+            long start = rs.getLong(3);
+            long validTo = rs.getLong(4);
+            long confirmed = rs.getLong(5);
+            intervals++;
+            samples += rs.getInt(6);
+            double duration = Math.max(0, validTo - start);
+            weightedSum += price * duration;
+            weight += duration;
+            plainSum += price;
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+            if (previousPrice > 0 && price > 0) {
+                double logReturn = Math.log(price / previousPrice);
+                squaredLogReturns += logReturn * logReturn;
+            }
+            previousPrice = price;
+            if (intervals == 1) firstSeen = start;
+            lastSeen = Math.max(lastSeen, confirmed);
+        }
+
+        private void startListing(long id) {
+            listingId = id;
+            while (index < end && run.listingIds[index] < id) index++;
+            tracked = index < end && run.listingIds[index] == id;
+            intervals = 0;
+            samples = 0;
+            weightedSum = 0;
+            weight = 0;
+            plainSum = 0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            previousPrice = 0;
+            squaredLogReturns = 0;
+            firstSeen = NEVER;
+            lastSeen = NEVER;
+        }
+
+        void finishListing() {
+            if (!tracked || intervals == 0) return;
+            run.intervals[index] = intervals;
+            run.samples[index] = samples;
+            // Intervals that were each seen once have no duration
+            run.meanPrice[index] = weight > 0 ? weightedSum / weight : plainSum / intervals;
+            run.minPrice[index] = min;
+            run.maxPrice[index] = max;
+            // Days without a change contribute zero returns, so only the span matters
+            double days = Math.max(1, (lastSeen - firstSeen) / SECONDS_PER_DAY);
+            run.volatility[index] = Math.sqrt(squaredLogReturns / days);
+            run.firstSeen[index] = firstSeen;
+            run.lastSeen[index] = lastSeen;
+        }
+    }
+
+    private void write(Run run, int from, int to, LocalDateTime computedAt) {
+        long staleBefore = computedAt.minus(config.getStaleAfter()).toEpochSecond(ZoneOffset.UTC);
+        Timestamp computed = Timestamp.valueOf(computedAt);
+        jdbcTemplate.batchUpdate(UPSERT_LISTING, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int k = from + i;
+                boolean priced = run.intervals[k] > 0;
+                long lastSeen = Math.max(priced ? run.lastSeen[k] : NEVER, run.lastScrapedAt[k]);
+                ps.setLong(1, run.listingIds[k]);
+                ps.setLong(2, run.productIds[k]);
+                ps.setLong(3, run.sourceIds[k]);
+                ps.setInt(4, run.intervals[k]);
+                ps.setLong(5, run.samples[k]);
+                setDouble(ps, 6, priced, run.meanPrice[k]);
+                setDouble(ps, 7, priced, run.minPrice[k]);
+                setDouble(ps, 8, priced, run.maxPrice[k]);
+                setDouble(ps, 9, priced, run.volatility[k]);
+                ps.setTimestamp(10, priced ? timestamp(run.firstSeen[k]) : null);
+                ps.setTimestamp(11, lastSeen == NEVER ? null : timestamp(lastSeen));
+                ps.setBoolean(12, lastSeen == NEVER || lastSeen < staleBefore);
+                ps.setTimestamp(13, computed);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return to - from;
+            }
+        });
+    }
+
+    /**
+     * Compares each priced listing with the cheapest listing of its product, by
+     * time-weighted mean price, and replaces source_price_gaps with the totals per source.
+     *
+     * @return the number of sources written
+     */
+    private int writeSourceGaps(Run run, LocalDateTime computedAt) {
+        // {lowest mean price, priced listings}
+        Map<Long, double[]> products = new HashMap<>();
+        for (int i = 0; i < run.size; i++) {
+            if (run.intervals[i] == 0) continue;
+            double[] product = products.computeIfAbsent(run.productIds[i], id -> new double[]{Double.POSITIVE_INFINITY, 0});
+            product[0] = Math.min(product[0], run.meanPrice[i]);
+            product[1]++;
+        }
+        // {compared listings, cheapest listings, sum of gaps, largest gap}
+        Map<Long, double[]> sources = new TreeMap<>();
+        for (int i = 0; i < run.size; i++) {
+            if (run.intervals[i] == 0) continue;
+            double[] product = products.get(run.productIds[i]);
+            if (product[1] < 2 || product[0] <= 0) continue;
+            double gap = (run.meanPrice[i] / product[0] - 1) * 100;
+            double[] source = sources.computeIfAbsent(run.sourceIds[i], id -> new double[4]);
+            source[0]++;
+            if (run.meanPrice[i] == product[0]) source[1]++;
+            source[2] += gap;
+            source[3] = Math.max(source[3], gap);
+        }
+
+        List<Object[]> rows = new ArrayList<>(sources.size());
+        Timestamp computed = Timestamp.valueOf(computedAt);
+        sources.forEach((sourceId, source) -> rows.add(new Object[]{
+                sourceId, (int) source[0], (int) source[1], source[2] / source[0], source[3], computed}));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM source_price_gaps");
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO source_price_gaps (source_id, compared_listings, cheapest_listings, mean_gap_percent,
+                                                   max_gap_percent, computed_at)
+                    VALUES (?, ?, ?, ?, ?, ?)""", rows);
+        });
+        return rows.size();
+    }
+
+    private static final RowMapper<ListingStatisticsDTO> LISTING_ROW = (rs, rowNum) -> ListingStatisticsDTO.builder()
+            .listingId(rs.getLong(1))
+            .productId(rs.getLong(2))
+            .productName(rs.getString(3))
+            .sourceName(rs.getString(4))
+            .url(rs.getString(5))
+            .intervalCount(rs.getInt(6))
+            .sampleCount(rs.getLong(7))
+            .meanPrice(rs.getObject(8, Double.class))
+            .minPrice(rs.getObject(9, Double.class))
+            .maxPrice(rs.getObject(10, Double.class))
+            .volatility(rs.getObject(11, Double.class))
+            .firstSeenAt(rs.getObject(12, LocalDateTime.class))
+            .lastSeenAt(rs.getObject(13, LocalDateTime.class))
+            .stale(rs.getBoolean(14))
+            .computedAt(rs.getObject(15, LocalDateTime.class))
+            .build();
+
+    private static void setDouble(PreparedStatement ps, int index, boolean present, double value) throws SQLException {
+        if (present) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    // Timestamps are stored as UTC wall clock, like the epoch seconds read from them
+    private static Timestamp timestamp(long epochSecond) {
+        return Timestamp.valueOf(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,302 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.CategoryPriceIndexDTO;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chained daily price index per product category, kept up to date from the price events
+ * and the daily rollups so serving it reads one row per day and never scans price history.
+ *
+ * Each day the index moves by the geometric mean of the price relatives (new / old) of
+ * the category's matched listings: those priced when the day opened, a listing that did
+ * not change counting as a relative of 1. Since ln of a geometric mean is the mean of the
+ * logs, a day only needs the sum of ln(new / old) over its price changes, which several
+ * changes of one listing add up to ln(close / open), and the number of listings matched:
+ *
+ *   index(d) = index(d - 1) * exp(sum / matched), index of a category's first day = 100
+ *
+ * While a day is open its value is provisional: sums are accumulated per (category, day)
+ * in memory from the events and added to category_price_index every
+ * price-index.persist-interval, so nodes' changes merge. Listings created on a day are
+ * not matched until the next one, and their changes that day are left out. Shortly after
+ * midnight the matched listings of the new day are counted and every day before it is
+ * closed, in order: its sums are recomputed from the daily rollup closes, which ingestion
+ * writes in the same transaction as the price, and its value is stored. Events lost by a
+ * lagging consumer or a restart therefore only ever skew the provisional value.
+ */
+@Component
+@Slf4j
+public class CategoryPriceIndex implements PriceEventConsumer {
+
+    static final double BASE = 100;
+
+    private record Key(String category, LocalDate day) {
+    }
+
+    private static final class Pending {
+        double logRelativeSum;
+        int changes;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guarded by this: relatives not yet written, and the day listings were created on
+    private Map<Key, Pending> pending = new HashMap<>();
+    private final Map<Long, LocalDate> createdOn = new HashMap<>();
+
+    public CategoryPriceIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public synchronized void onEvents(List<PriceEvent> events) {
+        for (PriceEvent event : events) {
+            if (event instanceof ListingCreated created) {
+                createdOn.put(created.listingId(), created.occurredAt().toLocalDate());
+            } else if (event instanceof PriceChanged changed) {
+                record(changed);
+            }
+        }
+    }
+
+    /**
+     * Daily values of {@code category} in [from, to], the open days' provisional ones
+     * included.
+     */
+    public CategoryPriceIndexDTO series(String category, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) throw new IllegalArgumentException("from must not be after to");
+        List<Double> before = jdbcTemplate.queryForList("""
+                        SELECT index_value FROM category_price_index
+                        WHERE category = ? AND index_date < ? AND index_value IS NOT NULL
+                        ORDER BY index_date DESC LIMIT 1""",
+                Double.class, category, from);
+        List<CategoryPriceIndexDTO.IndexPointDTO> points = new ArrayList<>();
+        double[] previous = {before.isEmpty() ? BASE : before.get(0)};
+        jdbcTemplate.query("""
+                        SELECT index_date, index_value, matched_listings, log_relative_sum, change_count
+                        FROM category_price_index
+                        WHERE category = ? AND index_date BETWEEN ? AND ?
+                        ORDER BY index_date""",
+                (RowCallbackHandler) rs -> {
+                    LocalDate date = rs.getObject(1, LocalDate.class);
+                    double value = rs.getDouble(2);
+                    boolean provisional = rs.wasNull();
+                    int matched = rs.getInt(3);
+                    double logRelativeSum = rs.getDouble(4);
+                    int changes = rs.getInt(5);
+                    if (provisional) {
+                        synchronized (this) {
+                            Pending local = pending.get(new Key(category, date));
+                            if (local != null) {
+                                logRelativeSum += local.logRelativeSum;
+                                changes += local.changes;
+                            }
+                        }
+                        value = chain(previous[0], logRelativeSum, matched);
+                    }
+                    points.add(CategoryPriceIndexDTO.IndexPointDTO.builder()
+                            .date(date)
+                            .value(round(value))
+                            .changePercent(round((value / previous[0] - 1) * 100))
+                            .matchedListings(matched)
+                            .priceChanges(changes)
+                            .provisional(provisional)
+                            .build());
+                    previous[0] = value;
+                },
+                category, from, to);
+        if (points.isEmpty() && !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM category_price_index WHERE category = ?)", Boolean.class, category))) {
+            throw new EntityNotFoundException("No price index for category: " + category);
+        }
+        return CategoryPriceIndexDTO.builder().category(category).base(BASE).points(points).build();
+    }
+
+    @Scheduled(fixedDelayString = "${price-index.persist-interval:PT1M}")
+    public void persist() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Category price index changes not persisted: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 0 * * *")
+    public void rollover() {
+        try {
+            rollover(LocalDate.now());
+        } catch (Exception e) {
+            log.warn("Category price index not rolled over: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes what is pending, opens {@code today} and closes every day before it.
+     */
+    void rollover(LocalDate today) {
+        flush();
+        synchronized (this) {
+            createdOn.values().removeIf(day -> day.isBefore(today));
+        }
+        // Counts set by an earlier run or another node stand; rows created by a flush have none yet
+        int opened = jdbcTemplate.update("""
+                        INSERT INTO category_price_index
+                            (category, index_date, matched_listings, log_relative_sum, change_count, updated_at)
+                        SELECT p.category, ?, COUNT(*), 0, 0, NOW()
+                        FROM product_listings l JOIN products p ON p.id = l.product_id
+                        WHERE l.current_price > 0 AND l.created_at < ?
+                          AND p.category IS NOT NULL AND p.deleted_at IS NULL
+                        GROUP BY p.category
+                        ON CONFLICT (category, index_date) DO UPDATE SET matched_listings = EXCLUDED.matched_listings
+                        WHERE category_price_index.matched_listings = 0""",
+                today, today.atStartOfDay());
+        LocalDate first = jdbcTemplate.queryForObject("""
+                        SELECT LEAST(MIN(index_date) FILTER (WHERE index_value IS NULL),
+                                     MAX(index_date) FILTER (WHERE index_value IS NOT NULL) + 1)
+                        FROM category_price_index WHERE index_date < ?""",
+                LocalDate.class, today);
+        int closed = 0;
+        for (LocalDate day = first; day != null && day.isBefore(today); day = day.plusDays(1)) {
+            close(day);
+            closed++;
+        }
+        log.info("Category price index opened for {} in {} categories, {} day(s) closed", today, opened, closed);
+    }
+
+    /**
+     * Reconciles {@code day} and stores its value. The rows stay locked until both are
+     * committed, so a concurrent flush adding to the day waits, then skips it as closed
+     * instead of adding events the rollups already account for.
+     */
+    private void close(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            reconcile(day);
+            jdbcTemplate.update("""
+                            UPDATE category_price_index c SET
+                                index_value = COALESCE((SELECT prev.index_value FROM category_price_index prev
+                                                        WHERE prev.category = c.category AND prev.index_date < c.index_date
+                                                          AND prev.index_value IS NOT NULL
+                                                        ORDER BY prev.index_date DESC LIMIT 1), ?)
+                                              * CASE WHEN c.matched_listings > 0
+                                                     THEN exp(c.log_relative_sum / c.matched_listings) ELSE 1 END,
+                                updated_at = NOW()
+                            WHERE c.index_date = ? AND c.index_value IS NULL""",
+                    BASE, day);
+        });
+    }
+
+    /**
+     * Replaces the sums of {@code day}, still open, with the ones its daily rollup closes
+     * give, as V25 derives past days: a listing is matched once it has a close before the
+     * day, and a close on the day that differs from the previous one is its relative. So a
+     * closed day is right even if events were lost, or the node restarted before it ended.
+     */
+    private void reconcile(LocalDate day) {
+        jdbcTemplate.update("""
+                        UPDATE category_price_index SET matched_listings = 0, log_relative_sum = 0, change_count = 0
+                        WHERE index_date = ? AND index_value IS NULL""",
+                day);
+        jdbcTemplate.update("""
+                        INSERT INTO category_price_index
+                            (category, index_date, matched_listings, log_relative_sum, change_count, updated_at)
+                        SELECT p.category, ?, COUNT(*),
+                               COALESCE(SUM(ln((d.close_price / prev.close_price)::float8))
+                                        FILTER (WHERE d.close_price <> prev.close_price), 0),
+                               COUNT(*) FILTER (WHERE d.close_price <> prev.close_price),
+                               NOW()
+                        FROM product_listings l
+                        JOIN products p ON p.id = l.product_id
+                        CROSS JOIN LATERAL (SELECT r.close_price FROM price_rollups r
+                                            WHERE r.listing_id = l.id AND r.resolution = 'DAY' AND r.bucket_start < ?
+                                            ORDER BY r.bucket_start DESC LIMIT 1) prev
+                        LEFT JOIN price_rollups d
+                               ON d.listing_id = l.id AND d.resolution = 'DAY' AND d.bucket_start = ?
+                               AND d.close_price > 0 AND prev.close_price > 0
+                        WHERE p.category IS NOT NULL AND p.deleted_at IS NULL
+                        GROUP BY p.category
+                        ON CONFLICT (category, index_date) DO UPDATE SET
+                            matched_listings = EXCLUDED.matched_listings,
+                            log_relative_sum = EXCLUDED.log_relative_sum,
+                            change_count = EXCLUDED.change_count,
+                            updated_at = EXCLUDED.updated_at
+                        WHERE category_price_index.index_value IS NULL""",
+                day, day.atStartOfDay(), day.atStartOfDay());
+    }
+
+    private void record(PriceChanged changed) {
+        if (changed.category() == null || changed.previousPrice() == null || changed.price() == null) return;
+        double previousPrice = changed.previousPrice().doubleValue();
+        double price = changed.price().doubleValue();
+        if (previousPrice <= 0 || price <= 0) return;
+        LocalDate day = changed.occurredAt().toLocalDate();
+        // Not matched until the day after it was created
+        if (day.equals(createdOn.get(changed.listingId()))) return;
+        Pending sums = pending.computeIfAbsent(new Key(changed.category(), day), key -> new Pending());
+        sums.logRelativeSum += Math.log(price / previousPrice);
+        sums.changes++;
+    }
+
+    /**
+     * Adds the pending sums to category_price_index; on failure they are kept for the
+     * next attempt.
+     */
+    private void flush() {
+        Map<Key, Pending> flushed;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            flushed = pending;
+            pending = new HashMap<>();
+        }
+        List<Object[]> rows = new ArrayList<>(flushed.size());
+        flushed.forEach((key, sums) -> rows.add(new Object[]{key.category(), key.day(), sums.logRelativeSum, sums.changes}));
+        try {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO category_price_index
+                        (category, index_date, matched_listings, log_relative_sum, change_count, updated_at)
+                    VALUES (?, ?, 0, ?, ?, NOW())
+                    ON CONFLICT (category, index_date) DO UPDATE SET
+                        log_relative_sum = category_price_index.log_relative_sum + EXCLUDED.log_relative_sum,
+                        change_count = category_price_index.change_count + EXCLUDED.change_count,
+                        updated_at = EXCLUDED.updated_at
+                    WHERE category_price_index.index_value IS NULL""", rows);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                flushed.forEach((key, sums) -> {
+                    Pending kept = pending.computeIfAbsent(key, k -> new Pending());
+                    kept.logRelativeSum += sums.logRelativeSum;
+                    kept.changes += sums.changes;
+                });
+            }
+            throw e;
+        }
+    }
+
+    private static double chain(double previous, double logRelativeSum, int matched) {
+        return matched > 0 ? previous * Math.exp(logRelativeSum / matched) : previous;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,263 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PercentilesConfig;
+import com.portfolio.pricetracker.dto.CategoryPercentilesDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Distribution of the current prices in each product category, kept as one PriceSketch
+ * per category so any percentile is answered from memory, in time independent of the
+ * number of listings.
+ *
+ * Every priced listing of an active product with a category counts once, at its current
+ * price in its product's category. The (category, price) last counted for each listing is
+ * kept, so a change removes the old value from its sketch and adds the new one. Local
+ * changes arrive as PriceEvents, category changes and deletions from ProductService after
+ * commit; changes committed by other nodes arrive as LISTING and PRODUCT invalidations
+ * and are reloaded with one query per batch. The sketches are built from product_listings
+ * at startup and rebuilt every percentiles.rebuild-interval, which repairs what no event
+ * reported.
+ *
+ * Shortly before midnight the sketch of every category is written to
+ * category_price_snapshots; percentiles of past days are computed from those.
+ */
+@Component
+@Slf4j
+public class CategoryPricePercentiles implements PriceEventConsumer, CacheInvalidationListener {
+
+    private record Member(Long productId, String category, double price) {
+    }
+
+    private final PercentilesConfig config;
+    private final ProductListingRepository listingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guarded by this
+    private Map<Long, Member> members = new HashMap<>();
+    private Map<String, PriceSketch> sketches = new HashMap<>();
+    // Listings changed while a rebuild loads (null: no longer counted), applied on top of it
+    private Map<Long, Member> changedDuringRebuild;
+
+    public CategoryPricePercentiles(PercentilesConfig config, ProductListingRepository listingRepository,
+                                    JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.config = config;
+        this.listingRepository = listingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Percentiles of the current prices in {@code category}, e.g. 0.5 for the median.
+     */
+    public CategoryPercentilesDTO current(String category, List<Double> quantiles) {
+        validate(quantiles);
+        synchronized (this) {
+            PriceSketch sketch = sketches.get(category);
+            if (sketch == null || sketch.count() == 0) {
+                throw new EntityNotFoundException("No priced listings in category: " + category);
+            }
+            return toDTO(category, null, sketch, quantiles);
+        }
+    }
+
+    /**
+     * Percentiles of {@code category} on each day of [from, to] a snapshot was taken, oldest first.
+     */
+    public List<CategoryPercentilesDTO> history(String category, LocalDate from, LocalDate to, List<Double> quantiles) {
+        validate(quantiles);
+        if (from.isAfter(to)) throw new IllegalArgumentException("from must not be after to");
+        List<CategoryPercentilesDTO> days = new ArrayList<>();
+        jdbcTemplate.query("""
+                        SELECT snapshot_date, sketch FROM category_price_snapshots
+                        WHERE category = ? AND snapshot_date BETWEEN ? AND ?
+                        ORDER BY snapshot_date""",
+                (RowCallbackHandler) rs -> days.add(toDTO(category, rs.getObject(1, LocalDate.class),
+                        PriceSketch.fromBytes(rs.getBytes(2)), quantiles)),
+                category, from, to);
+        return days;
+    }
+
+    @Override
+    public synchronized void onEvents(List<PriceEvent> events) {
+        for (PriceEvent event : events) {
+            apply(event.listingId(), event.category() == null || event.price() == null
+                    ? null
+                    : new Member(event.productId(), event.category(), event.price().doubleValue()));
+        }
+    }
+
+    /**
+     * Recounts the listings of these products; must be called once their change has committed.
+     */
+    public void reloadProducts(Collection<Long> productIds) {
+        Set<Long> ids = Set.copyOf(productIds);
+        Map<Long, Member> loaded = toMembers(listingRepository.findCategoryPricesByProductIds(ids));
+        synchronized (this) {
+            // Listings of deleted or uncategorized products are not loaded
+            Set<Long> dropped = new HashSet<>();
+            members.forEach((listingId, member) -> {
+                if (ids.contains(member.productId()) && !loaded.containsKey(listingId)) dropped.add(listingId);
+            });
+            dropped.forEach(listingId -> apply(listingId, null));
+            loaded.forEach(this::apply);
+        }
+    }
+
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        switch (entity) {
+            case PRODUCT -> reloadProducts(ids);
+            case LISTING -> {
+                Map<Long, Member> loaded = toMembers(listingRepository.findCategoryPrices(ids));
+                synchronized (this) {
+                    for (Long listingId : ids) {
+                        apply(listingId, loaded.get(listingId));
+                    }
+                }
+            }
+            default -> {
+                // Not counted here
+            }
+        }
+    }
+
+    @Override
+    public void onEventsLost(long count) {
+        invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll() {
+        // A self-call bypasses @Transactional, and the rebuild streams its rows
+        transactionTemplate.executeWithoutResult(status -> rebuild());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${percentiles.rebuild-interval:PT6H}",
+               initialDelayString = "${percentiles.rebuild-interval:PT6H}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        Map<Long, Member> loaded = new HashMap<>();
+        Map<String, PriceSketch> built = new HashMap<>();
+        try (Stream<Object[]> rows = listingRepository.streamCategoryPrices()) {
+            rows.forEach(row -> apply(loaded, built, (Long) row[0], toMember(row)));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // Events consumed while loading may be newer than what the query saw
+            changedDuringRebuild.forEach((listingId, member) -> apply(loaded, built, listingId, member));
+            changedDuringRebuild = null;
+            members = loaded;
+            sketches = built;
+        }
+        log.info("Category price percentiles rebuilt: {} listing(s) in {} categories", loaded.size(), built.size());
+    }
+
+    @Scheduled(cron = "0 55 23 * * *")
+    public void snapshot() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        synchronized (this) {
+            sketches.forEach((category, sketch) -> rows.add(new Object[]{category, today, sketch.count(), sketch.toBytes()}));
+        }
+        try {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO category_price_snapshots (category, snapshot_date, listing_count, sketch, taken_at)
+                    VALUES (?, ?, ?, ?, NOW())
+                    ON CONFLICT (category, snapshot_date) DO UPDATE SET
+                        listing_count = EXCLUDED.listing_count, sketch = EXCLUDED.sketch, taken_at = EXCLUDED.taken_at""",
+                    rows);
+            log.info("Snapshot of {} category price distribution(s) taken for {}", rows.size(), today);
+        } catch (Exception e) {
+            log.warn("Category price snapshot for {} not written: {}", today, e.getMessage());
+        }
+    }
+
+    private void apply(Long listingId, Member member) {
+        if (changedDuringRebuild != null) changedDuringRebuild.put(listingId, member);
+        apply(members, sketches, listingId, member);
+    }
+
+    private void apply(Map<Long, Member> members, Map<String, PriceSketch> sketches, Long listingId, Member member) {
+        Member previous = member == null ? members.remove(listingId) : members.put(listingId, member);
+        if (previous != null) {
+            PriceSketch sketch = sketches.get(previous.category());
+            sketch.remove(previous.price());
+            if (sketch.count() == 0) sketches.remove(previous.category());
+        }
+        if (member != null) {
+            sketches.computeIfAbsent(member.category(), category -> new PriceSketch(config.getRelativeAccuracy()))
+                    .add(member.price());
+        }
+    }
+
+    private static Map<Long, Member> toMembers(List<Object[]> rows) {
+        Map<Long, Member> loaded = new HashMap<>();
+        for (Object[] row : rows) {
+            loaded.put((Long) row[0], toMember(row));
+        }
+        return loaded;
+    }
+
+    private static Member toMember(Object[] row) {
+        return new Member((Long) row[1], (String) row[2], ((BigDecimal) row[3]).doubleValue());
+    }
+
+    private static CategoryPercentilesDTO toDTO(String category, LocalDate date, PriceSketch sketch, List<Double> quantiles) {
+        Map<String, BigDecimal> percentiles = new LinkedHashMap<>();
+        for (double q : quantiles) {
+            // p10 for 0.1, p99.5 for 0.995
+            String label = "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+            percentiles.put(label, BigDecimal.valueOf(sketch.quantile(q)).setScale(2, RoundingMode.HALF_UP));
+        }
+        return CategoryPercentilesDTO.builder()
+                .category(category)
+                .date(date)
+                .listingCount(sketch.count())
+                .relativeAccuracy(sketch.relativeAccuracy())
+                .percentiles(percentiles)
+                .build();
+    }
+
+    private static void validate(List<Double> quantiles) {
+        if (quantiles == null || quantiles.isEmpty()) throw new IllegalArgumentException("At least one quantile is required");
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) throw new IllegalArgumentException("Quantiles must be in [0, 1]: " + q);
+        }
+    }
+}
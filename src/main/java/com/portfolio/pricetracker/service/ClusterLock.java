@@ -0,0 +1,51 @@
+package com.portfolio.pricetracker.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Keeps a scheduled job to one node of the cluster at a time. Every node fires the same
+ * cron; the first to take a session-level PostgreSQL advisory lock named after the job runs
+ * it and the others skip that run. The lock is held on a connection of its own for the
+ * whole run, so the job's own transactions are unaffected, and it is released with the
+ * connection if the node dies.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterLock {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs {@code job} unless another node is running the job called {@code name}.
+     *
+     * @return whether the job ran here
+     */
+    public boolean runExclusively(String name, Runnable job) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!call(connection, "SELECT pg_try_advisory_lock(hashtext(?))", name)) return false;
+            try {
+                job.run();
+                return true;
+            } finally {
+                call(connection, "SELECT pg_advisory_unlock(hashtext(?))", name);
+            }
+        }));
+    }
+
+    private static boolean call(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.pricetracker.config.NotificationConfig;
+import com.portfolio.pricetracker.dto.AlertDigestDTO;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+/**
+ * POSTs each digest as JSON to notifications.http.url (an email gateway, chat webhook, ...).
+ * Any non-2xx response or I/O error fails the digest so the dispatcher retries it.
+ */
+@Service
+@ConditionalOnProperty(name = "notifications.channel", havingValue = "http")
+@Slf4j
+public class HttpAlertNotifier implements AlertNotifier {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final NotificationConfig.Http config;
+
+    public HttpAlertNotifier(NotificationConfig notificationConfig, ObjectMapper objectMapper) {
+        this.config = notificationConfig.getHttp();
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.getTimeout())
+                .build();
+        if (config.getUrl() == null || config.getUrl().isBlank()) {
+            throw new IllegalStateException("notifications.http.url is required for the http channel");
+        }
+    }
+
+    @Override
+    public void notify(String userEmail, List<AlertNotification> notifications) {
+        AlertDigestDTO digest = AlertDigestDTO.builder()
+                .userEmail(userEmail)
+                .alerts(notifications.stream()
+                        .map(n -> AlertDigestDTO.AlertItemDTO.builder()
+                                .notificationId(n.getId())
+                                .alertId(n.getAlertId())
+                                .productId(n.getProductId())
+                                .productName(n.getProductName())
+                                .ruleType(n.getRuleType())
+                                .targetPrice(n.getTargetPrice())
+                                .currentPrice(n.getCurrentPrice())
+                                .triggeredAt(n.getCreatedAt())
+                                .build())
+                        .toList())
+                .build();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(config.getUrl()))
+                    .timeout(config.getTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(digest)))
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Notification endpoint answered " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Notification delivery failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Notification delivery interrupted", e);
+        }
+    }
+}
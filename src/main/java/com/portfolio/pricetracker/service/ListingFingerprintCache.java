@@ -0,0 +1,90 @@
+package com.portfolio.pricetracker.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.portfolio.pricetracker.config.IngestionConfig;
+import com.portfolio.pricetracker.dto.ListingFingerprint;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Last-seen (listing, price, inStock) per URL, used by ProductUnificationService to
+ * recognise items that did not change since the previous scrape.
+ *
+ * Bounded by ingestion.fingerprint-cache-size (LRU eviction). A miss only costs the
+ * regular ingestion path, so the cache never needs to be complete — it is warmed at
+ * startup from the most recently scraped listings and refreshed after each commit.
+ * Listings changed by another node are dropped on invalidation, otherwise a price that
+ * went back to what this node last saw would be mistaken for unchanged.
+ */
+@Component
+@Slf4j
+public class ListingFingerprintCache implements CacheInvalidationListener {
+
+    private final ProductListingRepository listingRepository;
+    private final long maximumSize;
+    private final Cache<String, ListingFingerprint> cache;
+
+    public ListingFingerprintCache(IngestionConfig ingestionConfig, ProductListingRepository listingRepository) {
+        this.listingRepository = listingRepository;
+        this.maximumSize = ingestionConfig.getFingerprintCacheSize();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Returns the listing id when the scraped item has the same price and stock as last time.
+     */
+    public Optional<Long> findUnchangedListing(ScrapedProductDTO scraped) {
+        ListingFingerprint fingerprint = cache.getIfPresent(scraped.getUrl());
+        if (fingerprint == null || !fingerprint.matches(scraped)) {
+            return Optional.empty();
+        }
+        return Optional.of(fingerprint.getListingId());
+    }
+
+    /**
+     * Must only be called after the transaction that wrote this state has committed.
+     */
+    public void put(ListingFingerprint fingerprint) {
+        if (fingerprint.getUrl() == null || fingerprint.getListingId() == null) return;
+        cache.put(fingerprint.getUrl(), fingerprint);
+    }
+
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        if (entity != CacheEntity.LISTING) return;
+        // Keyed by URL; a scan per coalesced batch is cheaper than a second index on every put
+        cache.asMap().values().removeIf(fingerprint -> ids.contains(fingerprint.getListingId()));
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int limit = (int) Math.min(maximumSize, Integer.MAX_VALUE);
+        List<ListingFingerprint> fingerprints = listingRepository.findFingerprints(PageRequest.of(0, limit));
+        cache.invalidateAll();
+        fingerprints.forEach(this::put);
+        log.info("Fingerprint cache rebuilt with {} listing(s)", fingerprints.size());
+    }
+}
@@ -0,0 +1,31 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.entity.ListingPriceStats;
+import com.portfolio.pricetracker.repository.ListingPriceStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps listing_price_stats in step with price changes. Ingestion calls it only when a
+ * listing's price changes, so unchanged scrapes cost nothing here; listings created before
+ * the table existed were backfilled from hot history by V23.
+ */
+@Service
+@RequiredArgsConstructor
+public class ListingPriceStatsService {
+
+    private final ListingPriceStatsRepository statsRepository;
+
+    /**
+     * Must run inside the transaction that records the new price in price_history.
+     */
+    public void recordPriceChange(Long listingId, Long productId, BigDecimal price, LocalDateTime changedAt) {
+        statsRepository.findById(listingId).ifPresentOrElse(
+                // Managed: written at commit
+                stats -> stats.recordPrice(price, changedAt),
+                () -> statsRepository.save(ListingPriceStats.first(listingId, productId, price, changedAt)));
+    }
+}
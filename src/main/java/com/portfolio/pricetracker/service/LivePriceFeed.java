@@ -0,0 +1,235 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.FeedConfig;
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Events feed of committed price and stock changes.
+ *
+ * Clients subscribe to product ids and/or categories; publish() looks the event up in
+ * the product and category indexes and hands it to each matching subscriber, without
+ * doing any I/O on the ingestion thread. Each subscriber keeps at most one pending event
+ * per listing: an update arriving before the previous one was written replaces it, so a
+ * slow client gets the latest value of every listing instead of a growing backlog.
+ * Writes run on the feed executor, one drain task per subscriber at a time.
+ */
+@Component
+@Slf4j
+public class LivePriceFeed implements PriceEventConsumer {
+
+    private final FeedConfig config;
+    private final ExecutorService feedExecutor;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byCategory = new ConcurrentHashMap<>();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong conflatedEvents = new AtomicLong();
+
+    public LivePriceFeed(FeedConfig config, @Qualifier("feedExecutor") ExecutorService feedExecutor) {
+        this.config = config;
+        this.feedExecutor = feedExecutor;
+    }
+
+    public SseEmitter subscribe(Collection<Long> productIds, Collection<String> categories) {
+        SseEmitter emitter = new SseEmitter(config.getTimeout().toMillis());
+        subscribe(emitter, productIds, categories);
+        return emitter;
+    }
+
+    /**
+     * Attaches an already created emitter; the overload above is what the endpoint uses.
+     */
+    public void subscribe(SseEmitter emitter, Collection<Long> productIds, Collection<String> categories) {
+        if (productIds.isEmpty() && categories.isEmpty()) {
+            throw new IllegalArgumentException("Subscribe to at least one productId or category");
+        }
+        if (subscribers.size() >= config.getMaxSubscribers()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Live feed is at capacity");
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(productIds),
+                categories.stream().map(LivePriceFeed::categoryKey).collect(Collectors.toUnmodifiableSet()));
+        subscribers.add(subscriber);
+        for (Long productId : subscriber.productIds) {
+            byProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        for (String category : subscriber.categories) {
+            byCategory.computeIfAbsent(category, c -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+    }
+
+    @Override
+    public void onEvents(List<PriceEvent> events) {
+        for (PriceEvent event : events) {
+            publish(event.toChangeEvent());
+        }
+    }
+
+    public void publish(PriceChangeEventDTO event) {
+        Set<Subscriber> productSubscribers = byProduct.get(event.getProductId());
+        if (productSubscribers != null) {
+            for (Subscriber subscriber : productSubscribers) {
+                subscriber.offer(event);
+            }
+        }
+        if (event.getCategory() != null) {
+            Set<Subscriber> categorySubscribers = byCategory.get(categoryKey(event.getCategory()));
+            if (categorySubscribers != null) {
+                for (Subscriber subscriber : categorySubscribers) {
+                    // Already offered through the product index; offering again would count as conflated
+                    if (productSubscribers == null || !productSubscribers.contains(subscriber)) {
+                        subscriber.offer(event);
+                    }
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${feed.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.requestHeartbeat();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long deliveredEvents() {
+        return deliveredEvents.get();
+    }
+
+    /**
+     * Events replaced by a newer update of the same listing before reaching their client.
+     */
+    public long conflatedEvents() {
+        return conflatedEvents.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) return;
+        subscriber.closed = true;
+        for (Long productId : subscriber.productIds) {
+            byProduct.computeIfPresent(productId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        for (String category : subscriber.categories) {
+            byCategory.computeIfPresent(category, (c, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        final Set<Long> productIds;
+        final Set<String> categories;
+        volatile boolean closed;
+
+        // Latest undelivered event per listing; guarded by this
+        private final Map<Long, PriceChangeEventDTO> pending = new LinkedHashMap<>();
+        private boolean heartbeatDue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Set<Long> productIds, Set<String> categories) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+            this.categories = categories;
+        }
+
+        void offer(PriceChangeEventDTO event) {
+            synchronized (this) {
+                if (pending.put(event.getListingId(), event) != null) {
+                    conflatedEvents.incrementAndGet();
+                }
+            }
+            scheduleDrain();
+        }
+
+        void requestHeartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                feedExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    List<PriceChangeEventDTO> batch;
+                    boolean ping;
+                    synchronized (this) {
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                        ping = heartbeatDue;
+                        heartbeatDue = false;
+                    }
+                    if (batch.isEmpty() && !ping) break;
+                    for (PriceChangeEventDTO event : batch) {
+                        emitter.send(SseEmitter.event().name("price").data(event, MediaType.APPLICATION_JSON));
+                        deliveredEvents.incrementAndGet();
+                    }
+                    if (ping) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (Exception e) {
+                // Client went away; the emitter callbacks may not fire for a broken write
+                log.debug("Dropping live feed subscriber: {}", e.getMessage());
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An update offered after the last check but before the flag was cleared
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty() || heartbeatDue;
+            }
+            if (more) scheduleDrain();
+        }
+    }
+}
@@ -1,21 +1,34 @@
 package com.portfolio.pricetracker.service;
 
-import com.portfolio.pricetracker.entity.PriceAlert;
+import com.portfolio.pricetracker.entity.AlertNotification;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 @Service
+@ConditionalOnProperty(name = "notifications.channel", havingValue = "log", matchIfMissing = true)
 @Slf4j
 public class LogAlertNotifier implements AlertNotifier {
 
     @Override
-    public void notify(PriceAlert alert, BigDecimal currentPrice) {
-        log.info("PRICE ALERT: '{}' is now {}€ (target: {}€) — notifying {}",
-                alert.getProduct().getName(),
-                currentPrice,
-                alert.getTargetPrice(),
-                alert.getUserEmail());
+    public void notify(String userEmail, List<AlertNotification> notifications) {
+        for (AlertNotification notification : notifications) {
+            log.info("PRICE ALERT: '{}' is now {}€ ({}) — notifying {}",
+                    notification.getProductName(),
+                    notification.getCurrentPrice(),
+                    describe(notification),
+                    userEmail);
+        }
+    }
+
+    private static String describe(AlertNotification notification) {
+        return switch (notification.getRuleType()) {
+            case TARGET_PRICE, PERCENT_DROP -> "target: " + notification.getTargetPrice() + "€";
+            case BACK_IN_STOCK -> "back in stock";
+            case CHEAPEST_STORE -> "now the cheapest store";
+            case ALL_TIME_LOW -> "new all-time low";
+        };
     }
 }
@@ -0,0 +1,69 @@
+package com.portfolio.pricetracker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Largest-Triangle-Three-Buckets (Steinarsson, 2013): picks at most {@code threshold}
+ * points of a series so that its visual shape survives. First and last points are kept;
+ * the points in between are split into threshold - 2 equal buckets, and each bucket keeps
+ * the point forming the largest triangle with the point kept before it and the average of
+ * the next bucket, which keeps peaks and troughs that plain averaging or striding lose.
+ * O(n) time, no allocation beyond the result.
+ */
+final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * {@code points} ordered by x; returned as is when it has no more than
+     * {@code threshold} points. A threshold below 3 keeps the first and last point only.
+     */
+    static <T> List<T> downsample(List<T> points, int threshold, ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+        int size = points.size();
+        if (threshold >= size) return points;
+        if (threshold < 3) return List.of(points.get(0), points.get(size - 1));
+
+        List<T> sampled = new ArrayList<>(threshold);
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int kept = 0;
+        sampled.add(points.get(0));
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket; the last point stands in for the one after the last bucket
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x.applyAsDouble(points.get(i));
+                averageY += y.applyAsDouble(points.get(i));
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double keptX = x.applyAsDouble(points.get(kept));
+            double keptY = y.applyAsDouble(points.get(kept));
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; only the comparison matters
+                double area = Math.abs((keptX - averageX) * (y.applyAsDouble(points.get(i)) - keptY)
+                        - (keptX - x.applyAsDouble(points.get(i))) * (averageY - keptY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            sampled.add(points.get(largest));
+            kept = largest;
+        }
+
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+}
@@ -0,0 +1,128 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.NotificationConfig;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.portfolio.pricetracker.entity.NotificationStatus;
+import com.portfolio.pricetracker.repository.AlertNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Drains the alert_notifications outbox.
+ *
+ * Each round claims up to notifications.batch-size due rows (SELECT ... FOR UPDATE SKIP
+ * LOCKED, then pushes nextAttemptAt past notifications.claim-timeout so other nodes skip
+ * them), groups them into one digest per user and delivers the digests on the notification
+ * executor, at most notifications.concurrency at a time. Failed digests are rescheduled with
+ * exponential backoff until notifications.max-attempts, then marked FAILED. Delivery is
+ * at-least-once: a node dying mid-send leaves its claim to expire and be retried.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final AlertNotificationRepository notificationRepository;
+    private final AlertNotifier alertNotifier;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationConfig config;
+    @Qualifier("notificationExecutor")
+    private final ExecutorService notificationExecutor;
+
+    @Scheduled(fixedDelayString = "${notifications.poll-interval:PT5S}")
+    public void dispatchDue() {
+        int delivered;
+        do {
+            delivered = dispatchBatch();
+        } while (delivered >= config.getBatchSize());
+    }
+
+    /**
+     * Runs one round; returns the number of notifications claimed.
+     */
+    int dispatchBatch() {
+        List<AlertNotification> claimed = transactionTemplate.execute(status -> claimDue());
+        if (claimed == null || claimed.isEmpty()) return 0;
+
+        Map<String, List<AlertNotification>> digests = new LinkedHashMap<>();
+        for (AlertNotification notification : claimed) {
+            digests.computeIfAbsent(notification.getUserEmail(), user -> new ArrayList<>()).add(notification);
+        }
+
+        List<CompletableFuture<Void>> deliveries = digests.entrySet().stream()
+                .map(digest -> CompletableFuture
+                        .runAsync(() -> alertNotifier.notify(digest.getKey(), digest.getValue()), notificationExecutor)
+                        .handle((ok, error) -> {
+                            record(digest.getValue(), error);
+                            return (Void) null;
+                        }))
+                .toList();
+        CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+
+        log.info("Dispatched {} notification(s) in {} digest(s)", claimed.size(), digests.size());
+        return claimed.size();
+    }
+
+    private List<AlertNotification> claimDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<AlertNotification> due = notificationRepository.findDueForUpdate(
+                NotificationStatus.PENDING, now, PageRequest.of(0, config.getBatchSize()));
+        for (AlertNotification notification : due) {
+            notification.setAttempts(notification.getAttempts() + 1);
+            notification.setNextAttemptAt(now.plus(config.getClaimTimeout()));
+        }
+        return due;
+    }
+
+    private void record(List<AlertNotification> digest, Throwable error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (error == null) {
+                    notificationRepository.markSent(digest.stream().map(AlertNotification::getId).toList(),
+                            LocalDateTime.now());
+                    return;
+                }
+                String message = rootMessage(error);
+                for (AlertNotification notification : digest) {
+                    scheduleRetry(notification, message);
+                }
+                notificationRepository.saveAll(digest);
+            });
+        } catch (Exception e) {
+            // The claim expires and the digest is delivered again
+            log.error("Failed to record delivery of {} notification(s): {}", digest.size(), e.getMessage());
+        }
+    }
+
+    void scheduleRetry(AlertNotification notification, String error) {
+        notification.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (notification.getAttempts() >= config.getMaxAttempts()) {
+            notification.setStatus(NotificationStatus.FAILED);
+            log.warn("Notification {} for {} failed after {} attempt(s): {}",
+                    notification.getId(), notification.getUserEmail(), notification.getAttempts(), error);
+            return;
+        }
+        Duration backoff = config.getRetryBackoff().multipliedBy(1L << Math.min(notification.getAttempts() - 1, 16));
+        notification.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) root = root.getCause();
+        return String.valueOf(root.getMessage());
+    }
+}
@@ -2,43 +2,93 @@ package com.portfolio.pricetracker.service;
 
 import com.portfolio.pricetracker.dto.CreateAlertRequest;
 import com.portfolio.pricetracker.dto.PriceAlertDTO;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.portfolio.pricetracker.entity.AlertRuleType;
 import com.portfolio.pricetracker.entity.AlertStatus;
 import com.portfolio.pricetracker.entity.PriceAlert;
 import com.portfolio.pricetracker.entity.Product;
+import com.portfolio.pricetracker.entity.RollupResolution;
+import com.portfolio.pricetracker.repository.AlertNotificationRepository;
 import com.portfolio.pricetracker.repository.PriceAlertRepository;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
 import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class PriceAlertService {
+public class PriceAlertService implements CacheInvalidationListener {
 
     private final PriceAlertRepository alertRepository;
     private final ProductRepository productRepository;
-    private final AlertNotifier alertNotifier;
+    private final ProductListingRepository listingRepository;
+    private final PriceRollupRepository priceRollupRepository;
+    private final AlertNotificationRepository notificationRepository;
+    private final AlertBook alertBook;
+    private final AlertEngine alertEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationPublisher cacheInvalidations;
 
     @Transactional
     public PriceAlertDTO createAlert(CreateAlertRequest request) {
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new EntityNotFoundException("Product not found: " + request.getProductId()));
 
-        PriceAlert alert = PriceAlert.builder()
+        AlertRuleType ruleType = request.getRuleType() == null ? AlertRuleType.TARGET_PRICE : request.getRuleType();
+        PriceAlert.PriceAlertBuilder alert = PriceAlert.builder()
                 .product(product)
                 .userEmail(request.getUserEmail())
-                .targetPrice(request.getTargetPrice())
-                .build();
+                .ruleType(ruleType);
+        switch (ruleType) {
+            case TARGET_PRICE -> {
+                if (request.getTargetPrice() == null || request.getTargetPrice().signum() <= 0) {
+                    throw new IllegalArgumentException("targetPrice must be positive for TARGET_PRICE alerts");
+                }
+                alert.targetPrice(request.getTargetPrice());
+            }
+            case PERCENT_DROP -> {
+                BigDecimal percent = request.getDropPercent();
+                if (percent == null || percent.signum() <= 0 || percent.compareTo(BigDecimal.valueOf(100)) >= 0) {
+                    throw new IllegalArgumentException("dropPercent must be between 0 and 100 for PERCENT_DROP alerts");
+                }
+                BigDecimal reference = listingRepository.findLowestCurrentPrice(product.getId())
+                        .orElseThrow(() -> new IllegalArgumentException(
+                                "Product " + product.getId() + " has no in-stock price to drop from"));
+                // Compiled once: the rule is then an ordinary threshold in the AlertBook
+                alert.dropPercent(percent)
+                        .referencePrice(reference)
+                        .targetPrice(reference.multiply(BigDecimal.valueOf(100).subtract(percent))
+                                .movePointLeft(2).setScale(2, RoundingMode.FLOOR));
+            }
+            default -> {
+                // Event rules carry no price
+            }
+        }
 
-        return toDTO(alertRepository.save(alert));
+        PriceAlert saved = alertRepository.save(alert.build());
+        cacheInvalidations.invalidate(CacheEntity.PRODUCT_ALERTS, product.getId());
+        AfterCommit.run(() -> alertBook.add(saved.getId(), product.getId(), saved.getRuleType(), saved.getTargetPrice()));
+        return toDTO(saved);
     }
 
     public List<PriceAlertDTO> getUserAlerts(String userEmail) {
@@ -50,33 +100,101 @@ public class PriceAlertService {
 
     @Transactional
     public void deleteAlert(Long id) {
-        if (!alertRepository.existsById(id)) {
-            throw new EntityNotFoundException("Alert not found: " + id);
-        }
-        alertRepository.deleteById(id);
+        PriceAlert alert = alertRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Alert not found: " + id));
+        Long productId = alert.getProduct().getId();
+        alertRepository.delete(alert);
+        cacheInvalidations.invalidate(CacheEntity.PRODUCT_ALERTS, productId);
+        AfterCommit.run(() -> alertBook.remove(id, productId));
     }
 
     /**
-     * Called after each scrape for a product.
-     * Triggers any ACTIVE alerts where currentPrice <= targetPrice.
+     * Called inside the transaction of every scraped item whose price or stock changed, so a
+     * trigger and its outbox row commit or roll back with the price that caused them.
+     * AlertEngine checks all rule types of the product against the in-memory AlertBook and
+     * listing state, so the database is only read when an alert actually fires. The state
+     * advances past this point once the caller's transaction commits.
      */
     @Transactional
-    public void checkAlerts(Long productId, BigDecimal currentPrice) {
-        List<PriceAlert> activeAlerts = alertRepository.findByProduct_IdAndStatus(productId, AlertStatus.ACTIVE);
-        for (PriceAlert alert : activeAlerts) {
-            if (currentPrice.compareTo(alert.getTargetPrice()) <= 0) {
-                triggerAlert(alert, currentPrice);
+    public void checkAlerts(Long productId, Long listingId, BigDecimal currentPrice, Boolean inStock) {
+        AlertEngine.PricePoint point = new AlertEngine.PricePoint(listingId, productId, currentPrice, inStock);
+        long[] candidateIds = alertEngine.evaluate(point);
+        AfterCommit.run(() -> alertEngine.observe(point));
+        if (candidateIds.length == 0) return;
+
+        List<Long> ids = Arrays.stream(candidateIds).boxed().toList();
+        for (PriceAlert alert : alertRepository.findAllById(ids)) {
+            // The book can briefly lag the database; re-check against the row
+            if (alert.getStatus() != AlertStatus.ACTIVE) continue;
+            if (alert.getRuleType().isThreshold() && currentPrice.compareTo(alert.getTargetPrice()) > 0) continue;
+            triggerAlert(alert, currentPrice);
+        }
+    }
+
+    /**
+     * Another node changed alerts or listings: recompiles those products' plans, and
+     * re-reads those listings' prices so event rules judge the next point against them.
+     */
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        switch (entity) {
+            case PRODUCT_ALERTS -> alertBook.replaceProducts(ids, alertRepository.findBookEntries(AlertStatus.ACTIVE, ids));
+            case LISTING -> {
+                for (Object[] row : listingRepository.findAlertState(ids)) {
+                    alertEngine.observe(new AlertEngine.PricePoint(
+                            (Long) row[0], (Long) row[1], (BigDecimal) row[2], (Boolean) row[3]));
+                }
+            }
+            default -> {
+                // Not cached here
             }
         }
     }
 
+    @Override
+    public void invalidateAll() {
+        // A self-call bypasses @Transactional, and the rebuild streams its rows
+        transactionTemplate.executeWithoutResult(status -> rebuildAlertBook());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildAlertBook() {
+        try (Stream<Object[]> entries = alertRepository.streamBookEntries(AlertStatus.ACTIVE)) {
+            alertBook.replaceAll(entries::iterator);
+        }
+        try (Stream<Object[]> currentPrices = listingRepository.streamAlertState()) {
+            alertEngine.replaceState(currentPrices::iterator,
+                    priceRollupRepository.findLowestPrices(RollupResolution.DAY));
+        }
+        log.info("Alert book rebuilt with {} active alert(s), tracking {} listing(s)",
+                alertBook.size(), alertEngine.trackedListings());
+    }
+
+    /**
+     * The notification is only written to the outbox, in the caller's transaction: it is
+     * delivered by NotificationDispatcher once (and only if) the trigger commits.
+     */
     private void triggerAlert(PriceAlert alert, BigDecimal currentPrice) {
+        LocalDateTime now = LocalDateTime.now();
         alert.setStatus(AlertStatus.TRIGGERED);
-        alert.setTriggeredAt(LocalDateTime.now());
+        alert.setTriggeredAt(now);
         alertRepository.save(alert);
-        alertNotifier.notify(alert, currentPrice);
-        log.info("Alert {} triggered for product '{}' at {}€",
-                alert.getId(), alert.getProduct().getName(), currentPrice);
+        notificationRepository.save(AlertNotification.builder()
+                .alertId(alert.getId())
+                .userEmail(alert.getUserEmail())
+                .productId(alert.getProduct().getId())
+                .productName(alert.getProduct().getName())
+                .ruleType(alert.getRuleType())
+                .targetPrice(alert.getTargetPrice())
+                .currentPrice(currentPrice)
+                .nextAttemptAt(now)
+                .build());
+        Long productId = alert.getProduct().getId();
+        cacheInvalidations.invalidate(CacheEntity.PRODUCT_ALERTS, productId);
+        AfterCommit.run(() -> alertBook.remove(alert.getId(), productId));
+        log.info("{} alert {} triggered for product '{}' at {}€",
+                alert.getRuleType(), alert.getId(), alert.getProduct().getName(), currentPrice);
     }
 
     private PriceAlertDTO toDTO(PriceAlert alert) {
@@ -85,7 +203,10 @@ public class PriceAlertService {
                 .userEmail(alert.getUserEmail())
                 .productId(alert.getProduct().getId())
                 .productName(alert.getProduct().getName())
+                .ruleType(alert.getRuleType())
                 .targetPrice(alert.getTargetPrice())
+                .dropPercent(alert.getDropPercent())
+                .referencePrice(alert.getReferencePrice())
                 .status(alert.getStatus())
                 .triggeredAt(alert.getTriggeredAt())
                 .createdAt(alert.getCreatedAt())
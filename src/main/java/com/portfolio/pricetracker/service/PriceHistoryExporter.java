@@ -0,0 +1,216 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.pricetracker.dto.PriceHistoryExportRow;
+import com.portfolio.pricetracker.repository.PriceHistoryExportReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes price history exports as NDJSON (one JSON object per line) or CSV with a header
+ * row, each row serialized as PriceHistoryExportReader reads it and written through a
+ * fixed-size buffer, so an export of any size runs in constant memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryExporter {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String[] COLUMNS = {"id", "listing_id", "product_id", "product_name", "source", "url",
+            "price", "in_stock", "scraped_at", "valid_to", "last_confirmed_at", "sample_count"};
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) return format;
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + name + " (ndjson or csv)");
+        }
+    }
+
+    private final PriceHistoryExportReader reader;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the intervals overlapping [from, to] of one product, or of all products when
+     * {@code productId} is null, to {@code out}, which is flushed but left open.
+     *
+     * @return the number of rows written
+     */
+    public long export(Long productId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out)
+            throws IOException {
+        long start = System.nanoTime();
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long rows;
+        try {
+            rows = reader.forEachRow(productId, from, to, row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-export
+            throw e.getCause();
+        }
+        writer.finish();
+        log.info("Exported {} price history row(s) as {} in {} ms", rows, format,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private interface RowWriter {
+
+        void write(PriceHistoryExportRow row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended explicitly instead of separating root values with a space
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(PriceHistoryExportRow row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getId());
+            generator.writeNumberField("listingId", row.getListingId());
+            generator.writeNumberField("productId", row.getProductId());
+            generator.writeStringField("productName", row.getProductName());
+            generator.writeStringField("sourceName", row.getSourceName());
+            generator.writeStringField("url", row.getUrl());
+            generator.writeNumberField("price", row.getPrice());
+            generator.writeFieldName("inStock");
+            if (row.getInStock() == null) {
+                generator.writeNull();
+            } else {
+                generator.writeBoolean(row.getInStock());
+            }
+            generator.writeStringField("scrapedAt", format(row.getScrapedAt()));
+            generator.writeStringField("validTo", format(row.getValidTo()));
+            generator.writeStringField("lastConfirmedAt", format(row.getLastConfirmedAt()));
+            generator.writeNumberField("sampleCount", row.getSampleCount());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer out;
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+            this.out.write(String.join(",", COLUMNS));
+            this.out.write("\r\n");
+        }
+
+        @Override
+        public void write(PriceHistoryExportRow row) throws IOException {
+            out.write(Long.toString(row.getId()));
+            out.write(',');
+            out.write(Long.toString(row.getListingId()));
+            out.write(',');
+            out.write(Long.toString(row.getProductId()));
+            out.write(',');
+            out.write(csvField(row.getProductName()));
+            out.write(',');
+            out.write(csvField(row.getSourceName()));
+            out.write(',');
+            out.write(csvField(row.getUrl()));
+            out.write(',');
+            out.write(plain(row.getPrice()));
+            out.write(',');
+            out.write(row.getInStock() == null ? "" : row.getInStock().toString());
+            out.write(',');
+            out.write(orEmpty(format(row.getScrapedAt())));
+            out.write(',');
+            out.write(orEmpty(format(row.getValidTo())));
+            out.write(',');
+            out.write(orEmpty(format(row.getLastConfirmedAt())));
+            out.write(',');
+            out.write(Integer.toString(row.getSampleCount()));
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 field: quoted, with quotes doubled, when it contains a separator, a quote or
+     * a line break; empty for null.
+     */
+    static String csvField(String value) {
+        if (value == null) return "";
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String format(LocalDateTime timestamp) {
+        return timestamp == null ? null : TIMESTAMP.format(timestamp);
+    }
+}
@@ -0,0 +1,90 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import com.portfolio.pricetracker.repository.ColdPriceHistoryStore;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Set;
+
+/**
+ * Moves closed price history intervals of months older than price-history.hot-days out of
+ * PostgreSQL into ColdPriceHistoryStore, one segment per month and one transaction per month.
+ * Open intervals stay hot because ingestion keeps updating them; once closed, a later run
+ * appends them to their month's segment.
+ *
+ * Off unless price-history.hot-days is set. Every node fires the job, but only the one
+ * holding the "price-history-tiering" ClusterLock runs it; the others remap each month it
+ * rewrites when its COLD_SEGMENT invalidation arrives, since the segment files are shared.
+ *
+ * Run after the nightly scrape and before any partition retention
+ * (price-history.retention-months) would detach the same months.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryTieringService implements CacheInvalidationListener {
+
+    private final ColdPriceHistoryStore coldStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterLock clusterLock;
+    private final CacheInvalidationPublisher cacheInvalidations;
+    private final PriceHistoryConfig config;
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void tierColdHistory() {
+        if (config.getHotDays() <= 0) return;
+        if (!clusterLock.runExclusively("price-history-tiering", this::tierMonths)) {
+            log.info("Skipping price history tiering, another node is running it");
+        }
+    }
+
+    private void tierMonths() {
+        YearMonth firstHotMonth = YearMonth.from(LocalDateTime.now().minusDays(config.getHotDays()));
+        for (YearMonth month : coldStore.findMonthsWithClosedIntervals(firstHotMonth.atDay(1).atStartOfDay())) {
+            try {
+                Integer moved = transactionTemplate.execute(status -> {
+                    int rows = coldStore.moveMonth(month);
+                    // Written before the commit, so other nodes remap once the rows are gone here
+                    cacheInvalidations.invalidate(CacheEntity.COLD_SEGMENT, month.getYear() * 100L + month.getMonthValue());
+                    return rows;
+                });
+                log.info("Tiered {} price history interval(s) of {} to cold storage", moved, month);
+            } catch (Exception e) {
+                log.error("Failed to tier price history of {}: {}", month, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        if (entity != CacheEntity.COLD_SEGMENT) return;
+        for (Long id : ids) {
+            YearMonth month = YearMonth.of((int) (id / 100), (int) (id % 100));
+            try {
+                coldStore.reload(month);
+            } catch (IOException e) {
+                log.error("Failed to remap cold price history segment of {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        try {
+            coldStore.reloadAll();
+        } catch (IOException e) {
+            log.error("Failed to remap cold price history segments: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.LeaderboardConfig;
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import com.portfolio.pricetracker.service.event.StockChanged;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * In-memory leaderboard of the listings whose price moved the most, for each window of
+ * leaderboard.windows, so /api/analytics/price-drops and /price-increases are answered
+ * without a query.
+ *
+ * Every listing keeps its price change points over the longest window. A window compares
+ * the current price with the price in effect when the window starts (the first price, for
+ * younger listings). Drops and increases of each window are kept in a sorted set of at
+ * most twice leaderboard.size entries: a price event re-scores its listing in every
+ * window, and only once members have left and fewer than leaderboard.size remain is the
+ * set refilled by scanning all listings. Readers get an immutable snapshot republished
+ * after each batch.
+ *
+ * Windows also slide without events, so every listing is re-scored from memory each
+ * leaderboard.refresh-interval. The board is rebuilt from hot history at startup and
+ * reloads the listings other nodes changed; until the first rebuild, and for windows or
+ * limits it does not keep, AnalyticsService falls back to the database ranking.
+ */
+@Component
+@Slf4j
+public class PriceMoversBoard implements PriceEventConsumer, CacheInvalidationListener {
+
+    private static final Comparator<Move> DROPS =
+            Comparator.comparingDouble(Move::changePercentage).thenComparing(Move::listingId);
+    private static final Comparator<Move> INCREASES =
+            Comparator.comparingDouble(Move::changePercentage).reversed().thenComparing(Move::listingId);
+
+    private final LeaderboardConfig config;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Window> windows;
+    private final Duration longestWindow;
+
+    // Guarded by this; readers only see the published snapshots
+    private Map<Long, Track> tracks = new HashMap<>();
+    private volatile boolean ready;
+
+    public PriceMoversBoard(LeaderboardConfig config, PriceHistoryRepository priceHistoryRepository,
+                            TransactionTemplate transactionTemplate) {
+        this.config = config;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.windows = config.getWindows().stream().distinct().sorted().map(Window::new).toList();
+        this.longestWindow = windows.isEmpty() ? Duration.ZERO : windows.get(windows.size() - 1).length;
+    }
+
+    /**
+     * The {@code limit} largest drops over the last {@code window}, or empty when the board
+     * does not keep that window or that many entries, or has not been built yet.
+     */
+    public Optional<List<PriceDropDTO>> topDrops(Duration window, int limit) {
+        return top(window, limit, true);
+    }
+
+    public Optional<List<PriceDropDTO>> topIncreases(Duration window, int limit) {
+        return top(window, limit, false);
+    }
+
+    public synchronized int trackedListings() {
+        return tracks.size();
+    }
+
+    private Optional<List<PriceDropDTO>> top(Duration length, int limit, boolean drops) {
+        if (!ready || limit < 0 || limit > config.getSize()) return Optional.empty();
+        for (Window window : windows) {
+            if (window.length.equals(length)) {
+                List<PriceDropDTO> ranked = (drops ? window.drops : window.increases).snapshot;
+                return Optional.of(ranked.subList(0, Math.min(limit, ranked.size())));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized void onEvents(List<PriceEvent> events) {
+        long now = millis(LocalDateTime.now());
+        for (PriceEvent event : events) {
+            if (event instanceof StockChanged) continue;
+            Track track = tracks.computeIfAbsent(event.listingId(), Track::new);
+            track.describe(event.productId(), event.productName(), event.sourceName(), event.url());
+            if (track.record(millis(event.occurredAt()), event.price())) {
+                rescore(track, now);
+            }
+        }
+        publish();
+    }
+
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        if (entity != CacheEntity.LISTING || !ready) return;
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Track> loaded = new HashMap<>();
+        for (Object[] row : priceHistoryRepository.findMovementPoints(now.minus(longestWindow), ids)) {
+            load(loaded, row);
+        }
+        synchronized (this) {
+            for (Long id : ids) {
+                Track track = loaded.get(id);
+                if (track == null) {
+                    tracks.remove(id);
+                    forget(id, millis(now));
+                } else {
+                    tracks.put(id, track);
+                    rescore(track, millis(now));
+                }
+            }
+            publish();
+        }
+    }
+
+    @Override
+    public void onEventsLost(long count) {
+        invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll() {
+        // A self-call bypasses @Transactional, and the rebuild streams its rows
+        transactionTemplate.executeWithoutResult(status -> rebuild());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Track> loaded = new HashMap<>();
+        try (Stream<Object[]> points = priceHistoryRepository.streamMovementPoints(now.minus(longestWindow))) {
+            points.forEach(row -> load(loaded, row));
+        }
+        synchronized (this) {
+            // Events consumed while loading may be newer than what the query saw
+            tracks.forEach((id, track) -> loaded.merge(id, track, Track::absorb));
+            tracks = loaded;
+            for (Window window : windows) {
+                window.rescoreAll(tracks.values(), millis(now));
+            }
+            publish();
+            ready = true;
+        }
+        log.info("Price movers board rebuilt with {} listing(s) over {} window(s)", loaded.size(), windows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        if (!ready) return;
+        long now = millis(LocalDateTime.now());
+        long horizon = now - longestWindow.toMillis();
+        for (Track track : tracks.values()) {
+            track.prune(horizon);
+        }
+        for (Window window : windows) {
+            window.rescoreAll(tracks.values(), now);
+        }
+        publish();
+    }
+
+    private void rescore(Track track, long now) {
+        for (Window window : windows) {
+            window.rescore(track, now);
+            if (window.drops.needsRefill() || window.increases.needsRefill()) {
+                window.rescoreAll(tracks.values(), now);
+            }
+        }
+    }
+
+    private void forget(Long listingId, long now) {
+        for (Window window : windows) {
+            window.drops.remove(listingId);
+            window.increases.remove(listingId);
+            if (window.drops.needsRefill() || window.increases.needsRefill()) {
+                window.rescoreAll(tracks.values(), now);
+            }
+        }
+    }
+
+    private void publish() {
+        for (Window window : windows) {
+            window.drops.publish();
+            window.increases.publish();
+        }
+    }
+
+    private static void load(Map<Long, Track> loaded, Object[] row) {
+        Track track = loaded.computeIfAbsent((Long) row[0], Track::new);
+        track.describe((Long) row[1], (String) row[2], (String) row[3], (String) row[4]);
+        track.record(millis((LocalDateTime) row[6]), (BigDecimal) row[5]);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Movement of {@code track} since {@code since}, or null when its price is back where it was.
+     */
+    private static Move move(Track track, long since) {
+        BigDecimal baseline = track.baseline(since);
+        BigDecimal current = track.current();
+        if (baseline.signum() == 0 || baseline.compareTo(current) == 0) return null;
+        double percentage = current.subtract(baseline)
+                .divide(baseline, 4, RoundingMode.HALF_UP)
+                .movePointRight(2)
+                .doubleValue();
+        return new Move(track, baseline, current, percentage);
+    }
+
+    private record Move(Track track, BigDecimal baseline, BigDecimal current, double changePercentage) {
+
+        Long listingId() {
+            return track.listingId;
+        }
+
+        boolean drop() {
+            return current.compareTo(baseline) < 0;
+        }
+
+        PriceDropDTO toDTO() {
+            return PriceDropDTO.builder()
+                    .productId(track.productId)
+                    .productName(track.productName)
+                    .listingId(track.listingId)
+                    .sourceName(track.sourceName)
+                    .url(track.url)
+                    .previousPrice(baseline)
+                    .currentPrice(current)
+                    .priceChange(current.subtract(baseline))
+                    .changePercentage(changePercentage)
+                    .build();
+        }
+    }
+
+    /**
+     * Price change points of one listing, oldest first; the last one is the current price.
+     */
+    private static final class Track {
+
+        final Long listingId;
+        Long productId;
+        String productName;
+        String sourceName;
+        String url;
+
+        long[] times = new long[2];
+        BigDecimal[] prices = new BigDecimal[2];
+        int size;
+
+        Track(Long listingId) {
+            this.listingId = listingId;
+        }
+
+        void describe(Long productId, String productName, String sourceName, String url) {
+            this.productId = productId;
+            this.productName = productName;
+            this.sourceName = sourceName;
+            this.url = url;
+        }
+
+        /**
+         * Appends a change point; false when it is not newer than the last one or does not
+         * change the price (already loaded, or a stock-only interval).
+         */
+        boolean record(long time, BigDecimal price) {
+            if (size > 0 && (time <= times[size - 1] || price.compareTo(prices[size - 1]) == 0)) return false;
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            times[size] = time;
+            prices[size] = price;
+            size++;
+            return true;
+        }
+
+        BigDecimal current() {
+            return prices[size - 1];
+        }
+
+        /**
+         * Price in effect at {@code since}, or the first one when the listing is younger.
+         */
+        BigDecimal baseline(long since) {
+            return prices[Math.max(0, indexAt(since))];
+        }
+
+        /**
+         * Drops the points superseded before {@code horizon}.
+         */
+        void prune(long horizon) {
+            int first = indexAt(horizon);
+            if (first <= 0) return;
+            size -= first;
+            System.arraycopy(times, first, times, 0, size);
+            System.arraycopy(prices, first, prices, 0, size);
+            Arrays.fill(prices, size, size + first, null);
+        }
+
+        Track absorb(Track newer) {
+            for (int i = 0; i < newer.size; i++) {
+                record(newer.times[i], newer.prices[i]);
+            }
+            return this;
+        }
+
+        // Index of the last point at or before time, -1 when there is none
+        private int indexAt(long time) {
+            int found = Arrays.binarySearch(times, 0, size, time);
+            return found >= 0 ? found : -found - 2;
+        }
+    }
+
+    private final class Window {
+
+        final Duration length;
+        final Ranking drops = new Ranking(DROPS);
+        final Ranking increases = new Ranking(INCREASES);
+
+        Window(Duration length) {
+            this.length = length;
+        }
+
+        void rescore(Track track, long now) {
+            drops.remove(track.listingId);
+            increases.remove(track.listingId);
+            Move move = move(track, now - length.toMillis());
+            if (move != null) {
+                (move.drop() ? drops : increases).offer(move);
+            }
+        }
+
+        void rescoreAll(Collection<Track> all, long now) {
+            long since = now - length.toMillis();
+            PriorityQueue<Move> bestDrops = new PriorityQueue<>(DROPS.reversed());
+            PriorityQueue<Move> bestIncreases = new PriorityQueue<>(INCREASES.reversed());
+            int dropCount = 0;
+            int increaseCount = 0;
+            for (Track track : all) {
+                Move move = move(track, since);
+                if (move == null) continue;
+                if (move.drop()) {
+                    dropCount++;
+                    keepBest(bestDrops, move);
+                } else {
+                    increaseCount++;
+                    keepBest(bestIncreases, move);
+                }
+            }
+            drops.reset(bestDrops, dropCount);
+            increases.reset(bestIncreases, increaseCount);
+        }
+
+        private void keepBest(PriorityQueue<Move> best, Move move) {
+            best.add(move);
+            if (best.size() > capacity()) best.poll();
+        }
+    }
+
+    private int capacity() {
+        return 2 * Math.max(1, config.getSize());
+    }
+
+    /**
+     * The best movers of one direction. Members always rank above every listing left out;
+     * {@code complete} says that no mover was left out at all.
+     */
+    private final class Ranking {
+
+        final NavigableSet<Move> members;
+        final Map<Long, Move> byListing = new HashMap<>();
+        boolean complete = true;
+        boolean changed;
+        volatile List<PriceDropDTO> snapshot = List.of();
+
+        Ranking(Comparator<Move> order) {
+            this.members = new TreeSet<>(order);
+        }
+
+        void remove(Long listingId) {
+            Move member = byListing.remove(listingId);
+            if (member != null) {
+                members.remove(member);
+                changed = true;
+            }
+        }
+
+        void offer(Move move) {
+            // A listing outside an incomplete set may rank above the newcomer
+            if (!complete && (members.isEmpty() || members.comparator().compare(move, members.last()) > 0)) return;
+            members.add(move);
+            byListing.put(move.listingId(), move);
+            changed = true;
+            if (members.size() > capacity()) {
+                byListing.remove(members.pollLast().listingId());
+                complete = false;
+            }
+        }
+
+        boolean needsRefill() {
+            return !complete && members.size() < config.getSize();
+        }
+
+        void reset(Collection<Move> best, int total) {
+            members.clear();
+            byListing.clear();
+            for (Move move : best) {
+                members.add(move);
+                byListing.put(move.listingId(), move);
+            }
+            complete = total <= capacity();
+            changed = true;
+        }
+
+        void publish() {
+            if (!changed) return;
+            snapshot = members.stream().limit(config.getSize()).map(Move::toDTO).toList();
+            changed = false;
+        }
+    }
+}
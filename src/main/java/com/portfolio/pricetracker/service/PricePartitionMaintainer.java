@@ -0,0 +1,161 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps price_history's monthly range partitions (on scraped_at) created ahead of time
+ * and detaches the ones that fall out of the retention window. Open intervals of an
+ * expiring partition are carried forward first, so retention only ever removes closed
+ * history.
+ *
+ * There is no default partition: a row outside every partition fails its insert, so
+ * partitions are created several months ahead (price-history.partitions-ahead) and the
+ * job runs at startup and daily. Not having a default partition also keeps
+ * DETACH ... CONCURRENTLY available, which does not block ingestion.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricePartitionMaintainer {
+
+    static final String PARENT_TABLE = "price_history";
+
+    private static final Pattern RANGE_BOUND =
+            Pattern.compile("FROM \\((MINVALUE|'[^']+')\\) TO \\((MAXVALUE|'[^']+')\\)");
+    private static final DateTimeFormatter BOUND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSSSSS][.SSS]");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceHistoryConfig config;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "0 30 1 * * *")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        try {
+            createUpcomingPartitions(current);
+            detachExpiredPartitions(current);
+        } catch (Exception e) {
+            log.error("price_history partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    void createUpcomingPartitions(YearMonth current) {
+        List<Partition> existing = findPartitions();
+        for (int i = 0; i <= config.getPartitionsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (existing.stream().anyMatch(p -> p.overlaps(from, to))) continue;
+
+            String name = PARENT_TABLE + "_p" + month.format(NAME_FORMAT);
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    name, PARENT_TABLE, from, to));
+            log.info("Created partition {} for [{}, {})", name, from, to);
+        }
+    }
+
+    void detachExpiredPartitions(YearMonth current) {
+        if (config.getRetentionMonths() <= 0) return;
+
+        LocalDateTime cutoff = current.minusMonths(config.getRetentionMonths()).atDay(1).atStartOfDay();
+        for (Partition partition : findPartitions()) {
+            if (partition.to() == null || partition.to().isAfter(cutoff)) continue;
+
+            // Committed before the detach, which cannot run inside a transaction
+            Integer carried = transactionTemplate.execute(status -> carryOpenIntervals(partition, cutoff));
+            if (carried != null && carried > 0) {
+                log.info("Carried {} open interval(s) out of expiring partition {} to {}", carried, partition.name(), cutoff);
+            }
+            jdbcTemplate.execute(String.format(
+                    "ALTER TABLE %s DETACH PARTITION %s CONCURRENTLY", PARENT_TABLE, partition.name()));
+            if (config.isDropExpiredPartitions()) {
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+                log.info("Dropped expired partition {} (before {})", partition.name(), cutoff);
+            } else {
+                log.info("Detached expired partition {} (before {})", partition.name(), cutoff);
+            }
+        }
+    }
+
+    /**
+     * Moves the open intervals of an expiring partition forward to start at {@code cutoff}.
+     * scraped_at is an interval's start, so a listing whose price has not changed since
+     * before the cutoff has its current state in that partition, and detaching it would
+     * delete that state. The rows keep their ids. Their listings are locked first, as
+     * ingestion locks them, so no open interval is updated while it moves. Must run inside
+     * a transaction; returns the number of intervals moved.
+     */
+    int carryOpenIntervals(Partition partition, LocalDateTime cutoff) {
+        jdbcTemplate.queryForList(String.format(
+                "SELECT id FROM product_listings WHERE id IN (SELECT listing_id FROM %s WHERE valid_to IS NULL) " +
+                "ORDER BY id FOR UPDATE", partition.name()), Long.class);
+        Timestamp start = Timestamp.valueOf(cutoff);
+        return jdbcTemplate.update(String.format("""
+                WITH carried AS (
+                    DELETE FROM %s WHERE valid_to IS NULL
+                    RETURNING id, listing_id, product_id, price, in_stock, last_confirmed_at, sample_count
+                )
+                INSERT INTO %s (id, listing_id, product_id, price, in_stock, scraped_at, valid_to,
+                                last_confirmed_at, sample_count)
+                SELECT id, listing_id, product_id, price, in_stock, ?, NULL, GREATEST(last_confirmed_at, ?), sample_count
+                FROM carried""", partition.name(), PARENT_TABLE), start, start);
+    }
+
+    List<Partition> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST(? AS regclass) ORDER BY c.relname",
+                (rs, rowNum) -> Partition.parse(rs.getString(1), rs.getString(2)),
+                PARENT_TABLE);
+    }
+
+    /**
+     * A range partition; null bounds stand for MINVALUE / MAXVALUE.
+     */
+    record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        static Partition parse(String name, String boundExpression) {
+            Matcher matcher = RANGE_BOUND.matcher(boundExpression);
+            if (!matcher.find()) {
+                throw new IllegalStateException("Unexpected partition bound for " + name + ": " + boundExpression);
+            }
+            return new Partition(name, parseBound(matcher.group(1)), parseBound(matcher.group(2)));
+        }
+
+        private static LocalDateTime parseBound(String bound) {
+            if (bound.equals("MINVALUE") || bound.equals("MAXVALUE")) return null;
+            return LocalDateTime.parse(bound.substring(1, bound.length() - 1), BOUND_FORMAT);
+        }
+
+        boolean overlaps(LocalDateTime rangeFrom, LocalDateTime rangeTo) {
+            boolean startsBeforeEnd = from == null || from.isBefore(rangeTo);
+            boolean endsAfterStart = to == null || to.isAfter(rangeFrom);
+            return startsBeforeEnd && endsAfterStart;
+        }
+    }
+}
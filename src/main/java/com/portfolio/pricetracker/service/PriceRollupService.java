@@ -0,0 +1,63 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Keeps the hourly and daily OHLC rollups (price_rollups) in step with price history.
+ *
+ * Ingestion records every observation inside the same transaction as its history write,
+ * so the rollups are exact for anything scraped since they exist, and V15 backfilled all
+ * history from before. The catch-up job only fills recent buckets that are missing
+ * entirely, from rows written outside ingestion; it looks back
+ * price-history.rollup-catch-up-hours, so each run is one bounded statement.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceRollupService {
+
+    private final PriceRollupRepository rollupRepository;
+    private final PriceHistoryConfig config;
+
+    /**
+     * Must run inside the transaction that records the observation in price_history.
+     */
+    public void recordObservation(Long listingId, Long productId, BigDecimal price, LocalDateTime observedAt) {
+        rollupRepository.recordObservation(listingId, productId, price, observedAt);
+    }
+
+    /**
+     * Observations of listings whose state did not change; must run inside the transaction
+     * that extends their open intervals.
+     */
+    public void recordUnchanged(Collection<Long> listingIds, LocalDateTime observedAt) {
+        if (listingIds.isEmpty()) return;
+        rollupRepository.recordOpenIntervalObservations(listingIds, observedAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void catchUpRecent() {
+        catchUp(LocalDateTime.now().minusHours(config.getRollupCatchUpHours()));
+    }
+
+    private void catchUp(LocalDateTime since) {
+        int inserted = rollupRepository.insertMissingBuckets(since);
+        if (inserted > 0) {
+            log.info("Rollup catch-up inserted {} missing bucket(s) since {}", inserted, since);
+        }
+    }
+}
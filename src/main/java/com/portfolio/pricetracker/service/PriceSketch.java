@@ -0,0 +1,169 @@
+package com.portfolio.pricetracker.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile sketch of prices with a relative error guarantee (DDSketch,
+ * Masson et al., 2019). Positive values are counted in logarithmic buckets of ratio
+ * gamma = (1 + a) / (1 - a); any quantile is answered with the bucket's midpoint, within
+ * a relative accuracy a of the exact value. Zero and negative prices share one bucket.
+ *
+ * Unlike t-digest or KLL, counts are exact per bucket, so a value can be removed again
+ * when a listing changes price, and two sketches with the same accuracy merge by adding
+ * counts. Memory depends on the price range, not on the number of values: about 920
+ * buckets span 0.01 to 1,000,000 at 1%. Not thread-safe.
+ */
+final class PriceSketch {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    // counts[i] is the number of values in bucket offset + i
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    PriceSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    void add(double value) {
+        update(value, 1);
+    }
+
+    /**
+     * Removes a value added before; removing anything else corrupts the sketch.
+     */
+    void remove(double value) {
+        update(value, -1);
+    }
+
+    void merge(PriceSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of accuracy " + relativeAccuracy
+                    + " and " + other.relativeAccuracy);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] == 0) continue;
+            int index = other.offset + i;
+            ensureBucket(index);
+            counts[index - offset] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * The value of rank q * (count - 1), within the relative accuracy; NaN when empty.
+     */
+    double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        if (count <= 0) return Double.NaN;
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (seen > rank) return 0;
+        int last = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            seen += counts[i];
+            last = i;
+            if (seen > rank) return value(offset + i);
+        }
+        return last < 0 ? 0 : value(offset + last);
+    }
+
+    /**
+     * Compact binary form (non-empty bucket range only), read back by {@link #fromBytes}.
+     */
+    byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) first++;
+        while (last >= first && counts[last] == 0) last--;
+        int length = last - first + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 8 + 4 + 4 + length * 8);
+        buffer.put(FORMAT_VERSION);
+        buffer.putDouble(relativeAccuracy);
+        buffer.putLong(zeroCount);
+        buffer.putInt(offset + first);
+        buffer.putInt(length);
+        for (int i = first; i <= last; i++) {
+            buffer.putLong(counts[i]);
+        }
+        return buffer.array();
+    }
+
+    static PriceSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported price sketch format: " + version);
+        }
+        PriceSketch sketch = new PriceSketch(buffer.getDouble());
+        sketch.zeroCount = buffer.getLong();
+        sketch.offset = buffer.getInt();
+        sketch.counts = new long[buffer.getInt()];
+        sketch.count = sketch.zeroCount;
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = buffer.getLong();
+            sketch.count += sketch.counts[i];
+        }
+        return sketch;
+    }
+
+    private void update(double value, long delta) {
+        if (value <= 0) {
+            zeroCount += delta;
+        } else {
+            int index = index(value);
+            ensureBucket(index);
+            counts[index - offset] += delta;
+        }
+        count += delta;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    // Midpoint of bucket (gamma^(index-1), gamma^index], within the relative accuracy of both ends
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void ensureBucket(int index) {
+        if (counts.length == 0) {
+            counts = new long[INITIAL_BUCKETS];
+            offset = index - INITIAL_BUCKETS / 2;
+            return;
+        }
+        if (index >= offset && index < offset + counts.length) return;
+        int low = Math.min(offset, index);
+        int high = Math.max(offset + counts.length - 1, index);
+        // At least double, so a sweep over the price range grows the array O(log n) times
+        int length = Math.max(high - low + 1, counts.length * 2);
+        int newOffset = index < offset ? high - length + 1 : low;
+        long[] grown = new long[length];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
@@ -3,6 +3,8 @@ package com.portfolio.pricetracker.service;
 import com.portfolio.pricetracker.dto.ProductDTO;
 import com.portfolio.pricetracker.entity.Product;
 import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,9 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CacheInvalidationPublisher cacheInvalidations;
+    private final AnalyticsResultCache resultCache;
+    private final CategoryPricePercentiles categoryPercentiles;
 
     public ProductDTO create(ProductDTO dto) {
         Product product = Product.builder()
@@ -63,6 +68,11 @@ public class ProductService {
         product.setCategory(dto.getCategory());
         product.setImageUrl(dto.getImageUrl());
 
+        cacheInvalidations.invalidate(CacheEntity.PRODUCT, id);
+        AfterCommit.run(() -> {
+            resultCache.invalidateProducts(List.of(id));
+            categoryPercentiles.reloadProducts(List.of(id));
+        });
         return toDTO(productRepository.save(product));
     }
 
@@ -72,6 +82,11 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
         product.setDeletedAt(LocalDateTime.now());
         productRepository.save(product);
+        cacheInvalidations.invalidate(CacheEntity.PRODUCT, id);
+        AfterCommit.run(() -> {
+            resultCache.invalidateProducts(List.of(id));
+            categoryPercentiles.reloadProducts(List.of(id));
+        });
     }
 
     private ProductDTO toDTO(Product product) {
@@ -82,6 +97,7 @@ public class ProductService {
                 .imageUrl(product.getImageUrl())
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
+                .dealScore(product.getBestDealScore())
                 .build();
     }
 }
@@ -1,17 +1,36 @@
 package com.portfolio.pricetracker.service;
 
+import com.portfolio.pricetracker.config.IngestionConfig;
+import com.portfolio.pricetracker.dto.ListingFingerprint;
 import com.portfolio.pricetracker.dto.ScrapedProductDTO;
 import com.portfolio.pricetracker.entity.*;
 import com.portfolio.pricetracker.repository.PriceHistoryRepository;
 import com.portfolio.pricetracker.repository.ProductListingRepository;
 import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventBus;
+import com.portfolio.pricetracker.service.event.StockChanged;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -23,76 +42,256 @@ public class ProductUnificationService {
     private final PriceHistoryRepository priceHistoryRepository;
     private final TransactionTemplate transactionTemplate;
     private final PriceAlertService priceAlertService;
+    private final PriceRollupService priceRollupService;
+    private final ListingPriceStatsService listingPriceStatsService;
+    private final ListingFingerprintCache fingerprintCache;
+    private final PriceEventBus priceEventBus;
+    private final CacheInvalidationPublisher cacheInvalidations;
+    private final AnalyticsResultCache resultCache;
+    private final IngestionConfig ingestionConfig;
+    @Qualifier("ingestionExecutor")
+    private final ExecutorService ingestionExecutor;
 
     /**
      * Each item runs in its own transaction via TransactionTemplate.
      * If one item fails (e.g. constraint violation), only that item's transaction
      * rolls back — not the entire batch. This avoids the "rollback-only" issue
      * that occurs when catching JPA exceptions inside a single @Transactional method.
+     *
+     * Items are partitioned by normalized product key and the partitions are ingested
+     * concurrently (ingestion.parallelism). All items of one product land in the same
+     * partition, so two threads never race to create the same Product or listing;
+     * races with other nodes are absorbed by the insert-or-get queries.
+     *
+     * Items whose price and stock match the listing fingerprint from the previous scrape
+     * skip all of that: their listings only get lastScrapedAt bumped and their open history
+     * interval and rollup buckets extended, in one statement per table per page.
+     *
+     * Alerts are checked inside the item's transaction, so a trigger and its outbox row
+     * commit with the price that caused them. Everything else that reacts to a changed
+     * listing (webhooks, the live feed, in-memory rankings) receives a PriceEvent through
+     * PriceEventBus after the item's transaction commits, and runs on its own thread.
+     * This node's AnalyticsResultCache drops the product's results as soon as the item
+     * commits. Other nodes hear of committed listings once per
+     * ingestion.invalidation-batch-size listings of a partition, as one LISTING cache
+     * invalidation rather than one per item.
      */
     public void saveResults(List<ScrapedProductDTO> results, WebsiteSource source) {
-        int saved = 0;
+        List<Long> unchangedListingIds = new ArrayList<>();
+        List<ScrapedProductDTO> changed = new ArrayList<>();
+        for (ScrapedProductDTO scraped : results) {
+            if (scraped.getUrl() == null || scraped.getPrice() == null) continue;
+            fingerprintCache.findUnchangedListing(scraped)
+                    .ifPresentOrElse(unchangedListingIds::add, () -> changed.add(scraped));
+        }
+        int touched = touchUnchanged(unchangedListingIds);
+
+        List<List<ScrapedProductDTO>> partitions = partitionByProductKey(changed, ingestionConfig.getParallelism());
+
+        int saved;
+        if (partitions.size() <= 1) {
+            saved = partitions.isEmpty() ? 0 : ingestPartition(partitions.get(0), source);
+        } else {
+            List<CompletableFuture<Integer>> futures = partitions.stream()
+                    .map(partition -> CompletableFuture.supplyAsync(
+                            () -> ingestPartition(partition, source), ingestionExecutor))
+                    .toList();
+            saved = futures.stream().mapToInt(CompletableFuture::join).sum();
+        }
+        log.info("Saved {}/{} scraped products from {} ({} unchanged)",
+                saved + touched, results.size(), source.getName(), touched);
+    }
+
+    private int touchUnchanged(List<Long> listingIds) {
+        if (listingIds.isEmpty()) return 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Integer updated = transactionTemplate.execute(status -> {
+                priceHistoryRepository.confirmOpenIntervals(listingIds, now);
+                priceRollupService.recordUnchanged(listingIds, now);
+                return listingRepository.touchLastScrapedAt(listingIds, now);
+            });
+            return updated == null ? 0 : updated;
+        } catch (Exception e) {
+            log.warn("Failed to touch {} unchanged listing(s): {}", listingIds.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Groups valid items by normalized product name and spreads the groups over at most
+     * {@code parallelism} partitions. Input order is kept inside each partition.
+     */
+    static List<List<ScrapedProductDTO>> partitionByProductKey(List<ScrapedProductDTO> results, int parallelism) {
+        int buckets = Math.max(1, parallelism);
+        Map<Integer, List<ScrapedProductDTO>> partitions = new LinkedHashMap<>();
         for (ScrapedProductDTO scraped : results) {
             if (scraped.getUrl() == null || scraped.getPrice() == null) continue;
-            try {
-                transactionTemplate.executeWithoutResult(status -> processScrapedProduct(scraped, source));
-                saved++;
-            } catch (Exception e) {
-                log.warn("Failed to process scraped product '{}': {}", scraped.getName(), e.getMessage());
+            String key = Product.normalizeName(scraped.getName());
+            int bucket = key == null ? 0 : Math.floorMod(key.hashCode(), buckets);
+            partitions.computeIfAbsent(bucket, b -> new ArrayList<>()).add(scraped);
+        }
+        return new ArrayList<>(partitions.values());
+    }
+
+    private int ingestPartition(List<ScrapedProductDTO> partition, WebsiteSource source) {
+        List<Long> committedListingIds = new ArrayList<>();
+        int batchSize = Math.max(1, ingestionConfig.getInvalidationBatchSize());
+        int saved = 0;
+        try {
+            for (ScrapedProductDTO scraped : partition) {
+                try {
+                    IngestedItem item = transactionTemplate.execute(status -> processScrapedProduct(scraped, source));
+                    if (item != null) {
+                        fingerprintCache.put(item.fingerprint());
+                        if (item.change() != null) {
+                            resultCache.listingsChanged(Set.of(item.change().productId()),
+                                    item.change() instanceof PriceChanged);
+                            committedListingIds.add(item.change().listingId());
+                        }
+                    }
+                    saved++;
+                } catch (Exception e) {
+                    log.warn("Failed to process scraped product '{}': {}", scraped.getName(), e.getMessage());
+                }
+                if (committedListingIds.size() >= batchSize) {
+                    publish(committedListingIds);
+                }
             }
+        } finally {
+            publish(committedListingIds);
+        }
+        return saved;
+    }
+
+    /**
+     * Tells other nodes about the listings whose changes have committed, in one write, then
+     * empties {@code listingIds}.
+     */
+    private void publish(List<Long> listingIds) {
+        if (listingIds.isEmpty()) return;
+        try {
+            cacheInvalidations.invalidate(CacheEntity.LISTING, List.copyOf(listingIds));
+        } catch (Exception e) {
+            log.warn("Failed to publish invalidations for {} listing(s): {}", listingIds.size(), e.getMessage());
         }
-        log.info("Saved {}/{} scraped products from {}", saved, results.size(), source.getName());
+        listingIds.clear();
+    }
+
+    private record IngestedItem(ListingFingerprint fingerprint, PriceEvent change) {
     }
 
-    private void processScrapedProduct(ScrapedProductDTO scraped, WebsiteSource source) {
-        ProductListing listing = listingRepository.findByUrl(scraped.getUrl())
+    private IngestedItem processScrapedProduct(ScrapedProductDTO scraped, WebsiteSource source) {
+        ProductListing listing = listingRepository.findByUrlForUpdate(scraped.getUrl())
                 .orElseGet(() -> createListing(scraped, source));
 
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal previousPrice = listing.getCurrentPrice();
+        Boolean previousInStock = listing.getInStock();
         listing.setCurrentPrice(scraped.getPrice());
         listing.setInStock(scraped.getInStock());
-        listing.setLastScrapedAt(LocalDateTime.now());
+        listing.setLastScrapedAt(now);
         listingRepository.save(listing);
 
-        PriceHistory history = PriceHistory.builder()
+        recordPriceState(listing, scraped, now);
+        priceRollupService.recordObservation(listing.getId(), listing.getProduct().getId(), scraped.getPrice(), now);
+        if (previousPrice == null || previousPrice.compareTo(scraped.getPrice()) != 0) {
+            listingPriceStatsService.recordPriceChange(listing.getId(), listing.getProduct().getId(), scraped.getPrice(), now);
+        }
+
+        PriceEvent event = changeEvent(listing, source, previousPrice, previousInStock, now);
+        if (event != null) {
+            priceAlertService.checkAlerts(listing.getProduct().getId(), listing.getId(),
+                    listing.getCurrentPrice(), listing.getInStock());
+            priceEventBus.publishAfterCommit(event);
+        }
+
+        return new IngestedItem(
+                new ListingFingerprint(scraped.getUrl(), listing.getId(), scraped.getPrice(), scraped.getInStock()),
+                event);
+    }
+
+    /**
+     * What changed on {@code listing} (already updated) compared to its previous price and
+     * stock; null when nothing did.
+     */
+    private static PriceEvent changeEvent(ProductListing listing, WebsiteSource source, BigDecimal previousPrice,
+                                          Boolean previousInStock, LocalDateTime now) {
+        Product product = listing.getProduct();
+        if (previousPrice == null) {
+            return new ListingCreated(listing.getId(), product.getId(), product.getName(), product.getCategory(),
+                    listing.getUrl(), source.getName(), listing.getCurrentPrice(), listing.getInStock(), now);
+        }
+        if (previousPrice.compareTo(listing.getCurrentPrice()) != 0) {
+            return new PriceChanged(listing.getId(), product.getId(), product.getName(), product.getCategory(),
+                    listing.getUrl(), source.getName(), previousPrice, listing.getCurrentPrice(),
+                    previousInStock, listing.getInStock(), now);
+        }
+        if (!Objects.equals(previousInStock, listing.getInStock())) {
+            return new StockChanged(listing.getId(), product.getId(), product.getName(), product.getCategory(),
+                    listing.getUrl(), source.getName(), listing.getCurrentPrice(), previousInStock, listing.getInStock(), now);
+        }
+        return null;
+    }
+
+    /**
+     * Change-only history: extends the listing's open interval when price and stock are
+     * the same as last time, otherwise closes it and opens a new one. The listing row is
+     * locked (findByUrlForUpdate), so no other transaction can close or open its interval
+     * in between and leave two open.
+     */
+    private void recordPriceState(ProductListing listing, ScrapedProductDTO scraped, LocalDateTime now) {
+        Optional<PriceHistory> open = priceHistoryRepository.findFirstByListingIdAndValidToIsNull(listing.getId());
+
+        if (open.isPresent() && open.get().hasSameState(scraped.getPrice(), scraped.getInStock())) {
+            PriceHistory current = open.get();
+            current.setLastConfirmedAt(now);
+            current.setSampleCount(current.getSampleCount() + 1);
+            priceHistoryRepository.save(current);
+            return;
+        }
+
+        open.ifPresent(previous -> {
+            previous.setValidTo(now);
+            priceHistoryRepository.save(previous);
+        });
+        priceHistoryRepository.save(PriceHistory.builder()
                 .listing(listing)
                 .product(listing.getProduct())
                 .price(scraped.getPrice())
                 .inStock(scraped.getInStock())
-                .scrapedAt(LocalDateTime.now())
-                .build();
-        priceHistoryRepository.save(history);
-
-        priceAlertService.checkAlerts(listing.getProduct().getId(), scraped.getPrice());
+                .scrapedAt(now)
+                .lastConfirmedAt(now)
+                .build());
     }
 
     /**
-     * Creates a new ProductListing.
+     * Resolves the ProductListing for an item whose URL is not known yet.
      *
-     * Product matching strategy: find by exact name (case-insensitive) to reuse the same
-     * canonical product across sites (e.g. "ASUS TUF RTX 4070" on Amazon and MediaMarkt
-     * share one Product row). If no match, a new Product is created.
+     * Product matching strategy: find by normalized name to reuse the same canonical
+     * product across sites (e.g. "ASUS TUF RTX 4070" on Amazon and MediaMarkt share one
+     * Product row). If no match, the product is inserted with ON CONFLICT DO NOTHING and
+     * read back, so a concurrent insert by another node resolves to the same row instead
+     * of failing the item.
      *
-     * If the (product, source) combination already exists (unique constraint), the existing
-     * listing is reused and its URL updated to the new one.
+     * The (product, source) listing uses the same insert-or-get, read back locked like a
+     * listing found by URL; an existing listing is reused and its URL updated to the new one.
      */
     private ProductListing createListing(ScrapedProductDTO scraped, WebsiteSource source) {
-        Product product = productRepository
-                .findByNameIgnoreCaseAndDeletedAtIsNull(scraped.getName())
-                .orElseGet(() -> productRepository.save(Product.builder()
-                        .name(scraped.getName())
-                        .imageUrl(scraped.getImageUrl())
-                        .build()));
-
-        return listingRepository.findByProductIdAndSourceId(product.getId(), source.getId())
-                .map(existing -> {
-                    existing.setUrl(scraped.getUrl());
-                    return existing;
-                })
-                .orElseGet(() -> ProductListing.builder()
-                        .product(product)
-                        .source(source)
-                        .url(scraped.getUrl())
-                        .currency("EUR")
-                        .build());
+        String key = Product.normalizeName(scraped.getName());
+        Product product = productRepository.findByNormalizedNameAndDeletedAtIsNull(key)
+                .orElseGet(() -> {
+                    productRepository.insertIfAbsent(scraped.getName(), key, scraped.getImageUrl());
+                    return productRepository.findByNormalizedNameAndDeletedAtIsNull(key).orElseThrow();
+                });
+
+        ProductListing listing = listingRepository.findByProductIdAndSourceIdForUpdate(product.getId(), source.getId())
+                .orElseGet(() -> {
+                    listingRepository.insertIfAbsent(product.getId(), source.getId(), scraped.getUrl());
+                    return listingRepository.findByProductIdAndSourceIdForUpdate(product.getId(), source.getId())
+                            .orElseThrow();
+                });
+        listing.setUrl(scraped.getUrl());
+        return listing;
     }
 }
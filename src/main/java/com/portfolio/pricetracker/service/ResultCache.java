@@ -0,0 +1,233 @@
+package com.portfolio.pricetracker.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.portfolio.pricetracker.dto.ResultCacheStatsDTO;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of query results (LRU beyond the maximum size, reloaded
+ * after the TTL) with single-flight loading: concurrent misses on a key wait for the one
+ * load in flight instead of each querying the database.
+ *
+ * An invalidation wins over loads in flight: a value whose load started before an
+ * invalidation that covers it is handed to its callers but not stored, since it may have
+ * been read before the change committed. Invalidating keys only affects the loads of those
+ * keys; predicate and full invalidations affect every load in flight. Values must not be
+ * modified by callers.
+ */
+final class ResultCache<K, V> {
+
+    private final String name;
+    private final Cache<K, V> cache;
+    private final ConcurrentMap<K, Flight<V>> loading = new ConcurrentHashMap<>();
+
+    // Incremented by every predicate or full invalidation; guarded by this together with
+    // storing loaded values
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+    private final LongAdder invalidations = new LongAdder();
+
+    ResultCache(String name, long maximumSize, Duration ttl) {
+        this.name = name;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                // For the eviction count; hits and misses are counted here, joined loads included
+                .recordStats()
+                .build();
+    }
+
+    V get(K key, Supplier<V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Flight<V> flight = new Flight<>();
+        Flight<V> leader = loading.putIfAbsent(key, flight);
+        if (leader != null) return await(leader);
+        try {
+            long startGeneration = generation();
+            // A load may have finished between the first lookup and registering this one
+            V value = cache.getIfPresent(key);
+            if (value == null) {
+                value = timed(loader);
+                if (value != null) store(Map.of(key, value), Map.of(key, flight), startGeneration);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, flight);
+        }
+    }
+
+    /**
+     * Values of {@code keys}, loading all missing ones not already in flight with one call;
+     * keys the loader does not return are absent from the result and not cached.
+     */
+    Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> values = new HashMap<>();
+        Map<K, Flight<V>> led = new LinkedHashMap<>();
+        Map<K, Flight<V>> joined = new HashMap<>();
+        for (K key : keys) {
+            if (values.containsKey(key) || led.containsKey(key) || joined.containsKey(key)) continue;
+            V cached = cache.getIfPresent(key);
+            if (cached != null) {
+                hits.increment();
+                values.put(key, cached);
+                continue;
+            }
+            misses.increment();
+            Flight<V> flight = new Flight<>();
+            Flight<V> leader = loading.putIfAbsent(key, flight);
+            if (leader == null) {
+                led.put(key, flight);
+            } else {
+                joined.put(key, leader);
+            }
+        }
+        if (!led.isEmpty()) {
+            try {
+                long startGeneration = generation();
+                Map<K, V> loaded = timed(() -> loader.apply(led.keySet()));
+                store(loaded, led, startGeneration);
+                led.forEach((key, flight) -> {
+                    V value = loaded.get(key);
+                    if (value != null) values.put(key, value);
+                    flight.complete(value);
+                });
+            } catch (RuntimeException | Error e) {
+                led.values().forEach(flight -> flight.completeExceptionally(e));
+                throw e;
+            } finally {
+                led.forEach(loading::remove);
+            }
+        }
+        joined.forEach((key, flight) -> {
+            V value = await(flight);
+            if (value != null) values.put(key, value);
+        });
+        return values;
+    }
+
+    /**
+     * Drops the entries of {@code keys}, and the loads of those keys in flight; loads of
+     * other keys still store their values.
+     */
+    synchronized void invalidate(Collection<K> keys) {
+        for (K key : keys) {
+            if (cache.getIfPresent(key) != null) invalidations.increment();
+            Flight<V> flight = loading.get(key);
+            if (flight != null) flight.stale = true;
+        }
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * Drops the entries matching {@code stale}, and whatever is being loaded right now.
+     */
+    synchronized void invalidateIf(BiPredicate<K, V> stale) {
+        generation++;
+        cache.asMap().entrySet().removeIf(entry -> {
+            if (!stale.test(entry.getKey(), entry.getValue())) return false;
+            invalidations.increment();
+            return true;
+        });
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        invalidations.add(cache.size());
+        cache.invalidateAll();
+    }
+
+    ResultCacheStatsDTO stats() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        long loadCount = loads.sum();
+        return ResultCacheStatsDTO.builder()
+                .cache(name)
+                .size(cache.size())
+                .hits(hitCount)
+                .misses(requests - hitCount)
+                .hitRatio(requests == 0 ? 0 : hitCount / (double) requests)
+                .loads(loadCount)
+                .loadFailures(loadFailures.sum())
+                .averageLoadMillis(loadCount == 0 ? 0 : loadNanos.sum() / 1e6 / loadCount)
+                .maxLoadMillis(maxLoadNanos.get() / 1e6)
+                .evictions(cache.stats().evictionCount())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized void store(Map<K, V> values, Map<K, Flight<V>> flights, long startGeneration) {
+        if (generation != startGeneration) return;
+        values.forEach((key, value) -> {
+            Flight<V> flight = flights.get(key);
+            if (value != null && flight != null && !flight.stale) cache.put(key, value);
+        });
+    }
+
+    private <T> T timed(Supplier<T> loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.get();
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            loads.increment();
+            loadNanos.add(elapsed);
+            maxLoadNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // A load in flight; joined by concurrent misses on its key
+    private static final class Flight<V> extends CompletableFuture<V> {
+
+        // Set, under the cache's lock, when the key is invalidated while it loads
+        boolean stale;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Joined callers see the loader's own exception, e.g. a 404 for an unknown product
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
@@ -93,7 +93,7 @@ public class ScrapingJobService {
 
     @Transactional(readOnly = true)
     public List<ScrapingJobDTO> findAll() {
-        return jobRepository.findAll().stream()
+        return jobRepository.findAllWithSource().stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
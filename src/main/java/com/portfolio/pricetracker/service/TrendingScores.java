@@ -0,0 +1,256 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.TrendingConfig;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Trending products as exponentially time-decayed activity: every product view and
+ * ingested change adds a weight that halves every trending.half-life.
+ *
+ * Scores are kept forward-decayed: a weight is stored multiplied by e^((t - landmark)/tau)
+ * instead of decaying every score as time passes, so a score only ever grows and the
+ * ranking of products without activity never changes. That lets the top trending.size
+ * products be kept in one bounded sorted set updated in O(log K) per increment, and top()
+ * is O(K). Keys are product ids, bounded by the catalog, so scores are exact per product.
+ *
+ * Every trending.persist-interval the node's increments since the last run are merged
+ * into trending_scores (decaying the stored value to the database clock) and all scores
+ * are read back, so nodes converge on the activity of the whole cluster and the landmark
+ * moves to the present.
+ */
+@Component
+@Slf4j
+public class TrendingScores implements PriceEventConsumer {
+
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingDouble((Entry entry) -> entry.value).reversed().thenComparingLong(entry -> entry.productId);
+
+    public record Score(Long productId, double score) {
+    }
+
+    private final TrendingConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final double tauSeconds;
+
+    // Guarded by this
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> top = new TreeSet<>(RANKING);
+    private double landmark = nowSeconds();
+
+    public TrendingScores(TrendingConfig config, JdbcTemplate jdbcTemplate) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tauSeconds = config.getHalfLife().toMillis() / 1000.0 / Math.log(2);
+    }
+
+    public void recordView(Long productId) {
+        record(productId, config.getViewWeight(), nowSeconds());
+    }
+
+    @Override
+    public void onEvents(List<PriceEvent> events) {
+        double now = nowSeconds();
+        synchronized (this) {
+            for (PriceEvent event : events) {
+                record(event.productId(), config.getChangeWeight(), now);
+            }
+        }
+    }
+
+    /**
+     * The {@code limit} highest scores, decayed to now, best first; at most trending.size.
+     */
+    public List<Score> top(int limit) {
+        return top(limit, nowSeconds());
+    }
+
+    /**
+     * Drops products that no longer exist (deleted ones are filtered out by the reader).
+     */
+    public synchronized void forget(Collection<Long> productIds) {
+        boolean ranked = false;
+        for (Long productId : productIds) {
+            Entry entry = entries.remove(productId);
+            if (entry != null) ranked |= top.remove(entry);
+        }
+        if (ranked) refillTop();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            seedIfEmpty();
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not load trending scores, starting from local activity: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trending.persist-interval:PT1M}")
+    public void persist() {
+        try {
+            flush();
+            jdbcTemplate.update("""
+                            DELETE FROM trending_scores t
+                            WHERE t.score * exp(-extract(epoch FROM NOW() - t.updated_at) / ?) < ?
+                               OR EXISTS (SELECT 1 FROM products p WHERE p.id = t.product_id AND p.deleted_at IS NOT NULL)""",
+                    tauSeconds, config.getMinScore());
+            reload();
+        } catch (Exception e) {
+            log.warn("Trending scores not persisted: {}", e.getMessage());
+        }
+    }
+
+    synchronized void record(Long productId, double weight, double now) {
+        double forward = weight * Math.exp((now - landmark) / tauSeconds);
+        Entry entry = entries.computeIfAbsent(productId, Entry::new);
+        boolean ranked = top.remove(entry);
+        entry.value += forward;
+        entry.pending += forward;
+        offer(entry, ranked);
+    }
+
+    synchronized List<Score> top(int limit, double now) {
+        double decay = Math.exp(-(now - landmark) / tauSeconds);
+        List<Score> scores = new ArrayList<>(Math.min(Math.max(limit, 0), top.size()));
+        for (Entry entry : top) {
+            if (scores.size() >= limit) break;
+            scores.add(new Score(entry.productId, entry.value * decay));
+        }
+        return scores;
+    }
+
+    /**
+     * Initial scores from the price changes in hot history, when no node has written any yet.
+     */
+    private void seedIfEmpty() {
+        Boolean seeded = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM trending_scores)", Boolean.class);
+        if (Boolean.TRUE.equals(seeded)) return;
+        // Older changes would weigh less than a thousandth of a new one
+        double horizonSeconds = tauSeconds * Math.log(1000);
+        int seededProducts = jdbcTemplate.update("""
+                        INSERT INTO trending_scores (product_id, score, updated_at)
+                        SELECT h.product_id, ? * SUM(exp(-extract(epoch FROM NOW() - h.scraped_at) / ?)), NOW()
+                        FROM price_history h JOIN products p ON p.id = h.product_id
+                        WHERE h.scraped_at > NOW() - make_interval(secs => ?) AND p.deleted_at IS NULL
+                        GROUP BY h.product_id
+                        ON CONFLICT (product_id) DO NOTHING""",
+                config.getChangeWeight(), tauSeconds, horizonSeconds);
+        log.info("Seeded trending scores of {} product(s) from price history", seededProducts);
+    }
+
+    /**
+     * Merges the increments since the last flush into trending_scores; on failure they are
+     * kept for the next attempt.
+     */
+    private void flush() {
+        Map<Long, Double> flushed = new HashMap<>();
+        List<Object[]> increments = new ArrayList<>();
+        synchronized (this) {
+            double decay = Math.exp(-(nowSeconds() - landmark) / tauSeconds);
+            for (Entry entry : entries.values()) {
+                if (entry.pending > 0) {
+                    flushed.put(entry.productId, entry.pending);
+                    increments.add(new Object[]{entry.productId, entry.pending * decay, tauSeconds});
+                }
+            }
+        }
+        if (increments.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO trending_scores (product_id, score, updated_at) VALUES (?, ?, NOW())
+                ON CONFLICT (product_id) DO UPDATE SET
+                    score = trending_scores.score
+                            * exp(-GREATEST(0, extract(epoch FROM EXCLUDED.updated_at - trending_scores.updated_at)) / ?)
+                            + EXCLUDED.score,
+                    updated_at = GREATEST(trending_scores.updated_at, EXCLUDED.updated_at)""", increments);
+        synchronized (this) {
+            // Anything recorded meanwhile stays pending
+            flushed.forEach((productId, pending) -> {
+                Entry entry = entries.get(productId);
+                if (entry != null) entry.pending = Math.max(0, entry.pending - pending);
+            });
+        }
+    }
+
+    /**
+     * Replaces the scores with the merged ones of all nodes, keeping what is still pending,
+     * and moves the landmark to now.
+     */
+    private void reload() {
+        Map<Long, Double> merged = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, score * exp(-extract(epoch FROM NOW() - updated_at) / ?) FROM trending_scores",
+                (RowCallbackHandler) rs -> merged.put(rs.getLong(1), rs.getDouble(2)), tauSeconds);
+        synchronized (this) {
+            top.clear();
+            double now = nowSeconds();
+            double decay = Math.exp(-(now - landmark) / tauSeconds);
+            Map<Long, Entry> kept = new HashMap<>();
+            for (Entry entry : entries.values()) {
+                if (entry.pending > 0) {
+                    entry.pending *= decay;
+                    entry.value = entry.pending;
+                    kept.put(entry.productId, entry);
+                }
+            }
+            merged.forEach((productId, score) -> kept.computeIfAbsent(productId, Entry::new).value += score);
+            entries.clear();
+            entries.putAll(kept);
+            landmark = now;
+            refillTop();
+        }
+        log.debug("Reloaded {} trending score(s)", merged.size());
+    }
+
+    private void offer(Entry entry, boolean ranked) {
+        if (ranked || top.size() < config.getSize()) {
+            top.add(entry);
+        } else if (RANKING.compare(entry, top.last()) < 0) {
+            top.add(entry);
+            top.pollLast();
+        }
+    }
+
+    private void refillTop() {
+        PriorityQueue<Entry> best = new PriorityQueue<>(RANKING.reversed());
+        for (Entry entry : entries.values()) {
+            best.add(entry);
+            if (best.size() > config.getSize()) best.poll();
+        }
+        top.clear();
+        top.addAll(best);
+    }
+
+    private static double nowSeconds() {
+        return System.currentTimeMillis() / 1000.0;
+    }
+
+    private static final class Entry {
+
+        final Long productId;
+        // Forward-decayed relative to the landmark
+        double value;
+        double pending;
+
+        Entry(Long productId) {
+            this.productId = productId;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.pricetracker.config.WebhookConfig;
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+import com.portfolio.pricetracker.dto.WebhookBatchDTO;
+import com.portfolio.pricetracker.entity.WebhookSubscription;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Fans committed price changes out to webhook subscribers.
+ *
+ * publish() only routes the event (product, category and global subscriptions, looked up
+ * in an immutable snapshot) into each matching subscriber's bounded queue. Every
+ * webhooks.batch-window the queues are drained into batches of at most
+ * webhooks.max-batch-size and POSTed through one shared HttpClient, whose connection pool
+ * and webhook executor serve all subscribers. A subscriber has at most
+ * webhooks.concurrency-per-subscriber requests in flight; what it cannot take stays queued
+ * for the next window. Failed batches are retried with exponential backoff until
+ * webhooks.max-attempts, then dropped.
+ *
+ * Delivery is best-effort: queues live in memory, so events pending on a node that stops
+ * are lost. Subscribers that need every change should reconcile against the API.
+ */
+@Component
+@Slf4j
+public class WebhookDispatcher implements PriceEventConsumer {
+
+    private final WebhookConfig config;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService webhookExecutor;
+    private final HttpClient httpClient;
+
+    private volatile Routes routes = Routes.EMPTY;
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public WebhookDispatcher(WebhookConfig config, ObjectMapper objectMapper,
+                             @Qualifier("webhookExecutor") ExecutorService webhookExecutor) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.webhookExecutor = webhookExecutor;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.getTimeout())
+                .executor(webhookExecutor)
+                .build();
+    }
+
+    @Override
+    public void onEvents(List<PriceEvent> events) {
+        for (PriceEvent event : events) {
+            publish(event.toChangeEvent());
+        }
+    }
+
+    public void publish(PriceChangeEventDTO event) {
+        Routes current = routes;
+        if (current.all().isEmpty()) return;
+        for (Subscriber subscriber : current.global()) {
+            subscriber.offer(event);
+        }
+        for (Subscriber subscriber : current.byProduct().getOrDefault(event.getProductId(), List.of())) {
+            subscriber.offer(event);
+        }
+        if (event.getCategory() != null) {
+            for (Subscriber subscriber : current.byCategory().getOrDefault(categoryKey(event.getCategory()), List.of())) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Replaces the routing snapshot. Subscriptions that are still present keep their queued
+     * events; queues of removed ones are discarded.
+     */
+    public synchronized void replaceSubscriptions(Collection<WebhookSubscription> subscriptions) {
+        Map<Long, Subscriber> previous = new HashMap<>();
+        for (Subscriber subscriber : routes.all()) {
+            previous.put(subscriber.id, subscriber);
+        }
+
+        Map<Long, List<Subscriber>> byProduct = new HashMap<>();
+        Map<String, List<Subscriber>> byCategory = new HashMap<>();
+        List<Subscriber> global = new ArrayList<>();
+        List<Subscriber> all = new ArrayList<>();
+        for (WebhookSubscription subscription : subscriptions) {
+            Subscriber existing = previous.get(subscription.getId());
+            Subscriber subscriber = existing != null && existing.uri.toString().equals(subscription.getUrl())
+                    ? existing
+                    : new Subscriber(subscription.getId(), URI.create(subscription.getUrl()),
+                            config.getConcurrencyPerSubscriber());
+            all.add(subscriber);
+            if (subscription.getProductId() != null) {
+                byProduct.computeIfAbsent(subscription.getProductId(), id -> new ArrayList<>()).add(subscriber);
+            } else if (subscription.getCategory() != null) {
+                byCategory.computeIfAbsent(categoryKey(subscription.getCategory()), c -> new ArrayList<>()).add(subscriber);
+            } else {
+                global.add(subscriber);
+            }
+        }
+        routes = new Routes(byProduct, byCategory, global, all);
+    }
+
+    public int subscriberCount() {
+        return routes.all().size();
+    }
+
+    public long droppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Scheduled(fixedDelayString = "${webhooks.batch-window:PT2S}")
+    public void flushDue() {
+        flush();
+    }
+
+    /**
+     * Sends every queued event the subscribers' concurrency limits allow; the future
+     * completes when those batches are delivered or given up on.
+     */
+    CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (Subscriber subscriber : routes.all()) {
+            while (!subscriber.isEmpty() && subscriber.permits.tryAcquire()) {
+                List<PriceChangeEventDTO> batch = subscriber.drain(config.getMaxBatchSize());
+                if (batch.isEmpty()) {
+                    subscriber.permits.release();
+                    break;
+                }
+                deliveries.add(deliver(subscriber, batch)
+                        .whenComplete((ok, error) -> subscriber.permits.release()));
+            }
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> deliver(Subscriber subscriber, List<PriceChangeEventDTO> batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new WebhookBatchDTO(subscriber.id, batch));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize webhook batch for subscription {}: {}", subscriber.id, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(subscriber.uri)
+                .timeout(config.getTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        // Re-checked per delivery: the host may resolve elsewhere than when it subscribed
+        return CompletableFuture
+                .runAsync(() -> WebhookTargets.check(subscriber.uri.toString(), config.isAllowPrivateTargets()),
+                        webhookExecutor)
+                .handle((ok, error) -> {
+                    if (error == null) return send(subscriber, request, batch.size(), 1);
+                    droppedEvents.addAndGet(batch.size());
+                    log.warn("Dropping {} event(s) for webhook {}: {}", batch.size(), subscriber.id, rootMessage(error));
+                    return CompletableFuture.<Void>completedFuture(null);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Void> send(Subscriber subscriber, HttpRequest request, int events, int attempt) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenAccept(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("Webhook endpoint answered " + response.statusCode());
+                    }
+                })
+                .handle((ok, error) -> {
+                    if (error == null) return CompletableFuture.<Void>completedFuture(null);
+                    String message = rootMessage(error);
+                    if (attempt >= config.getMaxAttempts()) {
+                        droppedEvents.addAndGet(events);
+                        log.warn("Dropping {} event(s) for webhook {} after {} attempt(s): {}",
+                                events, subscriber.id, attempt, message);
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    Duration backoff = config.getRetryBackoff().multipliedBy(1L << Math.min(attempt - 1, 16));
+                    log.debug("Webhook {} attempt {} failed ({}); retrying in {}", subscriber.id, attempt, message, backoff);
+                    return CompletableFuture
+                            .runAsync(() -> { }, CompletableFuture.delayedExecutor(
+                                    backoff.toMillis(), TimeUnit.MILLISECONDS, webhookExecutor))
+                            .thenCompose(v -> send(subscriber, request, events, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private static String categoryKey(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) root = root.getCause();
+        return String.valueOf(root.getMessage());
+    }
+
+    private record Routes(Map<Long, List<Subscriber>> byProduct,
+                          Map<String, List<Subscriber>> byCategory,
+                          List<Subscriber> global,
+                          List<Subscriber> all) {
+
+        static final Routes EMPTY = new Routes(Map.of(), Map.of(), List.of(), List.of());
+    }
+
+    /**
+     * One subscription's pending events and in-flight request permits.
+     */
+    private final class Subscriber {
+
+        final long id;
+        final URI uri;
+        final Semaphore permits;
+        private final Queue<PriceChangeEventDTO> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        Subscriber(long id, URI uri, int concurrency) {
+            this.id = id;
+            this.uri = uri;
+            this.permits = new Semaphore(Math.max(1, concurrency));
+        }
+
+        void offer(PriceChangeEventDTO event) {
+            queue.add(event);
+            if (queued.incrementAndGet() > config.getMaxQueuedEvents() && queue.poll() != null) {
+                queued.decrementAndGet();
+                droppedEvents.incrementAndGet();
+            }
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        List<PriceChangeEventDTO> drain(int max) {
+            List<PriceChangeEventDTO> batch = new ArrayList<>(Math.min(max, queued.get()));
+            PriceChangeEventDTO event;
+            while (batch.size() < max && (event = queue.poll()) != null) {
+                batch.add(event);
+                queued.decrementAndGet();
+            }
+            return batch;
+        }
+    }
+}
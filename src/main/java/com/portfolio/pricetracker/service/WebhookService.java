@@ -0,0 +1,97 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.WebhookConfig;
+import com.portfolio.pricetracker.dto.CreateWebhookRequest;
+import com.portfolio.pricetracker.dto.WebhookSubscriptionDTO;
+import com.portfolio.pricetracker.entity.WebhookSubscription;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.repository.WebhookSubscriptionRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationListener;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookService implements CacheInvalidationListener {
+
+    private final WebhookConfig config;
+    private final WebhookSubscriptionRepository subscriptionRepository;
+    private final ProductRepository productRepository;
+    private final WebhookDispatcher webhookDispatcher;
+    private final CacheInvalidationPublisher cacheInvalidations;
+
+    @Transactional
+    public WebhookSubscriptionDTO subscribe(CreateWebhookRequest request) {
+        URI uri = WebhookTargets.check(request.getUrl(), config.isAllowPrivateTargets());
+        if (request.getProductId() != null && request.getCategory() != null) {
+            throw new IllegalArgumentException("A webhook is scoped to a product or a category, not both");
+        }
+        if (request.getProductId() != null && !productRepository.existsById(request.getProductId())) {
+            throw new EntityNotFoundException("Product not found: " + request.getProductId());
+        }
+
+        WebhookSubscription saved = subscriptionRepository.save(WebhookSubscription.builder()
+                .url(uri.toString())
+                .productId(request.getProductId())
+                .category(request.getCategory() == null || request.getCategory().isBlank()
+                        ? null : request.getCategory().trim())
+                .build());
+        cacheInvalidations.invalidate(CacheEntity.WEBHOOK_SUBSCRIPTION, saved.getId());
+        AfterCommit.run(this::reloadSubscriptions);
+        return toDTO(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WebhookSubscriptionDTO> findAll() {
+        return subscriptionRepository.findAll().stream().map(this::toDTO).toList();
+    }
+
+    @Transactional
+    public void unsubscribe(Long id) {
+        if (!subscriptionRepository.existsById(id)) {
+            throw new EntityNotFoundException("Webhook not found: " + id);
+        }
+        subscriptionRepository.deleteById(id);
+        cacheInvalidations.invalidate(CacheEntity.WEBHOOK_SUBSCRIPTION, id);
+        AfterCommit.run(this::reloadSubscriptions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadSubscriptions() {
+        webhookDispatcher.replaceSubscriptions(subscriptionRepository.findAll());
+        log.info("Loaded {} webhook subscription(s)", webhookDispatcher.subscriberCount());
+    }
+
+    // Subscriptions are few; any change elsewhere reloads them all
+    @Override
+    public void invalidate(CacheEntity entity, Set<Long> ids) {
+        if (entity == CacheEntity.WEBHOOK_SUBSCRIPTION) reloadSubscriptions();
+    }
+
+    @Override
+    public void invalidateAll() {
+        reloadSubscriptions();
+    }
+
+    private WebhookSubscriptionDTO toDTO(WebhookSubscription subscription) {
+        return WebhookSubscriptionDTO.builder()
+                .id(subscription.getId())
+                .url(subscription.getUrl())
+                .productId(subscription.getProductId())
+                .category(subscription.getCategory())
+                .createdAt(subscription.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.portfolio.pricetracker.service;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+/**
+ * Where webhooks may be delivered. Target URLs are user-supplied and fetched from the
+ * server, so they must be https and resolve only to public addresses: loopback,
+ * link-local (cloud metadata endpoints), private, carrier-grade NAT, unique-local,
+ * wildcard and multicast addresses are refused, both when a subscription is created and
+ * before every delivery (a host may be re-pointed after subscribing). The HTTP client does
+ * not follow redirects. webhooks.allow-private-targets lifts all of this for local
+ * development and tests.
+ */
+final class WebhookTargets {
+
+    private WebhookTargets() {
+    }
+
+    /**
+     * The parsed, checked URL; throws IllegalArgumentException when it may not be used.
+     */
+    static URI check(String url, boolean allowPrivate) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid webhook url: " + url);
+        }
+        String scheme = uri.getScheme();
+        boolean https = "https".equalsIgnoreCase(scheme);
+        if (!https && !(allowPrivate && "http".equalsIgnoreCase(scheme))) {
+            throw new IllegalArgumentException("Webhook url must be https: " + url);
+        }
+        if (uri.getHost() == null || uri.getRawUserInfo() != null) {
+            throw new IllegalArgumentException("Webhook url must name a host and no credentials: " + url);
+        }
+        if (!allowPrivate) checkAddresses(uri);
+        return uri;
+    }
+
+    /**
+     * Resolves the host of {@code uri} and refuses it if any of its addresses is not public.
+     */
+    static void checkAddresses(URI uri) {
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Webhook host cannot be resolved: " + uri.getHost());
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new IllegalArgumentException("Webhook host " + uri.getHost()
+                        + " resolves to a non-public address: " + address.getHostAddress());
+            }
+        }
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            // 100.64.0.0/10 (carrier-grade NAT) and 0.0.0.0/8
+            return !((bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64) && bytes[0] != 0;
+        }
+        if (address instanceof Inet6Address) {
+            // fc00::/7 (unique local)
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        return true;
+    }
+}
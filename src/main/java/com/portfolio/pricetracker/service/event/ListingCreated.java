@@ -0,0 +1,24 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * First price recorded for a listing.
+ */
+public record ListingCreated(Long listingId, Long productId, String productName, String category, String url,
+                             String sourceName, BigDecimal price, Boolean inStock,
+                             LocalDateTime occurredAt) implements PriceEvent {
+
+    @Override
+    public PriceChangeEventDTO toChangeEvent() {
+        return PriceChangeEventDTO.builder()
+                .productId(productId).productName(productName).category(category)
+                .listingId(listingId).url(url)
+                .price(price).inStock(inStock)
+                .changedAt(occurredAt)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A listing's price changed; its stock may have changed in the same scrape.
+ */
+public record PriceChanged(Long listingId, Long productId, String productName, String category, String url,
+                           String sourceName, BigDecimal previousPrice, BigDecimal price,
+                           Boolean previousInStock, Boolean inStock,
+                           LocalDateTime occurredAt) implements PriceEvent {
+
+    @Override
+    public PriceChangeEventDTO toChangeEvent() {
+        return PriceChangeEventDTO.builder()
+                .productId(productId).productName(productName).category(category)
+                .listingId(listingId).url(url)
+                .previousPrice(previousPrice).price(price)
+                .previousInStock(previousInStock).inStock(inStock)
+                .changedAt(occurredAt)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event published by ingestion once the transaction that changed a listing commits.
+ * Every event carries the listing's state after the change.
+ */
+public sealed interface PriceEvent permits ListingCreated, PriceChanged, StockChanged {
+
+    Long listingId();
+
+    Long productId();
+
+    String productName();
+
+    String category();
+
+    String url();
+
+    String sourceName();
+
+    BigDecimal price();
+
+    Boolean inStock();
+
+    LocalDateTime occurredAt();
+
+    /**
+     * The event as sent to webhook and live feed subscribers.
+     */
+    PriceChangeEventDTO toChangeEvent();
+}
@@ -0,0 +1,270 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.config.EventBusConfig;
+import com.portfolio.pricetracker.dto.EventConsumerStatsDTO;
+import com.portfolio.pricetracker.service.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fans PriceEvents out to every PriceEventConsumer bean off the ingestion threads.
+ *
+ * Events go into one bounded ring buffer; each consumer runs on a dedicated thread with
+ * its own read cursor and takes whatever has accumulated since its last call, up to
+ * events.max-batch-size, as one batch. A slot is only reused once every consumer that
+ * keeps up has read it: publishing waits for them, so a burst larger than the ring loses
+ * nothing. A consumer still holding the slot after events.publish-timeout is left behind
+ * instead, so a slow or stuck consumer only ever hurts itself: publishing stops waiting
+ * for it, its unread events are overwritten and counted as dropped, and it is told how
+ * many it lost (PriceEventConsumer.onEventsLost) before it continues from the oldest event
+ * still in the ring. It is waited for again once it is less than half a ring behind.
+ */
+@Component
+@Slf4j
+public class PriceEventBus {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long PUBLISH_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private record Slot(long sequence, PriceEvent event) {
+    }
+
+    private final AtomicReferenceArray<Slot> ring;
+    private final int mask;
+    private final int maxBatchSize;
+    private final long publishTimeoutNanos;
+    private final List<Worker> workers;
+    private final Object publishLock = new Object();
+
+    // Sequence of the next event; every lower one has been written to the ring
+    private volatile long published;
+
+    public PriceEventBus(EventBusConfig config, List<PriceEventConsumer> consumers) {
+        int capacity = Integer.highestOneBit(Math.max(2, config.getRingSize()) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        this.publishTimeoutNanos = config.getPublishTimeout().toNanos();
+        this.workers = consumers.stream().map(Worker::new).toList();
+    }
+
+    /**
+     * Publishes {@code event} once the current transaction commits, or right away outside one.
+     */
+    public void publishAfterCommit(PriceEvent event) {
+        AfterCommit.run(() -> publish(event));
+    }
+
+    public void publish(PriceEvent event) {
+        synchronized (publishLock) {
+            long sequence = published;
+            awaitReaders(sequence - ring.length());
+            ring.set((int) (sequence & mask), new Slot(sequence, event));
+            published = sequence + 1;
+        }
+        for (Worker worker : workers) {
+            worker.wake();
+        }
+    }
+
+    /**
+     * Waits until every consumer keeping up has read the event at {@code sequence}, whose
+     * slot is about to be reused; one that has not after events.publish-timeout falls behind.
+     */
+    private void awaitReaders(long sequence) {
+        if (sequence < 0) return;
+        long deadline = System.nanoTime() + publishTimeoutNanos;
+        for (Worker worker : workers) {
+            while (!worker.behind && worker.cursor <= sequence) {
+                if (System.nanoTime() - deadline > 0) {
+                    worker.fallBehind();
+                    break;
+                }
+                worker.wake();
+                LockSupport.parkNanos(PUBLISH_PARK_NANOS);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        log.info("Price event bus started with {} consumer(s), ring of {}", workers.size(), ring.length());
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Worker worker : workers) {
+            worker.stop();
+        }
+    }
+
+    public List<EventConsumerStatsDTO> stats() {
+        return workers.stream().map(Worker::stats).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${events.stats-interval:PT1M}")
+    public void logStats() {
+        for (Worker worker : workers) {
+            worker.sampleRate();
+            EventConsumerStatsDTO stats = worker.stats();
+            if (stats.getProcessed() == 0 && stats.getLag() == 0) continue;
+            log.info("Event consumer {}: {} event(s)/s, lag {}, processed {}, dropped {}, failed {}",
+                    stats.getConsumer(), String.format("%.1f", stats.getEventsPerSecond()),
+                    stats.getLag(), stats.getProcessed(), stats.getDropped(), stats.getFailed());
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final PriceEventConsumer consumer;
+        private final String name;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+
+        // Next sequence to hand to the consumer; written by the worker thread only
+        private volatile long cursor;
+        // Left behind by publishing, which no longer waits for it
+        private volatile boolean behind;
+        private volatile boolean parked;
+        private volatile boolean running;
+        private volatile Thread thread;
+
+        // Throughput between the last two samples
+        private long sampledProcessed;
+        private long sampledAtNanos = System.nanoTime();
+        private volatile double eventsPerSecond;
+
+        Worker(PriceEventConsumer consumer) {
+            this.consumer = consumer;
+            this.name = consumer.consumerName();
+        }
+
+        synchronized void start() {
+            if (running) return;
+            running = true;
+            thread = new Thread(this, "events-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            Thread current = thread;
+            if (current == null) return;
+            LockSupport.unpark(current);
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void wake() {
+            if (parked) LockSupport.unpark(thread);
+        }
+
+        void fallBehind() {
+            behind = true;
+            log.warn("Event consumer {} is a full ring behind; publishing no longer waits for it", name);
+        }
+
+        @Override
+        public void run() {
+            List<PriceEvent> batch = new ArrayList<>(maxBatchSize);
+            while (running) {
+                long available = published;
+                if (cursor == available) {
+                    parked = true;
+                    // Re-check after announcing the park so a concurrent publish cannot be missed
+                    if (published == cursor && running) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    parked = false;
+                    continue;
+                }
+
+                long oldest = available - ring.length();
+                if (cursor < oldest) {
+                    skipTo(oldest);
+                }
+                long next = cursor;
+                long end = Math.min(available, next + maxBatchSize);
+                batch.clear();
+                for (; next < end; next++) {
+                    Slot slot = ring.get((int) (next & mask));
+                    // Overwritten after we read 'published'; the next round accounts for it
+                    if (slot.sequence() != next) break;
+                    batch.add(slot.event());
+                }
+                // The slots are copied: publishing may reuse them while the batch is delivered
+                cursor = next;
+                if (behind && published - next <= ring.length() / 2) {
+                    behind = false;
+                    log.info("Event consumer {} caught up", name);
+                }
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            }
+        }
+
+        private void skipTo(long oldest) {
+            long lost = oldest - cursor;
+            dropped.addAndGet(lost);
+            log.warn("Event consumer {} fell a full ring behind; skipped {} event(s)", name, lost);
+            cursor = oldest;
+            try {
+                consumer.onEventsLost(lost);
+            } catch (Exception e) {
+                log.error("Event consumer {} failed to recover from lost events: {}", name, e.getMessage(), e);
+            }
+        }
+
+        private void deliver(List<PriceEvent> batch) {
+            try {
+                consumer.onEvents(List.copyOf(batch));
+                processed.addAndGet(batch.size());
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                log.error("Event consumer {} failed on a batch of {} event(s): {}", name, batch.size(), e.getMessage(), e);
+            }
+            batches.incrementAndGet();
+        }
+
+        synchronized void sampleRate() {
+            long now = System.nanoTime();
+            long total = processed.get();
+            double seconds = (now - sampledAtNanos) / 1e9;
+            eventsPerSecond = seconds > 0 ? (total - sampledProcessed) / seconds : 0;
+            sampledProcessed = total;
+            sampledAtNanos = now;
+        }
+
+        EventConsumerStatsDTO stats() {
+            return EventConsumerStatsDTO.builder()
+                    .consumer(name)
+                    .lag(published - cursor)
+                    .behind(behind)
+                    .processed(processed.get())
+                    .dropped(dropped.get())
+                    .failed(failed.get())
+                    .batches(batches.get())
+                    .eventsPerSecond(eventsPerSecond)
+                    .build();
+        }
+    }
+}
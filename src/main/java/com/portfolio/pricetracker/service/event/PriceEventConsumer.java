@@ -0,0 +1,26 @@
+package com.portfolio.pricetracker.service.event;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Bean receiving PriceEventBus events in batches, on a thread of its own.
+ * Exceptions are logged and counted; the batch is not redelivered.
+ */
+public interface PriceEventConsumer {
+
+    void onEvents(List<PriceEvent> events);
+
+    /**
+     * This consumer fell so far behind that {@code count} events were overwritten before
+     * it read them. Consumers deriving state from the events resynchronize it from the
+     * database here; the default suits best-effort consumers.
+     */
+    default void onEventsLost(long count) {
+    }
+
+    default String consumerName() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A listing's stock flag changed at an unchanged price.
+ */
+public record StockChanged(Long listingId, Long productId, String productName, String category, String url,
+                           String sourceName, BigDecimal price, Boolean previousInStock, Boolean inStock,
+                           LocalDateTime occurredAt) implements PriceEvent {
+
+    @Override
+    public PriceChangeEventDTO toChangeEvent() {
+        return PriceChangeEventDTO.builder()
+                .productId(productId).productName(productName).category(category)
+                .listingId(listingId).url(url)
+                .previousPrice(price).price(price)
+                .previousInStock(previousInStock).inStock(inStock)
+                .changedAt(occurredAt)
+                .build();
+    }
+}
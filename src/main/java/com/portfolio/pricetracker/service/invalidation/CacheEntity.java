@@ -0,0 +1,14 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+/**
+ * What an invalidation refers to; the ids are of that entity.
+ */
+public enum CacheEntity {
+    PRODUCT,
+    LISTING,
+    // Ids are product ids: the set of active alerts of these products changed
+    PRODUCT_ALERTS,
+    WEBHOOK_SUBSCRIPTION,
+    // Ids are months as yyyyMM: that month's cold price history segment was rewritten
+    COLD_SEGMENT
+}
@@ -0,0 +1,22 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import java.util.Set;
+
+/**
+ * An in-process cache kept coherent with changes committed by other nodes. Every bean
+ * implementing it is called by CacheInvalidationSubscriber on its listener thread; a
+ * listener ignores entity types it does not cache.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Entries of {@code entity} with these ids changed on another node.
+     */
+    void invalidate(CacheEntity entity, Set<Long> ids);
+
+    /**
+     * Changes may have been missed (the node was disconnected longer than the retention);
+     * drop or reload everything.
+     */
+    void invalidateAll();
+}
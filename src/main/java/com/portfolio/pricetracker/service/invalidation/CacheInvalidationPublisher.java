@@ -0,0 +1,81 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import com.portfolio.pricetracker.config.CacheInvalidationConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tells the other nodes which cached entities a transaction changed.
+ *
+ * Invalidations raised during a transaction are merged per entity type and written just
+ * before it commits: one cache_invalidations row and one NOTIFY per type, in the same
+ * transaction. Postgres delivers the notification only on commit, so listeners never
+ * reload data that is not visible yet, and a rolled-back change invalidates nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+
+    private static final RowCallbackHandler IGNORE = rs -> { };
+
+    private final CacheInvalidationConfig config;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void invalidate(CacheEntity entity, Long id) {
+        invalidate(entity, List.of(id));
+    }
+
+    /**
+     * Joins the current transaction; outside one the invalidation is written right away.
+     */
+    public void invalidate(CacheEntity entity, Collection<Long> ids) {
+        if (!config.isEnabled() || ids.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(entity, Set.copyOf(ids));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.invalidations.add(entity, ids);
+    }
+
+    private void write(CacheEntity entity, Set<Long> ids) {
+        jdbcTemplate.query("""
+                        WITH inserted AS (
+                            INSERT INTO cache_invalidations (origin, entity_type, entity_ids)
+                            VALUES (?, ?, ?) RETURNING id
+                        )
+                        SELECT pg_notify(?, ? || id || ?) FROM inserted""",
+                IGNORE,
+                config.getNodeId(), entity.name(), ids.stream().mapToLong(Long::longValue).toArray(),
+                config.getChannel(), InvalidationMessage.prefix(config.getNodeId()),
+                InvalidationMessage.suffix(entity, ids));
+    }
+
+    private final class Pending implements TransactionSynchronization {
+
+        final Invalidations invalidations = new Invalidations();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            invalidations.forEach(CacheInvalidationPublisher.this::write);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationPublisher.this);
+        }
+    }
+}
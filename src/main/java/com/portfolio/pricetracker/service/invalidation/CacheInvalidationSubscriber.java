@@ -0,0 +1,247 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import com.portfolio.pricetracker.config.CacheInvalidationConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Applies cache invalidations published by other nodes to every CacheInvalidationListener.
+ *
+ * A dedicated thread holds one connection of the regular pool in LISTEN mode. Notifications
+ * arriving within cache-invalidation.coalesce-window of each other are merged, so listeners
+ * see one call per entity type however busy ingestion on the other nodes is. The node's
+ * own notifications are skipped: its caches are already updated after its own commits.
+ *
+ * The highest version seen is kept as a watermark. After the connection is lost and
+ * re-established, the rows written since then are replayed from cache_invalidations
+ * (NOTIFY is not queued for a listener that is gone); when the gap is longer than the
+ * table's retention, listeners are told to drop everything instead.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationSubscriber {
+
+    private final CacheInvalidationConfig config;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<CacheInvalidationListener> listeners;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    // Highest version seen, -1 before the first connection; written by the listener thread only
+    private volatile long watermark = -1;
+    private volatile long lastHeardNanos;
+
+    public CacheInvalidationSubscriber(CacheInvalidationConfig config, DataSource dataSource,
+                                       JdbcTemplate jdbcTemplate, List<CacheInvalidationListener> listeners) {
+        this.config = config;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.listeners = listeners;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!config.isEnabled() || running) return;
+        running = true;
+        thread = new Thread(this::run, "cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread current = thread;
+        if (current == null) return;
+        try {
+            current.join(config.getPollTimeout().toMillis() + TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long watermark() {
+        return watermark;
+    }
+
+    public long receivedNotifications() {
+        return received.get();
+    }
+
+    /**
+     * Times listeners were brought up to date from the table after a reconnect.
+     */
+    public long resyncs() {
+        return resyncs.get();
+    }
+
+    @Scheduled(fixedDelayString = "${cache-invalidation.purge-interval:PT10M}")
+    public void purge() {
+        if (!config.isEnabled()) return;
+        try {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM cache_invalidations WHERE created_at < NOW() - make_interval(secs => ?)",
+                    (double) config.getRetention().toSeconds());
+            if (deleted > 0) log.debug("Purged {} cache invalidation row(s)", deleted);
+        } catch (Exception e) {
+            log.warn("Cache invalidation purge failed: {}", e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + config.getChannel());
+                }
+                // Listening before the resync query, so nothing committed in between is missed
+                catchUp();
+                listen(pg);
+            } catch (Exception e) {
+                if (!running) break;
+                log.warn("Cache invalidation listener lost its connection, retrying in {}: {}",
+                        config.getReconnectDelay(), e.getMessage());
+                sleep(config.getReconnectDelay().toMillis());
+            }
+        }
+    }
+
+    private void listen(PGConnection pg) throws SQLException {
+        int pollMillis = (int) Math.max(1, config.getPollTimeout().toMillis());
+        long windowNanos = config.getCoalesceWindow().toNanos();
+        while (running) {
+            PGNotification[] first = pg.getNotifications(pollMillis);
+            lastHeardNanos = System.nanoTime();
+            if (first == null || first.length == 0) continue;
+
+            Invalidations batch = new Invalidations();
+            collect(first, batch);
+            long deadline = System.nanoTime() + windowNanos;
+            for (long left = windowNanos; left > 0; left = deadline - System.nanoTime()) {
+                collect(pg.getNotifications((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(left))), batch);
+            }
+            lastHeardNanos = System.nanoTime();
+            dispatch(batch);
+        }
+    }
+
+    private void collect(PGNotification[] notifications, Invalidations batch) {
+        if (notifications == null) return;
+        for (PGNotification notification : notifications) {
+            received.incrementAndGet();
+            InvalidationMessage message;
+            try {
+                message = InvalidationMessage.parse(notification.getParameter());
+            } catch (Exception e) {
+                log.warn("Ignoring cache invalidation '{}': {}", notification.getParameter(), e.getMessage());
+                continue;
+            }
+            // Versions can arrive out of order; the watermark only bounds the resync
+            watermark = Math.max(watermark, message.version());
+            if (config.getNodeId().equals(message.origin())) continue;
+            batch.add(message.entity(), message.ids() != null ? message.ids() : loadIds(message.version()));
+        }
+    }
+
+    /**
+     * Brings listeners up to date with what was written while this node was not listening.
+     */
+    private void catchUp() {
+        if (watermark < 0) {
+            // First connection: caches were just built from the database
+            Long latest = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations", Long.class);
+            watermark = latest == null ? 0 : latest;
+            log.info("Listening for cache invalidations on '{}' as node {}", config.getChannel(), config.getNodeId());
+            return;
+        }
+
+        long silentNanos = System.nanoTime() - lastHeardNanos;
+        resyncs.incrementAndGet();
+        if (silentNanos >= config.getRetention().toNanos()) {
+            log.warn("Cache invalidation listener was disconnected longer than the retention; invalidating all caches");
+            for (CacheInvalidationListener listener : listeners) {
+                try {
+                    listener.invalidateAll();
+                } catch (Exception e) {
+                    log.error("{} failed to invalidate all: {}", ClassUtils.getUserClass(listener).getSimpleName(), e.getMessage(), e);
+                }
+            }
+            return;
+        }
+
+        double lookBackSeconds = (silentNanos + config.getResyncOverlap().toNanos()) / 1e9;
+        Invalidations batch = new Invalidations();
+        long[] highest = {watermark};
+        jdbcTemplate.query("""
+                        SELECT id, entity_type, entity_ids FROM cache_invalidations
+                        WHERE (id > ? OR created_at >= NOW() - make_interval(secs => ?)) AND origin <> ?
+                        ORDER BY id""",
+                (RowCallbackHandler) rs -> {
+                    highest[0] = Math.max(highest[0], rs.getLong("id"));
+                    batch.add(CacheEntity.valueOf(rs.getString("entity_type")), toIds(rs.getArray("entity_ids")));
+                },
+                watermark, lookBackSeconds, config.getNodeId());
+        watermark = highest[0];
+        log.info("Cache invalidation listener reconnected; replayed changes up to version {}", watermark);
+        dispatch(batch);
+    }
+
+    private Set<Long> loadIds(long version) {
+        List<Set<Long>> ids = jdbcTemplate.query("SELECT entity_ids FROM cache_invalidations WHERE id = ?",
+                (rs, row) -> toIds(rs.getArray("entity_ids")), version);
+        return ids.isEmpty() ? Set.of() : ids.get(0);
+    }
+
+    private static Set<Long> toIds(Array array) throws SQLException {
+        return Arrays.stream((Long[]) array.getArray()).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private void dispatch(Invalidations batch) {
+        if (batch.isEmpty()) return;
+        batch.forEach((entity, ids) -> {
+            for (CacheInvalidationListener listener : listeners) {
+                try {
+                    listener.invalidate(entity, ids);
+                } catch (Exception e) {
+                    log.error("{} failed to invalidate {} {}: {}", ClassUtils.getUserClass(listener).getSimpleName(),
+                            ids.size(), entity, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
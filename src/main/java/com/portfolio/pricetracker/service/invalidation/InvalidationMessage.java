@@ -0,0 +1,47 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * NOTIFY payload: {@code origin|version|ENTITY|id,id,...}. Postgres caps payloads at 8000
+ * bytes, so a change touching too many ids is sent with {@code *} in their place and the
+ * receiver reads them from the cache_invalidations row instead.
+ *
+ * @param ids null when they were too many for the payload
+ */
+record InvalidationMessage(String origin, long version, CacheEntity entity, Set<Long> ids) {
+
+    static final int MAX_IDS_LENGTH = 7_000;
+    private static final String ELIDED = "*";
+
+    /**
+     * The part following the version, which is only known once the row is inserted.
+     */
+    static String suffix(CacheEntity entity, Collection<Long> ids) {
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return "|" + entity.name() + "|" + (joined.length() > MAX_IDS_LENGTH ? ELIDED : joined);
+    }
+
+    static String prefix(String origin) {
+        return origin + "|";
+    }
+
+    static InvalidationMessage parse(String payload) {
+        // From the right, so a configured origin containing '|' still parses
+        int idsAt = payload.lastIndexOf('|');
+        int entityAt = payload.lastIndexOf('|', idsAt - 1);
+        int versionAt = payload.lastIndexOf('|', entityAt - 1);
+        if (versionAt < 0) {
+            throw new IllegalArgumentException("Malformed invalidation payload: " + payload);
+        }
+        String idList = payload.substring(idsAt + 1);
+        Set<Long> ids = ELIDED.equals(idList) ? null : idList.isEmpty() ? Set.of()
+                : Arrays.stream(idList.split(",")).map(Long::valueOf).collect(Collectors.toUnmodifiableSet());
+        return new InvalidationMessage(payload.substring(0, versionAt),
+                Long.parseLong(payload.substring(versionAt + 1, entityAt)),
+                CacheEntity.valueOf(payload.substring(entityAt + 1, idsAt)), ids);
+    }
+}
@@ -0,0 +1,28 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Ids to invalidate, merged per entity type; not thread-safe.
+ */
+final class Invalidations {
+
+    private final Map<CacheEntity, Set<Long>> ids = new EnumMap<>(CacheEntity.class);
+
+    void add(CacheEntity entity, Collection<Long> entityIds) {
+        ids.computeIfAbsent(entity, e -> new LinkedHashSet<>()).addAll(entityIds);
+    }
+
+    boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    void forEach(BiConsumer<CacheEntity, Set<Long>> action) {
+        ids.forEach((entity, entityIds) -> action.accept(entity, Set.copyOf(entityIds)));
+    }
+}
@@ -0,0 +1,49 @@
+-- Change-only price history: a row now covers an interval during which the listing's
+-- (price, in_stock) did not change.
+--   scraped_at        interval start (valid_from): first scrape that observed this state
+--   valid_to          start of the next interval; NULL while this is the listing's current state
+--   last_confirmed_at latest scrape that observed this state
+--   sample_count      number of scrapes folded into the interval
+ALTER TABLE price_history
+    ADD COLUMN valid_to          TIMESTAMP,
+    ADD COLUMN last_confirmed_at TIMESTAMP,
+    ADD COLUMN sample_count      INTEGER NOT NULL DEFAULT 1;
+
+-- Collapse each run of identical consecutive (price, in_stock) rows into its first row.
+CREATE TEMPORARY TABLE price_history_runs ON COMMIT DROP AS
+WITH flagged AS (
+    SELECT id, listing_id, scraped_at,
+           CASE WHEN LAG(price)    OVER w IS NOT DISTINCT FROM price
+                 AND LAG(in_stock) OVER w IS NOT DISTINCT FROM in_stock
+                THEN 0 ELSE 1 END AS run_start
+    FROM price_history
+    WINDOW w AS (PARTITION BY listing_id ORDER BY scraped_at, id)
+), numbered AS (
+    SELECT id, listing_id, scraped_at,
+           SUM(run_start) OVER (PARTITION BY listing_id ORDER BY scraped_at, id) AS run
+    FROM flagged
+)
+SELECT listing_id,
+       run,
+       (ARRAY_AGG(id ORDER BY scraped_at, id))[1] AS keep_id,
+       MIN(scraped_at)                            AS valid_from,
+       MAX(scraped_at)                            AS last_confirmed_at,
+       COUNT(*)                                   AS sample_count
+FROM numbered
+GROUP BY listing_id, run;
+
+UPDATE price_history ph
+SET last_confirmed_at = r.last_confirmed_at,
+    sample_count      = r.sample_count,
+    valid_to          = r.valid_to
+FROM (SELECT keep_id, last_confirmed_at, sample_count,
+             LEAD(valid_from) OVER (PARTITION BY listing_id ORDER BY run) AS valid_to
+      FROM price_history_runs) r
+WHERE ph.id = r.keep_id;
+
+DELETE FROM price_history WHERE last_confirmed_at IS NULL;
+
+ALTER TABLE price_history ALTER COLUMN last_confirmed_at SET NOT NULL;
+
+-- Current interval per listing (the one ingestion extends or closes)
+CREATE INDEX idx_price_history_open ON price_history (listing_id) WHERE valid_to IS NULL;
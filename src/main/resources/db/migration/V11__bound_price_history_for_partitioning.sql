@@ -0,0 +1,16 @@
+-- Converting price_history to a range-partitioned table (on scraped_at) is split into
+-- small migrations so no step holds an exclusive lock while scanning the table:
+--   V11 add the future partition bound as a NOT VALID check   (brief lock, no scan)
+--   V12 validate it                                            (scan, writes allowed)
+--   V13 build the (id, scraped_at) unique index concurrently   (scan, writes allowed)
+--   V14 swap in a partitioned parent and attach the old table  (metadata only)
+--
+-- The existing table becomes the partition for everything before the start of next
+-- month; PricePartitionMaintainer creates monthly partitions from there on.
+DO $$
+BEGIN
+    EXECUTE format(
+        'ALTER TABLE price_history ADD CONSTRAINT price_history_legacy_bound '
+        'CHECK (scraped_at < %L) NOT VALID',
+        date_trunc('month', NOW()) + INTERVAL '1 month');
+END $$;
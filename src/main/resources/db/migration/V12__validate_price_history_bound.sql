@@ -0,0 +1,2 @@
+-- SHARE UPDATE EXCLUSIVE lock: reads and writes continue while the table is scanned.
+ALTER TABLE price_history VALIDATE CONSTRAINT price_history_legacy_bound;
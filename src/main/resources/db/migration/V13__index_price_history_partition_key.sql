@@ -0,0 +1,4 @@
+-- A partitioned table's primary key must include the partition key. Built concurrently
+-- (Flyway runs this script outside a transaction) and promoted to the key in V14.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS price_history_legacy_pkey_idx
+    ON price_history (id, scraped_at);
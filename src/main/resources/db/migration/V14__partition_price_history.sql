@@ -0,0 +1,44 @@
+-- Swap price_history for a partitioned parent and attach the old table as its first
+-- partition. Every step is a catalog change: the validated check constraint (V12)
+-- lets ATTACH skip the scan, and matching indexes / foreign keys are attached, not rebuilt.
+ALTER TABLE price_history RENAME TO price_history_legacy;
+ALTER INDEX idx_listing_scraped RENAME TO price_history_legacy_listing_scraped_idx;
+ALTER INDEX idx_price_history_open RENAME TO price_history_legacy_open_idx;
+
+ALTER TABLE price_history_legacy DROP CONSTRAINT price_history_pkey;
+ALTER TABLE price_history_legacy
+    ADD CONSTRAINT price_history_legacy_pkey PRIMARY KEY USING INDEX price_history_legacy_pkey_idx;
+
+CREATE TABLE price_history (
+    id                BIGINT        NOT NULL DEFAULT nextval('price_history_id_seq'),
+    listing_id        BIGINT        NOT NULL REFERENCES product_listings(id),
+    product_id        BIGINT        NOT NULL REFERENCES products(id),
+    price             NUMERIC(10,2) NOT NULL,
+    in_stock          BOOLEAN,
+    scraped_at        TIMESTAMP     NOT NULL,
+    valid_to          TIMESTAMP,
+    last_confirmed_at TIMESTAMP     NOT NULL,
+    sample_count      INTEGER       NOT NULL DEFAULT 1,
+    PRIMARY KEY (id, scraped_at)
+) PARTITION BY RANGE (scraped_at);
+
+-- Keep the id sequence alive if the legacy partition is dropped later
+ALTER SEQUENCE price_history_id_seq OWNED BY price_history.id;
+
+CREATE INDEX idx_listing_scraped ON price_history (listing_id, scraped_at);
+CREATE INDEX idx_price_history_open ON price_history (listing_id) WHERE valid_to IS NULL;
+
+DO $$
+DECLARE
+    bound TIMESTAMP;
+BEGIN
+    SELECT substring(pg_get_constraintdef(oid) FROM '''([^'']+)''')::timestamp INTO bound
+    FROM pg_constraint
+    WHERE conname = 'price_history_legacy_bound';
+
+    EXECUTE format('ALTER TABLE price_history ATTACH PARTITION price_history_legacy '
+                   'FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+END $$;
+
+-- Superseded by the partition constraint
+ALTER TABLE price_history_legacy DROP CONSTRAINT price_history_legacy_bound;
@@ -0,0 +1,35 @@
+-- OHLC rollups of observed prices per listing, one row per (listing, resolution, bucket).
+-- Maintained incrementally by ingestion; PriceRollupService's catch-up fills recent buckets
+-- that have history but no rollup. All history that predates this table is backfilled here.
+CREATE TABLE price_rollups (
+    id           BIGSERIAL PRIMARY KEY,
+    listing_id   BIGINT        NOT NULL REFERENCES product_listings(id),
+    product_id   BIGINT        NOT NULL REFERENCES products(id),
+    resolution   VARCHAR(10)   NOT NULL,
+    bucket_start TIMESTAMP     NOT NULL,
+    open_price   NUMERIC(10,2) NOT NULL,
+    high_price   NUMERIC(10,2) NOT NULL,
+    low_price    NUMERIC(10,2) NOT NULL,
+    close_price  NUMERIC(10,2) NOT NULL,
+    sample_count INT           NOT NULL,
+    CONSTRAINT uq_price_rollups_bucket UNIQUE (listing_id, resolution, bucket_start)
+);
+
+CREATE INDEX idx_price_rollups_product ON price_rollups (product_id, resolution, bucket_start);
+
+-- Same aggregation as PriceRollupRepository.insertMissingBuckets over all history: an
+-- interval records its first (scraped_at) and last (last_confirmed_at) observation, and the
+-- samples in between are attributed to the last one
+INSERT INTO price_rollups (listing_id, product_id, resolution, bucket_start,
+                           open_price, high_price, low_price, close_price, sample_count)
+SELECT o.listing_id, o.product_id, r.resolution, date_trunc(r.unit, o.observed_at) AS bucket,
+       (ARRAY_AGG(o.price ORDER BY o.observed_at))[1], MAX(o.price), MIN(o.price),
+       (ARRAY_AGG(o.price ORDER BY o.observed_at DESC))[1], SUM(o.samples)
+FROM (
+    SELECT listing_id, product_id, price, scraped_at AS observed_at, 1 AS samples
+    FROM price_history
+    UNION ALL
+    SELECT listing_id, product_id, price, last_confirmed_at, sample_count - 1
+    FROM price_history WHERE sample_count > 1
+) o CROSS JOIN (VALUES ('HOUR', 'hour'), ('DAY', 'day')) AS r(resolution, unit)
+GROUP BY o.listing_id, o.product_id, r.resolution, bucket;
@@ -0,0 +1,2 @@
+-- Alert lookups by product and status (user listings, AlertBook rebuilds filter on status)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_price_alerts_product_status ON price_alerts (product_id, status);
@@ -0,0 +1,19 @@
+-- Transactional outbox for alert notifications: written in the transaction that triggers
+-- the alert, delivered later by NotificationDispatcher.
+CREATE TABLE alert_notifications (
+    id              BIGSERIAL PRIMARY KEY,
+    alert_id        BIGINT        REFERENCES price_alerts(id) ON DELETE SET NULL,
+    user_email      VARCHAR(255)  NOT NULL,
+    product_id      BIGINT        NOT NULL REFERENCES products(id),
+    product_name    VARCHAR(500)  NOT NULL,
+    target_price    NUMERIC(10,2) NOT NULL,
+    current_price   NUMERIC(10,2) NOT NULL,
+    status          VARCHAR(20)   NOT NULL DEFAULT 'PENDING',
+    attempts        INT           NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP     NOT NULL,
+    last_error      VARCHAR(500),
+    sent_at         TIMESTAMP,
+    created_at      TIMESTAMP     NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_alert_notifications_due ON alert_notifications (next_attempt_at, id) WHERE status = 'PENDING';
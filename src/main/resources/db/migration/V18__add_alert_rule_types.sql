@@ -0,0 +1,14 @@
+-- Alert rules beyond "price <= target". Constant defaults keep ADD COLUMN metadata-only;
+-- the rule/target check is added NOT VALID so existing rows are not scanned under lock.
+ALTER TABLE price_alerts
+    ADD COLUMN rule_type       VARCHAR(30)   NOT NULL DEFAULT 'TARGET_PRICE',
+    ADD COLUMN drop_percent    NUMERIC(5,2),
+    ADD COLUMN reference_price NUMERIC(10,2),
+    ALTER COLUMN target_price DROP NOT NULL;
+
+ALTER TABLE price_alerts ADD CONSTRAINT price_alerts_threshold_has_target
+    CHECK (rule_type NOT IN ('TARGET_PRICE', 'PERCENT_DROP') OR target_price IS NOT NULL) NOT VALID;
+
+ALTER TABLE alert_notifications
+    ADD COLUMN rule_type VARCHAR(30) NOT NULL DEFAULT 'TARGET_PRICE',
+    ALTER COLUMN target_price DROP NOT NULL;
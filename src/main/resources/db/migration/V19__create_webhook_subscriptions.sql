@@ -0,0 +1,10 @@
+-- Webhook subscribers receiving price-change events. A subscription is scoped to one
+-- product, one category, or everything when both are null.
+CREATE TABLE webhook_subscriptions (
+    id         BIGSERIAL PRIMARY KEY,
+    url        VARCHAR(2048) NOT NULL,
+    product_id BIGINT        REFERENCES products(id) ON DELETE CASCADE,
+    category   VARCHAR(100),
+    created_at TIMESTAMP     NOT NULL DEFAULT NOW(),
+    CONSTRAINT webhook_subscriptions_single_scope CHECK (product_id IS NULL OR category IS NULL)
+);
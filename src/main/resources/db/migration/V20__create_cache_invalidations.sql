@@ -0,0 +1,12 @@
+-- Log of cache invalidations, one row per entity type per committing transaction. Its id
+-- is the version other nodes resync from after losing their LISTEN connection; rows
+-- older than cache-invalidation.retention are purged.
+CREATE TABLE cache_invalidations (
+    id          BIGSERIAL PRIMARY KEY,
+    origin      VARCHAR(64) NOT NULL,
+    entity_type VARCHAR(40) NOT NULL,
+    entity_ids  BIGINT[]    NOT NULL,
+    created_at  TIMESTAMP   NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_cache_invalidations_created_at ON cache_invalidations (created_at);
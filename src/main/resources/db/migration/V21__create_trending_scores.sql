@@ -0,0 +1,7 @@
+-- Exponentially time-decayed activity per product, merged from every node's increments.
+-- score is the value as of updated_at; readers decay it to their own time.
+CREATE TABLE trending_scores (
+    product_id BIGINT           PRIMARY KEY REFERENCES products(id) ON DELETE CASCADE,
+    score      DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP        NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Daily snapshot of the current-price distribution of each category, as a serialized
+-- PriceSketch (log-bucketed counts); any percentile of a past day is read back from it.
+CREATE TABLE category_price_snapshots (
+    category      VARCHAR(100) NOT NULL,
+    snapshot_date DATE         NOT NULL,
+    listing_count BIGINT       NOT NULL,
+    sketch        BYTEA        NOT NULL,
+    taken_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (category, snapshot_date)
+);
@@ -0,0 +1,81 @@
+-- Running price statistics per listing, updated by ingestion whenever the price changes.
+-- price_count counts price levels (prices the listing changed to). mean_price and m2
+-- (sum of squared deviations) weigh each ended level by how long it was in effect, and
+-- observed_seconds is the sum of those durations; the current level, in effect since
+-- level_since, enters them when it ends. recent_lows is the monotonic deque behind the
+-- windowed lows: levels of the last 90 days cheaper than every later level, oldest first,
+-- as {"price", "until"} with until the epoch second the level ended (null for the
+-- current one).
+CREATE TABLE listing_price_stats (
+    listing_id       BIGINT           PRIMARY KEY REFERENCES product_listings(id) ON DELETE CASCADE,
+    product_id       BIGINT           NOT NULL,
+    price_count      BIGINT           NOT NULL,
+    observed_seconds DOUBLE PRECISION NOT NULL,
+    mean_price       DOUBLE PRECISION NOT NULL,
+    m2               DOUBLE PRECISION NOT NULL,
+    level_since      TIMESTAMP        NOT NULL,
+    all_time_low     NUMERIC(10,2)    NOT NULL,
+    all_time_low_at  TIMESTAMP        NOT NULL,
+    recent_lows      JSONB            NOT NULL,
+    deal_score       DOUBLE PRECISION NOT NULL,
+    updated_at       TIMESTAMP        NOT NULL
+);
+
+CREATE INDEX idx_listing_price_stats_product ON listing_price_stats (product_id);
+
+-- Backfill from the history still in PostgreSQL
+WITH levels AS (
+    SELECT listing_id, product_id, price, scraped_at,
+           LEAD(scraped_at) OVER (PARTITION BY listing_id ORDER BY scraped_at) AS until
+    FROM (SELECT listing_id, product_id, price, scraped_at,
+                 LAG(price) OVER (PARTITION BY listing_id ORDER BY scraped_at) AS previous_price
+          FROM price_history) h
+    WHERE previous_price IS NULL OR previous_price <> price
+),
+ranked AS (
+    SELECT l.*,
+           MIN(price) OVER (PARTITION BY listing_id ORDER BY scraped_at
+                            ROWS BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING) AS later_low,
+           MIN(price) OVER (PARTITION BY listing_id) AS listing_low,
+           ROW_NUMBER() OVER (PARTITION BY listing_id ORDER BY scraped_at DESC) AS from_last,
+           -- Seconds the level was in effect; null for the current one
+           EXTRACT(EPOCH FROM until - scraped_at) AS seconds
+    FROM levels l
+),
+sums AS (
+    SELECT listing_id, MIN(product_id) AS product_id, COUNT(*) AS price_count,
+           COALESCE(SUM(seconds) FILTER (WHERE seconds > 0), 0) AS weight,
+           SUM(seconds * price) FILTER (WHERE seconds > 0) AS weighted_sum,
+           SUM(seconds * price * price) FILTER (WHERE seconds > 0) AS weighted_squares,
+           (ARRAY_AGG(price ORDER BY scraped_at))[1] AS first_price,
+           MAX(scraped_at) AS level_since,
+           MIN(price) AS all_time_low,
+           MIN(scraped_at) FILTER (WHERE price = listing_low) AS all_time_low_at,
+           MAX(price) FILTER (WHERE from_last = 1) AS current_price,
+           COALESCE(jsonb_agg(jsonb_build_object('price', price, 'until', EXTRACT(EPOCH FROM until)::BIGINT)
+                              ORDER BY scraped_at)
+                    FILTER (WHERE (later_low IS NULL OR price < later_low)
+                              AND (until IS NULL OR until >= NOW() - INTERVAL '90 days')), '[]'::jsonb) AS recent_lows
+    FROM ranked
+    GROUP BY listing_id
+),
+-- Same values as ListingPriceStats.recordPrice, summed exactly instead of updated one level at a time
+stats AS (
+    SELECT s.*,
+           weight::DOUBLE PRECISION AS observed_seconds,
+           COALESCE(weighted_sum / NULLIF(weight, 0), first_price)::DOUBLE PRECISION AS mean_price,
+           COALESCE(GREATEST(0, weighted_squares - weighted_sum * weighted_sum / NULLIF(weight, 0)), 0)::DOUBLE PRECISION AS m2
+    FROM sums s
+)
+INSERT INTO listing_price_stats (listing_id, product_id, price_count, observed_seconds, mean_price, m2, level_since,
+                                 all_time_low, all_time_low_at, recent_lows, deal_score, updated_at)
+SELECT listing_id, product_id, price_count, observed_seconds, mean_price, m2, level_since,
+       all_time_low, all_time_low_at, recent_lows,
+       -- Same score as ListingPriceStats.dealScore
+       CASE
+           WHEN m2 <= 0 THEN 50
+           ELSE ROUND((100 / (1 + exp(-1.702 * GREATEST(-20, LEAST(20,
+                (mean_price - current_price) / sqrt(m2 / observed_seconds))))))::numeric, 1)
+       END,
+       NOW()
+FROM stats;
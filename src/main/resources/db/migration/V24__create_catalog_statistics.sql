@@ -0,0 +1,33 @@
+-- Results of the catalog-wide statistics job (CatalogStatistics), replaced by each run.
+-- Statistics of a listing cover its price history still in PostgreSQL; listings without
+-- any have null price statistics.
+CREATE TABLE listing_statistics (
+    listing_id     BIGINT           PRIMARY KEY REFERENCES product_listings(id) ON DELETE CASCADE,
+    product_id     BIGINT           NOT NULL,
+    source_id      BIGINT           NOT NULL,
+    interval_count INTEGER          NOT NULL,
+    sample_count   BIGINT           NOT NULL,
+    mean_price     DOUBLE PRECISION,
+    min_price      DOUBLE PRECISION,
+    max_price      DOUBLE PRECISION,
+    -- Daily realized volatility: sqrt(sum of squared log price changes / days observed)
+    volatility     DOUBLE PRECISION,
+    first_seen_at  TIMESTAMP,
+    last_seen_at   TIMESTAMP,
+    stale          BOOLEAN          NOT NULL,
+    computed_at    TIMESTAMP        NOT NULL
+);
+
+CREATE INDEX idx_listing_statistics_volatility ON listing_statistics (volatility DESC) WHERE volatility IS NOT NULL;
+CREATE INDEX idx_listing_statistics_stale ON listing_statistics (last_seen_at) WHERE stale;
+
+-- How much dearer each source's listings are than the cheapest listing of the same
+-- product, over products listed by at least two sources
+CREATE TABLE source_price_gaps (
+    source_id         BIGINT           PRIMARY KEY REFERENCES website_sources(id) ON DELETE CASCADE,
+    compared_listings INTEGER          NOT NULL,
+    cheapest_listings INTEGER          NOT NULL,
+    mean_gap_percent  DOUBLE PRECISION NOT NULL,
+    max_gap_percent   DOUBLE PRECISION NOT NULL,
+    computed_at       TIMESTAMP        NOT NULL
+);
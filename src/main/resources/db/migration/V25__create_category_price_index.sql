@@ -0,0 +1,62 @@
+-- Chained daily price index per category (base 100): each day moves the previous day's
+-- value by the geometric mean of its listings' price relatives (Jevons), listings that did
+-- not change counting as a relative of 1. log_relative_sum adds up ln(new / old) over the
+-- day's price changes and matched_listings counts the listings priced when the day opened,
+-- so index_value = previous index_value * exp(log_relative_sum / matched_listings), set
+-- once the day is over and null while it is open.
+CREATE TABLE category_price_index (
+    category         VARCHAR(100)     NOT NULL,
+    index_date       DATE             NOT NULL,
+    matched_listings INT              NOT NULL,
+    log_relative_sum DOUBLE PRECISION NOT NULL,
+    change_count     INT              NOT NULL,
+    index_value      DOUBLE PRECISION,
+    updated_at       TIMESTAMP        NOT NULL,
+    PRIMARY KEY (category, index_date)
+);
+
+-- Past days from the daily rollup closes: a listing is matched from the day after its
+-- first close and each close is compared with the one before it (days without a rollup
+-- kept the same price). Every category starts at 100 on its first day.
+WITH closes AS (
+    SELECT p.category, r.listing_id, r.bucket_start::date AS day, r.close_price,
+           LAG(r.close_price) OVER (PARTITION BY r.listing_id ORDER BY r.bucket_start) AS previous_close
+    FROM price_rollups r JOIN products p ON p.id = r.product_id
+    WHERE r.resolution = 'DAY' AND p.category IS NOT NULL AND p.deleted_at IS NULL
+      AND r.bucket_start < CURRENT_DATE
+),
+changes AS (
+    SELECT category, day,
+           SUM(ln((close_price / previous_close)::float8)) AS log_relative_sum,
+           COUNT(*) AS change_count
+    FROM closes
+    WHERE previous_close > 0 AND close_price > 0 AND close_price <> previous_close
+    GROUP BY category, day
+),
+first_days AS (
+    SELECT category, MIN(day) AS first_day FROM closes GROUP BY category, listing_id
+),
+arrivals AS (
+    SELECT category, first_day + 1 AS day, COUNT(*) AS listings FROM first_days GROUP BY category, first_day
+),
+days AS (
+    SELECT c.category, d::date AS day
+    FROM (SELECT category, MIN(first_day) AS first_day FROM first_days GROUP BY category) c,
+         generate_series(c.first_day, CURRENT_DATE - 1, INTERVAL '1 day') d
+),
+series AS (
+    SELECT d.category, d.day,
+           SUM(COALESCE(a.listings, 0)) OVER (PARTITION BY d.category ORDER BY d.day) AS matched_listings,
+           COALESCE(ch.log_relative_sum, 0) AS log_relative_sum,
+           COALESCE(ch.change_count, 0) AS change_count
+    FROM days d
+    LEFT JOIN arrivals a ON a.category = d.category AND a.day = d.day
+    LEFT JOIN changes ch ON ch.category = d.category AND ch.day = d.day
+)
+INSERT INTO category_price_index
+    (category, index_date, matched_listings, log_relative_sum, change_count, index_value, updated_at)
+SELECT category, day, matched_listings, log_relative_sum, change_count,
+       100 * exp(SUM(CASE WHEN matched_listings > 0 THEN log_relative_sum / matched_listings ELSE 0 END)
+                 OVER (PARTITION BY category ORDER BY day)),
+       NOW()
+FROM series;
@@ -0,0 +1,60 @@
+-- Normalized product key (trimmed, whitespace-collapsed, lower-case name).
+-- Must stay in sync with Product.normalizeName().
+ALTER TABLE products ADD COLUMN normalized_name VARCHAR(255);
+
+UPDATE products SET normalized_name = LOWER(REGEXP_REPLACE(TRIM(name), '\s+', ' ', 'g'));
+
+ALTER TABLE products ALTER COLUMN normalized_name SET NOT NULL;
+
+-- Older rows could share a name (manual creation never checked for duplicates).
+-- Keep the oldest active row per key, move everything attached to the others onto it,
+-- and soft-delete the rest so the index can be built.
+CREATE TEMPORARY TABLE product_merges ON COMMIT DROP AS
+SELECT p.id AS product_id, s.survivor_id
+FROM products p
+JOIN (SELECT normalized_name, MIN(id) AS survivor_id
+      FROM products WHERE deleted_at IS NULL
+      GROUP BY normalized_name HAVING COUNT(*) > 1) s ON s.normalized_name = p.normalized_name
+WHERE p.deleted_at IS NULL;
+
+-- A product has one listing per source: where several merged products list the same
+-- source, the survivor's listing is kept (else the oldest one) and takes over the others.
+CREATE TEMPORARY TABLE listing_merges ON COMMIT DROP AS
+SELECT l.id AS listing_id, m.survivor_id,
+       FIRST_VALUE(l.id) OVER (PARTITION BY m.survivor_id, l.source_id
+                               ORDER BY (l.product_id = m.survivor_id) DESC, l.id) AS kept_listing_id
+FROM product_listings l JOIN product_merges m ON m.product_id = l.product_id;
+
+-- The kept listing carries on from whichever of them was scraped last
+UPDATE product_listings k
+SET url = f.url, current_price = f.current_price, in_stock = f.in_stock,
+    last_scraped_at = f.last_scraped_at, updated_at = NOW()
+FROM (SELECT DISTINCT ON (m.kept_listing_id) m.kept_listing_id, l.*
+      FROM listing_merges m JOIN product_listings l ON l.id = m.listing_id
+      ORDER BY m.kept_listing_id, l.last_scraped_at DESC NULLS LAST, l.id) f
+WHERE k.id = f.kept_listing_id AND f.id <> k.id;
+
+UPDATE price_history h SET listing_id = m.kept_listing_id, product_id = m.survivor_id
+FROM listing_merges m
+WHERE h.listing_id = m.listing_id
+  AND (h.listing_id <> m.kept_listing_id OR h.product_id <> m.survivor_id);
+
+DELETE FROM product_listings l USING listing_merges m
+WHERE l.id = m.listing_id AND m.listing_id <> m.kept_listing_id;
+
+UPDATE product_listings l SET product_id = m.survivor_id, updated_at = NOW()
+FROM listing_merges m
+WHERE l.id = m.listing_id AND l.product_id <> m.survivor_id;
+
+UPDATE price_alerts a SET product_id = m.survivor_id
+FROM product_merges m
+WHERE a.product_id = m.product_id AND m.product_id <> m.survivor_id;
+
+UPDATE products p SET deleted_at = NOW()
+FROM product_merges m
+WHERE p.id = m.product_id AND m.product_id <> m.survivor_id;
+
+-- One active product per normalized name. Lets concurrent ingestion threads (and nodes)
+-- use INSERT ... ON CONFLICT DO NOTHING as an insert-or-get on the canonical product.
+CREATE UNIQUE INDEX uq_products_active_normalized_name
+    ON products (normalized_name) WHERE deleted_at IS NULL;
@@ -0,0 +1,76 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import com.portfolio.pricetracker.service.AlertBook;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AlertBook with 1M active alerts: rebuild time, retained heap, and the cost of evaluating
+ * one scraped price (the per-item cost ingestion pays instead of an alert query).
+ * Targets are spread so that roughly 1 in 1000 evaluations fires an alert.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=AlertBookBenchmark [-Dbenchmark.alerts=1000000 -Dbenchmark.products=20000]
+ */
+class AlertBookBenchmark {
+
+    @Test
+    void evaluateWithOneMillionAlerts() {
+        int alertCount = Integer.getInteger("benchmark.alerts", 1_000_000);
+        int productCount = Integer.getInteger("benchmark.products", 20_000);
+        Random random = new Random(42);
+        long heapBefore = usedHeap();
+
+        List<Object[]> entries = new ArrayList<>(alertCount);
+        for (long id = 1; id <= alertCount; id++) {
+            long productId = 1 + random.nextInt(productCount);
+            // Targets 100.00-899.99€, prices below are 900-1000€ except the rare deep drop
+            entries.add(new Object[]{id, productId, AlertRuleType.TARGET_PRICE, BigDecimal.valueOf(10_000 + random.nextInt(80_000), 2)});
+        }
+
+        AlertBook book = new AlertBook();
+        long start = System.nanoTime();
+        book.replaceAll(entries);
+        long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        entries = null;
+        long retainedBytes = usedHeap() - heapBefore;
+
+        int evaluations = 5_000_000;
+        BigDecimal[] prices = new BigDecimal[1024];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = i % 1000 == 0
+                    ? BigDecimal.valueOf(50_000, 2)
+                    : BigDecimal.valueOf(90_000 + random.nextInt(10_000), 2);
+        }
+        long matched = 0;
+        for (int warmup = 0; warmup < 1_000_000; warmup++) {
+            matched += book.findTriggered(1L + (warmup % productCount), prices[warmup & 1023]).length;
+        }
+        matched = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < evaluations; i++) {
+            matched += book.findTriggered(1L + (i % productCount), prices[i & 1023]).length;
+        }
+        long evalNanos = System.nanoTime() - start;
+
+        System.out.printf("%nalerts=%d products=%d%n", alertCount, productCount);
+        System.out.printf("%-26s %12d%n", "rebuild ms", rebuildMillis);
+        System.out.printf("%-26s %12.1f%n", "retained heap MB (approx)", retainedBytes / 1024.0 / 1024.0);
+        System.out.printf("%-26s %12.0f%n", "evaluation ns/op", evalNanos / (double) evaluations);
+        System.out.printf("%-26s %12d%n", "matched alerts", matched);
+
+        assertThat(book.size()).isEqualTo(alertCount);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,106 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.config.CatalogStatisticsConfig;
+import com.portfolio.pricetracker.service.CatalogStatistics;
+import com.portfolio.pricetracker.service.ClusterLock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog statistics run time against thread count over one synthetic price history, so
+ * the speedup per added core can be read off directly. The database runs on the same
+ * machine, so the speedup flattens once it and the JVM compete for the cores.
+ *
+ * The request's reference dataset is 100M rows (about 15 GB of disk for the container):
+ * Run with: ./mvnw test -Pbenchmark -Dtest=CatalogStatisticsBenchmark [-Dbenchmark.rows=100000000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers
+class CatalogStatisticsBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+    }
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ClusterLock clusterLock;
+
+    @Test
+    void runTimeByThreadCount() {
+        long rows = Long.getLong("benchmark.rows", 10_000_000L);
+        int listings = seedListings();
+        seedHistory(listings, rows);
+
+        System.out.printf("%n%-8s %10s %14s %10s%n", "threads", "millis", "rows/s", "speedup");
+        long baseline = 0;
+        for (int threads : new int[]{1, 2, 4, 8, 16}) {
+            CatalogStatisticsConfig config = new CatalogStatisticsConfig();
+            config.setParallelism(threads);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                CatalogStatistics statistics = new CatalogStatistics(config, jdbcTemplate, transactionTemplate, clusterLock, pool);
+                long start = System.nanoTime();
+                long scanned = statistics.run();
+                long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                if (threads == 1) baseline = millis;
+                System.out.printf("%-8d %10d %14d %10.2f%n", threads, millis, scanned * 1000 / millis,
+                        baseline / (double) millis);
+                assertThat(scanned).isEqualTo(rows);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // One Amazon and one MediaMarkt listing per product
+    private int seedListings() {
+        jdbcTemplate.update("""
+                INSERT INTO products (name, normalized_name, category)
+                SELECT 'Batch product ' || g, 'batch product ' || g, 'GPU'
+                FROM generate_series(1, ?) g""", PRODUCTS);
+        return jdbcTemplate.update("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT p.id, s.id, s.base_url || '/batch/' || p.id, 499.99, true, NOW()
+                FROM products p CROSS JOIN website_sources s
+                WHERE s.scraper_type IN ('AMAZON', 'MEDIAMARKT') AND p.name LIKE 'Batch product %'""");
+    }
+
+    // Closed one-hour intervals going back from now, round-robin over the listings, in chunks
+    private void seedHistory(int listings, long rows) {
+        long chunk = 5_000_000;
+        for (long from = 0; from < rows; from += chunk) {
+            jdbcTemplate.update("""
+                    INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count)
+                    SELECT l.id, l.product_id, ROUND((100 + random() * 900)::numeric, 2), true,
+                           NOW() - (k / ? + 2) * INTERVAL '1 hour', NOW() - (k / ? + 1) * INTERVAL '1 hour',
+                           NOW() - (k / ? + 1) * INTERVAL '1 hour' - INTERVAL '5 minutes', 4
+                    FROM generate_series(?::BIGINT, ?::BIGINT) k
+                    JOIN (SELECT id, product_id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS n
+                          FROM product_listings WHERE url LIKE '%/batch/%') l ON l.n = k % ?""",
+                    listings, listings, listings, from, Math.min(rows, from + chunk) - 1, listings);
+        }
+        jdbcTemplate.execute("ANALYZE price_history");
+    }
+}
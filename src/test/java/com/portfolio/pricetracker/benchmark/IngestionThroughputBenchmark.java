@@ -0,0 +1,112 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.config.IngestionConfig;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import com.portfolio.pricetracker.service.AnalyticsResultCache;
+import com.portfolio.pricetracker.service.ListingFingerprintCache;
+import com.portfolio.pricetracker.service.ListingPriceStatsService;
+import com.portfolio.pricetracker.service.PriceAlertService;
+import com.portfolio.pricetracker.service.PriceRollupService;
+import com.portfolio.pricetracker.service.ProductUnificationService;
+import com.portfolio.pricetracker.service.event.PriceEventBus;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingestion throughput (items/s) of one scrape result set against thread count.
+ * Each run ingests a fresh set of products so every item pays for product and listing creation.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=IngestionThroughputBenchmark [-Dbenchmark.items=5000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers
+class IngestionThroughputBenchmark {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+    }
+
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductListingRepository listingRepository;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private PriceAlertService priceAlertService;
+    @Autowired private PriceRollupService priceRollupService;
+    @Autowired private ListingPriceStatsService listingPriceStatsService;
+    @Autowired private ListingFingerprintCache fingerprintCache;
+    @Autowired private PriceEventBus priceEventBus;
+    @Autowired private CacheInvalidationPublisher cacheInvalidations;
+    @Autowired private AnalyticsResultCache resultCache;
+
+    @Test
+    void throughputByThreadCount() {
+        int items = Integer.getInteger("benchmark.items", 2000);
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.MEDIAMARKT).orElseThrow();
+
+        System.out.printf("%n%-8s %10s %12s%n", "threads", "millis", "items/s");
+        for (int threads : new int[]{1, 2, 4, 8, 16}) {
+            List<ScrapedProductDTO> batch = batch("t" + threads, items);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                ProductUnificationService service = service(threads, executor);
+                long start = System.nanoTime();
+                service.saveResults(batch, source);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("%-8d %10d %12.0f%n", threads, millis, items * 1000.0 / Math.max(1, millis));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        assertThat(listingRepository.count()).isEqualTo(5L * items);
+    }
+
+    private ProductUnificationService service(int threads, ExecutorService executor) {
+        IngestionConfig config = new IngestionConfig();
+        config.setParallelism(threads);
+        return new ProductUnificationService(productRepository, listingRepository, priceHistoryRepository,
+                transactionTemplate, priceAlertService, priceRollupService, listingPriceStatsService, fingerprintCache,
+                priceEventBus, cacheInvalidations, resultCache, config, executor);
+    }
+
+    private static List<ScrapedProductDTO> batch(String run, int items) {
+        return IntStream.range(0, items)
+                .mapToObj(i -> ScrapedProductDTO.builder()
+                        .name("Benchmark " + run + " product " + i)
+                        .price(BigDecimal.valueOf(100 + i % 500))
+                        .url("https://www.mediamarkt.es/product/" + run + "-" + i)
+                        .inStock(true)
+                        .build())
+                .toList();
+    }
+}
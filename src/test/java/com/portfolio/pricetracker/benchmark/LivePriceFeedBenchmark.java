@@ -0,0 +1,100 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.config.FeedConfig;
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+import com.portfolio.pricetracker.service.LivePriceFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LivePriceFeed with thousands of concurrent subscribers, a share of them slow readers:
+ * cost of publish() on the ingestion thread, time until every subscriber is caught up,
+ * and how many updates slow readers skipped thanks to latest-value conflation.
+ * Subscribers are in-process emitters, so this measures fan-out, not socket I/O.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=LivePriceFeedBenchmark [-Dbenchmark.subscribers=5000 -Dbenchmark.events=200000]
+ */
+class LivePriceFeedBenchmark {
+
+    @Test
+    void fanOutToThousandsOfSubscribers() throws InterruptedException {
+        int subscriberCount = Integer.getInteger("benchmark.subscribers", 5_000);
+        int eventCount = Integer.getInteger("benchmark.events", 200_000);
+        int productCount = 1_000;
+        int productsPerSubscriber = 3;
+        Random random = new Random(42);
+
+        FeedConfig config = new FeedConfig();
+        config.setMaxSubscribers(subscriberCount);
+        ExecutorService executor = Executors.newFixedThreadPool(config.getSendThreads());
+        LivePriceFeed feed = new LivePriceFeed(config, executor);
+
+        int[] subscribersPerProduct = new int[productCount];
+        for (int i = 0; i < subscriberCount; i++) {
+            // 1 in 20 subscribers takes 0.5 ms per write
+            CountingEmitter emitter = new CountingEmitter(i % 20 == 0 ? 500_000 : 0);
+            List<Long> products = random.ints(productsPerSubscriber, 0, productCount).distinct()
+                    .mapToObj(Long::valueOf).toList();
+            products.forEach(p -> subscribersPerProduct[p.intValue()]++);
+            feed.subscribe(emitter, products, List.of());
+        }
+
+        PriceChangeEventDTO[] events = new PriceChangeEventDTO[eventCount];
+        long expectedOffers = 0;
+        for (int i = 0; i < eventCount; i++) {
+            int product = random.nextInt(productCount);
+            expectedOffers += subscribersPerProduct[product];
+            events[i] = PriceChangeEventDTO.builder()
+                    .productId((long) product).listingId(product * 4L + random.nextInt(4))
+                    .price(BigDecimal.valueOf(10_000 + random.nextInt(90_000), 2)).inStock(true)
+                    .build();
+        }
+
+        long start = System.nanoTime();
+        for (PriceChangeEventDTO event : events) {
+            feed.publish(event);
+        }
+        long publishNanos = System.nanoTime() - start;
+        while (feed.deliveredEvents() + feed.conflatedEvents() < expectedOffers) {
+            Thread.sleep(10);
+        }
+        long drainMillis = (System.nanoTime() - start) / 1_000_000;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.printf("%nsubscribers=%d events=%d products=%d%n", subscriberCount, eventCount, productCount);
+        System.out.printf("%-26s %12.0f%n", "publish ns/event", publishNanos / (double) eventCount);
+        System.out.printf("%-26s %12d%n", "caught up after ms", drainMillis);
+        System.out.printf("%-26s %12d%n", "subscriber deliveries", expectedOffers);
+        System.out.printf("%-26s %12d%n", "written", feed.deliveredEvents());
+        System.out.printf("%-26s %12d%n", "conflated (skipped)", feed.conflatedEvents());
+
+        assertThat(feed.subscriberCount()).isEqualTo(subscriberCount);
+    }
+
+    private static class CountingEmitter extends SseEmitter {
+
+        private final long writeNanos;
+
+        CountingEmitter(long writeNanos) {
+            this.writeNanos = writeNanos;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            builder.build();
+            if (writeNanos > 0) LockSupport.parkNanos(writeNanos);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.service.PriceHistoryExporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and peak heap of full-catalog price history exports of growing size, written
+ * to a discarding stream so only reading and serializing are measured. Peak heap should
+ * stay about the same from the smallest export to the largest.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=PriceHistoryExportBenchmark [-Dbenchmark.rows=5000000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers
+class PriceHistoryExportBenchmark {
+
+    private static final int LISTINGS = 1_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private PriceHistoryExporter exporter;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportThroughputAndHeap() throws IOException {
+        int largest = Integer.getInteger("benchmark.rows", 5_000_000);
+        seedListings();
+
+        System.out.printf("%n%-12s %-8s %12s %12s %14s%n", "rows", "format", "ms", "rows/s", "peak heap MB");
+        int seeded = 0;
+        for (int rows = 1_000; rows <= largest; rows *= 10) {
+            seedHistory(seeded, rows);
+            seeded = rows;
+            for (PriceHistoryExporter.Format format : PriceHistoryExporter.Format.values()) {
+                System.gc();
+                resetPeakHeap();
+                CountingStream out = new CountingStream();
+                long start = System.nanoTime();
+                long written = exporter.export(null, null, null, format, out);
+                long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                System.out.printf("%-12d %-8s %12d %12d %14d%n",
+                        written, format, millis, written * 1000 / millis, peakHeap() / (1024 * 1024));
+                assertThat(written).isGreaterThanOrEqualTo(rows);
+                assertThat(out.bytes).isPositive();
+            }
+        }
+    }
+
+    private void seedListings() {
+        jdbcTemplate.update("""
+                INSERT INTO products (name, normalized_name, category)
+                SELECT 'Export product ' || g, 'export product ' || g, 'GPU'
+                FROM generate_series(1, ?) g""", LISTINGS);
+        jdbcTemplate.update("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT p.id, s.id, s.base_url || '/export/' || p.id, 499.99, true, NOW()
+                FROM products p CROSS JOIN website_sources s
+                WHERE s.scraper_type = 'AMAZON' AND p.name LIKE 'Export product %'""");
+    }
+
+    // Closed one-hour intervals going back from now, spread over all listings
+    private void seedHistory(int from, int to) {
+        jdbcTemplate.update("""
+                INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count)
+                SELECT l.id, l.product_id, ROUND((100 + random() * 900)::numeric, 2), true,
+                       NOW() - (k / ? + 2) * INTERVAL '1 hour', NOW() - (k / ? + 1) * INTERVAL '1 hour',
+                       NOW() - (k / ? + 1) * INTERVAL '1 hour' - INTERVAL '5 minutes', 4
+                FROM generate_series(?, ?) k
+                JOIN product_listings l ON l.url LIKE '%/export/%' AND l.product_id % ? = k % ?""",
+                LISTINGS, LISTINGS, LISTINGS, from, to - 1, LISTINGS, LISTINGS);
+        jdbcTemplate.execute("ANALYZE price_history");
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static final class CountingStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.AnalyticsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of the price-drop and price-increase rankings over a catalog of 100k listings
+ * (two sources per product) with a month of history each (16 intervals per listing). The listings are bulk-inserted
+ * in SQL; loading them all as entities, the first step of the previous implementation, is
+ * timed alongside for reference.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=PriceMovementBenchmark [-Dbenchmark.listings=100000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers
+class PriceMovementBenchmark {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private ProductListingRepository listingRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rankingLatency() {
+        int products = Integer.getInteger("benchmark.listings", 100_000) / 2;
+        seed(products);
+
+        System.out.printf("%nlistings=%d history rows=%d%n",
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_listings", Long.class),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_history", Long.class));
+        System.out.printf("%-32s %10s%n", "query", "median ms");
+        for (int days : new int[]{1, 7, 30}) {
+            report("price drops, " + days + "d", () -> analyticsService.getTopPriceDrops(days, 10));
+            report("price increases, " + days + "d", () -> analyticsService.getTopPriceIncreases(days, 10));
+        }
+        report("listingRepository.findAll()", listingRepository::findAll);
+
+        List<PriceDropDTO> drops = analyticsService.getTopPriceDrops(30, 10);
+        assertThat(drops).hasSize(10);
+        assertThat(drops).allSatisfy(drop -> assertThat(drop.getChangePercentage()).isNegative());
+    }
+
+    private void seed(int products) {
+        jdbcTemplate.update("""
+                INSERT INTO products (name, normalized_name, category)
+                SELECT 'Benchmark product ' || g, 'benchmark product ' || g, 'GPU'
+                FROM generate_series(1, ?) g""", products);
+        jdbcTemplate.update("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT p.id, s.id, s.base_url || '/bench/' || p.id,
+                       ROUND((100 + random() * 900)::numeric, 2), true, NOW()
+                FROM products p CROSS JOIN website_sources s
+                WHERE s.scraper_type IN ('AMAZON', 'MEDIAMARKT')""");
+        // Fifteen closed two-day intervals around the current price, then the open one
+        jdbcTemplate.update("""
+                INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count)
+                SELECT l.id, l.product_id, ROUND(l.current_price * (0.8 + random() * 0.4), 2), true,
+                       NOW() - INTERVAL '1 hour' - k * INTERVAL '2 days',
+                       NOW() - INTERVAL '1 hour' - (k - 1) * INTERVAL '2 days',
+                       NOW() - INTERVAL '2 hours' - (k - 1) * INTERVAL '2 days', 12
+                FROM product_listings l CROSS JOIN generate_series(1, 15) k""");
+        jdbcTemplate.update("""
+                INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count)
+                SELECT l.id, l.product_id, l.current_price, true, NOW() - INTERVAL '1 hour', NULL, NOW(), 1
+                FROM product_listings l""");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private static void report(String label, Supplier<?> query) {
+        for (int warmup = 0; warmup < 2; warmup++) query.get();
+        long[] millis = new long[5];
+        for (int i = 0; i < millis.length; i++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-32s %10d%n", label, millis[millis.length / 2]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.config.LeaderboardConfig;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.service.PriceMoversBoard;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * PriceMoversBoard over 100k listings with a month of history (16 change points each):
+ * rebuild time, retained heap, the cost per ingested price point (events consumed in
+ * batches of 256, as the event bus delivers them), a full refresh, and a read.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=PriceMoversBoardBenchmark [-Dbenchmark.listings=100000 -Dbenchmark.events=1000000]
+ */
+class PriceMoversBoardBenchmark {
+
+    @Test
+    void costPerIngestedPoint() {
+        int listings = Integer.getInteger("benchmark.listings", 100_000);
+        int eventCount = Integer.getInteger("benchmark.events", 1_000_000);
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        long heapBefore = usedHeap();
+
+        List<Object[]> points = new ArrayList<>(listings * 16);
+        BigDecimal[] lastPrice = new BigDecimal[listings];
+        for (int listing = 0; listing < listings; listing++) {
+            for (int k = 0; k < 16; k++) {
+                lastPrice[listing] = BigDecimal.valueOf(50_000 + random.nextInt(50_000), 2);
+                points.add(new Object[]{(long) listing, (long) listing, "Product " + listing, "Amazon ES",
+                        "https://shop/" + listing, lastPrice[listing], start.plusHours(45L * k)});
+            }
+        }
+
+        PriceHistoryRepository repository = mock(PriceHistoryRepository.class);
+        when(repository.streamMovementPoints(any())).thenReturn(points.stream());
+        PriceMoversBoard board = new PriceMoversBoard(new LeaderboardConfig(), repository, null);
+        long begin = System.nanoTime();
+        board.rebuild();
+        long rebuildMillis = (System.nanoTime() - begin) / 1_000_000;
+        points = null;
+        reset(repository);
+        long retainedBytes = usedHeap() - heapBefore;
+
+        List<List<PriceEvent>> batches = new ArrayList<>();
+        List<PriceEvent> batch = new ArrayList<>(256);
+        LocalDateTime at = LocalDateTime.now().minusMinutes(30);
+        for (int i = 0; i < eventCount; i++) {
+            int listing = random.nextInt(listings);
+            BigDecimal price = BigDecimal.valueOf(50_000 + random.nextInt(50_000), 2);
+            batch.add(new PriceChanged((long) listing, (long) listing, "Product " + listing, "GPU",
+                    "https://shop/" + listing, "Amazon ES", lastPrice[listing], price, true, true,
+                    at.plusNanos(1_000L * i)));
+            lastPrice[listing] = price;
+            if (batch.size() == 256) {
+                batches.add(batch);
+                batch = new ArrayList<>(256);
+            }
+        }
+        batches.add(batch);
+
+        begin = System.nanoTime();
+        for (List<PriceEvent> events : batches) {
+            board.onEvents(events);
+        }
+        long ingestNanos = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        board.refresh();
+        long refreshMillis = (System.nanoTime() - begin) / 1_000_000;
+
+        int reads = 1_000_000;
+        long sink = 0;
+        begin = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            sink += board.topDrops(Duration.ofDays(7), 10).orElseThrow().size();
+        }
+        long readNanos = System.nanoTime() - begin;
+
+        System.out.printf("%nlistings=%d events=%d%n", listings, eventCount);
+        System.out.printf("%-26s %12d%n", "rebuild ms", rebuildMillis);
+        System.out.printf("%-26s %12.1f%n", "retained heap MB (approx)", retainedBytes / 1024.0 / 1024.0);
+        System.out.printf("%-26s %12.0f%n", "ingest ns/point", ingestNanos / (double) eventCount);
+        System.out.printf("%-26s %12d%n", "refresh ms", refreshMillis);
+        System.out.printf("%-26s %12.0f%n", "read ns/op", readNanos / (double) reads);
+
+        assertThat(sink).isEqualTo(10L * reads);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
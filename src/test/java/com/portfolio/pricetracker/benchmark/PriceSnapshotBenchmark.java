@@ -0,0 +1,119 @@
+package com.portfolio.pricetracker.benchmark;
+
+import com.portfolio.pricetracker.dto.PriceSnapshotDTO;
+import com.portfolio.pricetracker.service.AnalyticsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of as-of price snapshot pages over a large price history: the first page, a page
+ * deep into the listings, and a full walk of every page, at a recent and at an old
+ * snapshot time. Page latency should not depend on the page's position or on how far
+ * back the snapshot is.
+ *
+ * Run with: ./mvnw test -Pbenchmark -Dtest=PriceSnapshotBenchmark [-Dbenchmark.rows=5000000]
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Testcontainers
+class PriceSnapshotBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int PAGE = 500;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pageLatency() {
+        int rows = Integer.getInteger("benchmark.rows", 5_000_000);
+        int listings = seedListings();
+        seedHistory(listings, rows);
+        int hours = rows / listings;
+        Long middle = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings ORDER BY id OFFSET ? LIMIT 1", Long.class, listings / 2);
+
+        System.out.printf("%n%-22s %-12s %10s %10s%n", "snapshot", "page", "listings", "millis");
+        for (int hoursAgo : new int[]{1, hours / 2, hours - 1}) {
+            LocalDateTime at = LocalDateTime.now().minusHours(hoursAgo);
+            // Warm up
+            analyticsService.getPriceSnapshot(at, null, null, null, 0, PAGE);
+            time(hoursAgo + "h ago", "first", () -> analyticsService.getPriceSnapshot(at, null, null, null, 0, PAGE));
+            time(hoursAgo + "h ago", "middle", () -> analyticsService.getPriceSnapshot(at, null, null, null, middle, PAGE));
+
+            long start = System.nanoTime();
+            int pages = 0;
+            int seen = 0;
+            long after = 0;
+            Long next;
+            do {
+                PriceSnapshotDTO page = analyticsService.getPriceSnapshot(at, null, null, null, after, PAGE);
+                seen += page.getListings().size();
+                pages++;
+                next = page.getNextAfter();
+                if (next != null) after = next;
+            } while (next != null);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("%-22s %-12s %10d %10d  (%d pages, %.1f ms/page)%n",
+                    hoursAgo + "h ago", "all", seen, millis, pages, millis / (double) pages);
+            assertThat(seen).isEqualTo(listings);
+        }
+    }
+
+    private static void time(String snapshot, String label, Supplier<PriceSnapshotDTO> page) {
+        long start = System.nanoTime();
+        PriceSnapshotDTO result = page.get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-22s %-12s %10d %10d%n", snapshot, label, result.getListings().size(), millis);
+        assertThat(result.getListings()).hasSize(PAGE);
+        assertThat(millis).isLessThan(1_000);
+    }
+
+    // One Amazon and one MediaMarkt listing per product
+    private int seedListings() {
+        jdbcTemplate.update("""
+                INSERT INTO products (name, normalized_name, category)
+                SELECT 'Snapshot product ' || g, 'snapshot product ' || g, 'GPU'
+                FROM generate_series(1, ?) g""", PRODUCTS);
+        return jdbcTemplate.update("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT p.id, s.id, s.base_url || '/snapshot/' || p.id, 499.99, true, NOW()
+                FROM products p CROSS JOIN website_sources s
+                WHERE s.scraper_type IN ('AMAZON', 'MEDIAMARKT') AND p.name LIKE 'Snapshot product %'""");
+    }
+
+    // Closed one-hour intervals going back from now, the same number per listing
+    private void seedHistory(int listings, int rows) {
+        jdbcTemplate.update("""
+                INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at, sample_count)
+                SELECT l.id, l.product_id, ROUND((100 + random() * 900)::numeric, 2), true,
+                       NOW() - (k / ? + 2) * INTERVAL '1 hour', NOW() - (k / ? + 1) * INTERVAL '1 hour',
+                       NOW() - (k / ? + 1) * INTERVAL '1 hour' - INTERVAL '5 minutes', 4
+                FROM generate_series(0, ? - 1) k
+                JOIN (SELECT id, product_id, ROW_NUMBER() OVER (ORDER BY id) - 1 AS n FROM product_listings) l
+                  ON l.n = k % ?""",
+                listings, listings, listings, rows, listings);
+        jdbcTemplate.execute("ANALYZE price_history");
+    }
+}
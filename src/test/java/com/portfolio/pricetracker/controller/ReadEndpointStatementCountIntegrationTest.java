@@ -0,0 +1,204 @@
+package com.portfolio.pricetracker.controller;
+
+import com.portfolio.pricetracker.dto.CreateAlertRequest;
+import com.portfolio.pricetracker.dto.CreateScrapingJobRequest;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import com.portfolio.pricetracker.service.PriceAlertService;
+import com.portfolio.pricetracker.service.ProductUnificationService;
+import com.portfolio.pricetracker.service.ScrapingJobService;
+import com.portfolio.pricetracker.service.TrendingScores;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Number of SQL statements each read endpoint issues, whatever the number of rows it
+ * returns, so per-row lazy loading (N+1) cannot creep back into the read paths.
+ *
+ * Statements are counted by a Hibernate StatementInspector on the request thread only,
+ * so event consumers and scheduled jobs running meanwhile are not counted.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.portfolio.pricetracker.controller.ReadEndpointStatementCountIntegrationTest$StatementCounter")
+@AutoConfigureMockMvc
+@Testcontainers
+class ReadEndpointStatementCountIntegrationTest {
+
+    private static final String EMAIL = "counter@test.com";
+    private static final String[] NAMES = {"Counted Alpha Keyboard", "Counted Bravo Monitor", "Counted Charlie Headset"};
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private PriceAlertService priceAlertService;
+    @Autowired private ScrapingJobService scrapingJobService;
+    @Autowired private TrendingScores trendingScores;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private ProductRepository productRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        if (!productRepository.searchByKeyword("Counted").isEmpty()) {
+            loadProductIds();
+            return;
+        }
+        WebsiteSource amazon = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        WebsiteSource mediamarkt = sourceRepository.findByScraperType(ScraperType.MEDIAMARKT).orElseThrow();
+        List<ScrapedProductDTO> amazonItems = new ArrayList<>();
+        List<ScrapedProductDTO> mediamarktItems = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            amazonItems.add(item(NAMES[i], "https://www.amazon.es/dp/COUNT" + i, "1" + i + "9"));
+            mediamarktItems.add(item(NAMES[i], "https://www.mediamarkt.es/product/COUNT" + i, "1" + i + "5"));
+        }
+        unificationService.saveResults(amazonItems, amazon);
+        unificationService.saveResults(mediamarktItems, mediamarkt);
+        loadProductIds();
+
+        for (Long productId : productIds) {
+            priceAlertService.createAlert(CreateAlertRequest.builder()
+                    .userEmail(EMAIL).productId(productId).targetPrice(new BigDecimal("50")).build());
+        }
+        scrapingJobService.createJob(new CreateScrapingJobRequest(amazon.getId(), "keyboard", null));
+        scrapingJobService.createJob(new CreateScrapingJobRequest(mediamarkt.getId(), "monitor", null));
+
+        // Listing events are consumed asynchronously
+        awaitTrue(() -> trendingScores.top(10).size() >= NAMES.length);
+    }
+
+    @Test
+    void should_CompareAllListingsOfAProductInOneStatement() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/api/analytics/compare").param("productId", productIds.get(0).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.listings.length()").value(2))
+                .andExpect(jsonPath("$.listings[0].sourceName").value("MediaMarkt ES")));
+    }
+
+    @Test
+    void should_ListUserAlertsWithTheirProductsInOneStatement() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/api/alerts").param("email", EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(NAMES.length))
+                .andExpect(jsonPath("$[*].productName").isNotEmpty()));
+    }
+
+    @Test
+    void should_ListJobsWithTheirSourcesInOneStatement() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/api/scraping/jobs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].sourceName").isNotEmpty()));
+    }
+
+    @Test
+    void should_ReadTrendingProductsInOneStatement() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/api/analytics/trending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(NAMES.length)));
+    }
+
+    @Test
+    void should_RankPriceDropsOutsideTheKeptWindowsInOneStatement() throws Exception {
+        // 14 days is not a leaderboard window, so the ranking query runs
+        assertStatements(1, () -> mockMvc.perform(get("/api/analytics/price-drops").param("days", "14"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void should_ListAndReadProductsInOneStatementEach() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(NAMES.length)));
+        assertStatements(1, () -> mockMvc.perform(get("/api/products/" + productIds.get(1)))
+                .andExpect(status().isOk()));
+    }
+
+    private void loadProductIds() {
+        productIds.clear();
+        for (String name : NAMES) {
+            productIds.add(productRepository.searchByKeyword(name).get(0).getId());
+        }
+    }
+
+    private static void assertStatements(int expected, Request request) throws Exception {
+        StatementCounter.reset();
+        request.perform();
+        assertThat(StatementCounter.count()).as("SQL statements").isEqualTo(expected);
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        void perform() throws Exception;
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on the current thread; MockMvc serves the
+     * request on the test thread.
+     */
+    public static class StatementCounter implements StatementInspector {
+
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+}
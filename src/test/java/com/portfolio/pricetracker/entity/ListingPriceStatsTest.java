@@ -0,0 +1,130 @@
+package com.portfolio.pricetracker.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ListingPriceStatsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Test
+    void should_MatchExactDurationWeightedMeanAndStandardDeviation() {
+        Random random = new Random(47);
+        double[] prices = new double[500];
+        long[] hours = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 200 + random.nextInt(40_000) / 100.0;
+            hours[i] = 1 + random.nextInt(72);
+        }
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(prices[0]), START);
+        LocalDateTime at = START;
+        for (int i = 1; i < prices.length; i++) {
+            at = at.plusHours(hours[i - 1]);
+            stats.recordPrice(price(prices[i]), at);
+        }
+
+        // The last level is still in effect and not counted yet
+        double weight = 0;
+        double sum = 0;
+        for (int i = 0; i < prices.length - 1; i++) {
+            weight += hours[i] * 3600.0;
+            sum += hours[i] * 3600.0 * prices[i];
+        }
+        double mean = sum / weight;
+        double squares = 0;
+        for (int i = 0; i < prices.length - 1; i++) {
+            squares += hours[i] * 3600.0 * (prices[i] - mean) * (prices[i] - mean);
+        }
+
+        assertThat(stats.getPriceCount()).isEqualTo(prices.length);
+        assertThat(stats.getObservedSeconds()).isEqualTo(weight);
+        assertThat(stats.getMeanPrice()).isCloseTo(mean, within(1e-9));
+        assertThat(ListingPriceStats.standardDeviation(stats.getObservedSeconds(), stats.getM2()))
+                .isCloseTo(Math.sqrt(squares / weight), within(1e-9));
+        assertThat(stats.getLevelSince()).isEqualTo(at);
+    }
+
+    @Test
+    void should_KeepLowsOfEveryWindow_When_PricesRiseAndFall() {
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(500), START);
+        stats.recordPrice(price(400), START.plusDays(10));
+        stats.recordPrice(price(450), START.plusDays(50));
+        stats.recordPrice(price(480), START.plusDays(80));
+        stats.recordPrice(price(470), START.plusDays(100));
+
+        // 500 and 480 can no longer be the low of any window ending now
+        assertThat(stats.getRecentLows()).extracting(ListingPriceStats.RecentLow::price)
+                .containsExactly(price(400), price(450), price(470));
+        LocalDateTime now = START.plusDays(101);
+        assertThat(ListingPriceStats.lowSince(stats.getRecentLows(), now.minusDays(90))).isEqualByComparingTo("400");
+        assertThat(ListingPriceStats.lowSince(stats.getRecentLows(), now.minusDays(30))).isEqualByComparingTo("450");
+        assertThat(ListingPriceStats.lowSince(stats.getRecentLows(), now.minusDays(1))).isEqualByComparingTo("470");
+        assertThat(stats.getAllTimeLow()).isEqualByComparingTo("400");
+        assertThat(stats.getAllTimeLowAt()).isEqualTo(START.plusDays(10));
+    }
+
+    @Test
+    void should_DropLevelsThatEndedBeforeTheLongestWindow() {
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(300), START);
+        stats.recordPrice(price(350), START.plusDays(1));
+        stats.recordPrice(price(360), START.plusDays(120));
+
+        assertThat(stats.getRecentLows()).extracting(ListingPriceStats.RecentLow::price)
+                .containsExactly(price(350), price(360));
+        assertThat(ListingPriceStats.lowSince(stats.getRecentLows(), START.plusDays(120).minusDays(90)))
+                .isEqualByComparingTo("350");
+        // Beyond 90 days only the all-time low remains
+        assertThat(stats.getAllTimeLow()).isEqualByComparingTo("300");
+    }
+
+    @Test
+    void should_ScoreCheapPricesHigh() {
+        assertThat(ListingPriceStats.first(1L, 1L, price(100), START).getDealScore()).isEqualTo(50);
+
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(100), START);
+        stats.recordPrice(price(120), START.plusDays(3));
+        stats.recordPrice(price(95), START.plusDays(4));
+        // 100 for three days and 120 for one: mean 105, standard deviation ~8.66, so 95 is
+        // ~1.15 deviations below (counting each level once would make it 1.5)
+        assertThat(stats.getMeanPrice()).isCloseTo(105, within(1e-9));
+        assertThat(stats.getDealScore()).isCloseTo(87.7, within(0.2));
+
+        stats.recordPrice(price(130), START.plusDays(5));
+        assertThat(stats.getDealScore()).isLessThan(20);
+        assertThat(ListingPriceStats.dealScore(price(100), 4, 100, 0)).isEqualTo(50);
+    }
+
+    @Test
+    void should_NotWeighALevel_When_ItLastedNoTime() {
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(100), START);
+        stats.recordPrice(price(50), START);
+        stats.recordPrice(price(100), START.plusDays(1));
+
+        assertThat(stats.getPriceCount()).isEqualTo(3);
+        assertThat(stats.getObservedSeconds()).isEqualTo(86_400);
+        assertThat(stats.getMeanPrice()).isCloseTo(50, within(1e-9));
+    }
+
+    @Test
+    void should_ReplaceTheLowsList_When_APriceIsRecorded() {
+        ListingPriceStats stats = ListingPriceStats.first(1L, 1L, price(100), START);
+        List<ListingPriceStats.RecentLow> before = stats.getRecentLows();
+
+        stats.recordPrice(price(90), START.plusDays(1));
+
+        // Hibernate detects the JSON column as dirty by comparing the list it loaded
+        assertThat(stats.getRecentLows()).isNotSameAs(before);
+        assertThat(before).extracting(ListingPriceStats.RecentLow::price).containsExactly(price(100));
+    }
+
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(Math.round(value * 100), 2);
+    }
+}
@@ -0,0 +1,138 @@
+package com.portfolio.pricetracker.repository;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ColdPriceHistoryStoreTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2026, 3);
+
+    @TempDir
+    Path directory;
+
+    private ColdPriceHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+    }
+
+    @Test
+    void should_RoundTripRows_When_SegmentIsWrittenAndMapped() throws IOException {
+        PriceHistorySegment.Row row = new PriceHistorySegment.Row(10L, 7L, 3L, new BigDecimal("1299.99"), null,
+                at(3, 14, 30), at(5, 9, 0), at(4, 23, 59), 12);
+        store.append(MARCH, List.of(row, row(11L, 8L, "599.00", 1, 2)));
+
+        ColdPriceHistoryStore reopened = newStore();
+        reopened.load();
+
+        assertThat(reopened.findByListing(7L, null, null)).containsExactly(row);
+        assertThat(reopened.findByProduct(3L, null, null)).hasSize(2);
+        assertThat(Files.list(directory)).extracting(p -> p.getFileName().toString())
+                .containsExactly("price_history_202603.seg");
+    }
+
+    @Test
+    void should_KeepPricesBeyondIntCents_When_SegmentIsWritten() throws IOException {
+        store.append(MARCH, List.of(row(1L, 7L, "99999999.99", 1, 5)));
+
+        ColdPriceHistoryStore reopened = newStore();
+        reopened.load();
+
+        assertThat(reopened.findByListing(7L, null, null)).extracting(PriceHistorySegment.Row::price)
+                .containsExactly(new BigDecimal("99999999.99"));
+    }
+
+    @Test
+    void should_ReturnOnlyOverlappingIntervals_When_RangeIsGiven() {
+        store.append(MARCH, List.of(row(1L, 7L, "599.00", 1, 5), row(2L, 7L, "579.00", 10, 20)));
+
+        List<PriceHistorySegment.Row> rows = store.findByListing(7L, at(12, 0, 0), at(31, 0, 0));
+
+        assertThat(rows).extracting(PriceHistorySegment.Row::id).containsExactly(2L);
+        assertThat(store.findByListing(7L, LocalDateTime.of(2026, 4, 2, 0, 0), null)).isEmpty();
+        assertThat(store.findByListing(99L, null, null)).isEmpty();
+    }
+
+    @Test
+    void should_ReplaceRowsById_When_MonthIsAppendedAgain() {
+        store.append(MARCH, List.of(row(1L, 7L, "599.00", 1, 5)));
+
+        int added = store.append(MARCH, List.of(row(1L, 7L, "599.00", 1, 5), row(2L, 7L, "579.00", 5, 9)));
+
+        assertThat(added).isEqualTo(2);
+        assertThat(store.findByListing(7L, null, null)).extracting(PriceHistorySegment.Row::id)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void should_MergeWithTheSegmentFile_When_AnotherNodeRewroteIt() throws IOException {
+        ColdPriceHistoryStore otherNode = newStore();
+        store.append(MARCH, List.of(row(1L, 7L, "599.00", 1, 5)));
+        otherNode.append(MARCH, List.of(row(2L, 8L, "579.00", 5, 9)));
+        assertThat(store.findByListing(8L, null, null)).isEmpty();
+
+        store.reload(MARCH);
+
+        assertThat(store.findByProduct(3L, null, null)).extracting(PriceHistorySegment.Row::id)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void should_RefuseToStart_When_ColdStorageDirIsRelativeOrMissing() {
+        PriceHistoryConfig relative = new PriceHistoryConfig();
+        relative.setColdStorageDir("data/price-history");
+        assertThatThrownBy(() -> new ColdPriceHistoryStore(mock(JdbcTemplate.class), relative))
+                .isInstanceOf(IllegalStateException.class);
+
+        PriceHistoryConfig tieringWithoutDir = new PriceHistoryConfig();
+        tieringWithoutDir.setHotDays(90);
+        assertThatThrownBy(() -> new ColdPriceHistoryStore(mock(JdbcTemplate.class), tieringWithoutDir))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void should_FindTheIntervalInEffect_When_AskedAsOfATime() {
+        store.append(YearMonth.of(2026, 2), List.of(new PriceHistorySegment.Row(1L, 7L, 3L, new BigDecimal("649.00"), true,
+                LocalDateTime.of(2026, 2, 20, 0, 0), at(1, 2, 0), at(1, 1, 0), 9)));
+        store.append(MARCH, List.of(row(2L, 7L, "599.00", 1, 5), row(3L, 7L, "579.00", 5, 20)));
+
+        assertThat(store.findLatestAtOrBefore(7L, at(10, 0, 0))).get()
+                .extracting(PriceHistorySegment.Row::id).isEqualTo(3L);
+        assertThat(store.findLatestAtOrBefore(7L, at(1, 1, 0))).get()
+                .extracting(PriceHistorySegment.Row::id).isEqualTo(1L);
+        // Intervals of later months never apply to an earlier time
+        assertThat(store.findLatestAtOrBefore(7L, LocalDateTime.of(2026, 2, 1, 0, 0))).isEmpty();
+        assertThat(store.findLatestAtOrBefore(99L, at(10, 0, 0))).isEmpty();
+    }
+
+    private ColdPriceHistoryStore newStore() {
+        PriceHistoryConfig config = new PriceHistoryConfig();
+        config.setColdStorageDir(directory.toString());
+        return new ColdPriceHistoryStore(mock(JdbcTemplate.class), config);
+    }
+
+    private static PriceHistorySegment.Row row(long id, long listingId, String price, int fromDay, int toDay) {
+        return new PriceHistorySegment.Row(id, listingId, 3L, new BigDecimal(price), true,
+                at(fromDay, 2, 0), at(toDay, 2, 0), at(toDay - 1, 2, 0), toDay - fromDay);
+    }
+
+    private static LocalDateTime at(int day, int hour, int minute) {
+        return LocalDateTime.of(2026, 3, day, hour, minute);
+    }
+}
@@ -0,0 +1,84 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertBookTest {
+
+    private final AlertBook book = new AlertBook();
+
+    @Test
+    void should_ReturnAlertsWithTargetAtOrAbovePrice() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+        book.add(2L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("500.00"));
+        book.add(3L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("450.00"));
+        book.add(4L, 8L, AlertRuleType.TARGET_PRICE, new BigDecimal("999.00"));
+
+        assertThat(book.findTriggered(7L, new BigDecimal("450.00"))).containsExactly(3L, 2L);
+        assertThat(book.findTriggered(7L, new BigDecimal("450.001"))).containsExactly(2L);
+        assertThat(book.findTriggered(7L, new BigDecimal("501"))).isEmpty();
+        assertThat(book.findTriggered(9L, BigDecimal.ONE)).isEmpty();
+    }
+
+    @Test
+    void should_DropProductEntry_When_LastAlertRemoved() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+        book.add(2L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+
+        book.remove(1L, 7L);
+        assertThat(book.findTriggered(7L, new BigDecimal("100"))).containsExactly(2L);
+
+        book.remove(2L, 7L);
+        book.remove(2L, 7L);
+        assertThat(book.size()).isZero();
+    }
+
+    @Test
+    void should_ReplaceEverything_When_Rebuilt() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+
+        book.replaceAll(List.of(
+                new Object[]{5L, 8L, AlertRuleType.TARGET_PRICE, new BigDecimal("20.00")},
+                new Object[]{6L, 8L, AlertRuleType.PERCENT_DROP, new BigDecimal("10.00")},
+                new Object[]{7L, 8L, AlertRuleType.BACK_IN_STOCK, null}));
+
+        assertThat(book.findTriggered(7L, BigDecimal.ONE)).isEmpty();
+        assertThat(book.findTriggered(8L, new BigDecimal("5"))).containsExactly(6L, 5L);
+        assertThat(book.rules(8L).events(AlertRuleType.BACK_IN_STOCK)).containsExactly(7L);
+    }
+
+    @Test
+    void should_ReplaceOnlyGivenProducts() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+        book.add(2L, 8L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+        book.add(3L, 9L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+
+        book.replaceProducts(List.of(7L, 8L), List.<Object[]>of(
+                new Object[]{4L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("250.00")}));
+
+        assertThat(book.findTriggered(7L, new BigDecimal("200"))).containsExactly(4L);
+        assertThat(book.rules(8L)).isNull();
+        assertThat(book.findTriggered(9L, new BigDecimal("200"))).containsExactly(3L);
+    }
+
+    @Test
+    void should_KeepEventRulesOutOfThresholdSearch() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00"));
+        book.add(2L, 7L, AlertRuleType.ALL_TIME_LOW, null);
+        book.add(3L, 7L, AlertRuleType.ALL_TIME_LOW, null);
+
+        assertThat(book.findTriggered(7L, new BigDecimal("100"))).containsExactly(1L);
+        assertThat(book.rules(7L).events(AlertRuleType.ALL_TIME_LOW)).containsExactly(2L, 3L);
+        assertThat(book.rules(7L).events(AlertRuleType.BACK_IN_STOCK)).isEmpty();
+
+        book.remove(2L, 7L);
+        book.remove(1L, 7L);
+        assertThat(book.rules(7L).events(AlertRuleType.ALL_TIME_LOW)).containsExactly(3L);
+        assertThat(book.size()).isEqualTo(1);
+    }
+}
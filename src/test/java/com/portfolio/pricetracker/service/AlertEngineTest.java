@@ -0,0 +1,87 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.entity.AlertRuleType;
+import com.portfolio.pricetracker.service.AlertEngine.PricePoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertEngineTest {
+
+    private final AlertBook book = new AlertBook();
+    private final AlertEngine engine = new AlertEngine(book);
+
+    @Test
+    void should_FireEveryMatchingRuleType_InOnePass() {
+        book.add(1L, 7L, AlertRuleType.TARGET_PRICE, new BigDecimal("500.00"));
+        book.add(2L, 7L, AlertRuleType.BACK_IN_STOCK, null);
+        book.add(3L, 7L, AlertRuleType.ALL_TIME_LOW, null);
+        observe(70L, 7L, "520.00", false);
+
+        assertThat(engine.evaluate(point(70L, 7L, "480.00", true))).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void should_FireAllTimeLow_OnlyBelowLowestPriceEverSeen() {
+        book.add(3L, 7L, AlertRuleType.ALL_TIME_LOW, null);
+
+        assertThat(engine.evaluate(point(70L, 7L, "500.00", true))).isEmpty();
+        observe(70L, 7L, "500.00", true);
+        observe(70L, 7L, "550.00", true);
+
+        assertThat(engine.evaluate(point(70L, 7L, "500.00", true))).isEmpty();
+        assertThat(engine.evaluate(point(70L, 7L, "499.99", true))).containsExactly(3L);
+    }
+
+    @Test
+    void should_FireCheapestStore_When_ListingUndercutsOtherStores() {
+        book.add(4L, 7L, AlertRuleType.CHEAPEST_STORE, null);
+        observe(70L, 7L, "500.00", true);
+
+        // Only one store sells it
+        assertThat(engine.evaluate(point(70L, 7L, "490.00", true))).isEmpty();
+
+        observe(71L, 7L, "520.00", true);
+        assertThat(engine.evaluate(point(71L, 7L, "500.00", true))).isEmpty();
+        assertThat(engine.evaluate(point(71L, 7L, "499.00", true))).containsExactly(4L);
+        // Already the cheapest store: a further drop is not a new event
+        assertThat(engine.evaluate(point(70L, 7L, "450.00", true))).isEmpty();
+        // An out-of-stock store does not compete
+        assertThat(engine.evaluate(point(71L, 7L, "400.00", false))).isEmpty();
+    }
+
+    @Test
+    void should_NotFireBackInStock_When_StockWasUnknown() {
+        book.add(2L, 7L, AlertRuleType.BACK_IN_STOCK, null);
+
+        assertThat(engine.evaluate(point(70L, 7L, "500.00", true))).isEmpty();
+        observe(70L, 7L, "500.00", null);
+        assertThat(engine.evaluate(point(70L, 7L, "500.00", true))).isEmpty();
+    }
+
+    @Test
+    void should_SeedStateFromCurrentPricesAndRollupLows() {
+        book.add(3L, 7L, AlertRuleType.ALL_TIME_LOW, null);
+        book.add(4L, 7L, AlertRuleType.CHEAPEST_STORE, null);
+
+        engine.replaceState(
+                List.of(new Object[]{70L, 7L, new BigDecimal("500.00"), true},
+                        new Object[]{71L, 7L, new BigDecimal("520.00"), true}),
+                List.<Object[]>of(new Object[]{7L, new BigDecimal("450.00")}));
+
+        assertThat(engine.trackedListings()).isEqualTo(2);
+        assertThat(engine.evaluate(point(71L, 7L, "460.00", true))).containsExactly(4L);
+        assertThat(engine.evaluate(point(71L, 7L, "449.00", true))).containsExactlyInAnyOrder(3L, 4L);
+    }
+
+    private void observe(long listingId, long productId, String price, Boolean inStock) {
+        engine.observe(point(listingId, productId, price, inStock));
+    }
+
+    private static PricePoint point(long listingId, long productId, String price, Boolean inStock) {
+        return new PricePoint(listingId, productId, new BigDecimal(price), inStock);
+    }
+}
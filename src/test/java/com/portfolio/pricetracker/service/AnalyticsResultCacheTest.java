@@ -0,0 +1,204 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.ResultCacheConfig;
+import com.portfolio.pricetracker.dto.PriceComparisonDTO;
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.ResultCacheStatsDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsResultCacheTest {
+
+    @Mock private ProductListingRepository listingRepository;
+
+    private AnalyticsResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AnalyticsResultCache(new ResultCacheConfig(), listingRepository);
+    }
+
+    @Test
+    void should_LoadOnce_When_MissesOnAKeyAreConcurrent() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<PriceComparisonDTO> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return comparison(1L);
+        };
+
+        CompletableFuture<PriceComparisonDTO> first = CompletableFuture.supplyAsync(() -> cache.comparison(1L, loader));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<PriceComparisonDTO> second = CompletableFuture.supplyAsync(() -> cache.comparison(1L, loader));
+        // Counted as a miss just before joining the load in flight
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stats("comparisons").getMisses() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(cache.comparison(1L, loader)).isSameAs(first.get());
+        assertThat(loads).hasValue(1);
+        assertThat(stats("comparisons")).satisfies(stats -> {
+            assertThat(stats.getHits()).isEqualTo(1);
+            assertThat(stats.getMisses()).isEqualTo(2);
+            assertThat(stats.getLoads()).isEqualTo(1);
+            assertThat(stats.getMaxLoadMillis()).isGreaterThan(0);
+        });
+    }
+
+    @Test
+    void should_NotKeepALoad_When_InvalidatedWhileItRuns() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<PriceComparisonDTO> blockingLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return comparison(1L);
+        };
+
+        CompletableFuture<PriceComparisonDTO> inFlight = CompletableFuture.supplyAsync(() -> cache.comparison(1L, blockingLoader));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        // The load may have read the listing before this change committed
+        cache.listingsChanged(List.of(1L), true);
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        cache.comparison(1L, () -> {
+            loads.incrementAndGet();
+            return comparison(1L);
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void should_KeepLoadsOfOtherProducts_When_AProductChangesWhileTheyRun() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<PriceComparisonDTO> blockingLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return comparison(2L);
+        };
+
+        CompletableFuture<PriceComparisonDTO> inFlight = CompletableFuture.supplyAsync(() -> cache.comparison(2L, blockingLoader));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.listingsChanged(List.of(1L), false);
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        cache.comparison(2L, () -> {
+            loads.incrementAndGet();
+            return comparison(20L);
+        });
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void should_DropOnlyResultsOfChangedProducts() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<PriceDropDTO>> movements = () -> {
+            loads.incrementAndGet();
+            return List.of(PriceDropDTO.builder().productId(9L).build());
+        };
+        cache.comparison(1L, () -> comparison(1L));
+        cache.comparison(2L, () -> comparison(2L));
+        cache.priceMovements(true, 14, 10, movements);
+
+        cache.listingsChanged(List.of(1L), false);
+
+        assertThat(cache.comparison(1L, () -> comparison(10L)).getProductId()).isEqualTo(10L);
+        assertThat(cache.comparison(2L, () -> comparison(20L)).getProductId()).isEqualTo(2L);
+        cache.priceMovements(true, 14, 10, movements);
+        assertThat(loads).hasValue(1);
+
+        // Any new price can enter a ranking
+        cache.listingsChanged(List.of(2L), true);
+        cache.priceMovements(true, 14, 10, movements);
+        assertThat(loads).hasValue(2);
+
+        cache.invalidateProducts(List.of(9L));
+        cache.priceMovements(true, 14, 10, movements);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void should_MapListingsChangedOnAnotherNodeToTheirProducts() {
+        when(listingRepository.findProductIds(Set.of(7L))).thenReturn(List.of(1L));
+        cache.comparison(1L, () -> comparison(1L));
+        cache.comparison(2L, () -> comparison(2L));
+
+        cache.invalidate(CacheEntity.LISTING, Set.of(7L));
+
+        assertThat(cache.comparison(1L, () -> comparison(10L)).getProductId()).isEqualTo(10L);
+        assertThat(cache.comparison(2L, () -> comparison(20L)).getProductId()).isEqualTo(2L);
+    }
+
+    @Test
+    void should_LoadOnlyMissingSummariesInOneCall() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.productSummaries(List.of(1L, 2L), ids -> summaries(ids, loads));
+
+        // Product 4 no longer exists: left out and not cached
+        Map<Long, Object[]> summaries = cache.productSummaries(List.of(2L, 3L, 4L), ids -> {
+            assertThat(ids).containsExactlyInAnyOrder(3L, 4L);
+            return summaries(Set.of(3L), loads);
+        });
+
+        assertThat(summaries).containsOnlyKeys(2L, 3L);
+        assertThat(loads).hasValue(2);
+        assertThat(stats("product-summaries")).satisfies(stats -> {
+            assertThat(stats.getSize()).isEqualTo(3);
+            assertThat(stats.getHitRatio()).isEqualTo(0.2);
+        });
+    }
+
+    private ResultCacheStatsDTO stats(String name) {
+        return cache.stats().stream().filter(stats -> stats.getCache().equals(name)).findFirst().orElseThrow();
+    }
+
+    private static Map<Long, Object[]> summaries(Set<Long> ids, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return ids.stream().collect(Collectors.toMap(id -> id, id -> new Object[]{id, "Product " + id, BigDecimal.TEN}));
+    }
+
+    private static PriceComparisonDTO comparison(Long productId) {
+        return PriceComparisonDTO.builder().productId(productId).productName("Product " + productId).listings(List.of()).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import com.portfolio.pricetracker.config.ResultCacheConfig;
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.PriceMovementView;
+import com.portfolio.pricetracker.dto.PriceSeriesDTO;
+import com.portfolio.pricetracker.dto.TrendingProductDTO;
+import com.portfolio.pricetracker.entity.PriceRollup;
+import com.portfolio.pricetracker.entity.ProductListing;
+import com.portfolio.pricetracker.entity.RollupResolution;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import com.portfolio.pricetracker.repository.PriceSnapshotReader;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 30);
+
+    @Mock private ProductListingRepository listingRepository;
+    @Mock private PriceHistoryRepository priceHistoryRepository;
+    @Mock private PriceRollupRepository priceRollupRepository;
+    @Mock private PriceMoversBoard moversBoard;
+    @Mock private ProductRepository productRepository;
+    @Mock private TrendingScores trendingScores;
+    @Mock private PriceSnapshotReader snapshotReader;
+
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        analyticsService = new AnalyticsService(listingRepository, priceHistoryRepository,
+                priceRollupRepository, new PriceHistoryConfig(), moversBoard, productRepository, trendingScores,
+                new AnalyticsResultCache(new ResultCacheConfig(), listingRepository), snapshotReader);
+    }
+
+    @Test
+    void should_PickCoarserResolution_When_RangeGrows() {
+        assertThat(analyticsService.selectResolution(NOW.minusHours(12), NOW)).isEqualTo(RollupResolution.RAW);
+        assertThat(analyticsService.selectResolution(NOW.minusDays(7), NOW)).isEqualTo(RollupResolution.HOUR);
+        assertThat(analyticsService.selectResolution(NOW.minusDays(365), NOW)).isEqualTo(RollupResolution.DAY);
+    }
+
+    @Test
+    void should_ReadRawIntervals_When_RangeIsShort() {
+        analyticsService.getPriceSeries(1L, NOW.minusHours(6), NOW);
+
+        verify(priceHistoryRepository).findOverlappingForProduct(1L, NOW.minusHours(6), NOW);
+        verify(priceRollupRepository, never()).findSeries(any(), any(), any(), any());
+    }
+
+    @Test
+    void should_ReadDailyRollupsFromBucketStart_When_RangeIsLong() {
+        PriceRollup rollup = PriceRollup.builder()
+                .listing(ProductListing.builder().id(3L).build())
+                .resolution(RollupResolution.DAY)
+                .bucketStart(LocalDateTime.of(2026, 1, 1, 0, 0))
+                .openPrice(new BigDecimal("599")).highPrice(new BigDecimal("649"))
+                .lowPrice(new BigDecimal("579")).closePrice(new BigDecimal("589"))
+                .sampleCount(4)
+                .build();
+        when(priceRollupRepository.findSeries(1L, RollupResolution.DAY, LocalDateTime.of(2025, 10, 19, 0, 0), NOW))
+                .thenReturn(List.of(rollup));
+
+        PriceSeriesDTO series = analyticsService.getPriceSeries(1L, NOW.minusDays(365), NOW);
+
+        assertThat(series.getResolution()).isEqualTo(RollupResolution.DAY);
+        assertThat(series.getCandles()).singleElement().satisfies(candle -> {
+            assertThat(candle.getListingId()).isEqualTo(3L);
+            assertThat(candle.getHigh()).isEqualByComparingTo("649");
+            assertThat(candle.getClose()).isEqualByComparingTo("589");
+            assertThat(candle.getSampleCount()).isEqualTo(4);
+        });
+    }
+
+    @Test
+    void should_RankPriceDropsInTheDatabase() {
+        PriceMovementView drop = new SpelAwareProxyProjectionFactory().createProjection(PriceMovementView.class, Map.of(
+                "productId", 1L, "productName", "RTX 4070", "listingId", 5L, "sourceName", "Amazon ES",
+                "url", "https://www.amazon.es/dp/B001", "previousPrice", new BigDecimal("599.00"),
+                "currentPrice", new BigDecimal("549.00"), "priceChange", new BigDecimal("-50.00"),
+                "changePercentage", -8.35));
+        when(listingRepository.findTopPriceDrops(any(), eq(10))).thenReturn(List.of(drop));
+
+        List<PriceDropDTO> drops = analyticsService.getTopPriceDrops(7, 10);
+
+        assertThat(drops).singleElement().satisfies(dto -> {
+            assertThat(dto.getListingId()).isEqualTo(5L);
+            assertThat(dto.getSourceName()).isEqualTo("Amazon ES");
+            assertThat(dto.getPriceChange()).isEqualByComparingTo("-50");
+            assertThat(dto.getChangePercentage()).isEqualTo(-8.35);
+        });
+        verify(listingRepository, never()).findAll();
+    }
+
+    @Test
+    void should_ServeMoversFromMemory_When_BoardKeepsTheWindow() {
+        PriceDropDTO increase = PriceDropDTO.builder().listingId(5L).changePercentage(12.5).build();
+        when(moversBoard.topIncreases(Duration.ofDays(1), 10)).thenReturn(Optional.of(List.of(increase)));
+
+        assertThat(analyticsService.getTopPriceIncreases(1, 10)).containsExactly(increase);
+        verify(listingRepository, never()).findTopPriceIncreases(any(), anyInt());
+    }
+
+    @Test
+    void should_ForgetDeletedProductsAndReRank_When_ReadingTrending() {
+        when(trendingScores.top(2))
+                .thenReturn(List.of(new TrendingScores.Score(1L, 9.0), new TrendingScores.Score(2L, 5.0)))
+                .thenReturn(List.of(new TrendingScores.Score(2L, 5.0), new TrendingScores.Score(3L, 4.0)));
+        when(productRepository.findSummaries(Set.of(1L, 2L)))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, "RX 7800 XT", new BigDecimal("499.00")}));
+        // Product 2 is cached by the first read
+        when(productRepository.findSummaries(Set.of(3L)))
+                .thenReturn(List.<Object[]>of(new Object[]{3L, "RTX 4070", null}));
+
+        List<TrendingProductDTO> trending = analyticsService.getTrending(2);
+
+        verify(trendingScores).forget(List.of(1L));
+        assertThat(trending).extracting(TrendingProductDTO::getProductId).containsExactly(2L, 3L);
+        assertThat(trending.get(0).getLowestCurrentPrice()).isEqualByComparingTo("499");
+        assertThat(trending.get(0).getScore()).isEqualTo(5.0);
+    }
+
+    @Test
+    void should_DownsampleEachListing_When_PointsAreRequested() {
+        LocalDateTime from = NOW.minusDays(365);
+        when(priceRollupRepository.streamSeries(eq(1L), eq(RollupResolution.DAY), any(), eq(NOW))).thenReturn(
+                Stream.concat(dailyRows(3L, from, 365), dailyRows(4L, from, 20)));
+
+        PriceSeriesDTO series = analyticsService.getDownsampledSeries(1L, from, NOW, 50);
+
+        Map<Long, List<PriceSeriesDTO.CandleDTO>> byListing = series.getCandles().stream()
+                .collect(Collectors.groupingBy(PriceSeriesDTO.CandleDTO::getListingId));
+        assertThat(byListing.get(3L)).hasSize(50);
+        assertThat(byListing.get(3L).get(0).getTime()).isEqualTo(from.truncatedTo(ChronoUnit.DAYS));
+        assertThat(byListing.get(3L).get(49).getTime()).isEqualTo(from.truncatedTo(ChronoUnit.DAYS).plusDays(364));
+        assertThat(byListing.get(4L)).hasSize(20);
+    }
+
+    @Test
+    void should_RejectPointCountsOutOfRange() {
+        assertThatThrownBy(() -> analyticsService.getDownsampledSeries(1L, NOW.minusDays(1), NOW, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analyticsService.getDownsampledSeries(1L, NOW.minusDays(1), NOW, 1_000_000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_Reject_When_FromIsNotBeforeTo() {
+        assertThatThrownBy(() -> analyticsService.getPriceSeries(1L, NOW, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_RejectSnapshotPageSizesOutOfRange() {
+        assertThatThrownBy(() -> analyticsService.getPriceSnapshot(NOW, null, null, null, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> analyticsService.getPriceSnapshot(NOW, null, null, null, 0, 1_000_000))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(snapshotReader, never()).readPage(any(), any(), any(), any(), anyLong(), anyInt());
+    }
+
+    private static Stream<Object[]> dailyRows(Long listingId, LocalDateTime from, int days) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.DAYS);
+        return IntStream.range(0, days).mapToObj(day -> {
+            BigDecimal price = BigDecimal.valueOf(500 + (day * 37 % 50));
+            return new Object[]{listingId, start.plusDays(day), price, price, price, price, 1};
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.ListingStatisticsDTO;
+import com.portfolio.pricetracker.dto.SourcePriceGapDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// One listing per range, so every listing is scanned by its own fork-join task
+@SpringBootTest(properties = "catalog-statistics.range-listings=1")
+@Testcontainers
+class CatalogStatisticsIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private CatalogStatistics catalogStatistics;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_ComputeListingStatisticsAndSourceGapsFromHistory() {
+        Long productId = jdbcTemplate.queryForObject("""
+                INSERT INTO products (name, normalized_name, category)
+                VALUES ('Stats Keyboard', 'stats keyboard', 'Keyboards') RETURNING id""", Long.class);
+        Long amazon = listing(productId, "AMAZON", "NOW()");
+        Long mediamarkt = listing(productId, "MEDIAMARKT", "NOW() - INTERVAL '5 days'");
+        // 100 for five days, then 110 until an hour ago
+        interval(amazon, productId, "100", "NOW() - INTERVAL '10 days'", "NOW() - INTERVAL '5 days'", "NOW() - INTERVAL '5 days'");
+        interval(amazon, productId, "110", "NOW() - INTERVAL '5 days'", null, "NOW() - INTERVAL '1 hour'");
+        // Last seen five days ago
+        interval(mediamarkt, productId, "120", "NOW() - INTERVAL '10 days'", null, "NOW() - INTERVAL '5 days'");
+
+        long rows = catalogStatistics.run();
+
+        assertThat(rows).isEqualTo(3);
+        double amazonMean = (100 * 120 + 110 * 119) / 239.0;
+        assertThat(catalogStatistics.mostVolatile(10)).satisfies(ranked -> {
+            assertThat(ranked).extracting(ListingStatisticsDTO::getListingId).containsExactly(amazon, mediamarkt);
+            ListingStatisticsDTO first = ranked.get(0);
+            assertThat(first.getIntervalCount()).isEqualTo(2);
+            assertThat(first.getMeanPrice()).isCloseTo(amazonMean, within(0.01));
+            assertThat(first.getMinPrice()).isEqualTo(100);
+            assertThat(first.getMaxPrice()).isEqualTo(110);
+            // One change of ln(1.1) over 239 hours
+            assertThat(first.getVolatility()).isCloseTo(Math.sqrt(Math.pow(Math.log(1.1), 2) / (239 / 24.0)), within(1e-4));
+            assertThat(first.isStale()).isFalse();
+            assertThat(ranked.get(1).getVolatility()).isZero();
+        });
+        assertThat(catalogStatistics.staleListings(10)).extracting(ListingStatisticsDTO::getListingId)
+                .containsExactly(mediamarkt);
+
+        List<SourcePriceGapDTO> gaps = catalogStatistics.sourcePriceGaps();
+        assertThat(gaps).extracting(SourcePriceGapDTO::getSourceName).containsExactly("Amazon ES", "MediaMarkt ES");
+        assertThat(gaps.get(0).getCheapestListings()).isEqualTo(1);
+        assertThat(gaps.get(0).getMeanGapPercent()).isZero();
+        assertThat(gaps.get(1).getCheapestListings()).isZero();
+        assertThat(gaps.get(1).getMeanGapPercent()).isCloseTo((120 / amazonMean - 1) * 100, within(0.01));
+
+        // Replaced, not accumulated, by the next run
+        jdbcTemplate.update("DELETE FROM price_history WHERE listing_id = ?", mediamarkt);
+        catalogStatistics.run();
+        assertThat(catalogStatistics.sourcePriceGaps()).isEmpty();
+        assertThat(catalogStatistics.mostVolatile(10)).extracting(ListingStatisticsDTO::getListingId).containsExactly(amazon);
+        assertThat(catalogStatistics.staleListings(10)).extracting(ListingStatisticsDTO::getListingId)
+                .containsExactly(mediamarkt);
+    }
+
+    @Test
+    void should_SkipTheRun_When_AnotherNodeHoldsTheStatisticsLock() throws Exception {
+        Long productId = jdbcTemplate.queryForObject("""
+                INSERT INTO products (name, normalized_name, category)
+                VALUES ('Locked Mouse', 'locked mouse', 'Mice') RETURNING id""", Long.class);
+        Long listingId = listing(productId, "AMAZON", "NOW()");
+        interval(listingId, productId, "40", "NOW() - INTERVAL '2 days'", null, "NOW()");
+
+        long rows;
+        try (Connection otherNode = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            otherNode.createStatement().execute("SELECT pg_advisory_lock(hashtext('catalog-statistics'))");
+
+            rows = catalogStatistics.run();
+        }
+
+        assertThat(rows).isZero();
+        Integer written = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM listing_statistics WHERE listing_id = ?", Integer.class, listingId);
+        assertThat(written).isZero();
+    }
+
+    private Long listing(Long productId, String scraperType, String lastScrapedAt) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT ?, s.id, s.base_url || '/stats/' || ?, 100, true, %s
+                FROM website_sources s WHERE s.scraper_type = ? RETURNING id""".formatted(lastScrapedAt),
+                Long.class, productId, productId, scraperType);
+    }
+
+    private void interval(Long listingId, Long productId, String price, String scrapedAt, String validTo, String lastConfirmedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, valid_to, last_confirmed_at)
+                VALUES (?, ?, %s, true, %s, %s, %s)""".formatted(price, scrapedAt, validTo == null ? "NULL" : validTo,
+                lastConfirmedAt), listingId, productId);
+    }
+}
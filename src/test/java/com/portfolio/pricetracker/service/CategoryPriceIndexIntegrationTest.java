@@ -0,0 +1,154 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.CategoryPriceIndexDTO;
+import com.portfolio.pricetracker.dto.ProductDTO;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Testcontainers
+class CategoryPriceIndexIntegrationTest {
+
+    private static final String CATEGORY = "Index GPUs";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private ProductService productService;
+    @Autowired private CategoryPriceIndex priceIndex;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_ChainTheGeometricMeanOfEachDaysRelatives() {
+        WebsiteSource amazon = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(
+                item("Index Card A", "https://www.amazon.es/dp/IDX1", "100"),
+                item("Index Card B", "https://www.amazon.es/dp/IDX2", "200"),
+                item("Index Card C", "https://www.amazon.es/dp/IDX3", "50")), amazon);
+        Map<String, Long> listings = new HashMap<>();
+        for (String name : List.of("Index Card A", "Index Card B", "Index Card C")) {
+            Long id = productRepository.searchByKeyword(name).get(0).getId();
+            productService.update(id, ProductDTO.builder().name(name).category(CATEGORY).build());
+            listings.put(name, jdbcTemplate.queryForObject(
+                    "SELECT id FROM product_listings WHERE product_id = ?", Long.class, id));
+        }
+        // Days after the listings were created, so all three are matched from the first one
+        LocalDate day1 = LocalDate.now().plusDays(1);
+        LocalDate day2 = day1.plusDays(1);
+        LocalDate day3 = day2.plusDays(1);
+
+        priceIndex.rollover(day1);
+        // A's two changes make one relative of 1.21; C does not change
+        priceIndex.onEvents(List.of(
+                changed(listings.get("Index Card A"), "100", "110", day1),
+                changed(listings.get("Index Card B"), "200", "180", day1),
+                changed(listings.get("Index Card A"), "110", "121", day1)));
+        dayClose(listings.get("Index Card A"), day1, "121");
+        dayClose(listings.get("Index Card B"), day1, "180");
+        priceIndex.rollover(day2);
+
+        // A listing created on day 2 is not matched yet
+        priceIndex.onEvents(List.of(
+                new ListingCreated(999_999L, 999_999L, "Index Card D", CATEGORY, "https://shop/IDX4", "Amazon ES",
+                        new BigDecimal("10"), true, day2.atTime(9, 0)),
+                changed(999_999L, "10", "20", day2),
+                changed(listings.get("Index Card C"), "50", "60", day2)));
+        dayClose(listings.get("Index Card C"), day2, "60");
+        // Committed, but its event never reached the index (a lagging consumer lost it)
+        dayClose(listings.get("Index Card B"), day2, "198");
+
+        CategoryPriceIndexDTO provisional = priceIndex.series(CATEGORY, day1, day2);
+        assertThat(provisional.getBase()).isEqualTo(100);
+        assertThat(provisional.getPoints()).hasSize(2);
+        assertThat(provisional.getPoints().get(0)).satisfies(point -> {
+            assertThat(point.getDate()).isEqualTo(day1);
+            assertThat(point.getValue()).isCloseTo(102.88, within(0.01));
+            assertThat(point.getChangePercent()).isCloseTo(2.88, within(0.01));
+            assertThat(point.getMatchedListings()).isEqualTo(3);
+            // Closed from the rollups: one relative per listing whose close changed
+            assertThat(point.getPriceChanges()).isEqualTo(2);
+            assertThat(point.isProvisional()).isFalse();
+        });
+        assertThat(provisional.getPoints().get(1)).satisfies(point -> {
+            assertThat(point.getValue()).isCloseTo(109.33, within(0.01));
+            assertThat(point.getPriceChanges()).isEqualTo(1);
+            assertThat(point.isProvisional()).isTrue();
+        });
+
+        priceIndex.rollover(day3);
+
+        CategoryPriceIndexDTO closed = priceIndex.series(CATEGORY, day2, day3);
+        assertThat(closed.getPoints()).hasSize(2);
+        assertThat(closed.getPoints().get(0)).satisfies(point -> {
+            // B's 180 -> 198 counts although no event reported it
+            assertThat(point.getValue()).isCloseTo(112.86, within(0.01));
+            assertThat(point.getChangePercent()).isCloseTo(9.70, within(0.01));
+            assertThat(point.getMatchedListings()).isEqualTo(3);
+            assertThat(point.getPriceChanges()).isEqualTo(2);
+            assertThat(point.isProvisional()).isFalse();
+        });
+        assertThat(closed.getPoints().get(1)).satisfies(point -> {
+            assertThat(point.getDate()).isEqualTo(day3);
+            assertThat(point.getValue()).isCloseTo(112.86, within(0.01));
+            assertThat(point.getChangePercent()).isZero();
+            assertThat(point.isProvisional()).isTrue();
+        });
+
+        assertThatThrownBy(() -> priceIndex.series("No Such Category", day1, day3))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    private void dayClose(Long listingId, LocalDate day, String closePrice) {
+        BigDecimal close = new BigDecimal(closePrice);
+        jdbcTemplate.update("""
+                        INSERT INTO price_rollups (listing_id, product_id, resolution, bucket_start,
+                                                   open_price, high_price, low_price, close_price, sample_count)
+                        SELECT id, product_id, 'DAY', ?, ?, ?, ?, ?, 1 FROM product_listings WHERE id = ?""",
+                day.atStartOfDay(), close, close, close, close, listingId);
+    }
+
+    private static PriceChanged changed(Long listingId, String previousPrice, String price, LocalDate day) {
+        return new PriceChanged(listingId, listingId, "Index Card", CATEGORY, "https://shop/" + listingId, "Amazon ES",
+                new BigDecimal(previousPrice), new BigDecimal(price), true, true, day.atTime(12, 0));
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.CategoryPercentilesDTO;
+import com.portfolio.pricetracker.dto.ProductDTO;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import com.portfolio.pricetracker.service.event.PriceEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Testcontainers
+class CategoryPricePercentilesIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private ProductService productService;
+    @Autowired private CategoryPricePercentiles percentiles;
+    @Autowired private PriceEventBus eventBus;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+
+    @Test
+    void should_CountCategorizedListings_And_ReadPastDaysFromSnapshots() throws InterruptedException {
+        WebsiteSource amazon = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(
+                item("Percentile Monitor A", "https://www.amazon.es/dp/PCT1", "150"),
+                item("Percentile Monitor B", "https://www.amazon.es/dp/PCT2", "250"),
+                item("Percentile Monitor C", "https://www.amazon.es/dp/PCT3", "350")), amazon);
+        // The ListingCreated events carry no category yet; let them be consumed first
+        awaitTrue(() -> eventBus.stats().stream().anyMatch(stats ->
+                stats.getConsumer().equals("CategoryPricePercentiles") && stats.getProcessed() >= 3 && stats.getLag() == 0));
+
+        for (String name : List.of("Percentile Monitor A", "Percentile Monitor B", "Percentile Monitor C")) {
+            Long id = productRepository.searchByKeyword(name).get(0).getId();
+            productService.update(id, ProductDTO.builder().name(name).category("Percentile Monitors").build());
+        }
+
+        CategoryPercentilesDTO current = percentiles.current("Percentile Monitors", List.of(0.0, 0.5, 1.0));
+        assertThat(current.getListingCount()).isEqualTo(3);
+        assertThat(current.getDate()).isNull();
+        assertThat(current.getPercentiles().get("p50").doubleValue()).isCloseTo(250, within(2.5));
+
+        percentiles.snapshot();
+
+        List<CategoryPercentilesDTO> history = percentiles.history("Percentile Monitors",
+                LocalDate.now().minusDays(7), LocalDate.now(), List.of(0.0, 1.0));
+        assertThat(history).singleElement().satisfies(day -> {
+            assertThat(day.getDate()).isEqualTo(LocalDate.now());
+            assertThat(day.getListingCount()).isEqualTo(3);
+            assertThat(day.getPercentiles().get("p0").doubleValue()).isCloseTo(150, within(1.5));
+            assertThat(day.getPercentiles().get("p100").doubleValue()).isCloseTo(350, within(3.5));
+        });
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
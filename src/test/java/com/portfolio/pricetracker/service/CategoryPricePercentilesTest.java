@@ -0,0 +1,124 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PercentilesConfig;
+import com.portfolio.pricetracker.dto.CategoryPercentilesDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryPricePercentilesTest {
+
+    private static final List<Double> MEDIAN_AND_MAX = List.of(0.5, 1.0);
+
+    @Mock private ProductListingRepository listingRepository;
+
+    private CategoryPricePercentiles percentiles;
+
+    @BeforeEach
+    void setUp() {
+        percentiles = new CategoryPricePercentiles(new PercentilesConfig(), listingRepository, null, null);
+    }
+
+    @Test
+    void should_MoveAListingsValue_When_ItsPriceChanges() {
+        percentiles.onEvents(List.of(
+                created(1L, 10L, "GPU", "100.00"), created(2L, 20L, "GPU", "200.00"), created(3L, 30L, "GPU", "300.00"),
+                created(4L, 40L, "Monitors", "250.00"), created(5L, 50L, null, "999.00")));
+
+        percentiles.onEvents(List.of(changed(3L, 30L, "GPU", "300.00", "400.00")));
+
+        CategoryPercentilesDTO gpus = percentiles.current("GPU", MEDIAN_AND_MAX);
+        assertThat(gpus.getListingCount()).isEqualTo(3);
+        assertThat(gpus.getPercentiles()).containsOnlyKeys("p50", "p100");
+        assertThat(gpus.getPercentiles().get("p50").doubleValue()).isCloseTo(200, within(2.0));
+        assertThat(gpus.getPercentiles().get("p100").doubleValue()).isCloseTo(400, within(4.0));
+        assertThat(percentiles.current("Monitors", List.of(0.5)).getListingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_RecountListingsOfProductsChangedOrDeleted() {
+        percentiles.onEvents(List.of(
+                created(1L, 10L, "GPU", "100.00"), created(2L, 10L, "GPU", "110.00"), created(3L, 20L, "GPU", "300.00")));
+        // Product 10 moved to Monitors with one listing left; product 20 deleted
+        when(listingRepository.findCategoryPricesByProductIds(Set.of(10L, 20L)))
+                .thenReturn(rows(new Object[]{1L, 10L, "Monitors", new BigDecimal("100.00")}));
+
+        percentiles.reloadProducts(List.of(10L, 20L));
+
+        assertThat(percentiles.current("Monitors", List.of(0.5)).getListingCount()).isEqualTo(1);
+        assertThatThrownBy(() -> percentiles.current("GPU", List.of(0.5))).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void should_ReloadListingsChangedOnAnotherNode() {
+        percentiles.onEvents(List.of(created(1L, 10L, "GPU", "100.00"), created(2L, 20L, "GPU", "200.00")));
+        when(listingRepository.findCategoryPrices(Set.of(1L, 2L)))
+                .thenReturn(rows(new Object[]{1L, 10L, "GPU", new BigDecimal("500.00")}));
+
+        percentiles.invalidate(CacheEntity.LISTING, Set.of(1L, 2L));
+
+        CategoryPercentilesDTO gpus = percentiles.current("GPU", List.of(0.5));
+        assertThat(gpus.getListingCount()).isEqualTo(1);
+        assertThat(gpus.getPercentiles().get("p50").doubleValue()).isCloseTo(500, within(5.0));
+    }
+
+    @Test
+    void should_ReplaceTheCountsWithProductListings_When_Rebuilt() {
+        percentiles.onEvents(List.of(created(9L, 90L, "GPU", "100.00")));
+        when(listingRepository.streamCategoryPrices()).thenReturn(Stream.of(
+                new Object[]{1L, 10L, "GPU", new BigDecimal("150.00")},
+                new Object[]{2L, 20L, "GPU", new BigDecimal("250.00")},
+                new Object[]{3L, 30L, "Monitors", new BigDecimal("199.99")}));
+
+        percentiles.rebuild();
+
+        assertThat(percentiles.current("GPU", List.of(0.0)).getPercentiles().get("p0").doubleValue())
+                .isCloseTo(150, within(1.5));
+        assertThat(percentiles.current("GPU", List.of(0.5)).getListingCount()).isEqualTo(2);
+        assertThat(percentiles.current("Monitors", List.of(0.995)).getPercentiles()).containsOnlyKeys("p99.5");
+    }
+
+    @Test
+    void should_RejectQuantilesOutsideZeroToOne() {
+        percentiles.onEvents(List.of(created(1L, 10L, "GPU", "100.00")));
+
+        assertThatThrownBy(() -> percentiles.current("GPU", List.of(0.5, 50.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> percentiles.current("GPU", List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static ListingCreated created(Long listingId, Long productId, String category, String price) {
+        return new ListingCreated(listingId, productId, "Product " + productId, category, "https://shop/" + listingId,
+                "Amazon ES", new BigDecimal(price), true, LocalDateTime.now());
+    }
+
+    private static PriceChanged changed(Long listingId, Long productId, String category, String previous, String price) {
+        return new PriceChanged(listingId, productId, "Product " + productId, category, "https://shop/" + listingId,
+                "Amazon ES", new BigDecimal(previous), new BigDecimal(price), true, true, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,85 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.portfolio.pricetracker.config.NotificationConfig;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the HTTP channel against a local stand-in receiver.
+ */
+class HttpAlertNotifierTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private HttpServer server;
+    private HttpAlertNotifier notifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/digests", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+
+        NotificationConfig config = new NotificationConfig();
+        config.getHttp().setUrl("http://localhost:" + server.getAddress().getPort() + "/digests");
+        config.getHttp().setTimeout(Duration.ofSeconds(2));
+        notifier = new HttpAlertNotifier(config, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void should_PostOneDigestPerCall() {
+        notifier.notify("user@test.com", List.of(notification(1L, "RTX 4070"), notification(2L, "RTX 4080")));
+
+        assertThat(received).singleElement().satisfies(body -> {
+            assertThat(body.get("userEmail").asText()).isEqualTo("user@test.com");
+            assertThat(body.get("alerts")).hasSize(2);
+            assertThat(body.get("alerts").get(1).get("productName").asText()).isEqualTo("RTX 4080");
+        });
+    }
+
+    @Test
+    void should_Throw_When_ReceiverRejectsDigest() {
+        status.set(503);
+
+        assertThatThrownBy(() -> notifier.notify("user@test.com", List.of(notification(1L, "RTX 4070"))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("503");
+    }
+
+    private static AlertNotification notification(Long id, String productName) {
+        return AlertNotification.builder()
+                .id(id).alertId(id).userEmail("user@test.com")
+                .productId(id).productName(productName)
+                .targetPrice(new BigDecimal("500")).currentPrice(new BigDecimal("489"))
+                .nextAttemptAt(LocalDateTime.now()).createdAt(LocalDateTime.now())
+                .build();
+    }
+}
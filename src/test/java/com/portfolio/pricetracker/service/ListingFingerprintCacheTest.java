@@ -0,0 +1,73 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.IngestionConfig;
+import com.portfolio.pricetracker.dto.ListingFingerprint;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingFingerprintCacheTest {
+
+    @Mock private ProductListingRepository listingRepository;
+
+    @Test
+    void should_RecogniseUnchangedItem_When_RebuiltFromDatabase() {
+        ListingFingerprintCache cache = newCache(100);
+        when(listingRepository.findFingerprints(PageRequest.of(0, 100))).thenReturn(List.of(
+                new ListingFingerprint("https://shop/1", 1L, new BigDecimal("499.00"), true)));
+
+        cache.rebuild();
+
+        assertThat(cache.findUnchangedListing(item("https://shop/1", "499", true))).contains(1L);
+        assertThat(cache.findUnchangedListing(item("https://shop/1", "489", true))).isEmpty();
+        assertThat(cache.findUnchangedListing(item("https://shop/1", "499", false))).isEmpty();
+        assertThat(cache.findUnchangedListing(item("https://shop/2", "499", true))).isEmpty();
+    }
+
+    @Test
+    void should_StayWithinMaximumSize() {
+        ListingFingerprintCache cache = newCache(10);
+
+        for (long i = 0; i < 1_000; i++) {
+            cache.put(new ListingFingerprint("https://shop/" + i, i, BigDecimal.TEN, true));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void should_ForgetListingsChangedOnAnotherNode() {
+        ListingFingerprintCache cache = newCache(100);
+        cache.put(new ListingFingerprint("https://shop/1", 1L, new BigDecimal("499.00"), true));
+        cache.put(new ListingFingerprint("https://shop/2", 2L, new BigDecimal("299.00"), true));
+
+        cache.invalidate(CacheEntity.LISTING, Set.of(1L));
+        cache.invalidate(CacheEntity.PRODUCT, Set.of(2L));
+
+        assertThat(cache.findUnchangedListing(item("https://shop/1", "499", true))).isEmpty();
+        assertThat(cache.findUnchangedListing(item("https://shop/2", "299", true))).contains(2L);
+    }
+
+    private ListingFingerprintCache newCache(long size) {
+        IngestionConfig config = new IngestionConfig();
+        config.setFingerprintCacheSize(size);
+        return new ListingFingerprintCache(config, listingRepository);
+    }
+
+    private static ScrapedProductDTO item(String url, String price, boolean inStock) {
+        return ScrapedProductDTO.builder().url(url).price(new BigDecimal(price)).inStock(inStock).build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.PriceComparisonDTO;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ListingPriceStats;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.ListingPriceStatsRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+@SpringBootTest
+@Testcontainers
+class ListingPriceStatsIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private ProductService productService;
+    @Autowired private ListingPriceStatsRepository statsRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_UpdateStatsOnPriceChangesAndServeThemWithTheComparison() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        for (String price : List.of("500", "400", "400", "450", "520")) {
+            unificationService.saveResults(List.of(item("Stats Monitor", "https://www.amazon.es/dp/STATS1", price)), source);
+        }
+
+        Long listingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings WHERE url = 'https://www.amazon.es/dp/STATS1'", Long.class);
+        ListingPriceStats stats = statsRepository.findById(listingId).orElseThrow();
+        // The repeated 400 is not a new level, it extends the 400 one
+        assertThat(stats.getPriceCount()).isEqualTo(4);
+        // Ended levels weigh as long as they were in effect; 520 is still current
+        List<PriceLevel> levels = jdbcTemplate.query(
+                "SELECT price, scraped_at FROM price_history WHERE listing_id = ? ORDER BY scraped_at",
+                (rs, i) -> new PriceLevel(rs.getDouble(1), rs.getTimestamp(2).toLocalDateTime()), listingId);
+        assertThat(levels).extracting(PriceLevel::price).containsExactly(500.0, 400.0, 450.0, 520.0);
+        double weight = 0;
+        double sum = 0;
+        for (int i = 0; i < levels.size() - 1; i++) {
+            double seconds = Duration.between(levels.get(i).since(), levels.get(i + 1).since()).toNanos() / 1e9;
+            weight += seconds;
+            sum += seconds * levels.get(i).price();
+        }
+        // Stored timestamps keep microseconds only
+        assertThat(stats.getObservedSeconds()).isCloseTo(weight, within(1e-5));
+        assertThat(stats.getMeanPrice()).isCloseTo(sum / weight, within(0.01));
+        assertThat(stats.getMeanPrice()).isBetween(400.0, 500.0);
+        assertThat(stats.getLevelSince()).isEqualTo(levels.get(3).since());
+
+        PriceComparisonDTO comparison = analyticsService.compareProduct(stats.getProductId());
+        assertThat(comparison.getListings()).singleElement().satisfies(listing -> {
+            assertThat(listing.getAllTimeLow()).isEqualByComparingTo("400");
+            assertThat(listing.getLow30Days()).isEqualByComparingTo("400");
+            assertThat(listing.getLow90Days()).isEqualByComparingTo("400");
+            assertThat(listing.getMeanPrice()).isCloseTo(stats.getMeanPrice(), within(0.005));
+            assertThat(listing.getPriceStdDev()).isCloseTo(
+                    ListingPriceStats.standardDeviation(stats.getObservedSeconds(), stats.getM2()), within(0.005));
+            assertThat(listing.getDealScore()).isEqualTo(stats.getDealScore());
+        });
+        // 520 is above every earlier price, so above the mean whatever their weights
+        assertThat(productService.findById(stats.getProductId()).getDealScore()).isLessThan(50);
+    }
+
+    @Test
+    void should_BackfillStatsFromPriceHistory() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.MEDIAMARKT).orElseThrow();
+        for (String price : List.of("300", "250", "280")) {
+            unificationService.saveResults(List.of(item("Stats Speaker", "https://www.mediamarkt.es/product/STATS2", price)), source);
+        }
+        Long listingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings WHERE url = 'https://www.mediamarkt.es/product/STATS2'", Long.class);
+        ListingPriceStats maintained = statsRepository.findById(listingId).orElseThrow();
+
+        // Re-run the V23 backfill and compare with what ingestion kept
+        jdbcTemplate.update("DELETE FROM listing_price_stats");
+        String migration = readMigration();
+        jdbcTemplate.execute(migration.substring(migration.indexOf("WITH levels AS")));
+        ListingPriceStats backfilled = statsRepository.findById(listingId).orElseThrow();
+
+        assertThat(backfilled.getPriceCount()).isEqualTo(maintained.getPriceCount());
+        // Ingestion weighs levels from in-memory timestamps, the backfill from stored ones
+        assertThat(backfilled.getObservedSeconds()).isCloseTo(maintained.getObservedSeconds(), within(1e-5));
+        assertThat(backfilled.getMeanPrice()).isCloseTo(maintained.getMeanPrice(), within(0.01));
+        assertThat(backfilled.getM2()).isCloseTo(maintained.getM2(), withinPercentage(0.1));
+        assertThat(backfilled.getLevelSince()).isEqualTo(maintained.getLevelSince());
+        assertThat(backfilled.getAllTimeLow()).isEqualByComparingTo(maintained.getAllTimeLow());
+        assertThat(backfilled.getRecentLows()).extracting(ListingPriceStats.RecentLow::price)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyElementsOf(maintained.getRecentLows().stream().map(ListingPriceStats.RecentLow::price).toList());
+        assertThat(backfilled.getDealScore()).isCloseTo(maintained.getDealScore(), within(0.1));
+    }
+
+    private static String readMigration() {
+        try (InputStream in = ListingPriceStatsIntegrationTest.class.getResourceAsStream(
+                "/db/migration/V23__create_listing_price_stats.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record PriceLevel(double price, LocalDateTime since) {
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+}
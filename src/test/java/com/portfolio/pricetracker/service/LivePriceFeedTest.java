@@ -0,0 +1,151 @@
+package com.portfolio.pricetracker.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.portfolio.pricetracker.config.FeedConfig;
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LivePriceFeedTest {
+
+    private final ExecutorService slowExecutor = Executors.newSingleThreadExecutor();
+    private LivePriceFeed feed = new LivePriceFeed(new FeedConfig(), MoreExecutors.newDirectExecutorService());
+
+    @AfterEach
+    void tearDown() {
+        slowExecutor.shutdownNow();
+    }
+
+    @Test
+    void should_DeliverOnlyEventsOfSubscribedProductsAndCategories() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, List.of(1L), List.of("gpu"));
+
+        feed.publish(event(1L, 10L, null, "499.00"));
+        feed.publish(event(2L, 20L, "GPU", "299.00"));
+        feed.publish(event(3L, 30L, "CPU", "199.00"));
+
+        assertThat(emitter.events).extracting(PriceChangeEventDTO::getProductId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void should_DeliverOnce_When_ProductAndCategoryBothMatch() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, List.of(1L), List.of("GPU"));
+
+        feed.publish(event(1L, 10L, "GPU", "499.00"));
+
+        assertThat(emitter.events).hasSize(1);
+        assertThat(feed.conflatedEvents()).isZero();
+    }
+
+    @Test
+    void should_KeepOnlyLatestValuePerListing_When_ClientIsSlow() throws Exception {
+        feed = new LivePriceFeed(new FeedConfig(), slowExecutor);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.gate = new CountDownLatch(1);
+        feed.subscribe(emitter, List.of(1L), List.of());
+
+        feed.publish(event(1L, 10L, null, "500.00"));
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        feed.publish(event(1L, 10L, null, "490.00"));
+        feed.publish(event(1L, 10L, null, "480.00"));
+        feed.publish(event(1L, 11L, null, "300.00"));
+        feed.publish(event(1L, 10L, null, "470.00"));
+        emitter.gate.countDown();
+
+        awaitTrue(() -> emitter.events.size() == 3);
+        assertThat(emitter.events).extracting(e -> e.getPrice().toPlainString())
+                .containsExactly("500.00", "470.00", "300.00");
+        assertThat(feed.conflatedEvents()).isEqualTo(2);
+    }
+
+    @Test
+    void should_DropSubscriber_When_WriteFails() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.broken = true;
+        feed.subscribe(emitter, List.of(1L), List.of());
+
+        feed.publish(event(1L, 10L, null, "499.00"));
+
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void should_SendHeartbeatComment() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter, List.of(1L), List.of());
+
+        feed.heartbeat();
+
+        assertThat(emitter.comments.get()).isEqualTo(1);
+        assertThat(emitter.events).isEmpty();
+    }
+
+    @Test
+    void should_Reject_When_NothingToSubscribeTo() {
+        assertThatThrownBy(() -> feed.subscribe(new RecordingEmitter(), List.of(), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static PriceChangeEventDTO event(Long productId, Long listingId, String category, String price) {
+        return PriceChangeEventDTO.builder()
+                .productId(productId).listingId(listingId).category(category)
+                .price(new BigDecimal(price)).inStock(true)
+                .build();
+    }
+
+    /**
+     * Captures what would be written to the client; can block to play a slow reader.
+     */
+    static class RecordingEmitter extends SseEmitter {
+
+        final List<PriceChangeEventDTO> events = new CopyOnWriteArrayList<>();
+        final AtomicInteger comments = new AtomicInteger();
+        final CountDownLatch sending = new CountDownLatch(1);
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        volatile boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (broken) throw new IOException("Broken pipe");
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof PriceChangeEventDTO event) {
+                    events.add(event);
+                } else if (part.getData() instanceof String text && text.startsWith(":")) {
+                    comments.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.portfolio.pricetracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LttbDownsamplerTest {
+
+    private record Point(double x, double y) {
+    }
+
+    @Test
+    void should_ReturnSeriesAsIs_When_ItFitsTheThreshold() {
+        List<Point> points = line(10);
+
+        assertThat(LttbDownsampler.downsample(points, 10, Point::x, Point::y)).isSameAs(points);
+    }
+
+    @Test
+    void should_KeepEndsAndThresholdPoints() {
+        List<Point> points = line(1_000);
+
+        List<Point> sampled = LttbDownsampler.downsample(points, 50, Point::x, Point::y);
+
+        assertThat(sampled).hasSize(50);
+        assertThat(sampled.get(0)).isEqualTo(points.get(0));
+        assertThat(sampled.get(49)).isEqualTo(points.get(999));
+        assertThat(sampled).isSortedAccordingTo((a, b) -> Double.compare(a.x(), b.x()));
+    }
+
+    @Test
+    void should_KeepSpikesThatStridingWouldMiss() {
+        List<Point> points = IntStream.range(0, 1_000)
+                .mapToObj(i -> new Point(i, i == 333 ? 10 : i == 667 ? -10 : 0))
+                .toList();
+
+        List<Point> sampled = LttbDownsampler.downsample(points, 10, Point::x, Point::y);
+
+        assertThat(sampled).extracting(Point::y).contains(10.0, -10.0);
+    }
+
+    @Test
+    void should_KeepOnlyEnds_When_ThresholdIsTwo() {
+        List<Point> points = line(5);
+
+        assertThat(LttbDownsampler.downsample(points, 2, Point::x, Point::y)).containsExactly(points.get(0), points.get(4));
+    }
+
+    private static List<Point> line(int size) {
+        return IntStream.range(0, size).mapToObj(i -> new Point(i, Math.sin(i / 10.0))).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.portfolio.pricetracker.service;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.portfolio.pricetracker.config.NotificationConfig;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.portfolio.pricetracker.entity.NotificationStatus;
+import com.portfolio.pricetracker.repository.AlertNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class NotificationDispatcherTest {
+
+    @Mock private AlertNotificationRepository notificationRepository;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private final List<String> deliveredDigests = new ArrayList<>();
+    private final List<String> failingUsers = new ArrayList<>();
+    private NotificationConfig config;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config = new NotificationConfig();
+        config.setMaxAttempts(3);
+        AlertNotifier notifier = (user, notifications) -> {
+            if (failingUsers.contains(user)) throw new IllegalStateException("endpoint down");
+            deliveredDigests.add(user + ":" + notifications.size());
+        };
+        dispatcher = new NotificationDispatcher(notificationRepository, notifier, transactionTemplate, config,
+                MoreExecutors.newDirectExecutorService());
+
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void should_CoalesceNotificationsIntoOneDigestPerUser() {
+        when(notificationRepository.findDueForUpdate(eq(NotificationStatus.PENDING), any(), any())).thenReturn(List.of(
+                notification(1L, "a@test.com"), notification(2L, "b@test.com"), notification(3L, "a@test.com")));
+
+        int claimed = dispatcher.dispatchBatch();
+
+        assertThat(claimed).isEqualTo(3);
+        assertThat(deliveredDigests).containsExactly("a@test.com:2", "b@test.com:1");
+        verify(notificationRepository).markSent(eq(List.of(1L, 3L)), any());
+        verify(notificationRepository).markSent(eq(List.of(2L)), any());
+    }
+
+    @Test
+    void should_ClaimRowsByBumpingAttemptsAndNextAttempt() {
+        AlertNotification due = notification(1L, "a@test.com");
+        when(notificationRepository.findDueForUpdate(eq(NotificationStatus.PENDING), any(), any())).thenReturn(List.of(due));
+        failingUsers.add("a@test.com");
+
+        dispatcher.dispatchBatch();
+
+        assertThat(due.getAttempts()).isEqualTo(1);
+        assertThat(due.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+        assertThat(due.getStatus()).isEqualTo(NotificationStatus.PENDING);
+        assertThat(due.getLastError()).isEqualTo("endpoint down");
+        verify(notificationRepository).saveAll(List.of(due));
+        verify(notificationRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    void should_MarkFailed_When_MaxAttemptsReached() {
+        AlertNotification notification = notification(1L, "a@test.com");
+        notification.setAttempts(3);
+
+        dispatcher.scheduleRetry(notification, "endpoint down");
+
+        assertThat(notification.getStatus()).isEqualTo(NotificationStatus.FAILED);
+    }
+
+    @Test
+    void should_BackOffExponentially_When_Retrying() {
+        AlertNotification notification = notification(1L, "a@test.com");
+        notification.setAttempts(2);
+
+        dispatcher.scheduleRetry(notification, "endpoint down");
+
+        // 30s base doubled once
+        assertThat(notification.getNextAttemptAt())
+                .isBetween(LocalDateTime.now().plusSeconds(55), LocalDateTime.now().plusSeconds(61));
+    }
+
+    private static AlertNotification notification(Long id, String user) {
+        return AlertNotification.builder()
+                .id(id).alertId(id).userEmail(user)
+                .productId(1L).productName("RTX 4070")
+                .targetPrice(new BigDecimal("500")).currentPrice(new BigDecimal("489"))
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
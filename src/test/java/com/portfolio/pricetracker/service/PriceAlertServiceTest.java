@@ -2,11 +2,18 @@ package com.portfolio.pricetracker.service;
 
 import com.portfolio.pricetracker.dto.CreateAlertRequest;
 import com.portfolio.pricetracker.dto.PriceAlertDTO;
+import com.portfolio.pricetracker.entity.AlertNotification;
+import com.portfolio.pricetracker.entity.AlertRuleType;
 import com.portfolio.pricetracker.entity.AlertStatus;
 import com.portfolio.pricetracker.entity.PriceAlert;
 import com.portfolio.pricetracker.entity.Product;
+import com.portfolio.pricetracker.entity.RollupResolution;
+import com.portfolio.pricetracker.repository.AlertNotificationRepository;
 import com.portfolio.pricetracker.repository.PriceAlertRepository;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import com.portfolio.pricetracker.repository.ProductListingRepository;
 import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,11 +21,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,7 +43,13 @@ class PriceAlertServiceTest {
 
     @Mock private PriceAlertRepository alertRepository;
     @Mock private ProductRepository productRepository;
-    @Mock private AlertNotifier alertNotifier;
+    @Mock private ProductListingRepository listingRepository;
+    @Mock private PriceRollupRepository priceRollupRepository;
+    @Mock private AlertNotificationRepository notificationRepository;
+    @Spy private AlertBook alertBook = new AlertBook();
+    @Spy private AlertEngine alertEngine = new AlertEngine(alertBook);
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private CacheInvalidationPublisher cacheInvalidations;
 
     @InjectMocks
     private PriceAlertService service;
@@ -40,7 +58,13 @@ class PriceAlertServiceTest {
     private PriceAlert activeAlert;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        lenient().doAnswer(inv -> {
+            ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
         product = Product.builder().id(1L).name("RTX 4070").build();
 
         activeAlert = PriceAlert.builder()
@@ -54,7 +78,8 @@ class PriceAlertServiceTest {
 
     @Test
     void should_CreateAlert_Successfully() {
-        CreateAlertRequest request = new CreateAlertRequest("user@test.com", 1L, new BigDecimal("500.00"));
+        CreateAlertRequest request = CreateAlertRequest.builder()
+                .userEmail("user@test.com").productId(1L).targetPrice(new BigDecimal("500.00")).build();
 
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(alertRepository.save(any())).thenAnswer(inv -> {
@@ -69,52 +94,60 @@ class PriceAlertServiceTest {
         assertThat(result.getUserEmail()).isEqualTo("user@test.com");
         assertThat(result.getTargetPrice()).isEqualByComparingTo("500.00");
         assertThat(result.getStatus()).isEqualTo(AlertStatus.ACTIVE);
+        assertThat(alertBook.findTriggered(1L, new BigDecimal("499.99"))).containsExactly(10L);
     }
 
     @Test
     void should_ThrowException_When_ProductNotFound() {
         when(productRepository.findById(99L)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> service.createAlert(new CreateAlertRequest("u@t.com", 99L, BigDecimal.TEN)))
+        assertThatThrownBy(() -> service.createAlert(CreateAlertRequest.builder()
+                .userEmail("u@t.com").productId(99L).targetPrice(BigDecimal.TEN).build()))
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("99");
     }
 
     @Test
     void should_TriggerAlert_When_PriceDropsBelowTarget() {
-        when(alertRepository.findByProduct_IdAndStatus(1L, AlertStatus.ACTIVE))
-                .thenReturn(List.of(activeAlert));
+        addToBook(activeAlert);
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of(activeAlert));
         when(alertRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        service.checkAlerts(1L, new BigDecimal("450.00"));
+        service.checkAlerts(1L, 100L, new BigDecimal("450.00"), true);
 
         ArgumentCaptor<PriceAlert> captor = ArgumentCaptor.forClass(PriceAlert.class);
         verify(alertRepository).save(captor.capture());
         assertThat(captor.getValue().getStatus()).isEqualTo(AlertStatus.TRIGGERED);
         assertThat(captor.getValue().getTriggeredAt()).isNotNull();
-        verify(alertNotifier).notify(activeAlert, new BigDecimal("450.00"));
+        ArgumentCaptor<AlertNotification> outbox = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notificationRepository).save(outbox.capture());
+        assertThat(outbox.getValue().getAlertId()).isEqualTo(10L);
+        assertThat(outbox.getValue().getUserEmail()).isEqualTo("user@test.com");
+        assertThat(outbox.getValue().getProductName()).isEqualTo("RTX 4070");
+        assertThat(outbox.getValue().getCurrentPrice()).isEqualByComparingTo("450.00");
+        assertThat(alertBook.size()).isZero();
     }
 
     @Test
     void should_TriggerAlert_When_PriceEqualsTarget() {
-        when(alertRepository.findByProduct_IdAndStatus(1L, AlertStatus.ACTIVE))
-                .thenReturn(List.of(activeAlert));
+        addToBook(activeAlert);
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of(activeAlert));
         when(alertRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        service.checkAlerts(1L, new BigDecimal("500.00"));
+        service.checkAlerts(1L, 100L, new BigDecimal("500.00"), true);
 
-        verify(alertNotifier).notify(any(), any());
+        verify(notificationRepository).save(any());
     }
 
     @Test
     void should_NotTriggerAlert_When_PriceAboveTarget() {
-        when(alertRepository.findByProduct_IdAndStatus(1L, AlertStatus.ACTIVE))
-                .thenReturn(List.of(activeAlert));
+        addToBook(activeAlert);
 
-        service.checkAlerts(1L, new BigDecimal("600.00"));
+        service.checkAlerts(1L, 100L, new BigDecimal("600.00"), true);
 
+        verify(alertRepository, never()).findAllById(any());
         verify(alertRepository, never()).save(any());
-        verify(alertNotifier, never()).notify(any(), any());
+        verify(notificationRepository, never()).save(any());
     }
 
     @Test
@@ -131,16 +164,18 @@ class PriceAlertServiceTest {
 
     @Test
     void should_DeleteAlert_Successfully() {
-        when(alertRepository.existsById(10L)).thenReturn(true);
+        addToBook(activeAlert);
+        when(alertRepository.findById(10L)).thenReturn(Optional.of(activeAlert));
 
         service.deleteAlert(10L);
 
-        verify(alertRepository).deleteById(10L);
+        verify(alertRepository).delete(activeAlert);
+        assertThat(alertBook.size()).isZero();
     }
 
     @Test
     void should_ThrowException_When_DeletingNonExistentAlert() {
-        when(alertRepository.existsById(99L)).thenReturn(false);
+        when(alertRepository.findById(99L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> service.deleteAlert(99L))
                 .isInstanceOf(EntityNotFoundException.class)
@@ -149,13 +184,11 @@ class PriceAlertServiceTest {
 
     @Test
     void should_DoNothing_When_NoActiveAlertsExist() {
-        when(alertRepository.findByProduct_IdAndStatus(1L, AlertStatus.ACTIVE))
-                .thenReturn(List.of());
-
-        service.checkAlerts(1L, new BigDecimal("450.00"));
+        service.checkAlerts(1L, 100L, new BigDecimal("450.00"), true);
 
+        verifyNoInteractions(alertRepository);
         verify(alertRepository, never()).save(any());
-        verify(alertNotifier, never()).notify(any(), any());
+        verify(notificationRepository, never()).save(any());
     }
 
     @Test
@@ -166,15 +199,17 @@ class PriceAlertServiceTest {
                 .targetPrice(new BigDecimal("300.00"))
                 .status(AlertStatus.ACTIVE).build();
 
-        when(alertRepository.findByProduct_IdAndStatus(1L, AlertStatus.ACTIVE))
-                .thenReturn(List.of(activeAlert, lowTargetAlert));
+        addToBook(activeAlert);
+        addToBook(lowTargetAlert);
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of(activeAlert));
         when(alertRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        service.checkAlerts(1L, new BigDecimal("450.00"));
+        service.checkAlerts(1L, 100L, new BigDecimal("450.00"), true);
 
         verify(alertRepository, times(1)).save(any());
-        verify(alertNotifier, times(1)).notify(eq(activeAlert), any());
-        verify(alertNotifier, never()).notify(eq(lowTargetAlert), any());
+        ArgumentCaptor<AlertNotification> outbox = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notificationRepository, times(1)).save(outbox.capture());
+        assertThat(outbox.getValue().getAlertId()).isEqualTo(activeAlert.getId());
     }
 
     @Test
@@ -186,4 +221,112 @@ class PriceAlertServiceTest {
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void should_SkipAlert_When_BookIsStaleAndAlertNoLongerActive() {
+        addToBook(activeAlert);
+        activeAlert.setStatus(AlertStatus.TRIGGERED);
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of(activeAlert));
+
+        service.checkAlerts(1L, 100L, new BigDecimal("450.00"), true);
+
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void should_RebuildBookFromActiveAlerts() {
+        when(alertRepository.streamBookEntries(AlertStatus.ACTIVE)).thenReturn(Stream.of(
+                new Object[]{10L, 1L, AlertRuleType.TARGET_PRICE, new BigDecimal("500.00")},
+                new Object[]{11L, 2L, AlertRuleType.TARGET_PRICE, new BigDecimal("300.00")}));
+        when(listingRepository.streamAlertState()).thenReturn(Stream.<Object[]>of(
+                new Object[]{100L, 1L, new BigDecimal("549.00"), true}));
+        when(priceRollupRepository.findLowestPrices(RollupResolution.DAY)).thenReturn(List.<Object[]>of(
+                new Object[]{1L, new BigDecimal("489.00")}));
+
+        service.rebuildAlertBook();
+
+        assertThat(alertBook.size()).isEqualTo(2);
+        assertThat(alertBook.findTriggered(2L, new BigDecimal("299"))).containsExactly(11L);
+        assertThat(alertEngine.trackedListings()).isEqualTo(1);
+    }
+
+    @Test
+    void should_CompilePercentDropToTargetPrice_When_Created() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(listingRepository.findLowestCurrentPrice(1L)).thenReturn(Optional.of(new BigDecimal("599.99")));
+        when(alertRepository.save(any())).thenAnswer(inv -> {
+            PriceAlert a = inv.getArgument(0);
+            a.setId(12L);
+            return a;
+        });
+
+        PriceAlertDTO result = service.createAlert(CreateAlertRequest.builder()
+                .userEmail("user@test.com").productId(1L)
+                .ruleType(AlertRuleType.PERCENT_DROP).dropPercent(new BigDecimal("15")).build());
+
+        assertThat(result.getReferencePrice()).isEqualByComparingTo("599.99");
+        assertThat(result.getTargetPrice()).isEqualByComparingTo("509.99");
+        assertThat(alertBook.findTriggered(1L, new BigDecimal("509.99"))).containsExactly(12L);
+        assertThat(alertBook.findTriggered(1L, new BigDecimal("510.00"))).isEmpty();
+    }
+
+    @Test
+    void should_RejectPercentDrop_When_PercentOutOfRange() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        assertThatThrownBy(() -> service.createAlert(CreateAlertRequest.builder()
+                .userEmail("user@test.com").productId(1L)
+                .ruleType(AlertRuleType.PERCENT_DROP).dropPercent(new BigDecimal("100")).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(alertRepository, never()).save(any());
+    }
+
+    @Test
+    void should_RejectTargetPriceAlert_When_TargetMissing() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        assertThatThrownBy(() -> service.createAlert(CreateAlertRequest.builder()
+                .userEmail("user@test.com").productId(1L).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_TriggerBackInStockAlert_When_ListingRestocked() {
+        PriceAlert restockAlert = PriceAlert.builder()
+                .id(13L).product(product).userEmail("user@test.com")
+                .ruleType(AlertRuleType.BACK_IN_STOCK)
+                .status(AlertStatus.ACTIVE).build();
+        addToBook(restockAlert);
+        when(alertRepository.findAllById(List.of(13L))).thenReturn(List.of(restockAlert));
+        when(alertRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.checkAlerts(1L, 100L, new BigDecimal("599.00"), false);
+        verify(alertRepository, never()).findAllById(any());
+
+        service.checkAlerts(1L, 100L, new BigDecimal("599.00"), true);
+
+        ArgumentCaptor<AlertNotification> outbox = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notificationRepository).save(outbox.capture());
+        assertThat(outbox.getValue().getRuleType()).isEqualTo(AlertRuleType.BACK_IN_STOCK);
+        assertThat(outbox.getValue().getTargetPrice()).isNull();
+    }
+
+    @Test
+    void should_TriggerOnce_When_PriceKeepsDroppingAcrossChecks() {
+        addToBook(activeAlert);
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of(activeAlert));
+        when(alertRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.checkAlerts(1L, 100L, new BigDecimal("549.00"), true);
+        service.checkAlerts(1L, 100L, new BigDecimal("479.00"), true);
+        service.checkAlerts(1L, 100L, new BigDecimal("459.00"), true);
+
+        ArgumentCaptor<AlertNotification> outbox = ArgumentCaptor.forClass(AlertNotification.class);
+        verify(notificationRepository).save(outbox.capture());
+        assertThat(outbox.getValue().getCurrentPrice()).isEqualByComparingTo("479.00");
+    }
+
+    private void addToBook(PriceAlert alert) {
+        alertBook.add(alert.getId(), alert.getProduct().getId(), alert.getRuleType(), alert.getTargetPrice());
+    }
 }
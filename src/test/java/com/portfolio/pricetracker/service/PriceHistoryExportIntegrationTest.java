@@ -0,0 +1,163 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class PriceHistoryExportIntegrationTest {
+
+    private static final String URL = "https://www.amazon.es/dp/EXPORT1";
+    private static final String NAME = "Export GPU, 16GB \"OC\"";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TempDir
+    static Path coldDirectory;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("price-history.cold-storage-dir", () -> coldDirectory.toString());
+        registry.add("price-history.hot-days", () -> "90");
+        // Several round trips even for this small export
+        registry.add("price-history.export-fetch-size", () -> "1");
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private PriceHistoryExporter exporter;
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private PriceHistoryTieringService tieringService;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private Long productId;
+    private LocalDateTime old;
+
+    @BeforeEach
+    void setUp() {
+        old = LocalDateTime.now().minusMonths(8).withDayOfMonth(3).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        List<Long> existing = jdbcTemplate.queryForList(
+                "SELECT product_id FROM product_listings WHERE url = ?", Long.class, URL);
+        if (!existing.isEmpty()) {
+            productId = existing.get(0);
+            return;
+        }
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(ScrapedProductDTO.builder()
+                .name(NAME).url(URL).price(new BigDecimal("549.00")).inStock(true).build()), source);
+        Long listingId = jdbcTemplate.queryForObject("SELECT id FROM product_listings WHERE url = ?", Long.class, URL);
+        productId = jdbcTemplate.queryForObject(
+                "SELECT product_id FROM product_listings WHERE id = ?", Long.class, listingId);
+
+        // Old enough to be moved to a cold segment, so the export reads both tiers
+        jdbcTemplate.update("INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, " +
+                        "valid_to, last_confirmed_at, sample_count) VALUES (?, ?, 649.00, true, ?, ?, ?, 4)",
+                listingId, productId, old, old.plusDays(10), old.plusDays(9));
+        tieringService.tierColdHistory();
+    }
+
+    @Test
+    void should_ExportHotAndColdIntervalsWithListingMetadata_AsNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(productId, null, null, PriceHistoryExporter.Format.NDJSON, out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines).allSatisfy(line -> {
+            assertThat(line.get("productId").asLong()).isEqualTo(productId);
+            assertThat(line.get("productName").asText()).isEqualTo(NAME);
+            assertThat(line.get("sourceName").asText()).isEqualTo("Amazon ES");
+            assertThat(line.get("url").asText()).isEqualTo(URL);
+        });
+        assertThat(lines).extracting(line -> line.get("price").decimalValue())
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("649.00"), new BigDecimal("549.00"));
+        JsonNode cold = lines.stream().filter(line -> line.get("sampleCount").asInt() == 4).findFirst().orElseThrow();
+        assertThat(cold.get("scrapedAt").asText()).isEqualTo(old.toLocalDate() + "T12:00:00");
+        assertThat(cold.get("validTo").asText()).isEqualTo(old.plusDays(10).toLocalDate() + "T12:00:00");
+    }
+
+    @Test
+    void should_QuoteCsvFields_And_FilterByRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(productId, LocalDateTime.now().minusDays(1), null, PriceHistoryExporter.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,listing_id,product_id,product_name,source,url,price,in_stock," +
+                "scraped_at,valid_to,last_confirmed_at,sample_count");
+        assertThat(lines[1]).contains(",\"Export GPU, 16GB \"\"OC\"\"\",Amazon ES," + URL + ",549.00,true,");
+    }
+
+    @Test
+    void should_StreamGzippedExportOverHttp() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/export/price-history")
+                        .param("format", "csv").param("productId", productId.toString()).param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"price-history.csv\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(csv.split("\r\n")).hasSize(3);
+    }
+
+    @Test
+    void should_RejectUnknownFormatsAndReversedRanges() throws Exception {
+        mockMvc.perform(get("/api/export/price-history").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unsupported export format: xml (ndjson or csv)"));
+        mockMvc.perform(get("/api/export/price-history")
+                        .param("from", "2025-02-01T00:00:00").param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,104 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class PriceHistoryPartitioningIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private PricePartitionMaintainer maintainer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductUnificationService unificationService;
+
+    @Autowired
+    private WebsiteSourceRepository sourceRepository;
+
+    @Test
+    void should_CreateMonthlyPartitionsAhead_When_ApplicationStarts() {
+        List<String> names = maintainer.findPartitions().stream()
+                .map(PricePartitionMaintainer.Partition::name)
+                .toList();
+
+        YearMonth next = YearMonth.now().plusMonths(1);
+        assertThat(names).contains("price_history_legacy",
+                "price_history_p" + next.format(DateTimeFormatter.ofPattern("yyyyMM")));
+    }
+
+    @Test
+    void should_ScanSingleMonthPartition_When_QueryBoundedByScrapedAt() {
+        YearMonth next = YearMonth.now().plusMonths(1);
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM price_history WHERE scraped_at >= '" + next.atDay(1) + "' "
+                        + "AND scraped_at < '" + next.plusMonths(1).atDay(1) + "'",
+                String.class));
+
+        assertThat(plan).contains("price_history_p" + next.format(DateTimeFormatter.ofPattern("yyyyMM")));
+        assertThat(plan).doesNotContain("price_history_legacy");
+    }
+
+    @Test
+    void should_CarryOpenIntervalsForward_When_TheirPartitionExpires() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(ScrapedProductDTO.builder()
+                .name("Long Stable GPU").url("https://www.amazon.es/dp/KEEP1")
+                .price(new BigDecimal("399")).inStock(true).build()), source);
+        LocalDateTime old = LocalDateTime.now().minusMonths(8).withNano(0);
+        Long id = jdbcTemplate.queryForObject("UPDATE price_history SET scraped_at = ?, last_confirmed_at = ? " +
+                "WHERE valid_to IS NULL AND listing_id = (SELECT id FROM product_listings WHERE url = ?) RETURNING id",
+                Long.class, old, old, "https://www.amazon.es/dp/KEEP1");
+        PricePartitionMaintainer.Partition expiring = maintainer.findPartitions().stream()
+                .filter(p -> p.from() == null)
+                .findFirst().orElseThrow();
+        LocalDateTime cutoff = YearMonth.from(old).plusMonths(2).atDay(1).atStartOfDay();
+
+        Integer carried = transactionTemplate.execute(status -> maintainer.carryOpenIntervals(expiring, cutoff));
+
+        assertThat(carried).isGreaterThanOrEqualTo(1);
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT scraped_at, valid_to, last_confirmed_at FROM price_history WHERE id = ?", id);
+        assertThat(((Timestamp) row.get("scraped_at")).toLocalDateTime()).isEqualTo(cutoff);
+        assertThat(row.get("valid_to")).isNull();
+        assertThat(((Timestamp) row.get("last_confirmed_at")).toLocalDateTime()).isEqualTo(cutoff);
+    }
+}
@@ -0,0 +1,114 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.PriceHistory;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class PriceHistoryTieringIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TempDir
+    static Path coldDirectory;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("price-history.cold-storage-dir", () -> coldDirectory.toString());
+        registry.add("price-history.hot-days", () -> "90");
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private PriceHistoryTieringService tieringService;
+    @Autowired private PriceHistoryRepository priceHistoryRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_MoveOldClosedIntervalsToColdStorage_And_StillReturnThem() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(ScrapedProductDTO.builder()
+                .name("Tiered GPU").url("https://www.amazon.es/dp/TIER1")
+                .price(new BigDecimal("549")).inStock(true).build()), source);
+        Long listingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings WHERE url = 'https://www.amazon.es/dp/TIER1'", Long.class);
+        Long productId = jdbcTemplate.queryForObject(
+                "SELECT product_id FROM product_listings WHERE id = ?", Long.class, listingId);
+
+        LocalDateTime old = LocalDateTime.now().minusMonths(8).withDayOfMonth(3).withNano(0);
+        jdbcTemplate.update("INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, " +
+                        "valid_to, last_confirmed_at, sample_count) VALUES (?, ?, 649.00, true, ?, ?, ?, 4)",
+                listingId, productId, old, old.plusDays(10), old.plusDays(9));
+
+        tieringService.tierColdHistory();
+
+        Integer hotOld = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM price_history WHERE listing_id = ? AND scraped_at < ?",
+                Integer.class, listingId, old.plusMonths(1));
+        assertThat(hotOld).isZero();
+
+        List<PriceHistory> all = priceHistoryRepository.findOverlapping(listingId, old.minusDays(1), LocalDateTime.now());
+        assertThat(all).extracting(PriceHistory::getPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("649.00"), new BigDecimal("549"));
+        assertThat(all.get(0).getScrapedAt()).isEqualTo(old);
+        assertThat(all.get(0).getSampleCount()).isEqualTo(4);
+
+        assertThat(priceHistoryRepository.findOverlapping(listingId, LocalDateTime.now().minusDays(1), LocalDateTime.now()))
+                .hasSize(1);
+    }
+
+    @Test
+    void should_SkipTheRun_When_AnotherNodeHoldsTheTieringLock() throws Exception {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        unificationService.saveResults(List.of(ScrapedProductDTO.builder()
+                .name("Locked GPU").url("https://www.amazon.es/dp/TIER2")
+                .price(new BigDecimal("449")).inStock(true).build()), source);
+        Long listingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings WHERE url = 'https://www.amazon.es/dp/TIER2'", Long.class);
+        LocalDateTime old = LocalDateTime.now().minusMonths(9).withDayOfMonth(3).withNano(0);
+        jdbcTemplate.update("INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, " +
+                        "valid_to, last_confirmed_at, sample_count) " +
+                        "SELECT id, product_id, 499.00, true, ?, ?, ?, 1 FROM product_listings WHERE id = ?",
+                old, old.plusDays(2), old.plusDays(1), listingId);
+
+        try (Connection otherNode = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            otherNode.createStatement().execute("SELECT pg_advisory_lock(hashtext('price-history-tiering'))");
+
+            tieringService.tierColdHistory();
+        }
+
+        Integer hotOld = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM price_history WHERE listing_id = ? AND scraped_at = ?",
+                Integer.class, listingId, old);
+        assertThat(hotOld).isEqualTo(1);
+    }
+}
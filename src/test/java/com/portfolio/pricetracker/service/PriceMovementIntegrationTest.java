@@ -0,0 +1,97 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class PriceMovementIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private AnalyticsService analyticsService;
+
+    @Test
+    void should_RankMovementsAgainstFirstPriceInWindow() throws InterruptedException {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        ingest(source, "599", "100", "300");
+        ingest(source, "579", "110", "300");
+        ingest(source, "549", "120", "300");
+
+        // 14 days is not a leaderboard window: ranked by the database
+        assertRanking(source, analyticsService.getTopPriceDrops(14, 10), analyticsService.getTopPriceIncreases(14, 10));
+
+        // 7 days is: served by PriceMoversBoard once it has consumed the events
+        awaitTrue(() -> currentPrices(analyticsService.getTopPriceDrops(7, 10)).equals(List.of("549.00"))
+                && currentPrices(analyticsService.getTopPriceIncreases(7, 10)).equals(List.of("120.00")));
+        assertRanking(source, analyticsService.getTopPriceDrops(7, 10), analyticsService.getTopPriceIncreases(7, 10));
+    }
+
+    private static void assertRanking(WebsiteSource source, List<PriceDropDTO> drops, List<PriceDropDTO> increases) {
+        assertThat(drops).singleElement().satisfies(drop -> {
+            assertThat(drop.getUrl()).isEqualTo("https://www.amazon.es/dp/MOVE1");
+            assertThat(drop.getSourceName()).isEqualTo(source.getName());
+            assertThat(drop.getPreviousPrice()).isEqualByComparingTo("599");
+            assertThat(drop.getCurrentPrice()).isEqualByComparingTo("549");
+            assertThat(drop.getPriceChange()).isEqualByComparingTo("-50");
+            assertThat(drop.getChangePercentage()).isEqualTo(-8.35);
+        });
+        assertThat(increases).singleElement().satisfies(increase -> {
+            assertThat(increase.getUrl()).isEqualTo("https://www.amazon.es/dp/MOVE2");
+            assertThat(increase.getPriceChange()).isEqualByComparingTo("20");
+            assertThat(increase.getChangePercentage()).isEqualTo(20.0);
+        });
+    }
+
+    private static List<String> currentPrices(List<PriceDropDTO> movers) {
+        return movers.stream().map(mover -> mover.getCurrentPrice().setScale(2).toPlainString()).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private void ingest(WebsiteSource source, String falling, String rising, String flat) {
+        unificationService.saveResults(List.of(
+                item("Movement GPU", "https://www.amazon.es/dp/MOVE1", falling),
+                item("Movement SSD", "https://www.amazon.es/dp/MOVE2", rising),
+                item("Movement PSU", "https://www.amazon.es/dp/MOVE3", flat)), source);
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+}
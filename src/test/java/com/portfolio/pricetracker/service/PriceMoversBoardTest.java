@@ -0,0 +1,134 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.LeaderboardConfig;
+import com.portfolio.pricetracker.dto.PriceDropDTO;
+import com.portfolio.pricetracker.repository.PriceHistoryRepository;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceMoversBoardTest {
+
+    private static final Duration DAY = Duration.ofDays(1);
+    private static final Duration WEEK = Duration.ofDays(7);
+    private static final Duration MONTH = Duration.ofDays(30);
+
+    @Mock private PriceHistoryRepository priceHistoryRepository;
+
+    private final LeaderboardConfig config = new LeaderboardConfig();
+    private final LocalDateTime now = LocalDateTime.now();
+    private PriceMoversBoard board;
+
+    @BeforeEach
+    void setUp() {
+        config.setSize(1);
+        board = new PriceMoversBoard(config, priceHistoryRepository, null);
+    }
+
+    @Test
+    void should_CompareWithPriceInEffectAtWindowStart() {
+        when(priceHistoryRepository.streamMovementPoints(any())).thenReturn(Stream.of(
+                point(1L, "100.00", now.minusDays(10)),
+                point(1L, "80.00", now.minusDays(3))));
+        board.rebuild();
+
+        board.onEvents(List.of(changed(1L, "80.00", "90.00", now.minusHours(1))));
+
+        assertThat(board.topIncreases(DAY, 1).orElseThrow()).singleElement().satisfies(mover -> {
+            assertThat(mover.getPreviousPrice()).isEqualByComparingTo("80");
+            assertThat(mover.getChangePercentage()).isEqualTo(12.5);
+            assertThat(mover.getSourceName()).isEqualTo("Amazon ES");
+        });
+        assertThat(board.topDrops(WEEK, 1).orElseThrow()).singleElement()
+                .satisfies(mover -> assertThat(mover.getChangePercentage()).isEqualTo(-10.0));
+        assertThat(board.topDrops(MONTH, 1).orElseThrow()).singleElement()
+                .satisfies(mover -> assertThat(mover.getPreviousPrice()).isEqualByComparingTo("100"));
+        assertThat(board.topDrops(DAY, 1).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void should_RefillFromAllListings_When_LeadersRecover() {
+        when(priceHistoryRepository.streamMovementPoints(any())).thenReturn(Stream.empty());
+        board.rebuild();
+        LocalDateTime start = now.minusHours(2);
+        board.onEvents(List.of(
+                created(1L, "100.00", start), created(2L, "100.00", start), created(3L, "100.00", start),
+                changed(1L, "100.00", "70.00", start.plusMinutes(1)),
+                changed(2L, "100.00", "80.00", start.plusMinutes(1)),
+                changed(3L, "100.00", "90.00", start.plusMinutes(1))));
+        assertThat(listingIds(board.topDrops(DAY, 1).orElseThrow())).containsExactly(1L);
+
+        // Only the best two drops are kept; the third must be found again by a scan
+        board.onEvents(List.of(
+                changed(1L, "70.00", "100.00", start.plusMinutes(2)),
+                changed(2L, "80.00", "100.00", start.plusMinutes(2))));
+
+        assertThat(listingIds(board.topDrops(DAY, 1).orElseThrow())).containsExactly(3L);
+        assertThat(listingIds(board.topIncreases(DAY, 1).orElseThrow())).isEmpty();
+    }
+
+    @Test
+    void should_FallBack_When_WindowOrLimitIsNotKept() {
+        assertThat(board.topDrops(WEEK, 1)).isEmpty();
+
+        when(priceHistoryRepository.streamMovementPoints(any())).thenReturn(Stream.empty());
+        board.rebuild();
+
+        assertThat(board.topDrops(WEEK, 1)).isPresent();
+        assertThat(board.topDrops(Duration.ofDays(14), 1)).isEmpty();
+        assertThat(board.topDrops(WEEK, 2)).isEmpty();
+    }
+
+    @Test
+    void should_ReloadListingsChangedOnAnotherNode() {
+        when(priceHistoryRepository.streamMovementPoints(any())).thenReturn(Stream.empty());
+        board.rebuild();
+        when(priceHistoryRepository.findMovementPoints(any(), eq(Set.of(4L)))).thenReturn(List.of(
+                point(4L, "200.00", now.minusDays(2)),
+                point(4L, "150.00", now.minusHours(3))));
+
+        board.invalidate(CacheEntity.LISTING, Set.of(4L));
+
+        assertThat(board.topDrops(WEEK, 1).orElseThrow()).singleElement()
+                .satisfies(mover -> assertThat(mover.getChangePercentage()).isEqualTo(-25.0));
+        assertThat(board.trackedListings()).isEqualTo(1);
+    }
+
+    private static List<Long> listingIds(List<PriceDropDTO> movers) {
+        return movers.stream().map(PriceDropDTO::getListingId).toList();
+    }
+
+    private static Object[] point(Long listingId, String price, LocalDateTime scrapedAt) {
+        return new Object[]{listingId, 10L + listingId, "Product " + listingId, "Amazon ES",
+                "https://shop/" + listingId, new BigDecimal(price), scrapedAt};
+    }
+
+    private static PriceEvent created(Long listingId, String price, LocalDateTime at) {
+        return new ListingCreated(listingId, 10L + listingId, "Product " + listingId, "GPU", "https://shop/" + listingId,
+                "Amazon ES", new BigDecimal(price), true, at);
+    }
+
+    private static PriceEvent changed(Long listingId, String previous, String price, LocalDateTime at) {
+        return new PriceChanged(listingId, 10L + listingId, "Product " + listingId, "GPU", "https://shop/" + listingId,
+                "Amazon ES", new BigDecimal(previous), new BigDecimal(price), true, true, at);
+    }
+}
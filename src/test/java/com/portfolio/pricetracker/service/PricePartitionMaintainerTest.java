@@ -0,0 +1,113 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.PriceHistoryConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PricePartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PriceHistoryConfig config;
+    private PricePartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        config = new PriceHistoryConfig();
+        config.setPartitionsAhead(2);
+        maintainer = new PricePartitionMaintainer(jdbcTemplate, transactionTemplate, config);
+    }
+
+    @Test
+    void should_ParseBounds_When_PartitionIsLegacyOrMonthly() {
+        PricePartitionMaintainer.Partition legacy = PricePartitionMaintainer.Partition.parse(
+                "price_history_legacy", "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')");
+        PricePartitionMaintainer.Partition monthly = PricePartitionMaintainer.Partition.parse(
+                "price_history_p202611", "FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')");
+
+        assertThat(legacy.from()).isNull();
+        assertThat(legacy.to()).isEqualTo(LocalDateTime.of(2026, 11, 1, 0, 0));
+        assertThat(monthly.from()).isEqualTo(LocalDateTime.of(2026, 11, 1, 0, 0));
+        assertThat(legacy.overlaps(monthly.from(), monthly.to())).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_CreateOnlyMissingMonths_When_LegacyPartitionCoversCurrentMonth() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("price_history"))).thenReturn(List.of(
+                new PricePartitionMaintainer.Partition("price_history_legacy", null, LocalDateTime.of(2026, 11, 1, 0, 0))));
+
+        maintainer.createUpcomingPartitions(YearMonth.of(2026, 10));
+
+        verify(jdbcTemplate, never()).execute(contains("price_history_p202610"));
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS price_history_p202611 PARTITION OF price_history "
+                + "FOR VALUES FROM ('2026-11-01T00:00') TO ('2026-12-01T00:00')");
+        verify(jdbcTemplate).execute(contains("price_history_p202612"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_DetachAndDrop_When_PartitionIsOlderThanRetention() {
+        config.setRetentionMonths(12);
+        config.setDropExpiredPartitions(true);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("price_history"))).thenReturn(List.of(
+                new PricePartitionMaintainer.Partition("price_history_legacy", null, LocalDateTime.of(2025, 9, 1, 0, 0)),
+                new PricePartitionMaintainer.Partition("price_history_p202509",
+                        LocalDateTime.of(2025, 9, 1, 0, 0), LocalDateTime.of(2025, 10, 1, 0, 0)),
+                new PricePartitionMaintainer.Partition("price_history_p202510",
+                        LocalDateTime.of(2025, 10, 1, 0, 0), LocalDateTime.of(2025, 11, 1, 0, 0))));
+
+        doAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        maintainer.detachExpiredPartitions(YearMonth.of(2026, 10));
+
+        // Open intervals start again at the cutoff, before their partition goes
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.of(2025, 10, 1, 0, 0));
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(contains("DELETE FROM price_history_legacy WHERE valid_to IS NULL"),
+                eq(cutoff), eq(cutoff));
+        order.verify(jdbcTemplate).execute("ALTER TABLE price_history DETACH PARTITION price_history_legacy CONCURRENTLY");
+        verify(jdbcTemplate).update(contains("DELETE FROM price_history_p202509 WHERE valid_to IS NULL"),
+                eq(cutoff), eq(cutoff));
+        verify(jdbcTemplate).execute("DROP TABLE price_history_legacy");
+        verify(jdbcTemplate).execute("ALTER TABLE price_history DETACH PARTITION price_history_p202509 CONCURRENTLY");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE price_history DETACH PARTITION price_history_p202510 CONCURRENTLY");
+    }
+
+    @Test
+    void should_NotDetach_When_RetentionDisabled() {
+        maintainer.detachExpiredPartitions(YearMonth.of(2026, 10));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
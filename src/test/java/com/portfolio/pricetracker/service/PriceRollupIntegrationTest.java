@@ -0,0 +1,96 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.PriceSeriesDTO;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.PriceRollup;
+import com.portfolio.pricetracker.entity.RollupResolution;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.PriceRollupRepository;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class PriceRollupIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private PriceRollupService rollupService;
+    @Autowired private PriceRollupRepository rollupRepository;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_MaintainOhlcIncrementally_When_PricesAreIngested() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        for (String price : List.of("599", "649", "649", "579", "589")) {
+            unificationService.saveResults(List.of(item("Rollup GPU", "https://www.amazon.es/dp/ROLLUP1", price)), source);
+        }
+
+        Long listingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM product_listings WHERE url = 'https://www.amazon.es/dp/ROLLUP1'", Long.class);
+        List<PriceRollup> rollups = rollupRepository.findAll().stream()
+                .filter(r -> r.getListing().getId().equals(listingId))
+                .filter(r -> r.getResolution() == RollupResolution.DAY)
+                .toList();
+        assertThat(rollups).singleElement().satisfies(day -> {
+            assertThat(day.getOpenPrice()).isEqualByComparingTo("599");
+            assertThat(day.getHighPrice()).isEqualByComparingTo("649");
+            assertThat(day.getLowPrice()).isEqualByComparingTo("579");
+            assertThat(day.getClosePrice()).isEqualByComparingTo("589");
+            assertThat(day.getSampleCount()).isEqualTo(5);
+        });
+
+        Long productId = rollups.get(0).getProduct().getId();
+        PriceSeriesDTO series = analyticsService.getPriceSeries(productId,
+                LocalDateTime.now().minusDays(7), LocalDateTime.now().plusHours(1));
+        assertThat(series.getResolution()).isEqualTo(RollupResolution.HOUR);
+        assertThat(series.getCandles()).isNotEmpty();
+    }
+
+    @Test
+    void should_FillMissingBuckets_When_HistoryHasNoRollup() {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.MEDIAMARKT).orElseThrow();
+        unificationService.saveResults(List.of(item("Backfill GPU", "https://www.mediamarkt.es/product/BACKFILL1", "999")), source);
+        jdbcTemplate.update("DELETE FROM price_rollups WHERE listing_id = " +
+                "(SELECT id FROM product_listings WHERE url = 'https://www.mediamarkt.es/product/BACKFILL1')");
+
+        rollupService.catchUpRecent();
+        rollupService.catchUpRecent();
+
+        Integer buckets = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM price_rollups WHERE listing_id = " +
+                "(SELECT id FROM product_listings WHERE url = 'https://www.mediamarkt.es/product/BACKFILL1')",
+                Integer.class);
+        assertThat(buckets).isEqualTo(2);
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+}
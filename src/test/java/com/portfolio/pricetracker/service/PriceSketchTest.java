@@ -0,0 +1,92 @@
+package com.portfolio.pricetracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    void should_AnswerEveryQuantileWithinTheRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] prices = new double[20_000];
+        PriceSketch sketch = new PriceSketch(0.01);
+        for (int i = 0; i < prices.length; i++) {
+            // Long-tailed, from a few euros to several thousand
+            prices[i] = Math.round(Math.exp(3 + random.nextGaussian() * 1.5) * 100) / 100.0 + 0.01;
+            sketch.add(prices[i]);
+        }
+        Arrays.sort(prices);
+
+        for (double q : QUANTILES) {
+            double exact = prices[(int) Math.floor(q * (prices.length - 1))];
+            assertThat(sketch.quantile(q)).as("q=%s", q).isCloseTo(exact, within(exact * 0.0101));
+        }
+        assertThat(sketch.count()).isEqualTo(prices.length);
+    }
+
+    @Test
+    void should_ForgetRemovedValues() {
+        PriceSketch sketch = new PriceSketch(0.01);
+        PriceSketch expected = new PriceSketch(0.01);
+        for (int price = 1; price <= 1_000; price++) {
+            sketch.add(price);
+            if (price % 3 != 0) expected.add(price);
+        }
+        for (int price = 3; price <= 1_000; price += 3) {
+            sketch.remove(price);
+        }
+
+        assertThat(sketch.count()).isEqualTo(expected.count());
+        for (double q : QUANTILES) {
+            assertThat(sketch.quantile(q)).isEqualTo(expected.quantile(q));
+        }
+    }
+
+    @Test
+    void should_MergeAndRoundTripThroughBytes() {
+        PriceSketch cheap = new PriceSketch(0.02);
+        PriceSketch expensive = new PriceSketch(0.02);
+        PriceSketch all = new PriceSketch(0.02);
+        List<Double> prices = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            prices.add(5 + i * 0.5);
+            prices.add(2_000 + i * 40.0);
+        }
+        for (double price : prices) {
+            (price < 1_000 ? cheap : expensive).add(price);
+            all.add(price);
+        }
+        cheap.add(0);
+        all.add(0);
+
+        cheap.merge(expensive);
+        PriceSketch restored = PriceSketch.fromBytes(cheap.toBytes());
+
+        assertThat(restored.count()).isEqualTo(all.count());
+        assertThat(restored.relativeAccuracy()).isEqualTo(0.02);
+        for (double q : QUANTILES) {
+            assertThat(restored.quantile(q)).isEqualTo(all.quantile(q));
+        }
+        assertThat(restored.quantile(0)).isZero();
+    }
+
+    @Test
+    void should_RejectMergingDifferentAccuracies_And_ReportEmptySketches() {
+        PriceSketch sketch = new PriceSketch(0.01);
+
+        assertThat(sketch.quantile(0.5)).isNaN();
+        assertThat(PriceSketch.fromBytes(sketch.toBytes()).count()).isZero();
+        assertThatThrownBy(() -> sketch.merge(new PriceSketch(0.05))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.PriceSnapshotDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class PriceSnapshotIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @TempDir
+    static Path coldDirectory;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("price-history.cold-storage-dir", () -> coldDirectory.toString());
+        registry.add("price-history.hot-days", () -> "90");
+    }
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private PriceHistoryTieringService tieringService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_ReturnEachListingsPriceAsOfATime_InPages() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Long monitor = product("Snapshot Monitor", "Monitors");
+        Long speaker = product("Snapshot Speaker", "Audio");
+        Long amazonMonitor = listing(monitor, "AMAZON");
+        Long mediamarktMonitor = listing(monitor, "MEDIAMARKT");
+        Long amazonSpeaker = listing(speaker, "AMAZON");
+
+        LocalDateTime old = now.minusMonths(8).withDayOfMonth(3);
+        interval(amazonMonitor, monitor, "700", old, old.plusDays(10), old.plusDays(9));
+        interval(amazonMonitor, monitor, "500", now.minusDays(60), now.minusDays(30), now.minusDays(31));
+        interval(amazonMonitor, monitor, "450", now.minusDays(30), null, now);
+        interval(mediamarktMonitor, monitor, "520", now.minusDays(10), null, now);
+        interval(amazonSpeaker, speaker, "99", now.minusDays(5), null, now);
+        // The 700 interval moves to cold storage
+        tieringService.tierColdHistory();
+
+        PriceSnapshotDTO current = analyticsService.getPriceSnapshot(now, null, null, null, 0, 10);
+        assertThat(current.getListings()).extracting(PriceSnapshotDTO.ListingSnapshotDTO::getListingId)
+                .containsExactly(amazonMonitor, mediamarktMonitor, amazonSpeaker);
+        assertThat(current.getListings()).extracting(PriceSnapshotDTO.ListingSnapshotDTO::getPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("450"), new BigDecimal("520"), new BigDecimal("99"));
+        assertThat(current.getNextAfter()).isNull();
+
+        PriceSnapshotDTO monthAgo = analyticsService.getPriceSnapshot(now.minusDays(45), null, null, null, 0, 10);
+        assertThat(monthAgo.getListings()).singleElement().satisfies(listing -> {
+            assertThat(listing.getListingId()).isEqualTo(amazonMonitor);
+            assertThat(listing.getPrice()).isEqualByComparingTo("500");
+            assertThat(listing.getPriceSince()).isEqualTo(now.minusDays(60));
+            assertThat(listing.getValidTo()).isEqualTo(now.minusDays(30));
+        });
+
+        PriceSnapshotDTO tiered = analyticsService.getPriceSnapshot(old.plusDays(5), null, null, null, 0, 10);
+        assertThat(tiered.getListings()).singleElement().satisfies(listing -> {
+            assertThat(listing.getPrice()).isEqualByComparingTo("700");
+            assertThat(listing.getPriceSince()).isEqualTo(old);
+            assertThat(listing.getProductName()).isEqualTo("Snapshot Monitor");
+        });
+
+        assertThat(analyticsService.getPriceSnapshot(now, null, null, "Audio", 0, 10).getListings())
+                .extracting(PriceSnapshotDTO.ListingSnapshotDTO::getListingId).containsExactly(amazonSpeaker);
+        assertThat(analyticsService.getPriceSnapshot(now, monitor, null, null, 0, 10).getListings())
+                .extracting(PriceSnapshotDTO.ListingSnapshotDTO::getListingId)
+                .containsExactly(amazonMonitor, mediamarktMonitor);
+
+        // One listing per page, following nextAfter
+        PriceSnapshotDTO first = analyticsService.getPriceSnapshot(now, null, null, null, 0, 1);
+        assertThat(first.getNextAfter()).isEqualTo(amazonMonitor);
+        PriceSnapshotDTO second = analyticsService.getPriceSnapshot(now, null, null, null, first.getNextAfter(), 1);
+        assertThat(second.getListings()).extracting(PriceSnapshotDTO.ListingSnapshotDTO::getListingId)
+                .containsExactly(mediamarktMonitor);
+        PriceSnapshotDTO third = analyticsService.getPriceSnapshot(now, null, null, null, second.getNextAfter(), 1);
+        assertThat(third.getListings()).extracting(PriceSnapshotDTO.ListingSnapshotDTO::getListingId)
+                .containsExactly(amazonSpeaker);
+        PriceSnapshotDTO last = analyticsService.getPriceSnapshot(now, null, null, null, third.getNextAfter(), 1);
+        assertThat(last.getListings()).isEmpty();
+        assertThat(last.getNextAfter()).isNull();
+    }
+
+    private Long product(String name, String category) {
+        return jdbcTemplate.queryForObject("INSERT INTO products (name, normalized_name, category) VALUES (?, ?, ?) RETURNING id",
+                Long.class, name, name.toLowerCase(), category);
+    }
+
+    private Long listing(Long productId, String scraperType) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO product_listings (product_id, source_id, url, current_price, in_stock, last_scraped_at)
+                SELECT ?, s.id, s.base_url || '/snapshot/' || ?, 100, true, NOW()
+                FROM website_sources s WHERE s.scraper_type = ? RETURNING id""",
+                Long.class, productId, productId, scraperType);
+    }
+
+    private void interval(Long listingId, Long productId, String price, LocalDateTime scrapedAt,
+                          LocalDateTime validTo, LocalDateTime lastConfirmedAt) {
+        jdbcTemplate.update("INSERT INTO price_history (listing_id, product_id, price, in_stock, scraped_at, " +
+                        "valid_to, last_confirmed_at, sample_count) VALUES (?, ?, ?, true, ?, ?, ?, 1)",
+                listingId, productId, new BigDecimal(price), scrapedAt, validTo, lastConfirmedAt);
+    }
+}
@@ -0,0 +1,68 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+class ProductUnificationIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_KeepOneOpenInterval_When_TwoJobsIngestTheSameListingConcurrently() throws Exception {
+        WebsiteSource source = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        String url = "https://www.amazon.es/dp/RACE1";
+        ExecutorService jobs = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CompletableFuture<?> first = CompletableFuture.runAsync(() -> ingest(source, url, "499.00"), jobs);
+                CompletableFuture<?> second = CompletableFuture.runAsync(() -> ingest(source, url, "479.00"), jobs);
+                CompletableFuture.allOf(first, second).get();
+            }
+        } finally {
+            jobs.shutdown();
+        }
+
+        Integer open = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM price_history ph JOIN product_listings l ON l.id = ph.listing_id " +
+                "WHERE l.url = ? AND ph.valid_to IS NULL", Integer.class, url);
+        assertThat(open).isEqualTo(1);
+    }
+
+    private void ingest(WebsiteSource source, String url, String price) {
+        unificationService.saveResults(List.of(ScrapedProductDTO.builder()
+                .name("Race GPU").url(url).price(new BigDecimal(price)).inStock(true).build()), source);
+    }
+}
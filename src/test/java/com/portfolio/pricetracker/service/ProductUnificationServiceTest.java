@@ -1,28 +1,44 @@
 package com.portfolio.pricetracker.service;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import com.portfolio.pricetracker.config.IngestionConfig;
 import com.portfolio.pricetracker.dto.ScrapedProductDTO;
 import com.portfolio.pricetracker.entity.*;
 import com.portfolio.pricetracker.repository.PriceHistoryRepository;
 import com.portfolio.pricetracker.repository.ProductListingRepository;
 import com.portfolio.pricetracker.repository.ProductRepository;
+import com.portfolio.pricetracker.service.event.ListingCreated;
+import com.portfolio.pricetracker.service.event.PriceChanged;
+import com.portfolio.pricetracker.service.event.PriceEvent;
+import com.portfolio.pricetracker.service.event.PriceEventBus;
+import com.portfolio.pricetracker.service.invalidation.CacheEntity;
+import com.portfolio.pricetracker.service.invalidation.CacheInvalidationPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,23 +49,30 @@ class ProductUnificationServiceTest {
     @Mock private PriceHistoryRepository priceHistoryRepository;
     @Mock private TransactionTemplate transactionTemplate;
     @Mock private PriceAlertService priceAlertService;
+    @Mock private PriceRollupService priceRollupService;
+    @Mock private ListingPriceStatsService listingPriceStatsService;
+    @Mock private PriceEventBus priceEventBus;
+    @Mock private CacheInvalidationPublisher cacheInvalidations;
+    @Mock private AnalyticsResultCache resultCache;
 
-    @InjectMocks
+    private ListingFingerprintCache fingerprintCache;
     private ProductUnificationService service;
 
     private WebsiteSource amazonSource;
 
     @BeforeEach
     void setUp() {
+        // Direct executor: partitions run inline, so call order stays deterministic
+        fingerprintCache = new ListingFingerprintCache(new IngestionConfig(), listingRepository);
+        service = newService(4, MoreExecutors.newDirectExecutorService());
+
         amazonSource = WebsiteSource.builder()
                 .id(1L).name("Amazon ES").scraperType(ScraperType.AMAZON).build();
 
-        // Make TransactionTemplate execute the consumer immediately (no real transaction needed).
+        // Make TransactionTemplate execute the callback immediately (no real transaction needed).
         // lenient() avoids UnnecessaryStubbingException in tests that skip all items.
-        lenient().doAnswer(inv -> {
-            ((Consumer<?>) inv.getArgument(0)).accept(null);
-            return null;
-        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().doAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
     }
 
     @Test
@@ -63,17 +86,23 @@ class ProductUnificationServiceTest {
 
         Product savedProduct = Product.builder().id(10L).name("ASUS RTX 4070").build();
 
-        when(listingRepository.findByUrl(any())).thenReturn(Optional.empty());
-        when(productRepository.findByNameIgnoreCaseAndDeletedAtIsNull("ASUS RTX 4070"))
-                .thenReturn(Optional.empty());
-        when(productRepository.save(any())).thenReturn(savedProduct);
-        when(listingRepository.findByProductIdAndSourceId(10L, 1L)).thenReturn(Optional.empty());
+        ProductListing insertedListing = ProductListing.builder()
+                .id(5L).product(savedProduct).source(amazonSource).url("https://www.amazon.es/dp/B001").build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.empty());
+        when(productRepository.findByNormalizedNameAndDeletedAtIsNull("asus rtx 4070"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(savedProduct));
+        when(listingRepository.findByProductIdAndSourceIdForUpdate(10L, 1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(insertedListing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         service.saveResults(List.of(scraped), amazonSource);
 
-        verify(productRepository).save(any(Product.class));
+        verify(productRepository).insertIfAbsent("ASUS RTX 4070", "asus rtx 4070", null);
+        verify(listingRepository).insertIfAbsent(10L, 1L, "https://www.amazon.es/dp/B001");
         verify(listingRepository).save(any(ProductListing.class));
         verify(priceHistoryRepository).save(any(PriceHistory.class));
     }
@@ -94,7 +123,7 @@ class ProductUnificationServiceTest {
                 .currentPrice(new BigDecimal("599"))
                 .build();
 
-        when(listingRepository.findByUrl("https://www.amazon.es/dp/B001"))
+        when(listingRepository.findByUrlForUpdate("https://www.amazon.es/dp/B001"))
                 .thenReturn(Optional.of(existingListing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
@@ -104,7 +133,40 @@ class ProductUnificationServiceTest {
         ArgumentCaptor<ProductListing> listingCaptor = ArgumentCaptor.forClass(ProductListing.class);
         verify(listingRepository).save(listingCaptor.capture());
         assertThat(listingCaptor.getValue().getCurrentPrice()).isEqualByComparingTo("549");
-        verify(productRepository, never()).save(any());
+        verify(productRepository, never()).insertIfAbsent(any(), any(), any());
+
+        ArgumentCaptor<PriceEvent> eventCaptor = ArgumentCaptor.forClass(PriceEvent.class);
+        verify(priceEventBus).publishAfterCommit(eventCaptor.capture());
+        assertThat(eventCaptor.getValue()).isInstanceOfSatisfying(PriceChanged.class, event -> {
+            assertThat(event.previousPrice()).isEqualByComparingTo("599");
+            assertThat(event.price()).isEqualByComparingTo("549");
+            assertThat(event.productId()).isEqualTo(10L);
+        });
+        verify(priceAlertService).checkAlerts(10L, 5L, new BigDecimal("549"), true);
+        verify(cacheInvalidations).invalidate(CacheEntity.LISTING, List.of(5L));
+        verify(resultCache).listingsChanged(Set.of(10L), true);
+    }
+
+    @Test
+    void should_NotPublishPriceChange_When_ListingStateIsUnchanged() {
+        ScrapedProductDTO scraped = ScrapedProductDTO.builder()
+                .name("RTX 4070").price(new BigDecimal("599"))
+                .url("https://www.amazon.es/dp/B001").inStock(true).build();
+
+        Product product = Product.builder().id(1L).name("RTX 4070").build();
+        ProductListing listing = ProductListing.builder()
+                .id(7L).product(product).source(amazonSource).url("https://www.amazon.es/dp/B001")
+                .currentPrice(new BigDecimal("599.00")).inStock(true).build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.saveResults(List.of(scraped), amazonSource);
+
+        verify(priceEventBus, never()).publishAfterCommit(any());
+        verify(priceAlertService, never()).checkAlerts(any(), any(), any(), any());
+        verifyNoInteractions(cacheInvalidations, resultCache);
     }
 
     @Test
@@ -117,18 +179,21 @@ class ProductUnificationServiceTest {
                 .build();
 
         Product existingProduct = Product.builder().id(10L).name("ASUS RTX 4070").build();
+        ProductListing insertedListing = ProductListing.builder()
+                .id(6L).product(existingProduct).source(amazonSource).build();
 
-        when(listingRepository.findByUrl(any())).thenReturn(Optional.empty());
-        when(productRepository.findByNameIgnoreCaseAndDeletedAtIsNull("ASUS RTX 4070"))
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.empty());
+        when(productRepository.findByNormalizedNameAndDeletedAtIsNull("asus rtx 4070"))
                 .thenReturn(Optional.of(existingProduct));
-        when(listingRepository.findByProductIdAndSourceId(anyLong(), anyLong()))
-                .thenReturn(Optional.empty());
+        when(listingRepository.findByProductIdAndSourceIdForUpdate(anyLong(), anyLong()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(insertedListing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         service.saveResults(List.of(scraped), amazonSource);
 
-        verify(productRepository, never()).save(any());
+        verify(productRepository, never()).insertIfAbsent(any(), any(), any());
         verify(listingRepository).save(any(ProductListing.class));
     }
 
@@ -139,7 +204,7 @@ class ProductUnificationServiceTest {
 
         service.saveResults(List.of(scraped), amazonSource);
 
-        verifyNoInteractions(listingRepository, productRepository, priceHistoryRepository, priceAlertService);
+        verifyNoInteractions(listingRepository, productRepository, priceHistoryRepository, priceEventBus);
     }
 
     @Test
@@ -149,11 +214,11 @@ class ProductUnificationServiceTest {
 
         service.saveResults(List.of(scraped), amazonSource);
 
-        verifyNoInteractions(listingRepository, productRepository, priceHistoryRepository, priceAlertService);
+        verifyNoInteractions(listingRepository, productRepository, priceHistoryRepository, priceEventBus);
     }
 
     @Test
-    void should_CallCheckAlerts_When_ItemSavedSuccessfully() {
+    void should_PublishListingCreated_When_FirstPriceIsSaved() {
         ScrapedProductDTO scraped = ScrapedProductDTO.builder()
                 .name("RTX 4070").price(new BigDecimal("599"))
                 .url("https://www.amazon.es/dp/B001").inStock(true).build();
@@ -163,13 +228,17 @@ class ProductUnificationServiceTest {
                 .id(1L).product(product).source(amazonSource)
                 .url("https://www.amazon.es/dp/B001").build();
 
-        when(listingRepository.findByUrl(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         service.saveResults(List.of(scraped), amazonSource);
 
-        verify(priceAlertService).checkAlerts(1L, new BigDecimal("599"));
+        ArgumentCaptor<PriceEvent> eventCaptor = ArgumentCaptor.forClass(PriceEvent.class);
+        verify(priceEventBus).publishAfterCommit(eventCaptor.capture());
+        assertThat(eventCaptor.getValue()).isInstanceOf(ListingCreated.class);
+        assertThat(eventCaptor.getValue().productId()).isEqualTo(1L);
+        assertThat(eventCaptor.getValue().price()).isEqualByComparingTo("599");
     }
 
     @Test
@@ -188,12 +257,10 @@ class ProductUnificationServiceTest {
 
         // First call (failing item) throws; second call (valid item) executes normally
         doThrow(new RuntimeException("DB error"))
-                .doAnswer(inv -> {
-                    ((Consumer<?>) inv.getArgument(0)).accept(null);
-                    return null;
-                }).when(transactionTemplate).executeWithoutResult(any());
+                .doAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
 
-        when(listingRepository.findByUrl("https://good.url")).thenReturn(Optional.of(listing));
+        when(listingRepository.findByUrlForUpdate("https://good.url")).thenReturn(Optional.of(listing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
@@ -216,10 +283,10 @@ class ProductUnificationServiceTest {
                 .url("https://www.amazon.es/dp/B001") // old URL
                 .build();
 
-        when(listingRepository.findByUrl("https://www.amazon.es/dp/B002")).thenReturn(Optional.empty());
-        when(productRepository.findByNameIgnoreCaseAndDeletedAtIsNull("ASUS RTX 4070"))
+        when(listingRepository.findByUrlForUpdate("https://www.amazon.es/dp/B002")).thenReturn(Optional.empty());
+        when(productRepository.findByNormalizedNameAndDeletedAtIsNull("asus rtx 4070"))
                 .thenReturn(Optional.of(existingProduct));
-        when(listingRepository.findByProductIdAndSourceId(10L, 1L)).thenReturn(Optional.of(existingListing));
+        when(listingRepository.findByProductIdAndSourceIdForUpdate(10L, 1L)).thenReturn(Optional.of(existingListing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
@@ -228,7 +295,8 @@ class ProductUnificationServiceTest {
         ArgumentCaptor<ProductListing> captor = ArgumentCaptor.forClass(ProductListing.class);
         verify(listingRepository).save(captor.capture());
         assertThat(captor.getValue().getUrl()).isEqualTo("https://www.amazon.es/dp/B002");
-        verify(productRepository, never()).save(any());
+        verify(productRepository, never()).insertIfAbsent(any(), any(), any());
+        verify(listingRepository, never()).insertIfAbsent(any(), any(), any());
     }
 
     @Test
@@ -242,7 +310,7 @@ class ProductUnificationServiceTest {
                 .id(1L).product(product).source(amazonSource)
                 .url("https://www.amazon.es/dp/B001").build();
 
-        when(listingRepository.findByUrl(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
         when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
@@ -252,5 +320,205 @@ class ProductUnificationServiceTest {
         verify(priceHistoryRepository).save(historyCaptor.capture());
         assertThat(historyCaptor.getValue().getPrice()).isEqualByComparingTo("599");
         assertThat(historyCaptor.getValue().getScrapedAt()).isNotNull();
+        verify(priceRollupService).recordObservation(eq(1L), eq(1L), eq(new BigDecimal("599")), any());
+        verify(listingPriceStatsService).recordPriceChange(eq(1L), eq(1L), eq(new BigDecimal("599")), any());
+    }
+
+    @Test
+    void should_PlaceSameProductKeyInSamePartition_When_NamesDifferOnlyInCaseAndSpacing() {
+        List<ScrapedProductDTO> items = List.of(
+                ScrapedProductDTO.builder().name("ASUS RTX 4070").price(BigDecimal.ONE).url("u1").build(),
+                ScrapedProductDTO.builder().name("  asus   rtx 4070 ").price(BigDecimal.ONE).url("u2").build(),
+                ScrapedProductDTO.builder().name("Dell XPS 15").price(BigDecimal.ONE).url("u3").build(),
+                ScrapedProductDTO.builder().name("Skipped").price(null).url("u4").build());
+
+        List<List<ScrapedProductDTO>> partitions = ProductUnificationService.partitionByProductKey(items, 8);
+
+        assertThat(partitions).flatExtracting(p -> p).hasSize(3);
+        assertThat(partitions).anySatisfy(p -> assertThat(p)
+                .extracting(ScrapedProductDTO::getUrl).containsExactly("u1", "u2"));
+    }
+
+    @Test
+    void should_IngestEveryItem_When_PartitionsRunOnWorkerThreads() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            service = newService(4, executor);
+            Product product = Product.builder().id(1L).name("RTX").build();
+            List<ScrapedProductDTO> items = IntStream.range(0, 40)
+                    .mapToObj(i -> ScrapedProductDTO.builder().name("Product " + i)
+                            .price(new BigDecimal("100")).url("https://shop/" + i).inStock(true).build())
+                    .toList();
+
+            when(listingRepository.findByUrlForUpdate(anyString())).thenAnswer(inv -> Optional.of(ProductListing.builder()
+                    .product(product).source(amazonSource).url(inv.getArgument(0)).build()));
+            when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+            when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+            service.saveResults(items, amazonSource);
+
+            verify(priceHistoryRepository, times(40)).save(any());
+            verify(priceEventBus, times(40)).publishAfterCommit(any(ListingCreated.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_OnlyTouchListing_When_PriceAndStockUnchangedSinceLastScrape() {
+        ScrapedProductDTO scraped = ScrapedProductDTO.builder()
+                .name("RTX 4070").price(new BigDecimal("599.00"))
+                .url("https://www.amazon.es/dp/B001").inStock(true).build();
+
+        Product product = Product.builder().id(1L).name("RTX 4070").build();
+        ProductListing listing = ProductListing.builder()
+                .id(7L).product(product).source(amazonSource)
+                .url("https://www.amazon.es/dp/B001").build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.saveResults(List.of(scraped), amazonSource);
+        // Same price with a different scale is still "unchanged"
+        scraped.setPrice(new BigDecimal("599"));
+        service.saveResults(List.of(scraped), amazonSource);
+
+        verify(listingRepository, times(1)).save(any());
+        verify(priceHistoryRepository, times(1)).save(any());
+        verify(priceEventBus, times(1)).publishAfterCommit(any());
+        verify(listingRepository).touchLastScrapedAt(eq(List.of(7L)), any());
+        verify(priceHistoryRepository).confirmOpenIntervals(eq(List.of(7L)), any());
+        verify(priceRollupService).recordUnchanged(eq(List.of(7L)), any());
+        verify(priceRollupService, times(1)).recordObservation(any(), any(), any(), any());
+    }
+
+    @Test
+    void should_ExtendOpenInterval_When_PriceAndStockMatchCurrentState() {
+        ScrapedProductDTO scraped = ScrapedProductDTO.builder()
+                .name("RTX 4070").price(new BigDecimal("599"))
+                .url("https://www.amazon.es/dp/B001").inStock(true).build();
+
+        Product product = Product.builder().id(1L).name("RTX 4070").build();
+        ProductListing listing = ProductListing.builder()
+                .id(7L).product(product).source(amazonSource).url("https://www.amazon.es/dp/B001").build();
+        PriceHistory open = PriceHistory.builder()
+                .id(3L).listing(listing).product(product).price(new BigDecimal("599.00")).inStock(true)
+                .scrapedAt(LocalDateTime.now().minusDays(3)).lastConfirmedAt(LocalDateTime.now().minusDays(1))
+                .sampleCount(4).build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.findFirstByListingIdAndValidToIsNull(7L)).thenReturn(Optional.of(open));
+
+        service.saveResults(List.of(scraped), amazonSource);
+
+        ArgumentCaptor<PriceHistory> captor = ArgumentCaptor.forClass(PriceHistory.class);
+        verify(priceHistoryRepository, times(1)).save(captor.capture());
+        assertThat(captor.getValue().getId()).isEqualTo(3L);
+        assertThat(captor.getValue().getSampleCount()).isEqualTo(5);
+        assertThat(captor.getValue().getLastConfirmedAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+        assertThat(captor.getValue().getValidTo()).isNull();
+    }
+
+    @Test
+    void should_CloseOpenIntervalAndStartNewOne_When_PriceChanges() {
+        ScrapedProductDTO scraped = ScrapedProductDTO.builder()
+                .name("RTX 4070").price(new BigDecimal("549"))
+                .url("https://www.amazon.es/dp/B001").inStock(true).build();
+
+        Product product = Product.builder().id(1L).name("RTX 4070").build();
+        ProductListing listing = ProductListing.builder()
+                .id(7L).product(product).source(amazonSource).url("https://www.amazon.es/dp/B001").build();
+        PriceHistory open = PriceHistory.builder()
+                .id(3L).listing(listing).product(product).price(new BigDecimal("599")).inStock(true)
+                .scrapedAt(LocalDateTime.now().minusDays(3)).lastConfirmedAt(LocalDateTime.now().minusDays(1))
+                .build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.findFirstByListingIdAndValidToIsNull(7L)).thenReturn(Optional.of(open));
+
+        service.saveResults(List.of(scraped), amazonSource);
+
+        ArgumentCaptor<PriceHistory> captor = ArgumentCaptor.forClass(PriceHistory.class);
+        verify(priceHistoryRepository, times(2)).save(captor.capture());
+        PriceHistory closed = captor.getAllValues().get(0);
+        PriceHistory opened = captor.getAllValues().get(1);
+        assertThat(closed.getValidTo()).isNotNull();
+        assertThat(opened.getPrice()).isEqualByComparingTo("549");
+        assertThat(opened.getScrapedAt()).isEqualTo(closed.getValidTo());
+        assertThat(opened.getLastConfirmedAt()).isEqualTo(opened.getScrapedAt());
+        assertThat(opened.getValidTo()).isNull();
+    }
+
+    @Test
+    void should_RunFullIngestion_When_PriceDiffersFromFingerprint() {
+        ScrapedProductDTO scraped = ScrapedProductDTO.builder()
+                .name("RTX 4070").price(new BigDecimal("599"))
+                .url("https://www.amazon.es/dp/B001").inStock(true).build();
+
+        Product product = Product.builder().id(1L).name("RTX 4070").build();
+        ProductListing listing = ProductListing.builder()
+                .id(7L).product(product).source(amazonSource)
+                .url("https://www.amazon.es/dp/B001").build();
+
+        when(listingRepository.findByUrlForUpdate(any())).thenReturn(Optional.of(listing));
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.saveResults(List.of(scraped), amazonSource);
+        scraped.setPrice(new BigDecimal("549"));
+        service.saveResults(List.of(scraped), amazonSource);
+
+        verify(priceHistoryRepository, times(2)).save(any());
+        verify(priceEventBus).publishAfterCommit(argThat(event ->
+                event instanceof PriceChanged changed && changed.price().compareTo(new BigDecimal("549")) == 0));
+        verify(listingRepository, never()).touchLastScrapedAt(any(), any());
+    }
+
+    @Test
+    void should_DropLocalResultsPerItemAndPublishInBatches_When_PartitionCommitsManyChanges() {
+        IngestionConfig config = new IngestionConfig();
+        config.setParallelism(1);
+        config.setInvalidationBatchSize(2);
+        service = newService(config, MoreExecutors.newDirectExecutorService());
+        Product product = Product.builder().id(1L).name("RTX").build();
+        List<ScrapedProductDTO> items = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> ScrapedProductDTO.builder().name("RTX")
+                        .price(new BigDecimal("100")).url("https://shop/" + i).inStock(true).build())
+                .toList();
+
+        when(listingRepository.findByUrlForUpdate(anyString())).thenAnswer(inv -> {
+            String url = inv.getArgument(0);
+            return Optional.of(ProductListing.builder()
+                    .id(Long.valueOf(url.substring(url.lastIndexOf('/') + 1)))
+                    .product(product).source(amazonSource).url(url).build());
+        });
+        when(listingRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(priceHistoryRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service.saveResults(items, amazonSource);
+
+        InOrder inOrder = inOrder(resultCache, cacheInvalidations);
+        inOrder.verify(resultCache, times(2)).listingsChanged(eq(Set.of(1L)), anyBoolean());
+        inOrder.verify(cacheInvalidations).invalidate(CacheEntity.LISTING, List.of(1L, 2L));
+        inOrder.verify(resultCache, times(2)).listingsChanged(eq(Set.of(1L)), anyBoolean());
+        inOrder.verify(cacheInvalidations).invalidate(CacheEntity.LISTING, List.of(3L, 4L));
+        inOrder.verify(resultCache).listingsChanged(eq(Set.of(1L)), anyBoolean());
+        inOrder.verify(cacheInvalidations).invalidate(CacheEntity.LISTING, List.of(5L));
+        verifyNoMoreInteractions(cacheInvalidations);
+    }
+
+    private ProductUnificationService newService(int parallelism, ExecutorService executor) {
+        IngestionConfig config = new IngestionConfig();
+        config.setParallelism(parallelism);
+        return newService(config, executor);
+    }
+
+    private ProductUnificationService newService(IngestionConfig config, ExecutorService executor) {
+        return new ProductUnificationService(productRepository, listingRepository, priceHistoryRepository,
+                transactionTemplate, priceAlertService, priceRollupService, listingPriceStatsService, fingerprintCache,
+                priceEventBus, cacheInvalidations, resultCache, config, executor);
     }
 }
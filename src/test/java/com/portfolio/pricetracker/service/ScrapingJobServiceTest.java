@@ -172,7 +172,7 @@ class ScrapingJobServiceTest {
         ScrapingJob job2 = ScrapingJob.builder().id(2L).source(amazonSource)
                 .searchKeyword("rtx 4080").status(JobStatus.PENDING).build();
 
-        when(jobRepository.findAll()).thenReturn(List.of(job1, job2));
+        when(jobRepository.findAllWithSource()).thenReturn(List.of(job1, job2));
 
         List<ScrapingJobDTO> result = service.findAll();
 
@@ -0,0 +1,84 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.TrendingConfig;
+import com.portfolio.pricetracker.dto.ScrapedProductDTO;
+import com.portfolio.pricetracker.dto.TrendingProductDTO;
+import com.portfolio.pricetracker.entity.ScraperType;
+import com.portfolio.pricetracker.entity.WebsiteSource;
+import com.portfolio.pricetracker.repository.WebsiteSourceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Testcontainers
+class TrendingScoresIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private ProductUnificationService unificationService;
+    @Autowired private WebsiteSourceRepository sourceRepository;
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private TrendingScores trendingScores;
+    @Autowired private TrendingConfig trendingConfig;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_RankIngestedProductsAndShareScoresThroughTheTable() throws InterruptedException {
+        WebsiteSource amazon = sourceRepository.findByScraperType(ScraperType.AMAZON).orElseThrow();
+        WebsiteSource mediamarkt = sourceRepository.findByScraperType(ScraperType.MEDIAMARKT).orElseThrow();
+        unificationService.saveResults(List.of(item("Trending GPU", "https://www.amazon.es/dp/TREND1", "599")), amazon);
+        unificationService.saveResults(List.of(item("Trending GPU", "https://www.mediamarkt.es/product/TREND1", "579")), mediamarkt);
+
+        // One ListingCreated per listing, consumed asynchronously
+        awaitTrue(() -> trendingScores.top(1).stream().anyMatch(score -> score.score() > 1.99));
+        TrendingProductDTO top = analyticsService.getTrending(10).get(0);
+        assertThat(top.getProductName()).isEqualTo("Trending GPU");
+        assertThat(top.getLowestCurrentPrice()).isEqualByComparingTo("579");
+        assertThat(top.getScore()).isCloseTo(2.0, within(0.01));
+
+        trendingScores.persist();
+        TrendingScores otherNode = new TrendingScores(trendingConfig, jdbcTemplate);
+        otherNode.load();
+
+        assertThat(otherNode.top(10)).singleElement().satisfies(score -> {
+            assertThat(score.productId()).isEqualTo(top.getProductId());
+            assertThat(score.score()).isCloseTo(2.0, within(0.01));
+        });
+    }
+
+    private static ScrapedProductDTO item(String name, String url, String price) {
+        return ScrapedProductDTO.builder()
+                .name(name).url(url).price(new BigDecimal(price)).inStock(true).build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
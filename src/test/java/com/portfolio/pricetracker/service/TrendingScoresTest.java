@@ -0,0 +1,69 @@
+package com.portfolio.pricetracker.service;
+
+import com.portfolio.pricetracker.config.TrendingConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrendingScoresTest {
+
+    private static final double HOUR = 3600;
+
+    private final TrendingConfig config = new TrendingConfig();
+    private TrendingScores scores;
+    private double now;
+
+    @BeforeEach
+    void setUp() {
+        config.setHalfLife(Duration.ofHours(1));
+        config.setSize(2);
+        scores = new TrendingScores(config, null);
+        now = System.currentTimeMillis() / 1000.0;
+    }
+
+    @Test
+    void should_HalveScoresEveryHalfLife() {
+        scores.record(1L, 8.0, now);
+
+        assertThat(scores.top(1, now + 3 * HOUR)).singleElement()
+                .satisfies(score -> assertThat(score.score()).isCloseTo(1.0, within(1e-9)));
+    }
+
+    @Test
+    void should_RankRecentActivityAboveOlderActivity() {
+        scores.record(1L, 4.0, now);
+        scores.record(2L, 1.0, now + 3 * HOUR);
+
+        assertThat(productIds(scores.top(2, now + 3 * HOUR))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void should_KeepOnlyTheBestProductsRanked() {
+        scores.record(1L, 3.0, now);
+        scores.record(2L, 2.0, now);
+        scores.record(3L, 1.0, now);
+        scores.record(3L, 3.0, now);
+
+        assertThat(productIds(scores.top(5, now))).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void should_RefillRanking_When_RankedProductIsForgotten() {
+        scores.record(1L, 3.0, now);
+        scores.record(2L, 2.0, now);
+        scores.record(3L, 1.0, now);
+
+        scores.forget(List.of(1L));
+
+        assertThat(productIds(scores.top(2, now))).containsExactly(2L, 3L);
+    }
+
+    private static List<Long> productIds(List<TrendingScores.Score> top) {
+        return top.stream().map(TrendingScores.Score::productId).toList();
+    }
+}
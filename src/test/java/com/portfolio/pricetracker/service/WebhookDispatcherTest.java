@@ -0,0 +1,212 @@
+package com.portfolio.pricetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.portfolio.pricetracker.config.WebhookConfig;
+import com.portfolio.pricetracker.dto.PriceChangeEventDTO;
+import com.portfolio.pricetracker.entity.WebhookSubscription;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs webhook delivery against a local stand-in receiver.
+ */
+class WebhookDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Map<String, List<JsonNode>> received = new ConcurrentHashMap<>();
+    private final List<Integer> statuses = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final ExecutorService webhookExecutor = Executors.newFixedThreadPool(4);
+    private HttpServer server;
+    private WebhookConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            received.computeIfAbsent(exchange.getRequestURI().getPath(), p -> new CopyOnWriteArrayList<>())
+                    .add(objectMapper.readTree(exchange.getRequestBody()));
+            try {
+                hold.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int status = statuses.isEmpty() ? 200 : statuses.remove(0);
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        config = new WebhookConfig();
+        config.setRetryBackoff(Duration.ofMillis(10));
+        config.setTimeout(Duration.ofSeconds(2));
+        // The stand-in receiver listens on plain http on loopback
+        config.setAllowPrivateTargets(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hold.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        webhookExecutor.shutdownNow();
+    }
+
+    @Test
+    void should_BatchEventsPerSubscriber_RoutedByScope() throws Exception {
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(
+                subscription(1L, "/product", 1L, null),
+                subscription(2L, "/category", null, "GPU"),
+                subscription(3L, "/all", null, null)));
+
+        dispatcher.publish(event(1L, "gpu", "499.00"));
+        dispatcher.publish(event(2L, "CPU", "299.00"));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(received.get("/product")).singleElement()
+                .satisfies(batch -> assertThat(batch.get("events")).hasSize(1));
+        assertThat(received.get("/category")).singleElement()
+                .satisfies(batch -> assertThat(batch.get("events").get(0).get("productId").asLong()).isEqualTo(1L));
+        assertThat(received.get("/all")).singleElement().satisfies(batch -> {
+            assertThat(batch.get("subscriptionId").asLong()).isEqualTo(3L);
+            assertThat(batch.get("events")).hasSize(2);
+        });
+    }
+
+    @Test
+    void should_SplitBacklog_IntoBatchesOfMaxSize() throws Exception {
+        config.setMaxBatchSize(2);
+        config.setConcurrencyPerSubscriber(3);
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+
+        for (int i = 0; i < 5; i++) dispatcher.publish(event(1L, "GPU", "49" + i));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(received.get("/all")).extracting(batch -> batch.get("events").size())
+                .containsExactlyInAnyOrder(2, 2, 1);
+    }
+
+    @Test
+    void should_KeepBacklogQueued_When_SubscriberIsAtConcurrencyLimit() throws Exception {
+        config.setMaxBatchSize(1);
+        config.setConcurrencyPerSubscriber(1);
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+        hold = new CountDownLatch(1);
+
+        dispatcher.publish(event(1L, "GPU", "499.00"));
+        dispatcher.publish(event(1L, "GPU", "489.00"));
+        var first = dispatcher.flush();
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+        assertThat(requests.get()).isLessThanOrEqualTo(1);
+
+        hold.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+        assertThat(received.get("/all")).hasSize(2);
+    }
+
+    @Test
+    void should_RetryWithBackoff_When_ReceiverFails() throws Exception {
+        config.setMaxAttempts(3);
+        statuses.addAll(List.of(503, 500));
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+
+        dispatcher.publish(event(1L, "GPU", "499.00"));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(requests.get()).isEqualTo(3);
+        assertThat(dispatcher.droppedEvents()).isZero();
+    }
+
+    @Test
+    void should_DropBatch_After_MaxAttempts() throws Exception {
+        config.setMaxAttempts(2);
+        statuses.addAll(List.of(503, 503));
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+
+        dispatcher.publish(event(1L, "GPU", "499.00"));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(dispatcher.droppedEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void should_DropOldestEvents_When_QueueIsFull() throws Exception {
+        config.setMaxQueuedEvents(2);
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+
+        dispatcher.publish(event(1L, "GPU", "499.00"));
+        dispatcher.publish(event(1L, "GPU", "489.00"));
+        dispatcher.publish(event(1L, "GPU", "479.00"));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(dispatcher.droppedEvents()).isEqualTo(1);
+        assertThat(received.get("/all").get(0).get("events"))
+                .extracting(e -> e.get("price").asDouble())
+                .containsExactly(489.0, 479.0);
+    }
+
+    @Test
+    void should_RefuseDelivery_When_TargetIsNotPublic() throws Exception {
+        config.setAllowPrivateTargets(false);
+        WebhookDispatcher dispatcher = newDispatcher();
+        dispatcher.replaceSubscriptions(List.of(subscription(1L, "/all", null, null)));
+
+        dispatcher.publish(event(1L, "GPU", "499.00"));
+        dispatcher.flush().get(5, TimeUnit.SECONDS);
+
+        assertThat(requests).hasValue(0);
+        assertThat(dispatcher.droppedEvents()).isEqualTo(1);
+    }
+
+    private WebhookDispatcher newDispatcher() {
+        return new WebhookDispatcher(config, objectMapper, webhookExecutor);
+    }
+
+    private WebhookSubscription subscription(Long id, String path, Long productId, String category) {
+        return WebhookSubscription.builder()
+                .id(id).url("http://localhost:" + server.getAddress().getPort() + path)
+                .productId(productId).category(category)
+                .build();
+    }
+
+    private static PriceChangeEventDTO event(Long productId, String category, String price) {
+        return PriceChangeEventDTO.builder()
+                .productId(productId).productName("Product " + productId).category(category)
+                .listingId(productId * 10).price(new BigDecimal(price)).inStock(true)
+                .changedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.portfolio.pricetracker.service.event;
+
+import com.portfolio.pricetracker.config.EventBusConfig;
+import com.portfolio.pricetracker.dto.EventConsumerStatsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceEventBusTest {
+
+    private PriceEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) bus.stop();
+    }
+
+    @Test
+    void should_DeliverEveryEventInOrder_ToEachConsumer() throws Exception {
+        RecordingConsumer first = new RecordingConsumer("first");
+        RecordingConsumer second = new RecordingConsumer("second");
+        bus = newBus(1024, 16, first, second);
+        bus.start();
+
+        for (long i = 1; i <= 100; i++) bus.publish(event(i));
+
+        awaitTrue(() -> first.listingIds.size() == 100 && second.listingIds.size() == 100);
+        assertThat(first.listingIds).isSorted().startsWith(1L).endsWith(100L);
+        assertThat(second.listingIds).isEqualTo(first.listingIds);
+        assertThat(first.largestBatch).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    void should_WaitForSlowConsumer_InsteadOfDroppingEvents_When_RingIsFull() throws Exception {
+        RecordingConsumer slow = new RecordingConsumer("slow");
+        slow.delayMillis = 1;
+        bus = newBus(8, 4, Duration.ofSeconds(5), slow);
+        bus.start();
+
+        for (long i = 1; i <= 200; i++) bus.publish(event(i));
+
+        awaitTrue(() -> slow.listingIds.size() == 200);
+        assertThat(slow.listingIds).isSorted().startsWith(1L).endsWith(200L);
+        assertThat(stats("slow").getDropped()).isZero();
+        assertThat(slow.lost).isZero();
+    }
+
+    @Test
+    void should_NotBlockPublisherOrOtherConsumers_When_OneConsumerIsStuck() throws Exception {
+        RecordingConsumer healthy = new RecordingConsumer("healthy");
+        RecordingConsumer stuck = new RecordingConsumer("stuck");
+        stuck.gate = new CountDownLatch(1);
+        bus = newBus(8, 4, Duration.ofMillis(200), healthy, stuck);
+        bus.start();
+
+        long startedAt = System.nanoTime();
+        for (long i = 1; i <= 50; i++) bus.publish(event(i));
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // Publishing gave up on the stuck consumer once instead of waiting for its gate
+        assertThat(publishMillis).isLessThan(2_000);
+        awaitTrue(() -> healthy.listingIds.size() == 50);
+        assertThat(healthy.listingIds).isSorted().startsWith(1L).endsWith(50L);
+        assertThat(stats("healthy").getDropped()).isZero();
+        EventConsumerStatsDTO stuckStats = stats("stuck");
+        assertThat(stuckStats.getLag()).isPositive();
+        assertThat(stuckStats.isBehind()).isTrue();
+
+        stuck.gate.countDown();
+        awaitTrue(() -> stats("stuck").getProcessed() + stats("stuck").getDropped() == 50);
+        EventConsumerStatsDTO caughtUp = stats("stuck");
+        // It lost what the ring could not hold, was told so, and resumed from the oldest event still in it
+        assertThat(caughtUp.getLag()).isZero();
+        assertThat(caughtUp.getDropped()).isPositive();
+        assertThat(stuck.lost).isEqualTo(caughtUp.getDropped());
+        assertThat(stuck.listingIds).endsWith(50L);
+        assertThat(caughtUp.isBehind()).isFalse();
+    }
+
+    @Test
+    void should_CountFailedBatches_AndKeepGoing() throws Exception {
+        RecordingConsumer failing = new RecordingConsumer("failing");
+        failing.failOn = 3L;
+        bus = newBus(64, 1, failing);
+        bus.start();
+
+        for (long i = 1; i <= 5; i++) bus.publish(event(i));
+
+        awaitTrue(() -> stats("failing").getProcessed() + stats("failing").getFailed() == 5);
+        assertThat(stats("failing").getFailed()).isEqualTo(1);
+        assertThat(failing.listingIds).containsExactly(1L, 2L, 4L, 5L);
+    }
+
+    private EventConsumerStatsDTO stats(String consumer) {
+        return bus.stats().stream().filter(s -> s.getConsumer().equals(consumer)).findFirst().orElseThrow();
+    }
+
+    private static PriceEventBus newBus(int ringSize, int maxBatchSize, PriceEventConsumer... consumers) {
+        return newBus(ringSize, maxBatchSize, Duration.ofMillis(100), consumers);
+    }
+
+    private static PriceEventBus newBus(int ringSize, int maxBatchSize, Duration publishTimeout,
+                                        PriceEventConsumer... consumers) {
+        EventBusConfig config = new EventBusConfig();
+        config.setRingSize(ringSize);
+        config.setMaxBatchSize(maxBatchSize);
+        config.setPublishTimeout(publishTimeout);
+        return new PriceEventBus(config, List.of(consumers));
+    }
+
+    private static PriceEvent event(long listingId) {
+        return new PriceChanged(listingId, 1L, "RTX 4070", "GPU", "https://shop/" + listingId, "Amazon ES",
+                new BigDecimal("599.00"), new BigDecimal("549.00"), true, true, LocalDateTime.now());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static class RecordingConsumer implements PriceEventConsumer {
+
+        final String name;
+        final List<Long> listingIds = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        volatile Long failOn;
+        volatile long delayMillis;
+        volatile int largestBatch;
+        volatile long lost;
+
+        RecordingConsumer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onEvents(List<PriceEvent> events) {
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+                if (delayMillis > 0) Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            largestBatch = Math.max(largestBatch, events.size());
+            if (failOn != null && events.stream().anyMatch(e -> e.listingId().equals(failOn))) {
+                throw new IllegalStateException("consumer failure");
+            }
+            events.forEach(e -> listingIds.add(e.listingId()));
+        }
+
+        @Override
+        public void onEventsLost(long count) {
+            lost += count;
+        }
+
+        @Override
+        public String consumerName() {
+            return name;
+        }
+    }
+}
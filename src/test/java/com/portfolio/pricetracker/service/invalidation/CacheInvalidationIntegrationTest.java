@@ -0,0 +1,133 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import com.portfolio.pricetracker.config.CacheInvalidationConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plays a second node: a subscriber with its own node id listening on the same database
+ * the application publishes to.
+ */
+@SpringBootTest
+@Testcontainers
+class CacheInvalidationIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private CacheInvalidationPublisher publisher;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private DataSource dataSource;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final RecordingListener remoteCache = new RecordingListener();
+    private CacheInvalidationSubscriber remoteNode;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        CacheInvalidationConfig config = new CacheInvalidationConfig();
+        config.setNodeId("remote-node");
+        config.setPollTimeout(Duration.ofMillis(100));
+        remoteNode = new CacheInvalidationSubscriber(config, dataSource, jdbcTemplate, List.of(remoteCache));
+        remoteNode.start();
+        awaitTrue(() -> remoteNode.watermark() >= 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        remoteNode.stop();
+    }
+
+    @Test
+    void should_DeliverOneMergedCallPerEntityType_When_TransactionCommits() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.invalidate(CacheEntity.LISTING, 1L);
+            publisher.invalidate(CacheEntity.LISTING, List.of(2L, 1L));
+            publisher.invalidate(CacheEntity.PRODUCT, 3L);
+        });
+
+        awaitTrue(() -> remoteCache.calls.size() == 2);
+        assertThat(remoteCache.calls).containsExactlyInAnyOrder(
+                new Call(CacheEntity.LISTING, Set.of(1L, 2L)),
+                new Call(CacheEntity.PRODUCT, Set.of(3L)));
+    }
+
+    @Test
+    void should_InvalidateNothing_When_TransactionRollsBack() throws InterruptedException {
+        long before = remoteNode.receivedNotifications();
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.invalidate(CacheEntity.LISTING, 100L);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> publisher.invalidate(CacheEntity.LISTING, 101L));
+
+        awaitTrue(() -> remoteNode.receivedNotifications() == before + 1);
+        assertThat(remoteCache.calls).containsExactly(new Call(CacheEntity.LISTING, Set.of(101L)));
+    }
+
+    @Test
+    void should_ReplayMissedChanges_When_Reconnecting() throws InterruptedException {
+        remoteNode.stop();
+        transactionTemplate.executeWithoutResult(status -> publisher.invalidate(CacheEntity.PRODUCT_ALERTS, 7L));
+        assertThat(remoteCache.calls).isEmpty();
+
+        remoteNode.start();
+
+        awaitTrue(() -> !remoteCache.calls.isEmpty());
+        assertThat(remoteCache.calls).contains(new Call(CacheEntity.PRODUCT_ALERTS, Set.of(7L)));
+        assertThat(remoteNode.resyncs()).isEqualTo(1);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private record Call(CacheEntity entity, Set<Long> ids) {
+    }
+
+    private static class RecordingListener implements CacheInvalidationListener {
+
+        final List<Call> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void invalidate(CacheEntity entity, Set<Long> ids) {
+            calls.add(new Call(entity, ids));
+        }
+
+        @Override
+        public void invalidateAll() {
+            calls.add(new Call(null, Set.of()));
+        }
+    }
+}
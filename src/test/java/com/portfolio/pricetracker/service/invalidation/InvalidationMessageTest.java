@@ -0,0 +1,49 @@
+package com.portfolio.pricetracker.service.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvalidationMessageTest {
+
+    @Test
+    void should_RoundTripOriginVersionEntityAndIds() {
+        String payload = InvalidationMessage.prefix("node-a") + 42 + InvalidationMessage.suffix(CacheEntity.LISTING, List.of(3L, 5L));
+
+        InvalidationMessage message = InvalidationMessage.parse(payload);
+
+        assertThat(message.origin()).isEqualTo("node-a");
+        assertThat(message.version()).isEqualTo(42);
+        assertThat(message.entity()).isEqualTo(CacheEntity.LISTING);
+        assertThat(message.ids()).containsExactlyInAnyOrder(3L, 5L);
+    }
+
+    @Test
+    void should_LeaveIdsOut_When_TooManyForThePayload() {
+        List<Long> ids = LongStream.range(1_000_000, 1_002_000).boxed().toList();
+        String payload = InvalidationMessage.prefix("node-a") + 7 + InvalidationMessage.suffix(CacheEntity.LISTING, ids);
+
+        assertThat(payload.length()).isLessThan(8_000);
+        assertThat(InvalidationMessage.parse(payload).ids()).isNull();
+    }
+
+    @Test
+    void should_ParseOriginContainingSeparator() {
+        InvalidationMessage message = InvalidationMessage.parse("eu|node-1|9|PRODUCT_ALERTS|11");
+
+        assertThat(message.origin()).isEqualTo("eu|node-1");
+        assertThat(message.entity()).isEqualTo(CacheEntity.PRODUCT_ALERTS);
+        assertThat(message.ids()).isEqualTo(Set.of(11L));
+    }
+
+    @Test
+    void should_Reject_When_Malformed() {
+        assertThatThrownBy(() -> InvalidationMessage.parse("LISTING|1,2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}